@@ -12,7 +12,10 @@
 
 # Resolve links - $0 may be a softlink
 PRG="${0}"
-debug="$2"
+opt="$1"
+if [ "${opt}" != "export" ] && [ "${opt}" != "import" ]; then
+  debug="$2"
+fi
 
 while [ -h "${PRG}" ]; do
   ls=`ls -ld "${PRG}"`
@@ -56,9 +59,15 @@ execute() {
   ${JAVA} -Dbootstrap.dir=$BOOTSTRAP_DIR  -cp ${CLASSPATH} ${TABLE_INITIALIZER_MAIN_CLASS} -c ${CONFIG_FILE_PATH} -s ${SCRIPT_ROOT_DIR} --${1} -${debug}
 }
 
+transfer() {
+  ${JAVA} -Dbootstrap.dir=$BOOTSTRAP_DIR  -cp ${CLASSPATH} ${TABLE_INITIALIZER_MAIN_CLASS} -c ${CONFIG_FILE_PATH} -s ${SCRIPT_ROOT_DIR} "$@"
+}
+
 printUsage() {
     cat <<-EOF
-USAGE: $0 [create|migrate|info|validate|drop|drop-create|es-drop|es-create|drop-create-all|migrate-all|repair|check-connection|rotate] [debug]
+USAGE: $0 [create|migrate|info|validate|drop|drop-create|es-drop|es-create|drop-create-all|migrate-all|repair|check-connection|compact-versions|rotate] [debug]
+       $0 export <file> [entityTypes]
+       $0 import <file>
    create           : Creates the tables. The target database should be empty
    migrate          : Migrates the database to the latest version or creates the tables if the database is empty. Use "info" to see the current version and the pending migrations
    info             : Shows the list of migrations applied and the pending migration waiting to be applied on the target database
@@ -68,26 +77,28 @@ USAGE: $0 [create|migrate|info|validate|drop|drop-create|es-drop|es-create|drop-
    es-drop          : Drops the indexes in ElasticSearch
    es-create        : Creates the indexes in ElasticSearch
    drop-create-all  : Drops and recreates all the tables in the database. Drops and creates all the indexes in ElasticSearch
-   migrate-all      : Migrates the database to the latest version and migrates the indexes in ElasticSearch
+   migrate-all      : Migrates the database to the latest version, migrates the indexes in ElasticSearch and compacts the version history
    repair           : Repairs the DATABASE_CHANGE_LOG table which is used to track all the migrations on the target database
                       This involves removing entries for the failed migrations and update the checksum of migrations already applied on the target database
    check-connection : Checks if a connection can be successfully obtained for the target database
+   compact-versions : Stores the previous versions of the entities as patches against the next version
    rotate           : Rotate the Fernet Key defined in $FERNET_KEY
+   export           : Exports the entities to the file as newline delimited JSON. The entity types to export are
+                      given as a comma separated list, all the entity types are exported by default
+   import           : Imports the entities from a file created by export. Run es-drop and es-create afterwards
    debug            : Enable Debugging Mode to get more info
 EOF
 }
 
-if [ $# -gt 2 ]
+if [ $# -gt 2 ] && [ "${opt}" != "export" ]
 then
     echo "More than one argument specified, please use only one of the below options"
     printUsage
     exit 1
 fi
 
-opt="$1"
-
 case "${opt}" in
-create | drop | migrate | info | validate | repair | check-connection | es-drop | es-create | rotate)
+create | drop | migrate | info | validate | repair | check-connection | es-drop | es-create | compact-versions | rotate)
     execute "${opt}"
     ;;
 drop-create )
@@ -97,11 +108,23 @@ drop-create-all )
     execute "drop" && execute "create" && execute "es-drop" && execute "es-create"
     ;;
 migrate-all )
-    execute "migrate" && execute "es-migrate"
+    execute "migrate" && execute "es-migrate" && execute "compact-versions"
     ;;
 rotate )
     execute "rotate"
     ;;
+export )
+    [ -z "$2" ] && printUsage && exit 1
+    if [ -n "$3" ]; then
+      transfer --export --file "$2" --entity-types "$3"
+    else
+      transfer --export --file "$2"
+    fi
+    ;;
+import )
+    [ -z "$2" ] && printUsage && exit 1
+    transfer --import --file "$2"
+    ;;
 *)
     printUsage
     exit 1
@@ -0,0 +1,33 @@
+-- Table and column profiles are upserted by entity, extension and timestamp. Keep a single profile per key
+-- before adding the unique key. The table is created before it is filled, as CREATE TABLE ... SELECT is not
+-- allowed with GTID consistency enforced.
+CREATE TABLE IF NOT EXISTS entity_extension_time_series_profile (
+    entityFQN VARCHAR(1024) NOT NULL,
+    extension VARCHAR(256) NOT NULL,
+    timestamp BIGINT UNSIGNED NOT NULL,
+    jsonSchema VARCHAR(256) NOT NULL,
+    json JSON NOT NULL
+);
+
+INSERT INTO entity_extension_time_series_profile(entityFQN, extension, timestamp, jsonSchema, json)
+SELECT entityFQN, extension, timestamp, ANY_VALUE(jsonSchema), ANY_VALUE(json)
+FROM entity_extension_time_series
+WHERE extension IN ('table.tableProfile', 'table.columnProfile')
+GROUP BY entityFQN, extension, timestamp
+HAVING COUNT(*) > 1;
+
+DELETE ts FROM entity_extension_time_series ts
+JOIN entity_extension_time_series_profile p
+ON ts.entityFQN = p.entityFQN AND ts.extension = p.extension AND ts.timestamp = p.timestamp;
+
+INSERT INTO entity_extension_time_series(entityFQN, extension, jsonSchema, json)
+SELECT entityFQN, extension, jsonSchema, json FROM entity_extension_time_series_profile;
+
+DROP TABLE entity_extension_time_series_profile;
+
+-- Other time series, such as report data, have several rows at the same timestamp. Their profileKey is NULL and
+-- is not constrained by the unique key.
+ALTER TABLE entity_extension_time_series
+ADD COLUMN profileKey VARCHAR(32) GENERATED ALWAYS AS
+    (CASE WHEN extension IN ('table.tableProfile', 'table.columnProfile') THEN MD5(entityFQN) END) STORED,
+ADD UNIQUE KEY profile_key_index (profileKey, extension, timestamp);
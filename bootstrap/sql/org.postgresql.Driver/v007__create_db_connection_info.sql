@@ -0,0 +1,16 @@
+-- Table and column profiles are upserted by entity, extension and timestamp. Keep a single profile per key
+-- before adding the unique index.
+DELETE FROM entity_extension_time_series a
+USING entity_extension_time_series b
+WHERE a.extension IN ('table.tableProfile', 'table.columnProfile')
+AND a.entityFQN = b.entityFQN AND a.extension = b.extension AND a.timestamp = b.timestamp
+AND a.ctid < b.ctid;
+
+-- Other time series, such as report data, have several rows at the same timestamp. Their profileKey is NULL and
+-- is not constrained by the unique index.
+ALTER TABLE entity_extension_time_series
+ADD COLUMN IF NOT EXISTS profileKey VARCHAR(32) GENERATED ALWAYS AS
+    (CASE WHEN extension IN ('table.tableProfile', 'table.columnProfile') THEN md5(entityFQN) END) STORED;
+
+CREATE UNIQUE INDEX IF NOT EXISTS profile_key_index
+ON entity_extension_time_series(profileKey, extension, timestamp);
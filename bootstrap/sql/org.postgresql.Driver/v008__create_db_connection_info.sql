@@ -0,0 +1,14 @@
+-- The change event outbox reads the change events in the order of this offset, assigned by the database when a
+-- change event is written
+ALTER TABLE change_event ADD COLUMN IF NOT EXISTS eventOffset BIGSERIAL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS change_event_offset_index ON change_event(eventOffset);
+
+-- The server holding the lease of an event publisher delivers its change events from the outbox
+CREATE TABLE IF NOT EXISTS event_outbox_lease (
+    publisher VARCHAR(256) NOT NULL,    -- Name of the event publisher
+    owner VARCHAR(36) NOT NULL,         -- Id of the server holding the lease
+    expiresAt BIGINT NOT NULL,          -- Time in milliseconds when the lease expires
+    replayFrom BIGINT,                  -- Timestamp from which the change events are to be delivered again
+    PRIMARY KEY (publisher)
+);
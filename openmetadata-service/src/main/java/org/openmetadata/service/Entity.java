@@ -26,8 +26,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import javax.ws.rs.core.UriInfo;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.schema.EntityInterface;
 import org.openmetadata.schema.type.EntityReference;
@@ -177,16 +179,55 @@ public final class Entity {
       throw EntityNotFoundException.byMessage(CatalogExceptionMessage.entityTypeNotFound(entityType));
     }
     include = repository.supportsSoftDelete ? Include.ALL : include;
-    return repository.dao.findEntityReferenceById(id, include);
+    EntityReferenceCache cache = EntityReferenceCache.getInstance();
+    if (cache == null) {
+      return repository.dao.findEntityReferenceById(id, include);
+    }
+    Include finalInclude = include;
+    return cache.getById(entityType, id, () -> repository.dao.findEntityReferenceById(id, finalInclude));
+  }
+
+  /**
+   * Get references of the entities of type {@code entityType} in the same order as {@code ids}. References not found in
+   * the cache are read with a single query per batch of ids instead of one query per id.
+   */
+  public static List<EntityReference> getEntityReferencesByIds(
+      @NonNull String entityType, @NonNull List<UUID> ids, Include include) throws IOException {
+    EntityRepository<?> repository = ENTITY_REPOSITORY_MAP.get(entityType);
+    if (repository == null) {
+      throw EntityNotFoundException.byMessage(CatalogExceptionMessage.entityTypeNotFound(entityType));
+    }
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Include finalInclude = repository.supportsSoftDelete ? Include.ALL : include;
+    EntityReferenceCache cache = EntityReferenceCache.getInstance();
+    if (cache == null) {
+      return findEntityReferencesByIds(repository.dao, ids, finalInclude);
+    }
+    return cache.getAllById(
+        entityType, ids, missingIds -> findEntityReferencesByIds(repository.dao, missingIds, finalInclude));
+  }
+
+  private static List<EntityReference> findEntityReferencesByIds(EntityDAO<?> dao, List<UUID> ids, Include include)
+      throws IOException {
+    return dao.findEntitiesByIds(ids, include).stream()
+        .map(EntityInterface::getEntityReference)
+        .collect(Collectors.toList());
   }
 
+  @SneakyThrows
   public static EntityReference getEntityReferenceByName(
       @NonNull String entityType, @NonNull String fqn, Include include) {
     EntityDAO<?> dao = DAO_MAP.get(entityType);
     if (dao == null) {
       throw EntityNotFoundException.byMessage(CatalogExceptionMessage.entityTypeNotFound(entityType));
     }
-    return dao.findEntityReferenceByName(fqn, include);
+    EntityReferenceCache cache = EntityReferenceCache.getInstance();
+    if (cache == null) {
+      return dao.findEntityReferenceByName(fqn, include);
+    }
+    return cache.getByName(entityType, fqn, include, () -> dao.findEntityReferenceByName(fqn, include));
   }
 
   public static EntityReference getOwner(@NonNull EntityReference reference) throws IOException {
@@ -254,6 +295,12 @@ public final class Entity {
     return EntityInterface.CANONICAL_ENTITY_NAME_MAP.get(clz.getSimpleName().toLowerCase(Locale.ROOT));
   }
 
+  /** Returns the class of the entity type or null when the entity type is not registered */
+  public static Class<? extends EntityInterface> getEntityClassFromType(String entityType) {
+    EntityDAO<?> dao = DAO_MAP.get(entityType);
+    return dao == null ? null : dao.getEntityClass();
+  }
+
   public static String getEntityTypeFromObject(Object object) {
     return EntityInterface.CANONICAL_ENTITY_NAME_MAP.get(object.getClass().getSimpleName().toLowerCase(Locale.ROOT));
   }
@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.Include;
+import org.openmetadata.service.jdbi3.CommitCallbacks;
+
+/**
+ * In-process cache of {@link EntityReference} used by {@link Entity#getEntityReferenceById} and {@link
+ * Entity#getEntityReferenceByName} to avoid reading and deserializing the full entity JSON to build a reference.
+ *
+ * <p>References are cached by entity id. Lookups by name go through a (entityType, fullyQualifiedName) to id index and
+ * a cached reference is only served when its fullyQualifiedName still matches the name being looked up, so that a
+ * rename never returns a stale reference for the old name.
+ *
+ * <p>Entries are invalidated when an entity is written through {@link org.openmetadata.service.jdbi3.EntityDAO} and
+ * again from {@link org.openmetadata.service.events.ChangeEventHandler} once the change is committed.
+ *
+ * <p>The references of the entities written by a request are not cached until the request completes, as the request
+ * reads its own writes before they are committed. They are invalidated again when the request completes, whether its
+ * writes are committed or rolled back. See {@link CommitCallbacks}.
+ */
+@Slf4j
+public final class EntityReferenceCache {
+  private static EntityReferenceCache INSTANCE;
+
+  private final Cache<UUID, EntityReference> referenceCache;
+  private final Cache<String, UUID> nameCache;
+
+  /** Ids and names of the entities written by the current request, which must not be cached until it completes */
+  private static final class Written {
+    private final Set<UUID> ids = new HashSet<>();
+    private final Set<String> nameKeys = new HashSet<>();
+
+    private void invalidate() {
+      if (INSTANCE != null) {
+        INSTANCE.referenceCache.invalidateAll(ids);
+        INSTANCE.nameCache.invalidateAll(nameKeys);
+      }
+    }
+
+    private boolean contains(EntityReference ref, String nameKey) {
+      return ids.contains(ref.getId()) || (nameKey != null && nameKeys.contains(nameKey));
+    }
+  }
+
+  /** Loads an entity reference from the database when it is not found in the cache */
+  @FunctionalInterface
+  public interface ReferenceLoader {
+    EntityReference load() throws IOException;
+  }
+
+  /** Loads entity references, in the order of the given ids, from the database for the ids not found in the cache */
+  @FunctionalInterface
+  public interface BulkReferenceLoader {
+    List<EntityReference> load(List<UUID> ids) throws IOException;
+  }
+
+  private EntityReferenceCache(EntityReferenceCacheConfiguration config) {
+    referenceCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfterWrite(config.getExpiryInSeconds(), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+    nameCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfterWrite(config.getExpiryInSeconds(), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+  }
+
+  // Expected to be called only once during application startup
+  public static void initialize(EntityReferenceCacheConfiguration config, MeterRegistry meterRegistry) {
+    if (config == null || !config.isEnabled()) {
+      LOG.info("Entity reference cache is disabled");
+      return;
+    }
+    INSTANCE = new EntityReferenceCache(config);
+    if (meterRegistry != null) {
+      GuavaCacheMetrics.monitor(meterRegistry, INSTANCE.referenceCache, "entityReferenceCache.byId");
+      GuavaCacheMetrics.monitor(meterRegistry, INSTANCE.nameCache, "entityReferenceCache.byName");
+    }
+    LOG.info(
+        "Entity reference cache is initialized with maximum size {} and expiry {} seconds",
+        config.getMaximumSize(),
+        config.getExpiryInSeconds());
+  }
+
+  /** Returns the cache instance or null when the cache is not initialized or disabled */
+  public static EntityReferenceCache getInstance() {
+    return INSTANCE;
+  }
+
+  public static void cleanUp() {
+    if (INSTANCE != null) {
+      INSTANCE.referenceCache.invalidateAll();
+      INSTANCE.nameCache.invalidateAll();
+      INSTANCE = null;
+      LOG.info("Entity reference cache is cleaned up");
+    }
+  }
+
+  /** Invalidate the cached reference of an entity. Safe to call when the cache is disabled. */
+  public static void invalidate(UUID id) {
+    if (INSTANCE != null && id != null) {
+      INSTANCE.referenceCache.invalidate(id);
+      Written written = getWritten();
+      if (written != null) {
+        written.ids.add(id);
+      }
+    }
+  }
+
+  /** Invalidate the cached reference of an entity and its name. Safe to call when the cache is disabled. */
+  public static void invalidate(String entityType, UUID id, String fqn) {
+    if (INSTANCE != null) {
+      invalidate(id);
+      if (entityType != null && fqn != null) {
+        String nameKey = getNameKey(entityType, fqn);
+        INSTANCE.nameCache.invalidate(nameKey);
+        Written written = getWritten();
+        if (written != null) {
+          written.nameKeys.add(nameKey);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get reference of an entity by id. Entity references are looked up by id irrespective of the deleted state, and
+   * hence {@code loader} must load the entity with {@link Include#ALL}.
+   */
+  public EntityReference getById(String entityType, UUID id, ReferenceLoader loader) throws IOException {
+    EntityReference ref = referenceCache.getIfPresent(id);
+    if (ref == null || !entityType.equals(ref.getType())) {
+      ref = loader.load();
+      if (!isWritten(ref, null)) {
+        referenceCache.put(id, copy(ref));
+      }
+      return ref;
+    }
+    return copy(ref);
+  }
+
+  /** Get references of entities by ids in the same order as {@code ids}, loading all the missing ones at once. */
+  public List<EntityReference> getAllById(String entityType, List<UUID> ids, BulkReferenceLoader loader)
+      throws IOException {
+    Map<UUID, EntityReference> refs = new HashMap<>();
+    Set<UUID> missing = new LinkedHashSet<>();
+    for (UUID id : ids) {
+      if (refs.containsKey(id) || missing.contains(id)) {
+        continue;
+      }
+      EntityReference ref = referenceCache.getIfPresent(id);
+      if (ref != null && entityType.equals(ref.getType())) {
+        refs.put(id, copy(ref));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (EntityReference ref : loader.load(new ArrayList<>(missing))) {
+        if (!isWritten(ref, null)) {
+          referenceCache.put(ref.getId(), copy(ref));
+        }
+        refs.put(ref.getId(), ref);
+      }
+    }
+    List<EntityReference> result = new ArrayList<>(ids.size());
+    Set<UUID> returned = new HashSet<>();
+    for (UUID id : ids) {
+      EntityReference ref = refs.get(id);
+      result.add(returned.add(id) ? ref : copy(ref)); // Duplicate ids get their own copy
+    }
+    return result;
+  }
+
+  /** Get reference of an entity by fullyQualifiedName, honoring the {@code include} filter for deleted entities. */
+  public EntityReference getByName(String entityType, String fqn, Include include, ReferenceLoader loader)
+      throws IOException {
+    String nameKey = getNameKey(entityType, fqn);
+    UUID id = nameCache.getIfPresent(nameKey);
+    EntityReference ref = id == null ? null : referenceCache.getIfPresent(id);
+    if (ref != null
+        && entityType.equals(ref.getType())
+        && fqn.equals(ref.getFullyQualifiedName())
+        && matches(ref, include)) {
+      return copy(ref);
+    }
+    ref = loader.load();
+    if (!isWritten(ref, nameKey)) {
+      referenceCache.put(ref.getId(), copy(ref));
+      nameCache.put(nameKey, ref.getId());
+    }
+    return ref;
+  }
+
+  /** Returns true when the reference is cached. The reference is not loaded when it is not. */
+  public boolean isCached(UUID id) {
+    return referenceCache.getIfPresent(id) != null;
+  }
+
+  /** Returns the entities written by the current request, or null outside of a request */
+  private static Written getWritten() {
+    return CommitCallbacks.computeIfAbsent(
+        Written.class,
+        () -> {
+          Written written = new Written();
+          CommitCallbacks.afterCompletion(written::invalidate);
+          return written;
+        });
+  }
+
+  private static boolean isWritten(EntityReference ref, String nameKey) {
+    Written written = CommitCallbacks.get(Written.class);
+    return written != null && written.contains(ref, nameKey);
+  }
+
+  private static boolean matches(EntityReference ref, Include include) {
+    boolean deleted = Boolean.TRUE.equals(ref.getDeleted());
+    if (include == null || include == Include.NON_DELETED) {
+      return !deleted;
+    }
+    return include != Include.DELETED || deleted;
+  }
+
+  private static String getNameKey(String entityType, String fqn) {
+    return entityType + ":" + fqn;
+  }
+
+  /** Callers are free to modify the returned references (for example to set href) and hence always hand out copies */
+  private static EntityReference copy(EntityReference ref) {
+    return new EntityReference()
+        .withId(ref.getId())
+        .withType(ref.getType())
+        .withName(ref.getName())
+        .withFullyQualifiedName(ref.getFullyQualifiedName())
+        .withDescription(ref.getDescription())
+        .withDisplayName(ref.getDisplayName())
+        .withDeleted(ref.getDeleted())
+        .withHref(ref.getHref());
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service;
+
+import javax.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class EntityReferenceCacheConfiguration {
+  private boolean enabled = true;
+
+  /** Maximum number of entity references kept in the cache */
+  @Min(1)
+  private long maximumSize = 10000;
+
+  /** Time after which a cached entity reference is reloaded from the database, even if not invalidated */
+  @Min(1)
+  private long expiryInSeconds = 300;
+}
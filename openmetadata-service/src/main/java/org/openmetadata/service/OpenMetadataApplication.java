@@ -64,17 +64,22 @@ import org.jdbi.v3.sqlobject.SqlObjects;
 import org.openmetadata.schema.api.security.AuthenticationConfiguration;
 import org.openmetadata.schema.api.security.AuthorizerConfiguration;
 import org.openmetadata.service.elasticsearch.ElasticSearchEventPublisher;
+import org.openmetadata.service.events.ChangeEventWriter;
+import org.openmetadata.service.events.CommitCallbackFilter;
 import org.openmetadata.service.events.EventFilter;
+import org.openmetadata.service.events.EventOutbox;
 import org.openmetadata.service.events.EventPubSub;
 import org.openmetadata.service.exception.CatalogGenericExceptionMapper;
 import org.openmetadata.service.exception.ConstraintViolationExceptionMapper;
 import org.openmetadata.service.exception.JsonMappingExceptionMapper;
 import org.openmetadata.service.fernet.Fernet;
 import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.UsagePercentileScheduler;
 import org.openmetadata.service.jdbi3.locator.ConnectionAwareAnnotationSqlLocator;
 import org.openmetadata.service.migration.Migration;
 import org.openmetadata.service.migration.MigrationConfiguration;
 import org.openmetadata.service.resources.CollectionRegistry;
+import org.openmetadata.service.resources.elasticsearch.BuildSearchIndexResource;
 import org.openmetadata.service.secrets.SecretsManager;
 import org.openmetadata.service.secrets.SecretsManagerFactory;
 import org.openmetadata.service.secrets.SecretsManagerMigrationService;
@@ -90,10 +95,13 @@ import org.openmetadata.service.socket.FeedServlet;
 import org.openmetadata.service.socket.SocketAddressFilter;
 import org.openmetadata.service.socket.WebSocketManager;
 import org.openmetadata.service.util.EmailUtil;
+import org.openmetadata.service.util.FullyQualifiedName;
 
 /** Main catalog application */
 @Slf4j
 public class OpenMetadataApplication extends Application<OpenMetadataApplicationConfig> {
+  // Number of most recently split FQNs kept with their names
+  private static final long FQN_SPLIT_CACHE_SIZE = 10_000;
   private Authorizer authorizer;
 
   private AuthenticatorHandler authenticatorHandler;
@@ -146,9 +154,24 @@ public class OpenMetadataApplication extends Application<OpenMetadataApplication
     environment.jersey().register(new JsonProcessingExceptionMapper(true));
     environment.jersey().register(new EarlyEofExceptionMapper());
     environment.jersey().register(JsonMappingExceptionMapper.class);
+    // Run the actions deferred until the writes of a request are committed
+    environment.jersey().register(new CommitCallbackFilter());
     environment.healthChecks().register("OpenMetadataServerHealthCheck", new OpenMetadataServerHealthCheck());
+    // Cache entity references used on the read paths before the resources start serving requests
+    EntityReferenceCache.initialize(
+        catalogConfig.getEntityReferenceCacheConfiguration(), MicrometerBundle.prometheusRegistry);
+    // FQNs of the entities being ingested are split repeatedly while building their relationships and tags
+    FullyQualifiedName.enableSplitCache(FQN_SPLIT_CACHE_SIZE);
+
     // start event hub before registering publishers
-    EventPubSub.start();
+    EventPubSub.start(catalogConfig.getEventPubSubConfiguration(), MicrometerBundle.prometheusRegistry);
+    EventOutbox.start(catalogConfig.getEventOutboxConfiguration(), jdbi.onDemand(CollectionDAO.class));
+    ChangeEventWriter.initialize(
+        catalogConfig.getChangeEventWriterConfiguration(),
+        jdbi.onDemand(CollectionDAO.class).changeEventDAO(),
+        MicrometerBundle.prometheusRegistry);
+    UsagePercentileScheduler.initialize(
+        catalogConfig.getUsagePercentileConfiguration(), jdbi.onDemand(CollectionDAO.class).usageDAO());
 
     registerResources(catalogConfig, environment, jdbi);
 
@@ -157,6 +180,8 @@ public class OpenMetadataApplication extends Application<OpenMetadataApplication
     environment.lifecycle().manage(new ManagedShutdown());
     // Register Event publishers
     registerEventPublisher(catalogConfig, jdbi);
+    // Resume the batch reindexing interrupted by a restart, now that all the entity repositories are registered
+    resumeReindexing();
 
     // Check if migration is need from local secret manager to configured one and migrate
     new SecretsManagerMigrationService(secretsManager, catalogConfig.getClusterName())
@@ -307,10 +332,18 @@ public class OpenMetadataApplication extends Application<OpenMetadataApplication
       ElasticSearchEventPublisher elasticSearchEventPublisher =
           new ElasticSearchEventPublisher(
               openMetadataApplicationConfig.getElasticSearchConfiguration(), jdbi.onDemand(CollectionDAO.class));
-      EventPubSub.addEventHandler(elasticSearchEventPublisher);
+      EventOutbox.addEventPublisher(
+          elasticSearchEventPublisher.getClass().getSimpleName(), elasticSearchEventPublisher);
     }
   }
 
+  private void resumeReindexing() {
+    CollectionRegistry.getInstance().getCollectionMap().values().stream()
+        .map(CollectionRegistry.CollectionDetails::getResource)
+        .filter(BuildSearchIndexResource.class::isInstance)
+        .forEach(resource -> ((BuildSearchIndexResource) resource).resumeBatchJob());
+  }
+
   private void registerResources(OpenMetadataApplicationConfig config, Environment environment, Jdbi jdbi) {
     CollectionRegistry.getInstance().registerResources(jdbi, environment, config, authorizer, authenticatorHandler);
     environment.jersey().register(new JsonPatchProvider());
@@ -332,7 +365,8 @@ public class OpenMetadataApplication extends Application<OpenMetadataApplication
 
     EngineIoServerOptions eioOptions = EngineIoServerOptions.newFromDefault();
     eioOptions.setAllowedCorsOrigins(null);
-    WebSocketManager.WebSocketManagerBuilder.build(eioOptions);
+    WebSocketManager.WebSocketManagerBuilder.build(
+        eioOptions, catalogConfig.getWebSocketConfiguration(), MicrometerBundle.prometheusRegistry);
     environment.getApplicationContext().setContextPath("/");
     environment
         .getApplicationContext()
@@ -365,7 +399,11 @@ public class OpenMetadataApplication extends Application<OpenMetadataApplication
 
     @Override
     public void stop() throws InterruptedException {
+      ChangeEventWriter.shutdown();
+      UsagePercentileScheduler.shutdown();
+      EventOutbox.shutdown();
       EventPubSub.shutdown();
+      WebSocketManager.shutdown();
       LOG.info("Stopping the application");
     }
   }
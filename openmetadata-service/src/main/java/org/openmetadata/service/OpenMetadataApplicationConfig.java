@@ -32,8 +32,13 @@ import org.openmetadata.schema.api.security.AuthorizerConfiguration;
 import org.openmetadata.schema.api.security.jwt.JWTTokenConfiguration;
 import org.openmetadata.schema.api.slackChat.SlackChatConfiguration;
 import org.openmetadata.schema.email.SmtpSettings;
+import org.openmetadata.service.events.ChangeEventWriterConfiguration;
+import org.openmetadata.service.events.EventOutboxConfiguration;
+import org.openmetadata.service.events.EventPubSubConfiguration;
+import org.openmetadata.service.jdbi3.UsagePercentileConfiguration;
 import org.openmetadata.service.migration.MigrationConfiguration;
 import org.openmetadata.service.secrets.SecretsManagerConfiguration;
+import org.openmetadata.service.socket.WebSocketConfiguration;
 
 @Getter
 @Setter
@@ -96,6 +101,30 @@ public class OpenMetadataApplicationConfig extends Configuration {
   @JsonProperty("login")
   private LoginConfiguration loginSettings;
 
+  @JsonProperty("entityReferenceCache")
+  @Valid
+  private EntityReferenceCacheConfiguration entityReferenceCacheConfiguration = new EntityReferenceCacheConfiguration();
+
+  @JsonProperty("changeEventWriter")
+  @Valid
+  private ChangeEventWriterConfiguration changeEventWriterConfiguration = new ChangeEventWriterConfiguration();
+
+  @JsonProperty("usagePercentile")
+  @Valid
+  private UsagePercentileConfiguration usagePercentileConfiguration = new UsagePercentileConfiguration();
+
+  @JsonProperty("eventPubSub")
+  @Valid
+  private EventPubSubConfiguration eventPubSubConfiguration = new EventPubSubConfiguration();
+
+  @JsonProperty("eventOutbox")
+  @Valid
+  private EventOutboxConfiguration eventOutboxConfiguration = new EventOutboxConfiguration();
+
+  @JsonProperty("webSocket")
+  @Valid
+  private WebSocketConfiguration webSocketConfiguration = new WebSocketConfiguration();
+
   @Override
   public String toString() {
     return "catalogConfig{"
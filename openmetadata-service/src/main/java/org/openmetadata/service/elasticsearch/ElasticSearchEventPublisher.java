@@ -26,15 +26,22 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.update.UpdateRequest;
@@ -81,7 +88,9 @@ import org.openmetadata.service.Entity;
 import org.openmetadata.service.elasticsearch.ElasticSearchIndexDefinition.ElasticSearchIndexType;
 import org.openmetadata.service.events.AbstractEventPublisher;
 import org.openmetadata.service.events.errors.EventPublisherException;
+import org.openmetadata.service.events.errors.RetriableException;
 import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.resources.elasticsearch.BatchReindexJob;
 import org.openmetadata.service.resources.elasticsearch.BuildSearchIndexResource;
 import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
 import org.openmetadata.service.util.ElasticSearchClientUtils;
@@ -96,16 +105,32 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
   private static final String SERVICE_NAME = "service.name";
   private static final String DATABASE_NAME = "database.name";
 
+  // Update and delete requests for the change events being published, sent to ElasticSearch as a single bulk request.
+  // The change event for the request at each position is used for reporting the failure of that item.
+  private BulkRequest bulkRequest = new BulkRequest();
+  private final List<ChangeEvent> bulkRequestEvents = new ArrayList<>();
+
+  // Items of the last attempt that timed out, sent again before the change events are published again. Only these
+  // items are sent again, and not the requests of the attempt that were applied.
+  private BulkRequest retryRequest = new BulkRequest();
+  private final List<ChangeEvent> retryRequestEvents = new ArrayList<>();
+  // Change events whose requests were sent by the last attempt. They are skipped when the attempt is retried.
+  private final Set<ChangeEvent> sentEvents = Collections.newSetFromMap(new IdentityHashMap<>());
+
   public ElasticSearchEventPublisher(ElasticSearchConfiguration esConfig, CollectionDAO dao) {
-    super(esConfig.getBatchSize(), new ArrayList<>());
-    this.dao = dao;
+    this(esConfig.getBatchSize(), ElasticSearchClientUtils.createElasticSearchClient(esConfig), dao);
     // needs Db connection
     registerElasticSearchJobs();
-    this.client = ElasticSearchClientUtils.createElasticSearchClient(esConfig);
-    esIndexDefinition = new ElasticSearchIndexDefinition(client, dao);
     esIndexDefinition.createIndexes();
   }
 
+  ElasticSearchEventPublisher(int batchSize, RestHighLevelClient client, CollectionDAO dao) {
+    super(batchSize, new ArrayList<>());
+    this.dao = dao;
+    this.client = client;
+    esIndexDefinition = new ElasticSearchIndexDefinition(client, dao);
+  }
+
   @Override
   public void onStart() {
     LOG.info("ElasticSearch Publisher Started");
@@ -113,10 +138,43 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
 
   @Override
   public void publish(ChangeEventList events) throws EventPublisherException, JsonProcessingException {
+    boolean retry = false;
+    try {
+      publishEvents(events);
+    } catch (RetriableException e) {
+      // The same change events are published again by the retry, which continues from where this attempt stopped
+      retry = true;
+      throw e;
+    } finally {
+      if (!retry) {
+        clearRetryRequest();
+        sentEvents.clear();
+      }
+    }
+  }
+
+  @Override
+  public void stopRetries() {
+    super.stopRetries();
+    clearRetryRequest();
+    sentEvents.clear();
+  }
+
+  private void publishEvents(ChangeEventList events) throws EventPublisherException, JsonProcessingException {
+    // Discard the requests left behind by a previous attempt that failed before they were sent
+    clearBulkRequest();
+    if (!retryRequestEvents.isEmpty()) {
+      bulkRequest = retryRequest;
+      bulkRequestEvents.addAll(retryRequestEvents);
+      clearRetryRequest();
+      flushBulkRequest();
+    }
     for (ChangeEvent event : events.getData()) {
+      if (sentEvents.contains(event)) {
+        continue;
+      }
       String entityType = event.getEntityType();
-      String contextInfo =
-          event.getEntity() != null ? String.format("Entity Info : %s", JsonUtils.pojoToJson(event.getEntity())) : null;
+      String contextInfo = getContextInfo(event);
       try {
         switch (entityType) {
           case Entity.TABLE:
@@ -214,7 +272,9 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
                 ie.getMessage(), ie.getCause(), ExceptionUtils.getStackTrace(ie)));
         throw new EventPublisherException(ie.getMessage());
       }
+      sentEvents.add(event);
     }
+    flushBulkRequest();
   }
 
   @Override
@@ -243,7 +303,10 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           newFollowers.add(follower.getId().toString());
         }
         fieldAddParams.put(fieldChange.getName(), newFollowers);
-        scriptTxt.append("ctx._source.followers.addAll(params.followers);");
+        // Skip the followers already added so that the request can be sent again when retrying
+        scriptTxt.append(
+            "for (f in params.followers) { "
+                + "if (!ctx._source.followers.contains(f)) { ctx._source.followers.add(f); } }");
       }
     }
 
@@ -286,7 +349,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         tableIndex = new TableIndex((Table) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(tableIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         if (Objects.equals(event.getCurrentVersion(), event.getPreviousVersion())) {
@@ -295,16 +358,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           tableIndex = new TableIndex((Table) event.getEntity());
           scriptedUpsert(tableIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.TABLE_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -319,7 +382,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         topicIndex = new TopicIndex((Topic) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(topicIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         if (Objects.equals(event.getCurrentVersion(), event.getPreviousVersion())) {
@@ -328,16 +391,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           topicIndex = new TopicIndex((Topic) event.getEntity());
           scriptedUpsert(topicIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.TOPIC_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -352,7 +415,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         dashboardIndex = new DashboardIndex((Dashboard) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(dashboardIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         if (Objects.equals(event.getCurrentVersion(), event.getPreviousVersion())) {
@@ -361,16 +424,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           dashboardIndex = new DashboardIndex((Dashboard) event.getEntity());
           scriptedUpsert(dashboardIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.DASHBOARD_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -384,7 +447,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         pipelineIndex = new PipelineIndex((Pipeline) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(pipelineIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         pipelineIndex = new PipelineIndex((Pipeline) event.getEntity());
@@ -393,16 +456,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         } else {
           scriptedUpsert(pipelineIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.PIPELINE_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -417,21 +480,21 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         userIndex = new UserIndex((User) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(userIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         userIndex = new UserIndex((User) event.getEntity());
         scriptedUserUpsert(userIndex.buildESDoc(), updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.USER_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -445,21 +508,21 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         teamIndex = new TeamIndex((Team) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(teamIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         teamIndex = new TeamIndex((Team) event.getEntity());
         scriptedTeamUpsert(teamIndex.buildESDoc(), updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.TEAM_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -474,21 +537,21 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         glossaryTermIndex = new GlossaryTermIndex((GlossaryTerm) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(glossaryTermIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         glossaryTermIndex = new GlossaryTermIndex((GlossaryTerm) event.getEntity());
         scriptedUpsert(glossaryTermIndex.buildESDoc(), updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.GLOSSARY_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -514,7 +577,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         mlModelIndex = new MlModelIndex((MlModel) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(mlModelIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         if (Objects.equals(event.getCurrentVersion(), event.getPreviousVersion())) {
@@ -523,16 +586,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           mlModelIndex = new MlModelIndex((MlModel) event.getEntity());
           scriptedUpsert(mlModelIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.MLMODEL_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -547,7 +610,7 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
         tagIndex = new TagIndex((Tag) event.getEntity());
         updateRequest.doc(JsonUtils.pojoToJson(tagIndex.buildESDoc()), XContentType.JSON);
         updateRequest.docAsUpsert(true);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_UPDATED:
         if (Objects.equals(event.getCurrentVersion(), event.getPreviousVersion())) {
@@ -556,16 +619,16 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
           tagIndex = new TagIndex((Tag) event.getEntity());
           scriptedUpsert(tagIndex.buildESDoc(), updateRequest);
         }
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_SOFT_DELETED:
         softDeleteEntity(updateRequest);
-        updateElasticSearch(updateRequest);
+        updateElasticSearch(event, updateRequest);
         break;
       case ENTITY_DELETED:
         DeleteRequest deleteRequest =
             new DeleteRequest(ElasticSearchIndexType.TAG_SEARCH_INDEX.indexName, event.getEntityId().toString());
-        deleteEntityFromElasticSearch(deleteRequest);
+        deleteEntityFromElasticSearch(event, deleteRequest);
         break;
     }
   }
@@ -679,35 +742,166 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
     updateRequest.script(script);
   }
 
-  private void updateElasticSearch(UpdateRequest updateRequest) throws IOException {
+  private void updateElasticSearch(ChangeEvent event, UpdateRequest updateRequest) {
     if (updateRequest != null) {
-      LOG.debug(SENDING_REQUEST_TO_ELASTIC_SEARCH, updateRequest);
-      client.update(updateRequest, RequestOptions.DEFAULT);
+      WriteRequest.RefreshPolicy refreshPolicy = updateRequest.getRefreshPolicy();
+      updateRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.NONE);
+      addToBulkRequest(event, updateRequest, refreshPolicy);
     }
   }
 
-  private void deleteEntityFromElasticSearch(DeleteRequest deleteRequest) throws IOException {
+  private void deleteEntityFromElasticSearch(ChangeEvent event, DeleteRequest deleteRequest) {
     if (deleteRequest != null) {
-      LOG.debug(SENDING_REQUEST_TO_ELASTIC_SEARCH, deleteRequest);
-      deleteRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL);
-      client.delete(deleteRequest, RequestOptions.DEFAULT);
+      addToBulkRequest(event, deleteRequest, WriteRequest.RefreshPolicy.WAIT_UNTIL);
     }
   }
 
   private void deleteEntityFromElasticSearchByQuery(DeleteByQueryRequest deleteRequest) throws IOException {
     if (deleteRequest != null) {
+      // Apply the updates for the earlier change events before deleting the documents matching the query
+      flushBulkRequest();
       LOG.debug(SENDING_REQUEST_TO_ELASTIC_SEARCH, deleteRequest);
       deleteRequest.setRefresh(true);
       client.deleteByQuery(deleteRequest, RequestOptions.DEFAULT);
     }
   }
 
+  private void addToBulkRequest(
+      ChangeEvent event, DocWriteRequest<?> request, WriteRequest.RefreshPolicy refreshPolicy) {
+    LOG.debug("Adding request to ElasticSearch bulk request {}", request);
+    bulkRequest.add(request);
+    bulkRequestEvents.add(event);
+    // Refresh policy is not supported on the items of a bulk request. Use the strictest one requested by the items.
+    if (refreshPolicy == WriteRequest.RefreshPolicy.IMMEDIATE
+        || (refreshPolicy == WriteRequest.RefreshPolicy.WAIT_UNTIL
+            && bulkRequest.getRefreshPolicy() == WriteRequest.RefreshPolicy.NONE)) {
+      bulkRequest.setRefreshPolicy(refreshPolicy);
+    }
+  }
+
+  private void clearBulkRequest() {
+    bulkRequest = new BulkRequest();
+    bulkRequestEvents.clear();
+  }
+
+  private void clearRetryRequest() {
+    retryRequest = new BulkRequest();
+    retryRequestEvents.clear();
+  }
+
+  /** Send the item at {@code index} of a bulk request again when the change events are published again */
+  private void addToRetryRequest(BulkRequest request, List<ChangeEvent> requestEvents, int index) {
+    retryRequest.add(request.requests().get(index));
+    retryRequestEvents.add(requestEvents.get(index));
+    retryRequest.setRefreshPolicy(request.getRefreshPolicy());
+  }
+
+  /**
+   * Send the requests accumulated for the change events with a single bulk request. Items that fail are reported
+   * individually with the change event that produced them, while the rest of the bulk request is applied. Only the
+   * items that timed out are sent again by the retry. When the whole bulk request times out, it is not known which
+   * items were applied and all of them are sent again, which is safe as every request is idempotent.
+   */
+  private void flushBulkRequest() throws JsonProcessingException {
+    if (bulkRequestEvents.isEmpty()) {
+      return;
+    }
+    BulkRequest request = bulkRequest;
+    List<ChangeEvent> requestEvents = new ArrayList<>(bulkRequestEvents);
+    clearBulkRequest();
+
+    LOG.debug(SENDING_REQUEST_TO_ELASTIC_SEARCH, request);
+    BulkResponse response;
+    try {
+      response = client.bulk(request, RequestOptions.DEFAULT);
+    } catch (ElasticsearchException e) {
+      LOG.error("failed to send bulk request to ES");
+      String contextInfo = String.format("Bulk request for %d change events", requestEvents.size());
+      if (e.status() == RestStatus.GATEWAY_TIMEOUT || e.status() == RestStatus.REQUEST_TIMEOUT) {
+        updateElasticSearchFailureStatus(
+            contextInfo,
+            EventPublisherJob.Status.ACTIVEWITHERROR,
+            String.format(
+                "Timeout when updating ES request. Reason[%s], Cause[%s], Stack [%s]",
+                e.getMessage(), e.getCause(), ExceptionUtils.getStackTrace(e)));
+        for (int i = 0; i < requestEvents.size(); i++) {
+          addToRetryRequest(request, requestEvents, i);
+        }
+        throw new ElasticSearchRetriableException(e.getMessage());
+      }
+      updateElasticSearchFailureStatus(
+          contextInfo,
+          EventPublisherJob.Status.ACTIVEWITHERROR,
+          String.format(
+              "Failed while updating ES. Reason[%s], Cause[%s], Stack [%s]",
+              e.getMessage(), e.getCause(), ExceptionUtils.getStackTrace(e)));
+      LOG.error(e.getMessage(), e);
+      return;
+    } catch (IOException ie) {
+      updateElasticSearchFailureStatus(
+          String.format("Bulk request for %d change events", requestEvents.size()),
+          EventPublisherJob.Status.ACTIVEWITHERROR,
+          String.format(
+              "Issue in updating ES request. Reason[%s], Cause[%s], Stack [%s]",
+              ie.getMessage(), ie.getCause(), ExceptionUtils.getStackTrace(ie)));
+      throw new EventPublisherException(ie.getMessage());
+    }
+    if (!response.hasFailures()) {
+      return;
+    }
+
+    for (BulkItemResponse item : response.getItems()) {
+      if (!item.isFailed()) {
+        continue;
+      }
+      BulkItemResponse.Failure failure = item.getFailure();
+      ChangeEvent event = requestEvents.get(item.getItemId());
+      LOG.error("Failed to update ES doc {} for change event {}", item.getId(), event.getEventType());
+      String reason;
+      if (failure.getStatus() == RestStatus.NOT_FOUND) {
+        reason = "Missing Document while Updating ES";
+      } else if (failure.getStatus() == RestStatus.GATEWAY_TIMEOUT
+          || failure.getStatus() == RestStatus.REQUEST_TIMEOUT) {
+        reason = "Timeout when updating ES request";
+        addToRetryRequest(request, requestEvents, item.getItemId());
+      } else {
+        reason = "Failed while updating ES";
+      }
+      updateElasticSearchFailureStatus(
+          getContextInfo(event),
+          EventPublisherJob.Status.ACTIVEWITHERROR,
+          String.format(
+              "%s. Reason[%s], Cause[%s], Stack [%s]",
+              reason, failure.getMessage(), failure.getCause(), ExceptionUtils.getStackTrace(failure.getCause())));
+    }
+    if (!retryRequestEvents.isEmpty()) {
+      throw new ElasticSearchRetriableException(response.buildFailureMessage());
+    }
+  }
+
+  private static String getContextInfo(ChangeEvent event) throws JsonProcessingException {
+    return event.getEntity() != null
+        ? String.format("Entity Info : %s", JsonUtils.pojoToJson(event.getEntity()))
+        : null;
+  }
+
   public void registerElasticSearchJobs() {
     try {
-      dao.entityExtensionTimeSeriesDao()
-          .delete(
-              BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH,
-              BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION);
+      // Keep the batch job interrupted by a restart along with its checkpoints, so that it can be resumed
+      String batchJobJson =
+          dao.entityExtensionTimeSeriesDao()
+              .getExtension(
+                  BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH,
+                  BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION);
+      boolean resumeBatchJob =
+          batchJobJson != null
+              && BatchReindexJob.isResumable(JsonUtils.readValue(batchJobJson, EventPublisherJob.class));
+      if (!resumeBatchJob) {
+        dao.entityExtensionTimeSeriesDao()
+            .delete(
+                BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH,
+                BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION);
+      }
       dao.entityExtensionTimeSeriesDao()
           .delete(ELASTIC_SEARCH_ENTITY_FQN_STREAM, BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION);
       long startTime = Date.from(LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant()).getTime();
@@ -732,12 +926,14 @@ public class ElasticSearchEventPublisher extends AbstractEventPublisher {
               .withStartedBy(ADMIN_USER_NAME)
               .withStartTime(startTime)
               .withFailureDetails(failureDetails);
-      dao.entityExtensionTimeSeriesDao()
-          .insert(
-              BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH,
-              BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION,
-              "eventPublisherJob",
-              JsonUtils.pojoToJson(batchJob));
+      if (!resumeBatchJob) {
+        dao.entityExtensionTimeSeriesDao()
+            .insert(
+                BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH,
+                BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION,
+                "eventPublisherJob",
+                JsonUtils.pojoToJson(batchJob));
+      }
       dao.entityExtensionTimeSeriesDao()
           .insert(
               ELASTIC_SEARCH_ENTITY_FQN_STREAM,
@@ -1,10 +1,20 @@
 package org.openmetadata.service.events;
 
+import java.time.Clock;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.schema.filter.EventFilter;
 import org.openmetadata.schema.filter.Filters;
@@ -14,6 +24,16 @@ import org.openmetadata.service.events.errors.RetriableException;
 import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
 import org.openmetadata.service.util.FilterUtil;
 
+/**
+ * Base class of the event publishers that batch the change events they receive.
+ *
+ * <p>When publishing a batch fails with a {@link RetriableException}, the batch is parked in a bounded retry queue and
+ * delivered again from a shared scheduler after a backoff with jitter, instead of sleeping on the event processor
+ * thread. When the exception has the change events of the batch that failed, only those are parked. The event processor
+ * keeps receiving change events, which are added to the retry queue behind the parked batch so that they are delivered
+ * in order. When the retry queue is full, the batch is dropped instead of blocking the event processor. Dropped change
+ * events are counted and can be delivered again with {@link EventOutbox#replay}.
+ */
 @Slf4j
 public abstract class AbstractEventPublisher implements EventPublisher {
   // Backoff timeout in seconds. Delivering events is retried 5 times.
@@ -23,14 +43,42 @@ public abstract class AbstractEventPublisher implements EventPublisher {
   protected static final int BACKOFF_5_MINUTES = 5 * 60 * 1000;
   protected static final int BACKOFF_1_HOUR = 60 * 60 * 1000;
   protected static final int BACKOFF_24_HOUR = 24 * 60 * 60 * 1000;
+  // Maximum number of change events waiting for a retry per event publisher
+  protected static final int MAX_RETRY_QUEUE_SIZE = 10000;
+  // Maximum number of retries in flight across all the event publishers
+  private static final int MAX_INFLIGHT_RETRIES = 4;
+  private static final ScheduledExecutorService RETRY_EXECUTOR =
+      Executors.newScheduledThreadPool(
+          MAX_INFLIGHT_RETRIES,
+          runnable -> {
+            Thread thread = new Thread(runnable, "event-publisher-retry");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   protected int currentBackoffTime = BACKOFF_NORMAL;
   protected final List<ChangeEvent> batch = new ArrayList<>();
   protected final ConcurrentHashMap<String, Map<EventType, Filters>> filter = new ConcurrentHashMap<>();
+  protected final Clock clock;
   private final int batchSize;
+  private final ScheduledExecutorService retryExecutor;
+  private final Deque<ChangeEvent> retryQueue = new ArrayDeque<>(); // Guarded by itself
+  private final AtomicLong droppedEvents = new AtomicLong();
+  // Size of the batch, which is only changed by the event processor thread, for the other threads
+  private volatile int batchedEvents;
+  private ScheduledFuture<?> retryTask;
+  private long nextAttempt;
 
   protected AbstractEventPublisher(int batchSize, List<EventFilter> filters) {
+    this(batchSize, filters, RETRY_EXECUTOR, Clock.systemUTC());
+  }
+
+  protected AbstractEventPublisher(
+      int batchSize, List<EventFilter> filters, ScheduledExecutorService retryExecutor, Clock clock) {
     if (filters != null) updateFilter(filters);
     this.batchSize = batchSize;
+    this.retryExecutor = retryExecutor;
+    this.clock = clock;
   }
 
   protected void updateFilter(List<EventFilter> filterList) {
@@ -56,18 +104,35 @@ public abstract class AbstractEventPublisher implements EventPublisher {
 
     // Batch until either the batch has ended or batch size has reached the max size
     batch.add(changeEventHolder.get());
+    batchedEvents = batch.size();
     if (!endOfBatch && batch.size() < batchSize) {
       return;
     }
 
+    synchronized (retryQueue) {
+      // Deliver the batch after the change events waiting for a retry so that change events are delivered in order
+      if (!retryQueue.isEmpty()) {
+        if (retryQueue.size() + batch.size() > MAX_RETRY_QUEUE_SIZE) {
+          dropBatch();
+        } else {
+          retryQueue.addAll(batch);
+          clearBatch();
+        }
+        return;
+      }
+    }
+
     ChangeEventList list = new ChangeEventList(batch, null, null, batch.size());
     try {
       publish(list);
-      batch.clear();
+      clearBatch();
     } catch (RetriableException ex) {
-      setNextBackOff();
-      LOG.error("Failed to publish event {} due to {}, will try again in {} ms", changeEvent, ex, currentBackoffTime);
-      Thread.sleep(currentBackoffTime);
+      synchronized (retryQueue) {
+        retryQueue.addAll(ex.getFailedEvents() == null ? batch : ex.getFailedEvents());
+        clearBatch();
+        scheduleRetry(ex);
+      }
+      onRetryScheduled(ex);
     } catch (Exception e) {
       LOG.error(
           "Failed to publish event type {} for entity {}", changeEvent.getEventType(), changeEvent.getEntityType());
@@ -75,6 +140,126 @@ public abstract class AbstractEventPublisher implements EventPublisher {
     }
   }
 
+  private void dropBatch() {
+    long dropped = droppedEvents.addAndGet(batch.size());
+    LOG.warn(
+        "Retry queue is full, dropping {} change events from timestamp {} ({} dropped in total)",
+        batch.size(),
+        batch.get(0).getTimestamp(),
+        dropped);
+    clearBatch();
+  }
+
+  private void clearBatch() {
+    batch.clear();
+    batchedEvents = 0;
+  }
+
+  /** Deliver the change events at the head of the retry queue. Runs on the retry executor */
+  void retry() {
+    List<ChangeEvent> events = new ArrayList<>();
+    synchronized (retryQueue) {
+      retryTask = null;
+      Iterator<ChangeEvent> iterator = retryQueue.iterator();
+      while (iterator.hasNext() && events.size() < batchSize) {
+        events.add(iterator.next());
+      }
+    }
+    if (events.isEmpty()) {
+      return;
+    }
+
+    try {
+      publish(new ChangeEventList(events, null, null, events.size()));
+      removeRetried(events.size());
+    } catch (RetriableException ex) {
+      synchronized (retryQueue) {
+        if (retryQueue.isEmpty()) { // Retries were stopped while publishing
+          return;
+        }
+        if (ex.getFailedEvents() != null) { // Only the failed change events are delivered again
+          for (int i = 0; i < events.size() && !retryQueue.isEmpty(); i++) {
+            retryQueue.remove();
+          }
+          List<ChangeEvent> failedEvents = ex.getFailedEvents();
+          for (int i = failedEvents.size() - 1; i >= 0; i--) {
+            retryQueue.addFirst(failedEvents.get(i));
+          }
+        }
+        scheduleRetry(ex);
+      }
+      onRetryScheduled(ex);
+    } catch (Exception e) {
+      // The change events can't be delivered. Drop them and deliver the rest of the retry queue.
+      LOG.error("Failed to publish {} change events waiting for a retry", events.size(), e);
+      removeRetried(events.size());
+    }
+  }
+
+  private void removeRetried(int count) {
+    synchronized (retryQueue) {
+      for (int i = 0; i < count && !retryQueue.isEmpty(); i++) {
+        retryQueue.remove();
+      }
+      currentBackoffTime = BACKOFF_NORMAL;
+      if (!retryQueue.isEmpty() && retryTask == null) {
+        retryTask = retryExecutor.schedule(this::retry, 0, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void scheduleRetry(RetriableException ex) {
+    setNextBackOff();
+    // Spread the retries of the event publishers that failed at the same time by up to 20% of the backoff
+    long delay = currentBackoffTime + (long) (currentBackoffTime * ThreadLocalRandom.current().nextDouble(-0.2, 0.2));
+    nextAttempt = clock.millis() + delay;
+    retryTask = retryExecutor.schedule(this::retry, delay, TimeUnit.MILLISECONDS);
+    LOG.error("Failed to publish {} change events due to {}, will try again in {} ms", retryQueue.size(), ex, delay);
+  }
+
+  /** Called after publishing failed and a retry is scheduled at {@link #getNextAttempt()} */
+  protected void onRetryScheduled(RetriableException ex) {
+    /* Nothing to do by default */
+  }
+
+  /** Cancel the scheduled retry and discard the change events waiting for it */
+  public void stopRetries() {
+    synchronized (retryQueue) {
+      if (retryTask != null) {
+        retryTask.cancel(false);
+        retryTask = null;
+      }
+      if (!retryQueue.isEmpty()) {
+        LOG.warn("Discarding {} change events waiting for a retry", retryQueue.size());
+        retryQueue.clear();
+      }
+      currentBackoffTime = BACKOFF_NORMAL;
+    }
+  }
+
+  public int getRetryQueueDepth() {
+    synchronized (retryQueue) {
+      return retryQueue.size();
+    }
+  }
+
+  /** Number of change events dropped because the retry queue was full */
+  public long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  /** Time of the next retry in milliseconds. Only valid when the retry queue is not empty */
+  public long getNextAttempt() {
+    synchronized (retryQueue) {
+      return nextAttempt;
+    }
+  }
+
+  /** Returns true when there are change events received by the publisher that are not delivered yet */
+  public boolean hasPendingEvents() {
+    return batchedEvents > 0 || getRetryQueueDepth() > 0;
+  }
+
   protected void setNextBackOff() {
     if (currentBackoffTime == BACKOFF_NORMAL) {
       currentBackoffTime = BACKOFF_3_SECONDS;
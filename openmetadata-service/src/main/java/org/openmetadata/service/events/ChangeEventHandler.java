@@ -46,6 +46,7 @@ import org.openmetadata.schema.type.EventType;
 import org.openmetadata.schema.type.Post;
 import org.openmetadata.schema.type.Relationship;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.EntityReferenceCache;
 import org.openmetadata.service.OpenMetadataApplicationConfig;
 import org.openmetadata.service.filter.FilterRegistry;
 import org.openmetadata.service.jdbi3.CollectionDAO;
@@ -53,6 +54,7 @@ import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
 import org.openmetadata.service.jdbi3.FeedRepository;
 import org.openmetadata.service.resources.feeds.MessageParser;
 import org.openmetadata.service.resources.feeds.MessageParser.EntityLink;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.socket.WebSocketManager;
 import org.openmetadata.service.util.ChangeEventParser;
 import org.openmetadata.service.util.FilterUtil;
@@ -87,13 +89,22 @@ public class ChangeEventHandler implements EventHandler {
           changeEvent.getEntityId(),
           changeEvent.getEventType(),
           changeEvent.getEntityType());
-      EventPubSub.publish(changeEvent);
+      invalidateEntityReference(changeEvent);
+      if (!EventOutbox.isEnabled()) { // Otherwise event publishers read the change event from the change_event table
+        EventPubSub.tryPublish(changeEvent);
+      }
       if (changeEvent.getEntity() != null) {
         Object entity = changeEvent.getEntity();
         changeEvent = copyChangeEvent(changeEvent);
         changeEvent.setEntity(JsonUtils.pojoToMaskedJson(entity));
       }
-      dao.changeEventDAO().insert(JsonUtils.pojoToJson(changeEvent));
+      String json = JsonUtils.pojoToJson(changeEvent);
+      ChangeEventWriter changeEventWriter = ChangeEventWriter.getInstance();
+      if (changeEventWriter != null) {
+        changeEventWriter.write(json);
+      } else {
+        dao.changeEventDAO().insert(json);
+      }
 
       // Add a new thread to the entity for every change event
       // for the event to appear in activity feeds
@@ -123,7 +134,9 @@ public class ChangeEventHandler implements EventHandler {
               EntityLink about = EntityLink.parse(thread.getAbout());
               feedDao.create(thread, entity.getId(), owner, about);
               String jsonThread = mapper.writeValueAsString(thread);
-              WebSocketManager.getInstance().broadCastMessageToAll(WebSocketManager.FEED_BROADCAST_CHANNEL, jsonThread);
+              WebSocketManager.getInstance()
+                  .broadCastMessageToAll(
+                      WebSocketManager.FEED_BROADCAST_CHANNEL, jsonThread, thread.getId().toString());
             }
           }
         }
@@ -134,6 +147,20 @@ public class ChangeEventHandler implements EventHandler {
     return null;
   }
 
+  /**
+   * Entity references and the access decisions made on the entity are also invalidated when the entity is written.
+   * Invalidate them again after the change is committed so that a reference reloaded or a decision made by a concurrent
+   * reader before the commit is not served from the cache.
+   */
+  private static void invalidateEntityReference(ChangeEvent changeEvent) {
+    EventType eventType = changeEvent.getEventType();
+    if (eventType == ENTITY_UPDATED || eventType == ENTITY_SOFT_DELETED || eventType == ENTITY_DELETED) {
+      EntityReferenceCache.invalidate(
+          changeEvent.getEntityType(), changeEvent.getEntityId(), changeEvent.getEntityFullyQualifiedName());
+      PolicyDecisionCache.invalidateEntity(changeEvent.getEntityId());
+    }
+  }
+
   private void handleWebSocket(ContainerResponseContext responseContext) {
     int responseCode = responseContext.getStatus();
     if (responseCode == Status.CREATED.getStatusCode()
@@ -142,6 +169,8 @@ public class ChangeEventHandler implements EventHandler {
       Thread thread = (Thread) responseContext.getEntity();
       try {
         String jsonThread = mapper.writeValueAsString(thread);
+        // Notifications about the same thread sent within the coalesce window are sent once, with the latest thread
+        String threadId = thread.getId().toString();
         switch (thread.getType()) {
           case Task:
             if (thread.getPostsCount() == 0) {
@@ -150,20 +179,21 @@ public class ChangeEventHandler implements EventHandler {
                   e -> {
                     if (Entity.USER.equals(e.getType())) {
                       WebSocketManager.getInstance()
-                          .sendToOne(e.getId(), WebSocketManager.TASK_BROADCAST_CHANNEL, jsonThread);
+                          .sendToOne(e.getId(), WebSocketManager.TASK_BROADCAST_CHANNEL, jsonThread, threadId);
                     } else if (Entity.TEAM.equals(e.getType())) {
                       // fetch all that are there in the team
                       List<EntityRelationshipRecord> records =
                           dao.relationshipDAO()
                               .findTo(e.getId().toString(), TEAM, Relationship.HAS.ordinal(), Entity.USER);
                       WebSocketManager.getInstance()
-                          .sendToManyWithString(records, WebSocketManager.TASK_BROADCAST_CHANNEL, jsonThread);
+                          .sendToManyWithString(records, WebSocketManager.TASK_BROADCAST_CHANNEL, jsonThread, threadId);
                     }
                   });
             }
             break;
           case Conversation:
-            WebSocketManager.getInstance().broadCastMessageToAll(WebSocketManager.FEED_BROADCAST_CHANNEL, jsonThread);
+            WebSocketManager.getInstance()
+                .broadCastMessageToAll(WebSocketManager.FEED_BROADCAST_CHANNEL, jsonThread, threadId);
             List<EntityLink> mentions;
             if (thread.getPostsCount() == 0) {
               mentions = MessageParser.getEntityLinks(thread.getMessage());
@@ -177,14 +207,14 @@ public class ChangeEventHandler implements EventHandler {
                   if (USER.equals(entityLink.getEntityType())) {
                     User user = dao.userDAO().findEntityByName(fqn);
                     WebSocketManager.getInstance()
-                        .sendToOne(user.getId(), WebSocketManager.MENTION_CHANNEL, jsonThread);
+                        .sendToOne(user.getId(), WebSocketManager.MENTION_CHANNEL, jsonThread, threadId);
                   } else if (TEAM.equals(entityLink.getEntityType())) {
                     Team team = dao.teamDAO().findEntityByName(fqn);
                     // fetch all that are there in the team
                     List<EntityRelationshipRecord> records =
                         dao.relationshipDAO().findTo(team.getId().toString(), TEAM, Relationship.HAS.ordinal(), USER);
                     WebSocketManager.getInstance()
-                        .sendToManyWithString(records, WebSocketManager.MENTION_CHANNEL, jsonThread);
+                        .sendToManyWithString(records, WebSocketManager.MENTION_CHANNEL, jsonThread, threadId);
                   }
                 });
             break;
@@ -193,7 +223,8 @@ public class ChangeEventHandler implements EventHandler {
             Long currentTimestamp = Instant.now().getEpochSecond();
             if (announcementDetails.getStartTime() <= currentTimestamp
                 && currentTimestamp <= announcementDetails.getEndTime()) {
-              WebSocketManager.getInstance().broadCastMessageToAll(WebSocketManager.ANNOUNCEMENT_CHANNEL, jsonThread);
+              WebSocketManager.getInstance()
+                  .broadCastMessageToAll(WebSocketManager.ANNOUNCEMENT_CHANNEL, jsonThread, threadId);
             }
             break;
         }
@@ -0,0 +1,246 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.service.events.ChangeEventWriterConfiguration.OverflowPolicy;
+import org.openmetadata.service.jdbi3.CollectionDAO.ChangeEventDAO;
+
+/**
+ * Writes change events to the change_event table from a dedicated thread so that the database latency of the audit rows
+ * is not added to the request processing. Change events are queued in a bounded queue and inserted in batches, when a
+ * batch is full or when the oldest change event in the batch has waited for the configured maximum delay.
+ *
+ * <p>Change events are inserted in the order they are written, except with {@link OverflowPolicy#CALLER_RUNS} where a
+ * change event written when the queue is full is inserted right away by the caller. A change event is never dropped.
+ *
+ * <p>Readers of the change_event table call {@link #awaitWritten(long)} first to see the change events written before
+ * the read.
+ */
+@Slf4j
+public class ChangeEventWriter {
+  private static final long STOP_CHECK_INTERVAL_IN_MILLIS = 100;
+  private static ChangeEventWriter instance;
+
+  private final ChangeEventDAO dao;
+  private final BlockingQueue<String> queue;
+  private final int batchSize;
+  private final long maxDelayInMillis;
+  private final OverflowPolicy overflowPolicy;
+  private final long shutdownTimeoutInSeconds;
+  private final Thread writerThread;
+  private volatile boolean running = true;
+
+  // Guards adding to the queue so that the change events are counted in queue order
+  private final Object queueLock = new Object();
+  private final AtomicLong queued = new AtomicLong();
+  // Change events taken from the queue and written, guarded by this
+  private long written;
+  // Set by a waiting reader to have the writer thread write its batch without waiting for the maximum delay
+  private volatile boolean flushRequested;
+
+  private final MeterRegistry meterRegistry;
+  private final Gauge queueDepth;
+  private final DistributionSummary flushSize;
+  private final Timer flushLatency;
+  private final Counter callerInserts;
+
+  ChangeEventWriter(ChangeEventWriterConfiguration config, ChangeEventDAO dao, MeterRegistry meterRegistry) {
+    this.dao = dao;
+    this.queue = new ArrayBlockingQueue<>(config.getQueueSize());
+    this.batchSize = config.getBatchSize();
+    this.maxDelayInMillis = config.getMaxDelayInMillis();
+    this.overflowPolicy = config.getOverflowPolicy();
+    this.shutdownTimeoutInSeconds = config.getShutdownTimeoutInSeconds();
+    this.meterRegistry = meterRegistry;
+    this.queueDepth =
+        Gauge.builder("changeEventWriter.queueDepth", queue, BlockingQueue::size)
+            .description("Number of change events waiting to be written")
+            .register(meterRegistry);
+    this.flushSize =
+        DistributionSummary.builder("changeEventWriter.flushSize")
+            .description("Number of change events written in a batch")
+            .register(meterRegistry);
+    this.flushLatency =
+        Timer.builder("changeEventWriter.flushLatency")
+            .description("Time taken to write a batch of change events")
+            .register(meterRegistry);
+    this.callerInserts =
+        Counter.builder("changeEventWriter.callerInserts")
+            .description("Number of change events inserted by the request thread, when the queue is full or stopped")
+            .register(meterRegistry);
+    this.writerThread = new Thread(this::run, "change-event-writer");
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+  }
+
+  // Expected to be called only once during application startup
+  public static void initialize(ChangeEventWriterConfiguration config, ChangeEventDAO dao, MeterRegistry registry) {
+    if (config == null || !config.isEnabled()) {
+      LOG.info("Change event writer is disabled");
+      return;
+    }
+    if (instance == null) {
+      instance = new ChangeEventWriter(config, dao, registry);
+      LOG.info(
+          "Change event writer is started with queue size {}, batch size {} and overflow policy {}",
+          config.getQueueSize(),
+          config.getBatchSize(),
+          config.getOverflowPolicy());
+    }
+  }
+
+  /** Returns the writer or null when it is not initialized or disabled */
+  public static ChangeEventWriter getInstance() {
+    return instance;
+  }
+
+  /** Stop the writer after writing all the queued change events */
+  public static void shutdown() throws InterruptedException {
+    if (instance != null) {
+      instance.stop();
+      instance = null;
+    }
+  }
+
+  public void write(String json) {
+    boolean enqueued = false;
+    try {
+      synchronized (queueLock) {
+        if (running) {
+          enqueued = overflowPolicy == OverflowPolicy.BLOCK ? put(json) : queue.offer(json);
+        }
+        if (enqueued) {
+          queued.incrementAndGet();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!enqueued) {
+      dao.insert(json);
+      callerInserts.increment();
+    }
+  }
+
+  /**
+   * Wait until the change events written before this call are in the change_event table. Returns false when they are
+   * not written within the timeout.
+   */
+  public boolean awaitWritten(long timeoutInMillis) throws InterruptedException {
+    long target = queued.get();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+    synchronized (this) {
+      while (written < target) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          return false;
+        }
+        flushRequested = true;
+        wait(remaining);
+      }
+    }
+    return true;
+  }
+
+  private boolean put(String json) throws InterruptedException {
+    queue.put(json);
+    return true;
+  }
+
+  void stop() throws InterruptedException {
+    synchronized (queueLock) {
+      running = false; // Change events written from now on are inserted directly
+    }
+    writerThread.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutInSeconds));
+    if (writerThread.isAlive()) {
+      LOG.warn("Change event writer did not stop in {} seconds", shutdownTimeoutInSeconds);
+      return;
+    }
+    // Write the change events queued after the writer thread saw the stop request
+    List<String> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    flush(remaining);
+    List.of(queueDepth, flushSize, flushLatency, callerInserts).forEach(meterRegistry::remove);
+    LOG.info("Change event writer is stopped");
+  }
+
+  private void run() {
+    // Wake up at least this often to notice a stop request, even when the maximum delay is large
+    long pollIntervalInMillis = Math.min(maxDelayInMillis, STOP_CHECK_INTERVAL_IN_MILLIS);
+    List<String> batch = new ArrayList<>(batchSize);
+    long deadline = 0;
+    while (running || !queue.isEmpty()) {
+      try {
+        String json = queue.poll(pollIntervalInMillis, TimeUnit.MILLISECONDS);
+        if (json != null) {
+          if (batch.isEmpty()) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayInMillis);
+          }
+          batch.add(json);
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break; // Remaining change events are written by stop()
+      }
+      boolean due = !running || flushRequested || System.nanoTime() >= deadline;
+      if (batch.size() >= batchSize || (!batch.isEmpty() && due)) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+    flush(batch);
+  }
+
+  private void flush(List<String> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      dao.insertBatch(batch);
+    } catch (Exception e) {
+      // Insert the change events one at a time so that a bad change event does not fail the whole batch
+      LOG.warn("Failed to write a batch of {} change events, retrying one at a time", batch.size(), e);
+      for (String json : batch) {
+        try {
+          dao.insert(json);
+        } catch (Exception ex) {
+          LOG.error("Failed to write change event {}", json, ex);
+        }
+      }
+    }
+    flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    flushSize.record(batch.size());
+    synchronized (this) {
+      written += batch.size();
+      if (queue.isEmpty()) {
+        flushRequested = false;
+      }
+      notifyAll();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ChangeEventWriterConfiguration {
+  /** What to do with a change event when the writer queue is full */
+  public enum OverflowPolicy {
+    /** Block the request thread until there is space in the queue */
+    BLOCK,
+    /** Insert the change event from the request thread */
+    CALLER_RUNS
+  }
+
+  /** When disabled, change events are inserted one at a time from the request thread */
+  private boolean enabled = true;
+
+  /** Maximum number of change events waiting to be written */
+  @Min(1)
+  private int queueSize = 10000;
+
+  /** Maximum number of change events inserted with a single statement */
+  @Min(1)
+  private int batchSize = 100;
+
+  /** Maximum time a change event waits for a batch to fill up before it is written */
+  @Min(1)
+  private long maxDelayInMillis = 100;
+
+  @NotNull private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+  /** Time given to the writer to drain the queue when the application is stopped */
+  @Min(1)
+  private long shutdownTimeoutInSeconds = 30;
+}
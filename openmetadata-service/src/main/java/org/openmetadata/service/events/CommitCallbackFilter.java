@@ -0,0 +1,39 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import org.openmetadata.service.jdbi3.CommitCallbacks;
+
+/**
+ * Runs the {@link CommitCallbacks} of a request once its resource method has returned. Writes made in a transaction run
+ * their actions when the transaction commits, so the actions left here are those of writes already committed, whatever
+ * the status of the response.
+ */
+@Provider
+public class CommitCallbackFilter implements ContainerRequestFilter, ContainerResponseFilter {
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    CommitCallbacks.begin();
+  }
+
+  @Override
+  public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    CommitCallbacks.end();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.exception.EntityNotFoundException;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+
+/**
+ * Change event outbox. When enabled, each event publisher reads the change events from the change_event table with an
+ * {@link OutboxEventProcessor} that keeps a persisted cursor, instead of receiving them from {@link EventPubSub}. Event
+ * publishers then resume after a restart from the last change event they delivered, and the change events can be
+ * delivered again to an event publisher with {@link #replay(String, long)}.
+ *
+ * <p>Every server with the outbox enabled runs a processor for each event publisher, and the processor that holds the
+ * lease of the event publisher delivers its change events. Servers with the outbox disabled do not publish the change
+ * events to {@link EventPubSub} while other servers hold leases, so that the change events are not delivered twice.
+ */
+@Slf4j
+public class EventOutbox {
+  private static final Map<String, OutboxEventProcessor> processors = new ConcurrentHashMap<>();
+  /** Id of this server in the leases of the event publishers */
+  private static final String SERVER_ID = UUID.randomUUID().toString();
+
+  private static final long LEASE_CHECK_INTERVAL_IN_MILLIS = 1000;
+  private static EventOutboxConfiguration config;
+  private static CollectionDAO dao;
+  private static ExecutorService executor;
+  private static volatile boolean started = false;
+  private static volatile boolean leasedByOtherServers = false;
+  private static volatile long leasesCheckedAt;
+
+  private EventOutbox() {}
+
+  public static void start(EventOutboxConfiguration configuration, CollectionDAO collectionDAO) {
+    dao = collectionDAO;
+    if (!started && configuration != null && configuration.isEnabled()) {
+      config = configuration;
+      executor = Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE);
+      started = true;
+      LOG.info(
+          "Change event outbox started on server {} with batch size {} and lease duration {} ms",
+          SERVER_ID,
+          config.getBatchSize(),
+          config.getLeaseDurationInMillis());
+    }
+  }
+
+  /**
+   * Returns true when the event publishers read the change events from the change_event table, because the outbox is
+   * enabled on this server or other servers hold the leases of event publishers.
+   */
+  public static boolean isEnabled() {
+    if (started) {
+      return true;
+    }
+    CollectionDAO collectionDAO = dao;
+    long now = System.currentTimeMillis();
+    if (collectionDAO != null && now - leasesCheckedAt >= LEASE_CHECK_INTERVAL_IN_MILLIS) {
+      leasesCheckedAt = now;
+      boolean leased = collectionDAO.eventOutboxLeaseDAO().countHeld(now) > 0;
+      if (leased != leasedByOtherServers) {
+        LOG.warn(
+            leased
+                ? "Change event outbox is enabled on other servers. Change events are delivered by them."
+                : "Change event outbox is no longer enabled on other servers. Change events are published locally.");
+        leasedByOtherServers = leased;
+      }
+    }
+    return leasedByOtherServers;
+  }
+
+  public static void shutdown() throws InterruptedException {
+    if (started) {
+      processors.values().forEach(OutboxEventProcessor::halt);
+      processors.clear();
+      executor.shutdownNow();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      started = false;
+    }
+  }
+
+  /** Add an event processor for the publisher, reading the change events from the outbox when it is enabled */
+  public static EventProcessor addEventPublisher(String name, EventPublisher publisher) {
+    if (!started) {
+      return EventPubSub.addEventHandler(name, publisher);
+    }
+    OutboxEventProcessor processor = new OutboxEventProcessor(name, SERVER_ID, publisher, dao, config);
+    OutboxEventProcessor previous = processors.put(name, processor);
+    if (previous != null) {
+      previous.halt();
+    }
+    executor.execute(processor);
+    LOG.info("Processor added for {}", processor);
+    return processor;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void removeProcessor(EventProcessor processor) {
+    if (processor instanceof OutboxEventProcessor) {
+      processors.remove(((OutboxEventProcessor) processor).getName(), processor);
+      LOG.info("Processor removed for {}", processor);
+    } else {
+      EventPubSub.removeProcessor((BatchEventProcessor<ChangeEventHolder>) processor);
+    }
+  }
+
+  /** Deliver the change events starting from the given timestamp again to the named event publisher */
+  public static void replay(String name, long timestamp) {
+    OutboxEventProcessor processor = started ? processors.get(name) : null;
+    if (processor == null) {
+      throw EntityNotFoundException.byMessage(String.format("Event publisher %s is not reading from the outbox", name));
+    }
+    processor.replay(timestamp);
+  }
+}
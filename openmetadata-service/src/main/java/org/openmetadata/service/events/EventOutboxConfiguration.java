@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import javax.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class EventOutboxConfiguration {
+  /**
+   * Deliver the change events to the event publishers from the change_event table instead of the ring buffer. Enable it
+   * on all the servers. The server holding the lease of an event publisher delivers its change events, and a server
+   * with the outbox disabled does not publish the change events itself while other servers hold leases.
+   */
+  private boolean enabled = false;
+
+  /** Maximum number of change events read from the change_event table at once */
+  @Min(1)
+  private int batchSize = 100;
+
+  /** Time to wait before reading the change_event table again when there are no new change events */
+  @Min(1)
+  private long pollIntervalInMillis = 1000;
+
+  /**
+   * Time for which a missing offset is read again, until the change event written with it is committed. Must be longer
+   * than the transactions that write change events, so that the change events they write are not skipped. Offsets of
+   * the writes that are rolled back are missing forever.
+   */
+  @Min(0)
+  private long maxTransactionTimeInMillis = 600000;
+
+  /** Time for which a server delivers the change events of an event publisher without renewing its lease */
+  @Min(1)
+  private long leaseDurationInMillis = 30000;
+}
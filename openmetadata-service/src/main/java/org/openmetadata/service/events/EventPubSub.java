@@ -17,47 +17,164 @@ import com.lmax.disruptor.BatchEventProcessor;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.service.events.EventPubSubConfiguration.OverflowPolicy;
 
-/** Change event PubSub built based on LMAX Disruptor. */
+/**
+ * Change event PubSub built based on LMAX Disruptor.
+ *
+ * <p>Request threads publish change events with {@link #tryPublish(ChangeEvent)}, which never waits for a slow event
+ * processor longer than the configured {@link OverflowPolicy} allows. With {@link OverflowPolicy#SPILL}, change events
+ * published when the ring buffer is full are queued in a bounded spill queue and published to the ring buffer by a
+ * dedicated thread in the order they were spilled. Change events published after a spill are also spilled until the
+ * spill queue is empty so that change events are not reordered.
+ *
+ * <p>The change events of bulk operations, which can be many more than the ring buffer and the spill queue hold, are
+ * published with {@link #publishAll(List)} by a dedicated thread that waits for space in the ring buffer as long as it
+ * takes, so that none of them is dropped.
+ */
 @Slf4j
 public class EventPubSub {
+  private static final long SPILL_RETRY_INTERVAL_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long BLOCK_RETRY_INTERVAL_IN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final Object SPILL_LOCK = new Object();
   private static Disruptor<ChangeEventHolder> disruptor;
   private static ExecutorService executor;
   private static RingBuffer<ChangeEventHolder> ringBuffer;
   private static boolean started = false;
 
-  public static void start() {
+  private static OverflowPolicy overflowPolicy;
+  private static long blockTimeoutInNanos;
+  private static BlockingQueue<ChangeEvent> spillQueue;
+  private static Thread spillThread;
+  private static volatile boolean spillThreadRunning;
+  private static ExecutorService bulkExecutor;
+
+  private static MeterRegistry meterRegistry;
+  private static final Map<BatchEventProcessor<ChangeEventHolder>, Gauge> lagGauges = new ConcurrentHashMap<>();
+  private static List<Meter> meters;
+  private static Counter spilled;
+  private static Counter dropped;
+  private static Counter spillQueueFull;
+
+  public static void start(EventPubSubConfiguration config, MeterRegistry registry) {
     if (!started) {
-      disruptor = new Disruptor<>(ChangeEventHolder::new, 1024, DaemonThreadFactory.INSTANCE);
+      int ringSize = ringSize(config.getRingSize());
+      disruptor =
+          new Disruptor<>(
+              ChangeEventHolder::new,
+              ringSize,
+              DaemonThreadFactory.INSTANCE,
+              config.getProducerType(),
+              config.getWaitStrategy().newWaitStrategy());
       disruptor.setDefaultExceptionHandler(new DefaultExceptionHandler());
       executor = Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE);
+      bulkExecutor = Executors.newSingleThreadExecutor(DaemonThreadFactory.INSTANCE);
       ringBuffer = disruptor.start();
-      LOG.info("Disruptor started");
+      overflowPolicy = config.getOverflowPolicy();
+      blockTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeoutInMillis());
+      spillQueue = new ArrayBlockingQueue<>(config.getSpillQueueSize());
+      registerMeters(registry);
+      if (overflowPolicy == OverflowPolicy.SPILL) {
+        spillThreadRunning = true;
+        spillThread = new Thread(EventPubSub::publishSpilledEvents, "event-pubsub-spill");
+        spillThread.setDaemon(true);
+        spillThread.start();
+      }
+      LOG.info(
+          "Disruptor started with ring size {}, wait strategy {}, producer type {} and overflow policy {}",
+          ringSize,
+          config.getWaitStrategy(),
+          config.getProducerType(),
+          overflowPolicy);
       started = true;
     }
   }
 
   public static void shutdown() throws InterruptedException {
     if (started) {
+      bulkExecutor.shutdownNow();
+      bulkExecutor.awaitTermination(10, TimeUnit.SECONDS);
+      bulkExecutor = null;
+      if (spillThread != null) {
+        spillThreadRunning = false;
+        spillThread.interrupt();
+        spillThread.join(TimeUnit.SECONDS.toMillis(10));
+        spillThread = null;
+        if (!spillQueue.isEmpty()) {
+          LOG.warn("Discarding {} change events in the spill queue", spillQueue.size());
+        }
+      }
       disruptor.shutdown();
       disruptor.halt();
       executor.shutdownNow();
       executor.awaitTermination(10, TimeUnit.SECONDS);
+      meters.forEach(meterRegistry::remove);
+      lagGauges.values().forEach(meterRegistry::remove);
+      lagGauges.clear();
       disruptor = null;
       ringBuffer = null;
+      spillQueue = null;
       started = false;
       LOG.info("Disruptor stopped");
     }
   }
 
+  /** The ring buffer size must be a power of 2. Other sizes are rounded up to the next power of 2. */
+  static int ringSize(int configured) {
+    int ringSize = Integer.highestOneBit(configured);
+    if (ringSize < configured) {
+      ringSize <<= 1;
+      LOG.warn("Ring size {} is not a power of 2, using {}", configured, ringSize);
+    }
+    return ringSize;
+  }
+
+  private static void registerMeters(MeterRegistry registry) {
+    meterRegistry = registry;
+    spilled =
+        Counter.builder("eventPubSub.spilled")
+            .description("Number of change events added to the spill queue because the ring buffer was full")
+            .register(registry);
+    dropped =
+        Counter.builder("eventPubSub.dropped")
+            .description("Number of change events dropped because the ring buffer was full")
+            .register(registry);
+    spillQueueFull =
+        Counter.builder("eventPubSub.spillQueueFull")
+            .description("Number of change events dropped because the ring buffer and the spill queue were full")
+            .register(registry);
+    meters =
+        List.of(
+            Gauge.builder("eventPubSub.remainingCapacity", ringBuffer, RingBuffer::remainingCapacity)
+                .description("Number of free slots in the ring buffer")
+                .register(registry),
+            Gauge.builder("eventPubSub.spillQueueDepth", spillQueue, BlockingQueue::size)
+                .description("Number of change events waiting in the spill queue")
+                .register(registry),
+            spilled,
+            dropped,
+            spillQueueFull);
+  }
+
   public static class ChangeEventHolder {
     private ChangeEvent value;
 
@@ -76,6 +193,7 @@ public class EventPubSub {
     }
   }
 
+  /** Publish the change event, waiting for space in the ring buffer as long as it takes */
   public static void publish(ChangeEvent event) {
     if (event != null) {
       RingBuffer<ChangeEventHolder> ringBuffer = disruptor.getRingBuffer();
@@ -85,21 +203,164 @@ public class EventPubSub {
     }
   }
 
+  /**
+   * Publish the change event without waiting for the event processors when the ring buffer is full, except for up to
+   * the block timeout with {@link OverflowPolicy#BLOCK}. Returns false when the change event is dropped, which is also
+   * the case before the pub sub is started.
+   */
+  public static boolean tryPublish(ChangeEvent event) {
+    if (event == null) {
+      return true;
+    }
+    if (!started) {
+      return false;
+    }
+    switch (overflowPolicy) {
+      case SPILL:
+        // Spill change events while the spill queue is being published to keep the change events in order
+        if (spillQueue.isEmpty() && tryPublishToRing(event)) {
+          return true;
+        }
+        if (spillQueue.offer(event)) {
+          spilled.increment();
+          synchronized (SPILL_LOCK) {
+            SPILL_LOCK.notifyAll();
+          }
+          return true;
+        }
+        spillQueueFull.increment();
+        dropped.increment();
+        LOG.warn(
+            "Spill queue of {} change events is full. Dropping change event {}:{}",
+            spillQueue.size(),
+            event.getEntityType(),
+            event.getEntityId());
+        return false;
+      case BLOCK:
+        long deadline = System.nanoTime() + blockTimeoutInNanos;
+        do {
+          if (tryPublishToRing(event)) {
+            return true;
+          }
+          LockSupport.parkNanos(BLOCK_RETRY_INTERVAL_IN_NANOS);
+        } while (System.nanoTime() < deadline);
+        break;
+      case DROP:
+        if (tryPublishToRing(event)) {
+          return true;
+        }
+        break;
+    }
+    dropped.increment();
+    LOG.warn(
+        "Event processors are not keeping up. Dropping change event {}:{}", event.getEntityType(), event.getEntityId());
+    return false;
+  }
+
+  /**
+   * Publish the change events of a bulk operation in order, without dropping any of them and without waiting for the
+   * event processors. Change events published by other calls are not ordered with them. Returns false when the change
+   * events are dropped because the pub sub is not started.
+   */
+  public static boolean publishAll(List<ChangeEvent> events) {
+    if (!started) {
+      return false;
+    }
+    if (!events.isEmpty()) {
+      bulkExecutor.execute(() -> publishInOrder(events));
+    }
+    return true;
+  }
+
+  private static void publishInOrder(List<ChangeEvent> events) {
+    for (int i = 0; i < events.size(); i++) {
+      while (!tryPublishToRing(events.get(i))) {
+        LockSupport.parkNanos(BLOCK_RETRY_INTERVAL_IN_NANOS);
+        if (Thread.interrupted()) {
+          LOG.warn("Discarding {} change events of a bulk operation on shutdown", events.size() - i);
+          return;
+        }
+      }
+    }
+  }
+
+  private static boolean tryPublishToRing(ChangeEvent event) {
+    try {
+      long sequence = ringBuffer.tryNext();
+      ringBuffer.get(sequence).set(event);
+      ringBuffer.publish(sequence);
+      return true;
+    } catch (InsufficientCapacityException e) {
+      return false;
+    }
+  }
+
+  private static void publishSpilledEvents() {
+    while (spillThreadRunning) {
+      // Remove the change event from the spill queue only after it is published. Until then the request threads keep
+      // spilling and can't publish a change event ahead of it.
+      ChangeEvent event = spillQueue.peek();
+      if (event == null) {
+        try {
+          synchronized (SPILL_LOCK) {
+            if (spillQueue.isEmpty()) {
+              SPILL_LOCK.wait(100);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      } else if (tryPublishToRing(event)) {
+        spillQueue.remove();
+      } else {
+        LockSupport.parkNanos(SPILL_RETRY_INTERVAL_IN_NANOS);
+      }
+    }
+  }
+
   public static BatchEventProcessor<ChangeEventHolder> addEventHandler(EventHandler<ChangeEventHolder> eventHandler) {
+    return addEventHandler(eventHandler.getClass().getSimpleName(), eventHandler);
+  }
+
+  /** Add an event processor for the handler. Its lag behind the published change events is reported by name */
+  public static BatchEventProcessor<ChangeEventHolder> addEventHandler(
+      String name, EventHandler<ChangeEventHolder> eventHandler) {
     BatchEventProcessor<ChangeEventHolder> processor =
         new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(), eventHandler);
     processor.setExceptionHandler(new DefaultExceptionHandler());
     ringBuffer.addGatingSequences(processor.getSequence());
     executor.execute(processor);
+    registerLagGauge(name, processor);
     LOG.info("Processor added for {}", processor);
     return processor;
   }
 
   public static void removeProcessor(BatchEventProcessor<ChangeEventHolder> processor) {
     ringBuffer.removeGatingSequence(processor.getSequence());
+    Gauge lag = lagGauges.remove(processor);
+    if (lag != null) {
+      meterRegistry.remove(lag);
+    }
     LOG.info("Processor removed for {}", processor);
   }
 
+  private static void registerLagGauge(String name, BatchEventProcessor<ChangeEventHolder> processor) {
+    // A restarted processor replaces the gauge of the previous processor with the same name
+    Gauge previous = meterRegistry.find("eventPubSub.lag").tag("processor", name).gauge();
+    if (previous != null) {
+      meterRegistry.remove(previous);
+      lagGauges.values().remove(previous);
+    }
+    RingBuffer<ChangeEventHolder> ring = ringBuffer;
+    Gauge lag =
+        Gauge.builder("eventPubSub.lag", processor, p -> ring.getCursor() - p.getSequence().get())
+            .description("Number of change events published but not yet processed by the event processor")
+            .tag("processor", name)
+            .register(meterRegistry);
+    lagGauges.put(processor, lag);
+  }
+
   public void close() {
     /* Nothing to clean up */
   }
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+import java.util.function.Supplier;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class EventPubSubConfiguration {
+  /** How the event processors wait for new change events */
+  public enum WaitStrategyType {
+    /** Wait on a lock. Uses the least CPU */
+    BLOCKING(BlockingWaitStrategy::new),
+    /** Spin, then yield, then sleep. Lower latency than blocking with little CPU when idle */
+    SLEEPING(SleepingWaitStrategy::new),
+    /** Spin, then yield. Low latency but uses a CPU per event processor */
+    YIELDING(YieldingWaitStrategy::new),
+    /** Busy spin. Lowest latency but uses a CPU per event processor even when idle */
+    BUSY_SPIN(BusySpinWaitStrategy::new);
+
+    private final Supplier<WaitStrategy> supplier;
+
+    WaitStrategyType(Supplier<WaitStrategy> supplier) {
+      this.supplier = supplier;
+    }
+
+    public WaitStrategy newWaitStrategy() {
+      return supplier.get();
+    }
+  }
+
+  /** What to do with a change event published when the ring buffer is full */
+  public enum OverflowPolicy {
+    /** Add the change event to the spill queue, which is published to the ring buffer when it has space again */
+    SPILL,
+    /** Drop the change event */
+    DROP,
+    /** Wait for space in the ring buffer for up to the block timeout and then drop the change event */
+    BLOCK
+  }
+
+  /** Number of change events in the ring buffer. Rounded up to a power of 2 */
+  @Min(2)
+  private int ringSize = 1024;
+
+  @NotNull private WaitStrategyType waitStrategy = WaitStrategyType.BLOCKING;
+
+  /** Use SINGLE only when change events are published from a single thread */
+  @NotNull private ProducerType producerType = ProducerType.MULTI;
+
+  @NotNull private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+
+  /** Maximum number of change events waiting in the spill queue. Change events are dropped when it is full */
+  @Min(1)
+  private int spillQueueSize = 10000;
+
+  /** Maximum time a request thread waits for space in the ring buffer with the BLOCK overflow policy */
+  @Min(1)
+  private long blockTimeoutInMillis = 100;
+}
@@ -0,0 +1,345 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import static org.openmetadata.common.utils.CommonUtil.listOrEmpty;
+
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.Sequence;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.EntityDAO;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Event processor that delivers the change events in the change_event table to an event publisher, starting after the
+ * cursor persisted for the publisher. The change events are read in pages ordered by their offset, which the database
+ * assigns when a change event is written, and the cursor is the offset of the last delivered change event.
+ *
+ * <p>Offsets are assigned when a change event is written, but become visible when the write is committed, so a change
+ * event may become visible after change events with a larger offset. The change events after a missing offset are
+ * delivered without waiting for it, and the missing offset is read again at every page until its change event is
+ * committed, or until it has been missing for longer than a transaction, as offsets of writes that were rolled back are
+ * never used. A change event committed late is delivered after the change events that follow it.
+ *
+ * <p>Each server runs a processor for the publisher, and the processor that holds the lease of the publisher delivers
+ * its change events. The lease is renewed before it expires, and another server takes it over when it expires or is
+ * released, resuming from the persisted cursor.
+ *
+ * <p>The cursor and the missing offsets are persisted after a page is delivered and the publisher has no change events
+ * waiting to be retried. Change events are delivered at least once. After a restart or a takeover, the change events
+ * delivered after the last persisted cursor are delivered again.
+ */
+@Slf4j
+public class OutboxEventProcessor implements EventProcessor {
+  public static final String CURSOR_EXTENSION = "eventOutbox.cursor";
+  private static final String CURSOR_SCHEMA = "changeEventCursor";
+
+  @Getter private final String name;
+  private final String owner;
+  private final EventPublisher publisher;
+  private final CollectionDAO dao;
+  private final EventOutboxConfiguration config;
+  private final Sequence sequence = new Sequence(-1);
+  private final ChangeEventHolder holder = new ChangeEventHolder();
+  private volatile boolean running = true;
+  private volatile Thread thread;
+  private volatile long leaseRenewAt; // Time to renew the lease, 0 to check it at the next page
+  private boolean leased;
+  private ChangeEventCursor persistedCursor;
+  private long cursor;
+  private long cursorTimestamp;
+  /** Offsets missing before the cursor, with the time they were first found missing, in the order of the offsets */
+  private final TreeMap<Long, Long> missingOffsets = new TreeMap<>();
+
+  public OutboxEventProcessor(
+      String name, String owner, EventPublisher publisher, CollectionDAO dao, EventOutboxConfiguration config) {
+    this.name = name;
+    this.owner = owner;
+    this.publisher = publisher;
+    this.dao = dao;
+    this.config = config;
+  }
+
+  @Override
+  public void run() {
+    thread = Thread.currentThread();
+    try {
+      publisher.onStart();
+      while (running) {
+        if (!holdLease() || !deliverNextPage()) {
+          Thread.sleep(config.getPollIntervalInMillis());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Stop the processor as an event handler thread does on an error
+      LOG.warn("Outbox error in onEvent for {} {}", name, e.getMessage());
+    } finally {
+      running = false;
+      releaseLease();
+      try {
+        publisher.onShutdown();
+      } catch (Exception e) {
+        LOG.warn("Outbox error on onShutdown for {} {}", name, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns true when this processor holds the lease of the publisher, renewing the lease when it is due. The cursor is
+   * loaded when the lease is taken over, as the server that held it may have moved the cursor.
+   */
+  boolean holdLease() throws IOException {
+    long now = System.currentTimeMillis();
+    if (leased && now < leaseRenewAt) {
+      return true;
+    }
+    long expiresAt = now + config.getLeaseDurationInMillis();
+    boolean acquired =
+        dao.eventOutboxLeaseDAO().renew(name, owner, expiresAt, now) > 0
+            || dao.eventOutboxLeaseDAO().insert(name, owner, expiresAt) > 0;
+    if (acquired && !leased) {
+      LOG.info("Outbox lease of {} acquired by server {}", name, owner);
+      loadCursor();
+    } else if (!acquired && leased) {
+      LOG.info("Outbox lease of {} taken over by another server", name);
+    }
+    leased = acquired;
+    leaseRenewAt = now + config.getLeaseDurationInMillis() / 2;
+    if (acquired) {
+      Long replayFrom = dao.eventOutboxLeaseDAO().getReplayFrom(name);
+      if (replayFrom != null) {
+        cursor = getOffsetBefore(replayFrom);
+        cursorTimestamp = replayFrom - 1;
+        missingOffsets.clear();
+        saveCursor();
+        dao.eventOutboxLeaseDAO().clearReplay(name, replayFrom);
+        LOG.info("Replaying change events for {} after offset {}", name, cursor);
+      }
+    }
+    return acquired;
+  }
+
+  private void releaseLease() {
+    if (leased) {
+      try {
+        dao.eventOutboxLeaseDAO().release(name, owner);
+      } catch (Exception e) {
+        LOG.warn("Outbox error releasing the lease of {} {}", name, e.getMessage());
+      }
+      leased = false;
+    }
+  }
+
+  /** Deliver the next page of change events. Returns false when there are no change events to deliver */
+  boolean deliverNextPage() throws Exception {
+    long now = System.currentTimeMillis();
+    List<ChangeEvent> events = readMissingOffsets(now);
+    List<Pair<Long, String>> rows = dao.changeEventDAO().listAfterOffset(cursor, config.getBatchSize());
+    long last = cursor;
+    for (Pair<Long, String> row : rows) {
+      for (long offset = last + 1; offset < row.getLeft(); offset++) {
+        addMissingOffset(offset, now);
+      }
+      events.add(toChangeEvent(row.getRight()));
+      last = row.getLeft();
+    }
+    if (events.isEmpty()) {
+      return false;
+    }
+
+    for (int i = 0; i < events.size(); i++) {
+      holder.set(events.get(i));
+      publisher.onEvent(holder, sequence.get() + 1, i == events.size() - 1);
+      sequence.set(sequence.get() + 1);
+    }
+    if (!rows.isEmpty()) {
+      cursor = last;
+      cursorTimestamp = events.get(events.size() - 1).getTimestamp(); // The change events of the rows come last
+    }
+    if (!(publisher instanceof AbstractEventPublisher) || !((AbstractEventPublisher) publisher).hasPendingEvents()) {
+      saveCursor();
+    }
+    return true;
+  }
+
+  /**
+   * Read the change events of the missing offsets that have been committed since, and stop reading the offsets that
+   * have been missing for longer than a transaction.
+   */
+  private List<ChangeEvent> readMissingOffsets(long now) throws IOException {
+    List<ChangeEvent> events = new ArrayList<>();
+    missingOffsets.values().removeIf(since -> now - since > config.getMaxTransactionTimeInMillis());
+    if (missingOffsets.isEmpty()) {
+      return events;
+    }
+    for (Pair<Long, String> row : dao.changeEventDAO().listByOffsets(new ArrayList<>(missingOffsets.keySet()))) {
+      missingOffsets.remove(row.getLeft());
+      events.add(toChangeEvent(row.getRight()));
+    }
+    return events;
+  }
+
+  private void addMissingOffset(long offset, long now) {
+    if (missingOffsets.size() >= EntityDAO.IN_CLAUSE_BATCH_SIZE) {
+      // More offsets are missing than transactions can be in progress, the database skipped a range of offsets
+      LOG.warn("Too many missing change event offsets for {}, skipping the offset {}", name, offset);
+      return;
+    }
+    missingOffsets.put(offset, now);
+  }
+
+  /** Deliver the change events again starting from the given timestamp, by the server that holds the lease */
+  public void replay(long timestamp) {
+    dao.eventOutboxLeaseDAO().requestReplay(name, timestamp);
+    leaseRenewAt = 0;
+  }
+
+  public long getCursor() {
+    return cursor;
+  }
+
+  private void loadCursor() throws IOException {
+    missingOffsets.clear();
+    String json = dao.entityExtensionTimeSeriesDao().getExtension(name, CURSOR_EXTENSION);
+    if (json != null) {
+      persistedCursor = JsonUtils.readValue(json, ChangeEventCursor.class);
+      cursorTimestamp = persistedCursor.getTimestamp();
+      if (persistedCursor.getMissingOffsets() != null) {
+        // The time they were found missing is not persisted, they are read again for a transaction time from now
+        long now = System.currentTimeMillis();
+        persistedCursor.getMissingOffsets().forEach(offset -> missingOffsets.put(offset, now));
+      }
+      if (persistedCursor.getOffset() != null) {
+        cursor = persistedCursor.getOffset();
+      } else {
+        // Cursor persisted before change events had an offset
+        cursor = getOffsetBefore(cursorTimestamp + 1);
+        saveCursor();
+      }
+      LOG.info("Resuming change events for {} after offset {}", name, cursor);
+    } else {
+      // A new event publisher receives the change events from now on
+      persistedCursor = null;
+      Long lastOffset = dao.changeEventDAO().getLastOffset();
+      cursor = lastOffset == null ? 0 : lastOffset;
+      cursorTimestamp = System.currentTimeMillis();
+      saveCursor();
+    }
+  }
+
+  /** Returns the offset before the first change event at or after the given timestamp */
+  private long getOffsetBefore(long timestamp) {
+    Long offset = dao.changeEventDAO().getFirstOffset(timestamp);
+    if (offset != null) {
+      return offset - 1;
+    }
+    Long lastOffset = dao.changeEventDAO().getLastOffset();
+    return lastOffset == null ? 0 : lastOffset;
+  }
+
+  private void saveCursor() throws IOException {
+    List<Long> missing = new ArrayList<>(missingOffsets.keySet());
+    if (persistedCursor != null
+        && persistedCursor.getOffset() != null
+        && persistedCursor.getOffset() == cursor
+        && missing.equals(listOrEmpty(persistedCursor.getMissingOffsets()))) {
+      return;
+    }
+    ChangeEventCursor newCursor =
+        new ChangeEventCursor()
+            .withOffset(cursor)
+            .withTimestamp(cursorTimestamp)
+            .withMissingOffsets(missing.isEmpty() ? null : missing);
+    String json = JsonUtils.pojoToJson(newCursor);
+    if (persistedCursor == null) {
+      dao.entityExtensionTimeSeriesDao().insert(name, CURSOR_EXTENSION, CURSOR_SCHEMA, json);
+    } else {
+      // Update in place so that the cursor is never lost when the server stops while it is being persisted
+      dao.entityExtensionTimeSeriesDao().update(name, CURSOR_EXTENSION, json, persistedCursor.getTimestamp());
+    }
+    persistedCursor = newCursor;
+  }
+
+  private static ChangeEvent toChangeEvent(String json) throws IOException {
+    ChangeEvent event = JsonUtils.readValue(json, ChangeEvent.class);
+    // The entity is stored as masked json. Event publishers expect the entity object as published to the ring buffer.
+    Class<? extends EntityInterface> entityClass = Entity.getEntityClassFromType(event.getEntityType());
+    if (event.getEntity() instanceof String && entityClass != null) {
+      event.setEntity(JsonUtils.readValue((String) event.getEntity(), entityClass));
+    }
+    return event;
+  }
+
+  @Override
+  public Sequence getSequence() {
+    return sequence;
+  }
+
+  @Override
+  public void halt() {
+    running = false;
+    Thread current = thread;
+    if (current != null) {
+      current.interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public String toString() {
+    return "OutboxEventProcessor{" + name + "}";
+  }
+
+  /** Offset and event time of the last change event delivered to an event publisher */
+  @Getter
+  @Setter
+  public static class ChangeEventCursor {
+    private Long offset; // Null in the cursors persisted before change events had an offset
+    private long timestamp;
+    private List<Long> missingOffsets; // Offsets before the offset whose change events are not committed yet
+
+    public ChangeEventCursor withOffset(long offset) {
+      this.offset = offset;
+      return this;
+    }
+
+    public ChangeEventCursor withTimestamp(long timestamp) {
+      this.timestamp = timestamp;
+      return this;
+    }
+
+    public ChangeEventCursor withMissingOffsets(List<Long> missingOffsets) {
+      this.missingOffsets = missingOffsets;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.events;
+
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.UnresolvedAddressException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import javax.ws.rs.core.Response;
+import org.openmetadata.common.utils.CommonUtil;
+import org.openmetadata.schema.type.Webhook;
+import org.openmetadata.service.util.RestUtil;
+
+/**
+ * Asynchronous HTTP transport of a webhook. The requests of all the webhooks are sent through a single {@link
+ * HttpClient}, so connections are pooled and kept alive across webhooks and batches, and waiting for a response does
+ * not use a thread. Each webhook limits the number of its requests in flight with {@link
+ * Webhook#getMaxInFlightRequests}.
+ */
+public class WebhookHttpClient {
+  private static final int DEFAULT_TIMEOUT_IN_SECONDS = 10;
+  private static final int DEFAULT_READ_TIMEOUT_IN_SECONDS = 12;
+  // Threads that complete the requests of all the webhooks. Requests are sent and received without blocking them.
+  private static final ExecutorService EXECUTOR =
+      Executors.newFixedThreadPool(
+          4,
+          runnable -> {
+            Thread thread = new Thread(runnable, "webhook-http");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private static final HttpClient HTTP_CLIENT =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .followRedirects(HttpClient.Redirect.NEVER) // Redirects are not allowed for callbacks
+          .connectTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT_IN_SECONDS))
+          .executor(EXECUTOR)
+          .build();
+
+  private final Semaphore inFlight;
+  private final Duration timeout;
+  private final String secretKey;
+
+  public WebhookHttpClient(Webhook webhook) {
+    int maxInFlightRequests = webhook.getMaxInFlightRequests() == null ? 1 : webhook.getMaxInFlightRequests();
+    this.inFlight = new Semaphore(Math.max(1, maxInFlightRequests));
+    // Time to connect and receive the response
+    int timeoutInSeconds = webhook.getTimeout() == null ? DEFAULT_TIMEOUT_IN_SECONDS : webhook.getTimeout();
+    int readTimeoutInSeconds =
+        webhook.getReadTimeout() == null ? DEFAULT_READ_TIMEOUT_IN_SECONDS : webhook.getReadTimeout();
+    this.timeout = Duration.ofSeconds((long) timeoutInSeconds + readTimeoutInSeconds);
+    this.secretKey = CommonUtil.nullOrEmpty(webhook.getSecretKey()) ? null : webhook.getSecretKey();
+  }
+
+  /**
+   * Send the json as a POST request, signed with the webhook secret key when there is one. Waits while the webhook has
+   * the maximum number of requests in flight.
+   */
+  public CompletableFuture<HttpResponse<Void>> post(URI endpoint, String json, Map<String, String> headers)
+      throws InterruptedException {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(endpoint)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+    headers.forEach(request::header);
+    if (secretKey != null) {
+      request.header(RestUtil.SIGNATURE_HEADER, "sha256=" + CommonUtil.calculateHMAC(secretKey, json));
+    }
+    inFlight.acquire();
+    try {
+      return HTTP_CLIENT
+          .sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, error) -> inFlight.release());
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  public static String getReasonPhrase(int statusCode) {
+    Response.Status status = Response.Status.fromStatusCode(statusCode);
+    return status == null ? String.valueOf(statusCode) : status.getReasonPhrase();
+  }
+
+  /** Returns true when the request failed because the host of the endpoint can't be resolved */
+  public static boolean isUnknownHost(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof UnknownHostException || cause instanceof UnresolvedAddressException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -14,20 +14,27 @@
 package org.openmetadata.service.events;
 
 import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventProcessor;
 import java.io.IOException;
-import java.net.UnknownHostException;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Invocation;
-import javax.ws.rs.core.Response;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
-import org.openmetadata.common.utils.CommonUtil;
+import org.openmetadata.schema.type.ChangeEvent;
 import org.openmetadata.schema.type.FailureDetails;
 import org.openmetadata.schema.type.Webhook;
 import org.openmetadata.service.events.errors.EventPublisherException;
+import org.openmetadata.service.events.errors.RetriableException;
+import org.openmetadata.service.events.errors.WebhookRetriableException;
 import org.openmetadata.service.jdbi3.CollectionDAO;
 import org.openmetadata.service.jdbi3.EntityRepository;
 import org.openmetadata.service.jdbi3.WebhookRepository;
@@ -35,12 +42,12 @@ import org.openmetadata.service.jdbi3.WebhookRepository.WebhookUpdater;
 import org.openmetadata.service.resources.events.EventResource;
 import org.openmetadata.service.security.SecurityUtil;
 import org.openmetadata.service.util.JsonUtils;
-import org.openmetadata.service.util.RestUtil;
 
 /**
  * WebhookPublisher publishes events to the webhook endpoint using POST http requests. There is one instance of
  * WebhookPublisher per webhook subscription. Each WebhookPublish is an EventHandler that runs in a separate thread and
- * receives events from LMAX Disruptor {@link EventPubSub} through {@link BatchEventProcessor}.
+ * receives events from LMAX Disruptor {@link EventPubSub} through {@link BatchEventProcessor}, or from the change event
+ * outbox through {@link OutboxEventProcessor} when {@link EventOutbox} is enabled.
  *
  * <p>The failures during callback to Webhook endpoints are handled in this class as follows:
  *
@@ -52,13 +59,21 @@ import org.openmetadata.service.util.RestUtil;
  *       all the 5 delivery attempts fail, the webhook state is marked as "retryLimitReached" and no further attempt is
  *       made to deliver the events.
  * </ul>
+ *
+ * <p>Retries are scheduled by {@link AbstractEventPublisher} without blocking the event processor. The number of change
+ * events waiting for the retry and the time of the next attempt are reported in the webhook failure details.
+ *
+ * <p>Requests are sent through the shared {@link WebhookHttpClient}. A batch of change events is sent in a single
+ * request and the next batch is sent after the response, so that change events are delivered in order to each webhook
+ * while the webhooks are called in parallel by their own event processors.
  */
 @Slf4j
 public class WebhookPublisher extends AbstractEventPublisher {
+  private static final Map<String, String> AUTH_HEADERS = SecurityUtil.authHeaders("admin@open-metadata.org");
   private final CountDownLatch shutdownLatch = new CountDownLatch(1);
   private final Webhook webhook;
-  private BatchEventProcessor<EventPubSub.ChangeEventHolder> processor;
-  private Client client;
+  private EventProcessor processor;
+  private WebhookHttpClient httpClient;
   private final CollectionDAO daoCollection;
 
   private final WebhookRepository webhookRepository;
@@ -70,18 +85,23 @@ public class WebhookPublisher extends AbstractEventPublisher {
     this.webhookRepository = new WebhookRepository(dao);
   }
 
+  WebhookPublisher(Webhook webhook, CollectionDAO dao, ScheduledExecutorService retryExecutor, Clock clock) {
+    super(webhook.getBatchSize(), webhook.getEventFilters(), retryExecutor, clock);
+    this.webhook = webhook;
+    this.daoCollection = dao;
+    this.webhookRepository = new WebhookRepository(dao);
+  }
+
   @Override
   public void onStart() {
-    createClient();
+    createHttpClient();
     webhook.withFailureDetails(new FailureDetails());
     LOG.info("Webhook-lifecycle-onStart {}", webhook.getName());
   }
 
   @Override
   public void onShutdown() {
-    currentBackoffTime = BACKOFF_NORMAL;
-    client.close();
-    client = null;
+    stopRetries();
     shutdownLatch.countDown();
     LOG.info("Webhook-lifecycle-onShutdown {}", webhook.getName());
   }
@@ -95,10 +115,11 @@ public class WebhookPublisher extends AbstractEventPublisher {
     webhook.setDescription(updatedWebhook.getDescription());
     webhook.setTimeout(updatedWebhook.getTimeout());
     webhook.setBatchSize(updatedWebhook.getBatchSize());
+    webhook.setMaxInFlightRequests(updatedWebhook.getMaxInFlightRequests());
     webhook.setEndpoint(updatedWebhook.getEndpoint());
     webhook.setEventFilters(updatedWebhook.getEventFilters());
     updateFilter();
-    createClient();
+    createHttpClient();
   }
 
   private void updateFilter() {
@@ -115,37 +136,104 @@ public class WebhookPublisher extends AbstractEventPublisher {
     throw new RuntimeException(reason);
   }
 
-  private void setAwaitingRetry(Long attemptTime, int statusCode, String reason) throws IOException {
-    if (!attemptTime.equals(webhook.getFailureDetails().getLastFailedAt())) {
-      setStatus(Webhook.Status.AWAITING_RETRY, attemptTime, statusCode, reason, attemptTime + currentBackoffTime);
+  @Override
+  protected void onRetryScheduled(RetriableException ex) {
+    try {
+      if (ex instanceof WebhookRetriableException) {
+        WebhookRetriableException retriable = (WebhookRetriableException) ex;
+        setStatus(
+            Webhook.Status.AWAITING_RETRY,
+            retriable.getAttemptTime(),
+            retriable.getStatusCode(),
+            retriable.getMessage(),
+            getNextAttempt());
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to update the status of webhook {}", webhook.getName(), e);
     }
   }
 
-  private void setStatus(Webhook.Status status, Long attemptTime, Integer statusCode, String reason, Long timestamp)
-      throws IOException {
-    Webhook stored = daoCollection.webhookDAO().findEntityById(webhook.getId());
+  private synchronized void setStatus(
+      Webhook.Status status, Long attemptTime, Integer statusCode, String reason, Long timestamp) throws IOException {
     webhook.setStatus(status);
     webhook
         .getFailureDetails()
         .withLastFailedAt(attemptTime)
         .withLastFailedStatusCode(statusCode)
         .withLastFailedReason(reason)
-        .withNextAttempt(timestamp);
+        .withNextAttempt(timestamp)
+        .withRetryQueueDepth(status == Webhook.Status.AWAITING_RETRY ? getRetryQueueDepth() : null);
+    storeStatus();
+  }
 
+  protected void storeStatus() throws IOException {
+    Webhook stored = daoCollection.webhookDAO().findEntityById(webhook.getId());
     // TODO: Fix this
     WebhookUpdater updater = webhookRepository.getUpdater(stored, webhook, EntityRepository.Operation.PUT);
     updater.update();
   }
 
-  private synchronized void createClient() {
-    if (client != null) {
-      client.close();
-      client = null;
+  private synchronized void createHttpClient() {
+    httpClient = new WebhookHttpClient(webhook);
+  }
+
+  protected synchronized WebhookHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  /**
+   * Post a message per change event, with up to {@link Webhook#getMaxInFlightRequests()} requests in flight. Used by
+   * the publishers for chat applications that receive one change event per request. The change events whose message
+   * failed with a 4xx or 5xx response, a connection failure, or a timeout are delivered again after a backoff, like the
+   * batches of the webhook.
+   */
+  protected void publishMessages(List<ChangeEvent> events, Function<ChangeEvent, Object> messageBuilder)
+      throws InterruptedException, WebhookRetriableException {
+    long attemptTime = clock.millis();
+    WebhookHttpClient client = getHttpClient();
+    List<ChangeEvent> sent = new ArrayList<>(events.size());
+    List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(events.size());
+    for (ChangeEvent event : events) {
+      try {
+        String json = JsonUtils.pojoToJson(messageBuilder.apply(event));
+        responses.add(client.post(webhook.getEndpoint(), json, Map.of()));
+        sent.add(event);
+      } catch (IOException e) {
+        LOG.error("Failed to publish event {} to {} due to {}", event, webhook.getName(), e.getMessage());
+      }
+    }
+
+    List<ChangeEvent> failedEvents = new ArrayList<>();
+    Integer statusCode = null;
+    String reason = null;
+    for (int i = 0; i < sent.size(); i++) {
+      try {
+        int status = responses.get(i).get().statusCode();
+        if (status >= 300 && status < 400) {
+          // Redirects are not allowed for callbacks and are not retried
+          LOG.error(
+              "Failed to publish event {} to {} due to {}",
+              sent.get(i),
+              webhook.getName(),
+              WebhookHttpClient.getReasonPhrase(status));
+        } else if (status >= 400) {
+          failedEvents.add(sent.get(i));
+          statusCode = status;
+          reason = WebhookHttpClient.getReasonPhrase(status);
+        }
+      } catch (ExecutionException ex) {
+        if (WebhookHttpClient.isUnknownHost(ex)) {
+          LOG.error("Failed to publish event {} to {} due to unknown host", sent.get(i), webhook.getName());
+        } else {
+          failedEvents.add(sent.get(i));
+          statusCode = null;
+          reason = ex.getCause().getMessage();
+        }
+      }
+    }
+    if (!failedEvents.isEmpty()) {
+      throw new WebhookRetriableException(attemptTime, statusCode, reason, failedEvents);
     }
-    ClientBuilder clientBuilder = ClientBuilder.newBuilder();
-    clientBuilder.connectTimeout(10, TimeUnit.SECONDS);
-    clientBuilder.readTimeout(12, TimeUnit.SECONDS);
-    client = clientBuilder.build();
   }
 
   public void awaitShutdown() throws InterruptedException {
@@ -153,62 +241,55 @@ public class WebhookPublisher extends AbstractEventPublisher {
     shutdownLatch.await(5, TimeUnit.SECONDS);
   }
 
-  public void setProcessor(BatchEventProcessor<EventPubSub.ChangeEventHolder> processor) {
+  public void setProcessor(EventProcessor processor) {
     this.processor = processor;
   }
 
-  public BatchEventProcessor<EventPubSub.ChangeEventHolder> getProcessor() {
+  public EventProcessor getProcessor() {
     return processor;
   }
 
-  private Invocation.Builder getTarget() {
-    Map<String, String> authHeaders = SecurityUtil.authHeaders("admin@open-metadata.org");
-    return SecurityUtil.addHeaders(client.target(webhook.getEndpoint()), authHeaders);
-  }
-
   @Override
   public void publish(EventResource.ChangeEventList list)
       throws EventPublisherException, IOException, InterruptedException {
-    long attemptTime = System.currentTimeMillis();
+    long attemptTime = clock.millis();
     try {
       String json = JsonUtils.pojoToJson(list);
-      Response response;
-      if (webhook.getSecretKey() != null && !webhook.getSecretKey().isEmpty()) {
-        String hmac = "sha256=" + CommonUtil.calculateHMAC(webhook.getSecretKey(), json);
-        response = getTarget().header(RestUtil.SIGNATURE_HEADER, hmac).post(javax.ws.rs.client.Entity.json(json));
-      } else {
-        response = getTarget().post(javax.ws.rs.client.Entity.json(json));
+      HttpResponse<Void> response;
+      try {
+        response = getHttpClient().post(webhook.getEndpoint(), json, AUTH_HEADERS).join();
+      } catch (CompletionException ex) {
+        if (WebhookHttpClient.isUnknownHost(ex)) {
+          LOG.warn("Invalid webhook {} endpoint {}", webhook.getName(), webhook.getEndpoint());
+          setErrorStatus(attemptTime, null, "UnknownHostException");
+        }
+        // Connection failures and timeouts are retried
+        throw new WebhookRetriableException(attemptTime, null, ex.getCause().getMessage());
       }
+      int status = response.statusCode();
       LOG.info(
           "Webhook {}:{}:{} received response {}",
           webhook.getName(),
           webhook.getStatus(),
-          batch.size(),
-          response.getStatusInfo());
+          list.getData().size(),
+          status);
       // 2xx response means call back is successful
-      if (response.getStatus() >= 200 && response.getStatus() < 300) { // All 2xx responses
-        webhook.getFailureDetails().setLastSuccessfulAt(batch.get(batch.size() - 1).getTimestamp());
-        batch.clear();
+      if (status >= 200 && status < 300) { // All 2xx responses
+        webhook.getFailureDetails().setLastSuccessfulAt(list.getData().get(list.getData().size() - 1).getTimestamp());
         if (webhook.getStatus() != Webhook.Status.ACTIVE) {
           setStatus(Webhook.Status.ACTIVE, null, null, null, null);
         }
-      } else if (response.getStatus() >= 300 && response.getStatus() < 400) {
+      } else if (status >= 300 && status < 400) {
         // 3xx response/redirection is not allowed for callback. Set the webhook state as in error
-        setErrorStatus(attemptTime, response.getStatus(), response.getStatusInfo().getReasonPhrase());
-      } else if (response.getStatus() >= 300 && response.getStatus() < 600) {
+        setErrorStatus(attemptTime, status, WebhookHttpClient.getReasonPhrase(status));
+      } else if (status >= 300 && status < 600) {
         // 4xx, 5xx response retry delivering events after timeout
-        setNextBackOff();
-        setAwaitingRetry(attemptTime, response.getStatus(), response.getStatusInfo().getReasonPhrase());
-        Thread.sleep(currentBackoffTime);
+        throw new WebhookRetriableException(attemptTime, status, WebhookHttpClient.getReasonPhrase(status));
       }
+    } catch (RetriableException | InterruptedException ex) {
+      throw ex;
     } catch (Exception ex) {
-      Throwable cause = ex.getCause();
-      if (cause != null && cause.getClass() == UnknownHostException.class) {
-        LOG.warn("Invalid webhook {} endpoint {}", webhook.getName(), webhook.getEndpoint());
-        setErrorStatus(attemptTime, null, "UnknownHostException");
-      } else {
-        LOG.debug("Exception occurred while publishing webhook", ex);
-      }
+      LOG.debug("Exception occurred while publishing webhook", ex);
     }
   }
 }
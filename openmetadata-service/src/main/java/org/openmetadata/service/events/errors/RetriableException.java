@@ -1,19 +1,33 @@
 package org.openmetadata.service.events.errors;
 
+import java.util.List;
+import lombok.Getter;
+import org.openmetadata.schema.type.ChangeEvent;
+
 /** A retriable exception is a transient exception that if retried may succeed. */
 public abstract class RetriableException extends EventPublisherException {
 
   private static final long serialVersionUID = 1L;
 
+  // Change events of the batch that were not delivered, or null when none of the batch was delivered
+  @Getter private final transient List<ChangeEvent> failedEvents;
+
   protected RetriableException(String message, Throwable cause) {
     super(message, cause);
+    this.failedEvents = null;
   }
 
   protected RetriableException(String message) {
+    this(message, (List<ChangeEvent>) null);
+  }
+
+  protected RetriableException(String message, List<ChangeEvent> failedEvents) {
     super(message);
+    this.failedEvents = failedEvents;
   }
 
   protected RetriableException(Throwable cause) {
     super(cause);
+    this.failedEvents = null;
   }
 }
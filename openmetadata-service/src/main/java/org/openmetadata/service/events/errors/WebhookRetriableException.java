@@ -0,0 +1,25 @@
+package org.openmetadata.service.events.errors;
+
+import java.util.List;
+import lombok.Getter;
+import org.openmetadata.schema.type.ChangeEvent;
+
+/** Webhook callback that failed with a 4xx or 5xx response, or timed out */
+public class WebhookRetriableException extends RetriableException {
+  private static final long serialVersionUID = 1L;
+
+  @Getter private final long attemptTime;
+  @Getter private final Integer statusCode;
+
+  public WebhookRetriableException(long attemptTime, Integer statusCode, String reason) {
+    this(attemptTime, statusCode, reason, null);
+  }
+
+  /** Only the failed change events of the batch are delivered again */
+  public WebhookRetriableException(
+      long attemptTime, Integer statusCode, String reason, List<ChangeEvent> failedEvents) {
+    super(reason, failedEvents);
+    this.attemptTime = attemptTime;
+    this.statusCode = statusCode;
+  }
+}
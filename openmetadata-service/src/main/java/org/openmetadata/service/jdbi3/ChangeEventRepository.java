@@ -21,11 +21,18 @@ import static org.openmetadata.schema.type.EventType.ENTITY_UPDATED;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
 import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.service.events.ChangeEventWriter;
 import org.openmetadata.service.util.JsonUtils;
 
+@Slf4j
 public class ChangeEventRepository {
+  // Maximum time a list waits for the change events queued by the change event writer to be written
+  private static final long WRITE_WAIT_IN_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
   private final CollectionDAO.ChangeEventDAO dao;
 
   public ChangeEventRepository(CollectionDAO dao) {
@@ -36,6 +43,7 @@ public class ChangeEventRepository {
   public List<ChangeEvent> list(
       long timestamp, List<String> entityCreatedList, List<String> entityUpdatedList, List<String> entityDeletedList)
       throws IOException {
+    awaitChangeEventWriter();
     List<String> jsons = new ArrayList<>();
     jsons.addAll(dao.list(ENTITY_CREATED.value(), entityCreatedList, timestamp));
     jsons.addAll(dao.list(ENTITY_UPDATED.value(), entityUpdatedList, timestamp));
@@ -49,6 +57,21 @@ public class ChangeEventRepository {
     return changeEvents;
   }
 
+  /** Wait for the change events written before the list so that the list includes them */
+  private static void awaitChangeEventWriter() {
+    ChangeEventWriter writer = ChangeEventWriter.getInstance();
+    if (writer == null) {
+      return;
+    }
+    try {
+      if (!writer.awaitWritten(WRITE_WAIT_IN_MILLIS)) {
+        LOG.warn("Listing change events before the queued change events are written");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Transaction
   public void deleteAll(String entityType) {
     dao.deleteAll(entityType);
@@ -13,8 +13,6 @@
 
 package org.openmetadata.service.jdbi3;
 
-import static org.openmetadata.service.Entity.FIELD_FOLLOWERS;
-
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.IOException;
 import java.util.List;
@@ -89,7 +87,6 @@ public class ChartRepository extends EntityRepository<Chart> {
   @Override
   public Chart setFields(Chart chart, Fields fields) throws IOException {
     chart.setService(getContainer(chart.getId()));
-    chart.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(chart) : null);
     return chart;
   }
 
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.UUID;
 import lombok.Builder;
 import lombok.Getter;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.StatementContext;
@@ -39,9 +40,12 @@ import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.customizer.BindMap;
+import org.jdbi.v3.sqlobject.customizer.BindMethodsList;
 import org.jdbi.v3.sqlobject.customizer.Define;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+import org.jdbi.v3.sqlobject.transaction.Transactional;
 import org.openmetadata.common.utils.CommonUtil;
 import org.openmetadata.schema.TokenInterface;
 import org.openmetadata.schema.analytics.WebAnalyticEvent;
@@ -96,13 +100,22 @@ import org.openmetadata.service.Entity;
 import org.openmetadata.service.jdbi3.CollectionDAO.TagUsageDAO.TagLabelMapper;
 import org.openmetadata.service.jdbi3.CollectionDAO.UsageDAO.UsageDetailsMapper;
 import org.openmetadata.service.jdbi3.FeedRepository.FilterType;
+import org.openmetadata.service.jdbi3.MetadataTransfer.ExtensionRow;
+import org.openmetadata.service.jdbi3.MetadataTransfer.RelationshipRow;
+import org.openmetadata.service.jdbi3.MetadataTransfer.TagUsageRow;
+import org.openmetadata.service.jdbi3.locator.ConnectionAwareSqlBatch;
 import org.openmetadata.service.jdbi3.locator.ConnectionAwareSqlQuery;
 import org.openmetadata.service.jdbi3.locator.ConnectionAwareSqlUpdate;
 import org.openmetadata.service.util.EntityUtil;
 import org.openmetadata.service.util.FullyQualifiedName;
 import org.openmetadata.service.util.JsonUtils;
 
-public interface CollectionDAO {
+/**
+ * DAOs of the collections. A transaction started with {@link Transactional#useTransaction} on the on-demand instance
+ * holds the handle of the current thread, so that the statements of the DAOs of the same Jdbi run by the callback are
+ * part of the transaction.
+ */
+public interface CollectionDAO extends Transactional<CollectionDAO> {
   @CreateSqlObject
   DatabaseDAO databaseDAO();
 
@@ -235,6 +248,12 @@ public interface CollectionDAO {
   @CreateSqlObject
   TokenDAO getTokenDAO();
 
+  @CreateSqlObject
+  MetadataTransferDAO metadataTransferDAO();
+
+  @CreateSqlObject
+  EventOutboxLeaseDAO eventOutboxLeaseDAO();
+
   interface DashboardDAO extends EntityDAO<Dashboard> {
     @Override
     default String getTableName() {
@@ -355,6 +374,25 @@ public interface CollectionDAO {
         @Bind("jsonSchema") String jsonSchema,
         @Bind("json") String json);
 
+    /** Insert the extensions in a single batch. The lists are of the same size, one element per extension. */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "REPLACE INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, :json)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, (:json :: jsonb)) "
+                + "ON CONFLICT (id, extension) DO UPDATE SET jsonSchema = EXCLUDED.jsonSchema, json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void insertBatch(
+        @Bind("id") List<String> ids,
+        @Bind("extension") List<String> extensions,
+        @Bind("jsonSchema") String jsonSchema,
+        @Bind("json") List<String> jsons);
+
     @SqlQuery("SELECT json FROM entity_extension WHERE id = :id AND extension = :extension")
     String getExtension(@Bind("id") String id, @Bind("extension") String extension);
 
@@ -365,6 +403,84 @@ public interface CollectionDAO {
             + "ORDER BY extension")
     List<ExtensionRecord> getExtensions(@Bind("id") String id, @Bind("extensionPrefix") String extensionPrefix);
 
+    @RegisterRowMapper(ExtensionWithIdMapper.class)
+    @SqlQuery(
+        "SELECT id, extension, json FROM entity_extension WHERE id IN (<ids>) AND extension "
+            + "LIKE CONCAT (:extensionPrefix, '.%') "
+            + "ORDER BY id, extension")
+    List<ExtensionRecordWithId> getExtensionsBatch(
+        @BindList("ids") List<String> ids, @Bind("extensionPrefix") String extensionPrefix);
+
+    /** Get the extensions with any of the given names of any of the given entities, with their jsonSchema */
+    @RegisterRowMapper(ExtensionWithIdAndSchemaMapper.class)
+    @SqlQuery(
+        "SELECT id, extension, jsonSchema, json FROM entity_extension "
+            + "WHERE id IN (<ids>) AND extension IN (<extensions>)")
+    List<ExtensionRecordWithId> getExtensionsByNames(
+        @BindList("ids") List<String> ids, @BindList("extensions") List<String> extensions);
+
+    /** Get the versions with any of the given extension names of an entity, with their jsonSchema */
+    @RegisterRowMapper(ExtensionWithSchemaMapper.class)
+    @SqlQuery("SELECT extension, jsonSchema, json FROM entity_extension WHERE id = :id AND extension IN (<extensions>)")
+    List<ExtensionRecord> getVersions(@Bind("id") String id, @BindList("extensions") List<String> extensions);
+
+    /** Get all the versions of an entity, with their jsonSchema */
+    @RegisterRowMapper(ExtensionWithSchemaMapper.class)
+    @SqlQuery(
+        "SELECT extension, jsonSchema, json FROM entity_extension WHERE id = :id AND extension "
+            + "LIKE CONCAT (:extensionPrefix, '.%') "
+            + "ORDER BY extension")
+    List<ExtensionRecord> getVersionHistory(@Bind("id") String id, @Bind("extensionPrefix") String extensionPrefix);
+
+    /**
+     * Replace a version stored in full with a patch. The version is left unchanged when it is no longer stored in full,
+     * and is not written again when the entity has been deleted.
+     */
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE entity_extension SET jsonSchema = :patchSchema, json = :json "
+                + "WHERE id = :id AND extension = :extension AND jsonSchema = :jsonSchema",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE entity_extension SET jsonSchema = :patchSchema, json = (:json :: jsonb) "
+                + "WHERE id = :id AND extension = :extension AND jsonSchema = :jsonSchema",
+        connectionType = POSTGRES)
+    int replaceWithPatch(
+        @Bind("id") String id,
+        @Bind("extension") String extension,
+        @Bind("jsonSchema") String jsonSchema,
+        @Bind("patchSchema") String patchSchema,
+        @Bind("json") String json);
+
+    /**
+     * Insert or replace versions of entities in a single batch, each with its own jsonSchema. The lists are of the same
+     * size, one element per version.
+     */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "REPLACE INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, :json)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, (:json :: jsonb)) "
+                + "ON CONFLICT (id, extension) DO UPDATE SET jsonSchema = EXCLUDED.jsonSchema, json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void insertVersions(
+        @Bind("id") List<String> ids,
+        @Bind("extension") List<String> extensions,
+        @Bind("jsonSchema") List<String> jsonSchemas,
+        @Bind("json") List<String> jsons);
+
+    /** List the id and type of the entities that have previous versions */
+    @RegisterRowMapper(VersionedEntityMapper.class)
+    @SqlQuery(
+        "SELECT DISTINCT id, jsonSchema FROM entity_extension WHERE extension LIKE CONCAT(jsonSchema, '.version.%')")
+    List<Pair<UUID, String>> listVersionedEntities();
+
     @SqlUpdate("DELETE FROM entity_extension WHERE id = :id AND extension = :extension")
     void delete(@Bind("id") String id, @Bind("extension") String extension);
 
@@ -373,6 +489,34 @@ public interface CollectionDAO {
 
     @SqlUpdate("DELETE FROM entity_extension WHERE id = :id")
     void deleteAll(@Bind("id") String id);
+
+    @SqlUpdate("DELETE FROM entity_extension WHERE id IN (<ids>)")
+    void deleteAllBatch(@BindList("ids") List<String> ids);
+
+    class VersionedEntityMapper implements RowMapper<Pair<UUID, String>> {
+      @Override
+      public Pair<UUID, String> map(ResultSet r, StatementContext ctx) throws SQLException {
+        return Pair.of(UUID.fromString(r.getString("id")), r.getString("jsonSchema"));
+      }
+    }
+
+    class ExtensionWithSchemaMapper implements RowMapper<ExtensionRecord> {
+      @Override
+      public ExtensionRecord map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new ExtensionRecord(rs.getString("extension"), rs.getString("jsonSchema"), rs.getString("json"));
+      }
+    }
+
+    class ExtensionWithIdAndSchemaMapper implements RowMapper<ExtensionRecordWithId> {
+      @Override
+      public ExtensionRecordWithId map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new ExtensionRecordWithId(
+            UUID.fromString(rs.getString("id")),
+            rs.getString("extension"),
+            rs.getString("jsonSchema"),
+            rs.getString("json"));
+      }
+    }
   }
 
   class EntityVersionPair {
@@ -387,10 +531,16 @@ public interface CollectionDAO {
 
   class ExtensionRecord {
     @Getter private final String extensionName;
+    @Getter private final String jsonSchema;
     @Getter private final String extensionJson;
 
     public ExtensionRecord(String extensionName, String extensionJson) {
+      this(extensionName, null, extensionJson);
+    }
+
+    public ExtensionRecord(String extensionName, String jsonSchema, String extensionJson) {
       this.extensionName = extensionName;
+      this.jsonSchema = jsonSchema;
       this.extensionJson = extensionJson;
     }
   }
@@ -402,6 +552,32 @@ public interface CollectionDAO {
     }
   }
 
+  class ExtensionRecordWithId {
+    @Getter private final UUID id;
+    @Getter private final String extensionName;
+    @Getter private final String jsonSchema;
+    @Getter private final String extensionJson;
+
+    public ExtensionRecordWithId(UUID id, String extensionName, String extensionJson) {
+      this(id, extensionName, null, extensionJson);
+    }
+
+    public ExtensionRecordWithId(UUID id, String extensionName, String jsonSchema, String extensionJson) {
+      this.id = id;
+      this.extensionName = extensionName;
+      this.jsonSchema = jsonSchema;
+      this.extensionJson = extensionJson;
+    }
+  }
+
+  class ExtensionWithIdMapper implements RowMapper<ExtensionRecordWithId> {
+    @Override
+    public ExtensionRecordWithId map(ResultSet rs, StatementContext ctx) throws SQLException {
+      return new ExtensionRecordWithId(
+          UUID.fromString(rs.getString("id")), rs.getString("extension"), rs.getString("json"));
+    }
+  }
+
   @Getter
   @Builder
   class EntityRelationshipRecord {
@@ -410,6 +586,17 @@ public interface CollectionDAO {
     private String json;
   }
 
+  @Getter
+  @Builder
+  class EntityRelationshipObject {
+    private UUID fromId;
+    private UUID toId;
+    private String fromEntity;
+    private String toEntity;
+    private int relation;
+    private String json;
+  }
+
   interface EntityRelationshipDAO {
     default void insert(UUID fromId, UUID toId, String fromEntity, String toEntity, int relation) {
       insert(fromId, toId, fromEntity, toEntity, relation, null);
@@ -439,6 +626,29 @@ public interface CollectionDAO {
         @Bind("relation") int relation,
         @Bind("json") String json);
 
+    /**
+     * Insert the relationships in a single batch. The lists are of the same size, one element per relationship.
+     * Relationships that already exist are left unchanged.
+     */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT IGNORE INTO entity_relationship(fromId, toId, fromEntity, toEntity, relation) "
+                + "VALUES (:fromId, :toId, :fromEntity, :toEntity, :relation)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_relationship(fromId, toId, fromEntity, toEntity, relation) "
+                + "VALUES (:fromId, :toId, :fromEntity, :toEntity, :relation) "
+                + "ON CONFLICT (fromId, toId, relation) DO NOTHING",
+        connectionType = POSTGRES)
+    void insertBatch(
+        @Bind("fromId") List<String> fromIds,
+        @Bind("toId") List<String> toIds,
+        @Bind("fromEntity") List<String> fromEntities,
+        @Bind("toEntity") List<String> toEntities,
+        @Bind("relation") List<Integer> relations);
+
     //
     // Find to operations
     //
@@ -468,6 +678,17 @@ public interface CollectionDAO {
         @Bind("relation") int relation,
         @Bind("toEntity") String toEntity);
 
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE fromId IN (<fromIds>) AND fromEntity = :fromEntity AND relation = :relation "
+            + "AND toEntity = :toEntity ORDER BY toId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findToBatch(
+        @BindList("fromIds") List<String> fromIds,
+        @Bind("fromEntity") String fromEntity,
+        @Bind("relation") int relation,
+        @Bind("toEntity") String toEntity);
+
     @SqlQuery(
         "SELECT count(*) FROM entity_relationship "
             + "WHERE fromId = :fromId AND fromEntity = :fromEntity AND relation = :relation "
@@ -479,6 +700,30 @@ public interface CollectionDAO {
         @Bind("relation") int relation,
         @Bind("toEntity") String toEntity);
 
+    @SqlQuery(
+        "SELECT count(*) FROM entity_relationship "
+            + "WHERE fromId IN (<fromIds>) AND fromEntity = :fromEntity AND relation = :relation "
+            + "AND toEntity = :toEntity")
+    int findToCountBatch(
+        @BindList("fromIds") List<String> fromIds,
+        @Bind("fromEntity") String fromEntity,
+        @Bind("relation") int relation,
+        @Bind("toEntity") String toEntity);
+
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE fromId IN (<fromIds>) AND relation = :relation ORDER BY toId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findToBatch(
+        @BindList("fromIds") List<String> fromIds, @Bind("relation") int relation);
+
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE fromId IN (<fromIds>) AND relation IN (<relation>) ORDER BY toId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findToBatch(
+        @BindList("fromIds") List<String> fromIds, @BindList("relation") List<Integer> relation);
+
     //
     // Find from operations
     //
@@ -501,6 +746,39 @@ public interface CollectionDAO {
     List<EntityRelationshipRecord> findFrom(
         @Bind("toId") String toId, @Bind("toEntity") String toEntity, @Bind("relation") int relation);
 
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE toId IN (<toIds>) AND toEntity = :toEntity AND relation = :relation AND fromEntity = :fromEntity "
+            + "ORDER BY fromId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findFromBatch(
+        @BindList("toIds") List<String> toIds,
+        @Bind("toEntity") String toEntity,
+        @Bind("relation") int relation,
+        @Bind("fromEntity") String fromEntity);
+
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE toId IN (<toIds>) AND toEntity = :toEntity AND relation = :relation "
+            + "ORDER BY fromId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findFromBatch(
+        @BindList("toIds") List<String> toIds, @Bind("toEntity") String toEntity, @Bind("relation") int relation);
+
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE toId IN (<toIds>) AND relation = :relation ORDER BY fromId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findFromBatch(@BindList("toIds") List<String> toIds, @Bind("relation") int relation);
+
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE fromEntity = :fromEntity AND toEntity = :toEntity AND relation = :relation "
+            + "ORDER BY fromId")
+    @RegisterRowMapper(RelationshipObjectMapper.class)
+    List<EntityRelationshipObject> findAll(
+        @Bind("fromEntity") String fromEntity, @Bind("toEntity") String toEntity, @Bind("relation") int relation);
+
     @SqlQuery("SELECT fromId, fromEntity, json FROM entity_relationship " + "WHERE toId = :toId ORDER BY fromId")
     @RegisterRowMapper(FromRelationshipMapper.class)
     List<EntityRelationshipRecord> findFrom(@Bind("toId") String toId);
@@ -544,6 +822,11 @@ public interface CollectionDAO {
             + "(fromId = :id AND fromEntity = :entity)")
     void deleteAll(@Bind("id") String id, @Bind("entity") String entity);
 
+    @SqlUpdate(
+        "DELETE from entity_relationship WHERE (toId IN (<ids>) AND toEntity = :entity) OR "
+            + "(fromId IN (<ids>) AND fromEntity = :entity)")
+    void deleteAllBatch(@BindList("ids") List<String> ids, @Bind("entity") String entity);
+
     class FromRelationshipMapper implements RowMapper<EntityRelationshipRecord> {
       @Override
       public EntityRelationshipRecord map(ResultSet rs, StatementContext ctx) throws SQLException {
@@ -565,6 +848,20 @@ public interface CollectionDAO {
             .build();
       }
     }
+
+    class RelationshipObjectMapper implements RowMapper<EntityRelationshipObject> {
+      @Override
+      public EntityRelationshipObject map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return EntityRelationshipObject.builder()
+            .fromId(UUID.fromString(rs.getString("fromId")))
+            .toId(UUID.fromString(rs.getString("toId")))
+            .fromEntity(rs.getString("fromEntity"))
+            .toEntity(rs.getString("toEntity"))
+            .relation(rs.getInt("relation"))
+            .json(rs.getString("json"))
+            .build();
+      }
+    }
   }
 
   interface FeedDAO {
@@ -1470,6 +1767,16 @@ public interface CollectionDAO {
     @SqlUpdate("DELETE from field_relationship <cond>")
     void deleteAllByPrefixInternal(@Define("cond") String cond, @BindMap Map<String, String> bindings);
 
+    /** Delete the field relationships of all the given prefixes in a single batch */
+    default void deleteAllByPrefixes(List<String> fqnPrefixes) {
+      List<String> prefixes = new ArrayList<>(fqnPrefixes.size());
+      fqnPrefixes.forEach(fqnPrefix -> prefixes.add(String.format("%s%s%%", fqnPrefix, Entity.SEPARATOR)));
+      deleteAllByPrefixBatch(prefixes);
+    }
+
+    @SqlBatch("DELETE from field_relationship WHERE (toFQN LIKE :prefix OR fromFQN LIKE :prefix)")
+    void deleteAllByPrefixBatch(@Bind("prefix") List<String> prefixes);
+
     @SqlUpdate(
         "DELETE from field_relationship WHERE fromFQN = :fromFQN AND toFQN = :toFQN AND fromType = :fromType "
             + "AND toType = :toType AND relation = :relation")
@@ -1870,6 +2177,32 @@ public interface CollectionDAO {
 
     @SqlUpdate("DELETE FROM tag where fullyQualifiedName LIKE CONCAT(:fqnPrefix, '.%')")
     void deleteTagsByPrefix(@Bind("fqnPrefix") String fqnPrefix);
+
+    /** List the ids of the tags under the given prefix, which are the tags renamed by {@link #updateFqnPrefix} */
+    @SqlQuery(
+        "SELECT id FROM tag WHERE fullyQualifiedName LIKE CONCAT(:fqnPrefix, '.%') "
+            + "AND LEFT(fullyQualifiedName, CHAR_LENGTH(:fqnPrefix) + 1) = CONCAT(:fqnPrefix, '.')")
+    List<String> listIdsByFqnPrefix(@Bind("fqnPrefix") String fqnPrefix);
+
+    /**
+     * Replace the fqn prefix of all the tags under the given prefix. The LIKE condition uses the index on the fqn, and
+     * the exact comparison excludes the names matched by the wildcard characters such as '_' in the prefix.
+     */
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE tag SET json = JSON_SET(json, '$.fullyQualifiedName', "
+                + "CONCAT(:newPrefix, SUBSTRING(fullyQualifiedName, CHAR_LENGTH(:oldPrefix) + 1))) "
+                + "WHERE fullyQualifiedName LIKE CONCAT(:oldPrefix, '.%') "
+                + "AND LEFT(fullyQualifiedName, CHAR_LENGTH(:oldPrefix) + 1) = CONCAT(:oldPrefix, '.')",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE tag SET json = jsonb_set(json, '{fullyQualifiedName}', "
+                + "to_jsonb(CONCAT(:newPrefix, SUBSTRING(fullyQualifiedName, CHAR_LENGTH(:oldPrefix) + 1)))) "
+                + "WHERE fullyQualifiedName LIKE CONCAT(:oldPrefix, '.%') "
+                + "AND LEFT(fullyQualifiedName, CHAR_LENGTH(:oldPrefix) + 1) = CONCAT(:oldPrefix, '.')",
+        connectionType = POSTGRES)
+    int updateFqnPrefix(@Bind("oldPrefix") String oldPrefix, @Bind("newPrefix") String newPrefix);
   }
 
   @RegisterRowMapper(TagLabelMapper.class)
@@ -1889,6 +2222,23 @@ public interface CollectionDAO {
         @Bind("labelType") int labelType,
         @Bind("state") int state);
 
+    /** Apply the tags to the targets in a single batch. The lists are of the same size, one element per tag usage. */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT IGNORE INTO tag_usage (source, tagFQN, targetFQN, labelType, state) VALUES (:source, :tagFQN, :targetFQN, :labelType, :state)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO tag_usage (source, tagFQN, targetFQN, labelType, state) VALUES (:source, :tagFQN, :targetFQN, :labelType, :state) ON CONFLICT (source, tagFQN, targetFQN) DO NOTHING",
+        connectionType = POSTGRES)
+    void applyTags(
+        @Bind("source") List<Integer> sources,
+        @Bind("tagFQN") List<String> tagFQNs,
+        @Bind("targetFQN") List<String> targetFQNs,
+        @Bind("labelType") List<Integer> labelTypes,
+        @Bind("state") List<Integer> states);
+
     @SqlQuery("SELECT targetFQN FROM tag_usage WHERE tagFQN = :tagFQN")
     List<String> tagTargetFQN(@Bind("tagFQN") String tagFQN);
 
@@ -1914,6 +2264,29 @@ public interface CollectionDAO {
         connectionType = POSTGRES)
     List<TagLabel> getTags(@Bind("targetFQN") String targetFQN);
 
+    @ConnectionAwareSqlQuery(
+        value =
+            "SELECT tu.targetFQN, tu.source, tu.tagFQN, tu.labelType, tu.state, "
+                + "t.json ->> '$.description' AS description1, "
+                + "g.json ->> '$.description' AS description2 "
+                + "FROM tag_usage tu "
+                + "LEFT JOIN tag t ON tu.tagFQN = t.fullyQualifiedName AND tu.source = 0 "
+                + "LEFT JOIN glossary_term_entity g ON tu.tagFQN = g.fullyQualifiedName AND tu.source = 1 "
+                + "WHERE tu.targetFQN IN (<targetFQNs>) ORDER BY tu.targetFQN, tu.tagFQN",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlQuery(
+        value =
+            "SELECT tu.targetFQN, tu.source, tu.tagFQN, tu.labelType, tu.state, "
+                + "t.json ->> 'description' AS description1, "
+                + "g.json ->> 'description' AS description2 "
+                + "FROM tag_usage tu "
+                + "LEFT JOIN tag t ON tu.tagFQN = t.fullyQualifiedName AND tu.source = 0 "
+                + "LEFT JOIN glossary_term_entity g ON tu.tagFQN = g.fullyQualifiedName AND tu.source = 1 "
+                + "WHERE tu.targetFQN IN (<targetFQNs>) ORDER BY tu.targetFQN, tu.tagFQN",
+        connectionType = POSTGRES)
+    @RegisterRowMapper(TargetTagLabelMapper.class)
+    List<Pair<String, TagLabel>> getTagsBatch(@BindList("targetFQNs") List<String> targetFQNs);
+
     @SqlQuery("SELECT COUNT(*) FROM tag_usage WHERE tagFQN LIKE CONCAT(:fqnPrefix, '%') AND source = :source")
     int getTagCount(@Bind("source") int source, @Bind("fqnPrefix") String fqnPrefix);
 
@@ -1929,6 +2302,17 @@ public interface CollectionDAO {
     @SqlUpdate("DELETE FROM tag_usage where targetFQN LIKE CONCAT(:targetFQN, '%')")
     void deleteTagLabelsByTargetPrefix(@Bind("targetFQN") String targetFQN);
 
+    @SqlBatch("DELETE FROM tag_usage where targetFQN LIKE CONCAT(:targetFQN, '%')")
+    void deleteTagLabelsByTargetPrefixes(@Bind("targetFQN") List<String> targetFQNs);
+
+    /** Replace the fqn prefix of the tag labels using the tag with the given fqn or any of the tags under it */
+    @SqlUpdate(
+        "UPDATE tag_usage SET tagFQN = CONCAT(:newPrefix, SUBSTRING(tagFQN, CHAR_LENGTH(:oldPrefix) + 1)) "
+            + "WHERE source = :source AND (tagFQN = :oldPrefix OR (tagFQN LIKE CONCAT(:oldPrefix, '.%') "
+            + "AND LEFT(tagFQN, CHAR_LENGTH(:oldPrefix) + 1) = CONCAT(:oldPrefix, '.')))")
+    int updateTagPrefix(
+        @Bind("source") int source, @Bind("oldPrefix") String oldPrefix, @Bind("newPrefix") String newPrefix);
+
     class TagLabelMapper implements RowMapper<TagLabel> {
       @Override
       public TagLabel map(ResultSet r, StatementContext ctx) throws SQLException {
@@ -1942,6 +2326,15 @@ public interface CollectionDAO {
             .withDescription(description1 == null ? description2 : description1);
       }
     }
+
+    class TargetTagLabelMapper implements RowMapper<Pair<String, TagLabel>> {
+      private final TagLabelMapper tagLabelMapper = new TagLabelMapper();
+
+      @Override
+      public Pair<String, TagLabel> map(ResultSet r, StatementContext ctx) throws SQLException {
+        return Pair.of(r.getString("targetFQN"), tagLabelMapper.map(r, ctx));
+      }
+    }
   }
 
   interface RoleDAO extends EntityDAO<Role> {
@@ -2160,6 +2553,18 @@ public interface CollectionDAO {
             + "(SELECT toId FROM entity_relationship "
             + "WHERE fromId != :teamId AND fromEntity = 'team' AND relation = :relation AND toEntity = 'team')")
     List<String> listTeamsUnderOrganization(@Bind("teamId") String teamId, @Bind("relation") int relation);
+
+    /** Returns the id and name of all the teams that are not deleted */
+    @SqlQuery("SELECT id, name FROM team_entity WHERE deleted = FALSE")
+    @RegisterRowMapper(TeamNameMapper.class)
+    List<Pair<UUID, String>> listTeamNames();
+
+    class TeamNameMapper implements RowMapper<Pair<UUID, String>> {
+      @Override
+      public Pair<UUID, String> map(ResultSet r, StatementContext ctx) throws SQLException {
+        return Pair.of(UUID.fromString(r.getString("id")), r.getString("name"));
+      }
+    }
   }
 
   interface TopicDAO extends EntityDAO<Topic> {
@@ -2227,6 +2632,85 @@ public interface CollectionDAO {
         @Bind("entityType") String entityType,
         @Bind("count1") int count1);
 
+    /**
+     * Add the daily counts to the usage in a single batch. The lists are of the same size, one element per entity and
+     * date. The rolling counts are left to {@link #updateRollingCounts}.
+     */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_usage (usageDate, id, entityType, count1, count7, count30) "
+                + "VALUES (:date, :id, :entityType, :count1, 0, 0) "
+                + "ON DUPLICATE KEY UPDATE count1 = count1 + :count1",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_usage (usageDate, id, entityType, count1, count7, count30) "
+                + "VALUES ((:date :: date), :id, :entityType, :count1, 0, 0) "
+                + "ON CONFLICT (usageDate, id) DO UPDATE SET count1 = entity_usage.count1 + :count1",
+        connectionType = POSTGRES)
+    void insertOrUpdateCountBatch(
+        @Bind("date") List<String> dates,
+        @Bind("id") List<String> ids,
+        @Bind("entityType") List<String> entityTypes,
+        @Bind("count1") List<Integer> counts);
+
+    /**
+     * Recompute the rolling 7 and 30 day counts of the entities from their daily counts, for the dates from {@code
+     * fromDate} up to 29 days after {@code toDate}, which are the dates whose rolling counts include a daily count
+     * reported between {@code fromDate} and {@code toDate}.
+     */
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE entity_usage u JOIN ( "
+                + "SELECT id, usageDate, "
+                + "SUM(count1) OVER (PARTITION BY id ORDER BY usageDate RANGE BETWEEN INTERVAL 6 DAY PRECEDING AND CURRENT ROW) AS c7, "
+                + "SUM(count1) OVER (PARTITION BY id ORDER BY usageDate RANGE BETWEEN INTERVAL 29 DAY PRECEDING AND CURRENT ROW) AS c30 "
+                + "FROM entity_usage WHERE id IN (<ids>) "
+                + "AND usageDate >= :fromDate - INTERVAL 29 DAY AND usageDate <= :toDate + INTERVAL 29 DAY"
+                + ") vals ON u.id = vals.id AND u.usageDate = vals.usageDate "
+                + "SET u.count7 = vals.c7, u.count30 = vals.c30 WHERE vals.usageDate >= :fromDate",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlUpdate(
+        value =
+            "UPDATE entity_usage u SET count7 = vals.c7, count30 = vals.c30 "
+                + "FROM ("
+                + "   SELECT id, usageDate, "
+                + "       SUM(count1) OVER (PARTITION BY id ORDER BY usageDate RANGE BETWEEN INTERVAL '6 days' PRECEDING AND CURRENT ROW) AS c7, "
+                + "       SUM(count1) OVER (PARTITION BY id ORDER BY usageDate RANGE BETWEEN INTERVAL '29 days' PRECEDING AND CURRENT ROW) AS c30 "
+                + "   FROM entity_usage WHERE id IN (<ids>) "
+                + "   AND usageDate >= (:fromDate :: date) - INTERVAL '29 days' AND usageDate <= (:toDate :: date) + INTERVAL '29 days'"
+                + ") vals "
+                + "WHERE u.id = vals.id AND u.usageDate = vals.usageDate AND vals.usageDate >= (:fromDate :: date)",
+        connectionType = POSTGRES)
+    void updateRollingCounts(
+        @BindList("ids") List<String> ids, @Bind("fromDate") String fromDate, @Bind("toDate") String toDate);
+
+    /**
+     * List the entity types and dates of the usage of the entities whose rolling counts are recomputed by {@link
+     * #updateRollingCounts} with the same arguments, from {@code fromDate} through the latest stored date.
+     */
+    @ConnectionAwareSqlQuery(
+        value =
+            "SELECT DISTINCT entityType, usageDate FROM entity_usage WHERE id IN (<ids>) "
+                + "AND usageDate >= :fromDate AND usageDate <= :toDate + INTERVAL 29 DAY",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlQuery(
+        value =
+            "SELECT DISTINCT entityType, usageDate FROM entity_usage WHERE id IN (<ids>) "
+                + "AND usageDate >= (:fromDate :: date) AND usageDate <= (:toDate :: date) + INTERVAL '29 days'",
+        connectionType = POSTGRES)
+    @RegisterRowMapper(UsageDateMapper.class)
+    List<Pair<String, String>> listUsageDates(
+        @BindList("ids") List<String> ids, @Bind("fromDate") String fromDate, @Bind("toDate") String toDate);
+
+    class UsageDateMapper implements RowMapper<Pair<String, String>> {
+      @Override
+      public Pair<String, String> map(ResultSet r, StatementContext ctx) throws SQLException {
+        return Pair.of(r.getString("entityType"), r.getString("usageDate"));
+      }
+    }
+
     @ConnectionAwareSqlQuery(
         value =
             "SELECT id, usageDate, entityType, count1, count7, count30, "
@@ -2251,23 +2735,23 @@ public interface CollectionDAO {
     @SqlUpdate("DELETE FROM entity_usage WHERE id = :id")
     void delete(@Bind("id") String id);
 
+    @SqlUpdate("DELETE FROM entity_usage WHERE id IN (<ids>)")
+    void deleteBatch(@BindList("ids") List<String> ids);
+
     /**
-     * TODO: Not sure I get what the next comment means, but tests now use mysql 8 so maybe tests can be improved here
-     * Note not using in following percentile computation PERCENT_RANK function as unit tests use mysql5.7, and it does
-     * not have window function
+     * Compute the percentile rank of the daily, weekly and monthly usage counts of the entities of a type on a date, as
+     * the percentage of the entities with a lower count. The ranks are computed with window functions in a single pass
+     * over the usage of the date.
      */
     @ConnectionAwareSqlUpdate(
         value =
             "UPDATE entity_usage u JOIN ( "
-                + "SELECT u1.id, "
-                + "(SELECT COUNT(*) FROM entity_usage as u2 WHERE u2.count1 <  u1.count1 AND u2.entityType = :entityType "
-                + "AND u2.usageDate = :date) as p1, "
-                + "(SELECT COUNT(*) FROM entity_usage as u3 WHERE u3.count7 <  u1.count7 AND u3.entityType = :entityType "
-                + "AND u3.usageDate = :date) as p7, "
-                + "(SELECT COUNT(*) FROM entity_usage as u4 WHERE u4.count30 <  u1.count30 AND u4.entityType = :entityType "
-                + "AND u4.usageDate = :date) as p30, "
-                + "(SELECT COUNT(*) FROM entity_usage WHERE entityType = :entityType AND usageDate = :date) as total "
-                + "FROM entity_usage u1 WHERE u1.entityType = :entityType AND u1.usageDate = :date"
+                + "SELECT id, "
+                + "RANK() OVER (ORDER BY count1) - 1 AS p1, "
+                + "RANK() OVER (ORDER BY count7) - 1 AS p7, "
+                + "RANK() OVER (ORDER BY count30) - 1 AS p30, "
+                + "COUNT(*) OVER () AS total "
+                + "FROM entity_usage WHERE entityType = :entityType AND usageDate = :date"
                 + ") vals ON u.id = vals.id AND usageDate = :date "
                 + "SET u.percentile1 = ROUND(100 * p1/total, 2), u.percentile7 = ROUND(p7 * 100/total, 2), u.percentile30 ="
                 + " ROUND(p30*100/total, 2)",
@@ -2277,13 +2761,12 @@ public interface CollectionDAO {
             "UPDATE entity_usage u "
                 + "SET percentile1 = ROUND(100 * p1 / total, 2), percentile7 = ROUND(p7 * 100 / total, 2), percentile30 = ROUND(p30 * 100 / total, 2) "
                 + "FROM ("
-                + "   SELECT u1.id, "
-                + "       (SELECT COUNT(*) FROM entity_usage as u2 WHERE u2.count1 < u1.count1 AND u2.entityType = :entityType AND u2.usageDate = (:date :: date)) as p1, "
-                + "       (SELECT COUNT(*) FROM entity_usage as u3 WHERE u3.count7 < u1.count7 AND u3.entityType = :entityType AND u3.usageDate = (:date :: date)) as p7, "
-                + "       (SELECT COUNT(*) FROM entity_usage as u4 WHERE u4.count30 < u1.count30 AND u4.entityType = :entityType AND u4.usageDate = (:date :: date)) as p30, "
-                + "       (SELECT COUNT(*) FROM entity_usage WHERE entityType = :entityType AND usageDate = (:date :: date)"
-                + "   ) as total FROM entity_usage u1 "
-                + "   WHERE u1.entityType = :entityType AND u1.usageDate = (:date :: date)"
+                + "   SELECT id, "
+                + "       RANK() OVER (ORDER BY count1) - 1 AS p1, "
+                + "       RANK() OVER (ORDER BY count7) - 1 AS p7, "
+                + "       RANK() OVER (ORDER BY count30) - 1 AS p30, "
+                + "       COUNT(*) OVER () AS total "
+                + "   FROM entity_usage WHERE entityType = :entityType AND usageDate = (:date :: date)"
                 + ") vals "
                 + "WHERE u.id = vals.id AND usageDate = (:date :: date);",
         connectionType = POSTGRES)
@@ -2307,6 +2790,161 @@ public interface CollectionDAO {
     }
   }
 
+  /** Reads and writes the rows of the entities exported and imported by {@link MetadataTransfer} */
+  interface MetadataTransferDAO extends Transactional<MetadataTransferDAO> {
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship WHERE fromId IN (<ids>)")
+    @RegisterRowMapper(RelationshipRowMapper.class)
+    List<RelationshipRow> findRelationshipsFrom(@BindList("ids") List<String> ids);
+
+    /** Relationships to the entities from entities of types that are not exported with their from side */
+    @SqlQuery(
+        "SELECT fromId, toId, fromEntity, toEntity, relation, json FROM entity_relationship "
+            + "WHERE toId IN (<ids>) AND fromEntity NOT IN (<fromEntities>)")
+    @RegisterRowMapper(RelationshipRowMapper.class)
+    List<RelationshipRow> findRelationshipsTo(
+        @BindList("ids") List<String> ids, @BindList("fromEntities") List<String> fromEntities);
+
+    @SqlQuery("SELECT source, tagFQN, targetFQN, labelType, state FROM tag_usage WHERE targetFQN IN (<targetFQNs>)")
+    @RegisterRowMapper(TagUsageRowMapper.class)
+    List<TagUsageRow> findTagUsage(@BindList("targetFQNs") List<String> targetFQNs);
+
+    @SqlQuery("SELECT id, extension, jsonSchema, json FROM entity_extension WHERE id IN (<ids>)")
+    @RegisterRowMapper(ExtensionRowMapper.class)
+    List<ExtensionRow> findExtensions(@BindList("ids") List<String> ids);
+
+    /** Ids of the entities with the given names, as pairs of id and name */
+    @SqlQuery("SELECT id, <nameColumn> AS name FROM <table> WHERE <nameColumn> IN (<names>)")
+    @RegisterRowMapper(EntityIdMapper.class)
+    List<Pair<UUID, String>> findEntityIds(
+        @Define("table") String table, @Define("nameColumn") String nameColumn, @BindList("names") List<String> names);
+
+    /** The stored entities with the given ids */
+    @SqlQuery("SELECT json FROM <table> WHERE id IN (<ids>)")
+    List<String> findEntities(@Define("table") String table, @BindList("ids") List<String> ids);
+
+    /**
+     * Insert or replace the entities by their id in a single batch, one element per entity. The caller checks with
+     * {@link #findEntityIds} that no other entity has the name of an entity, which would fail the batch.
+     */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value = "INSERT INTO <table> (json) VALUES (:json) ON DUPLICATE KEY UPDATE json = :json",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO <table> (json) VALUES (:json :: jsonb) ON CONFLICT (id) DO UPDATE SET json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void upsertEntities(@Define("table") String table, @Bind("json") List<String> jsons);
+
+    /** Insert or replace the relationships in a single batch. The lists are of the same size, one element per row. */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_relationship(fromId, toId, fromEntity, toEntity, relation, json) "
+                + "VALUES (:fromId, :toId, :fromEntity, :toEntity, :relation, :json) "
+                + "ON DUPLICATE KEY UPDATE json = :json",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_relationship(fromId, toId, fromEntity, toEntity, relation, json) VALUES "
+                + "(:fromId, :toId, :fromEntity, :toEntity, :relation, (:json :: jsonb)) "
+                + "ON CONFLICT (fromId, toId, relation) DO UPDATE SET json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void upsertRelationships(
+        @Bind("fromId") List<String> fromIds,
+        @Bind("toId") List<String> toIds,
+        @Bind("fromEntity") List<String> fromEntities,
+        @Bind("toEntity") List<String> toEntities,
+        @Bind("relation") List<Integer> relations,
+        @Bind("json") List<String> jsons);
+
+    /** Delete the tag usage of the given targets, before the tag usage of the imported entities is inserted */
+    @SqlUpdate("DELETE FROM tag_usage WHERE targetFQN IN (<targetFQNs>)")
+    void deleteTagUsage(@BindList("targetFQNs") List<String> targetFQNs);
+
+    /** Insert or replace the tag usage in a single batch. The lists are of the same size, one element per row. */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO tag_usage (source, tagFQN, targetFQN, labelType, state) "
+                + "VALUES (:source, :tagFQN, :targetFQN, :labelType, :state) "
+                + "ON DUPLICATE KEY UPDATE labelType = :labelType, state = :state",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO tag_usage (source, tagFQN, targetFQN, labelType, state) "
+                + "VALUES (:source, :tagFQN, :targetFQN, :labelType, :state) "
+                + "ON CONFLICT (source, tagFQN, targetFQN) DO UPDATE SET labelType = EXCLUDED.labelType, "
+                + "state = EXCLUDED.state",
+        connectionType = POSTGRES)
+    void upsertTagUsage(
+        @Bind("source") List<Integer> sources,
+        @Bind("tagFQN") List<String> tagFQNs,
+        @Bind("targetFQN") List<String> targetFQNs,
+        @Bind("labelType") List<Integer> labelTypes,
+        @Bind("state") List<Integer> states);
+
+    /** Insert or replace the extensions in a single batch. The lists are of the same size, one element per row. */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "REPLACE INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, :json)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_extension(id, extension, jsonSchema, json) "
+                + "VALUES (:id, :extension, :jsonSchema, (:json :: jsonb)) "
+                + "ON CONFLICT (id, extension) DO UPDATE SET jsonSchema = EXCLUDED.jsonSchema, json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void upsertExtensions(
+        @Bind("id") List<String> ids,
+        @Bind("extension") List<String> extensions,
+        @Bind("jsonSchema") List<String> jsonSchemas,
+        @Bind("json") List<String> jsons);
+
+    class RelationshipRowMapper implements RowMapper<RelationshipRow> {
+      @Override
+      public RelationshipRow map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new RelationshipRow(
+            rs.getString("fromId"),
+            rs.getString("toId"),
+            rs.getString("fromEntity"),
+            rs.getString("toEntity"),
+            rs.getInt("relation"),
+            rs.getString("json"));
+      }
+    }
+
+    class TagUsageRowMapper implements RowMapper<TagUsageRow> {
+      @Override
+      public TagUsageRow map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new TagUsageRow(
+            rs.getInt("source"),
+            rs.getString("tagFQN"),
+            rs.getString("targetFQN"),
+            rs.getInt("labelType"),
+            rs.getInt("state"));
+      }
+    }
+
+    class EntityIdMapper implements RowMapper<Pair<UUID, String>> {
+      @Override
+      public Pair<UUID, String> map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return Pair.of(UUID.fromString(rs.getString("id")), rs.getString("name"));
+      }
+    }
+
+    class ExtensionRowMapper implements RowMapper<ExtensionRow> {
+      @Override
+      public ExtensionRow map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new ExtensionRow(
+            rs.getString("id"), rs.getString("extension"), rs.getString("jsonSchema"), rs.getString("json"));
+      }
+    }
+  }
+
   interface UserDAO extends EntityDAO<User> {
     @Override
     default String getTableName() {
@@ -2593,6 +3231,13 @@ public interface CollectionDAO {
         connectionType = POSTGRES)
     void insert(@Bind("json") String json);
 
+    // Multi-row insert where each change event is bound as the only column of a row
+    @ConnectionAwareSqlUpdate(value = "INSERT INTO change_event (json) VALUES <jsons>", connectionType = MYSQL)
+    @ConnectionAwareSqlUpdate(
+        value = "INSERT INTO change_event (json) SELECT CAST(json AS jsonb) FROM (VALUES <jsons>) AS events(json)",
+        connectionType = POSTGRES)
+    void insertBatch(@BindMethodsList(value = "jsons", methodNames = "toString") List<String> jsons);
+
     @SqlUpdate("DELETE FROM change_event WHERE entityType = :entityType")
     void deleteAll(@Bind("entityType") String entityType);
 
@@ -2620,6 +3265,81 @@ public interface CollectionDAO {
             + "eventType = :eventType AND eventTime >= :timestamp "
             + "ORDER BY eventTime ASC")
     List<String> listWithoutEntityFilter(@Bind("eventType") String eventType, @Bind("timestamp") long timestamp);
+
+    /** Keyset page of the offsets and the change events after the given offset, used by the change event outbox */
+    @RegisterRowMapper(OffsetMapper.class)
+    @SqlQuery("SELECT eventOffset, json FROM change_event WHERE eventOffset > :after ORDER BY eventOffset LIMIT :limit")
+    List<Pair<Long, String>> listAfterOffset(@Bind("after") long after, @Bind("limit") int limit);
+
+    /** Offsets and change events among the given offsets, used to read again the offsets missing in the outbox */
+    @RegisterRowMapper(OffsetMapper.class)
+    @SqlQuery("SELECT eventOffset, json FROM change_event WHERE eventOffset IN (<offsets>) ORDER BY eventOffset")
+    List<Pair<Long, String>> listByOffsets(@BindList("offsets") List<Long> offsets);
+
+    /** Returns the offset of the first change event at or after the given event time, or null when there is none */
+    @SqlQuery("SELECT MIN(eventOffset) FROM change_event WHERE eventTime >= :eventTime")
+    Long getFirstOffset(@Bind("eventTime") long eventTime);
+
+    /** Returns the offset of the last change event, or null when there is none */
+    @SqlQuery("SELECT MAX(eventOffset) FROM change_event")
+    Long getLastOffset();
+
+    class OffsetMapper implements RowMapper<Pair<Long, String>> {
+      @Override
+      public Pair<Long, String> map(ResultSet r, StatementContext ctx) throws SQLException {
+        return Pair.of(r.getLong("eventOffset"), r.getString("json"));
+      }
+    }
+  }
+
+  /**
+   * Leases of the event publishers of the change event outbox. The server holding the lease of an event publisher
+   * delivers its change events until the lease expires, and renews it before then.
+   */
+  interface EventOutboxLeaseDAO {
+    /** Take over the lease when it is held by the given owner or has expired. Returns the number of updated leases */
+    @SqlUpdate(
+        "UPDATE event_outbox_lease SET owner = :owner, expiresAt = :expiresAt "
+            + "WHERE publisher = :publisher AND (owner = :owner OR expiresAt < :now)")
+    int renew(
+        @Bind("publisher") String publisher,
+        @Bind("owner") String owner,
+        @Bind("expiresAt") long expiresAt,
+        @Bind("now") long now);
+
+    /** Create the lease of a new event publisher. Returns 0 when the lease already exists */
+    @ConnectionAwareSqlUpdate(
+        value =
+            "INSERT IGNORE INTO event_outbox_lease(publisher, owner, expiresAt) VALUES (:publisher, :owner, :expiresAt)",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlUpdate(
+        value =
+            "INSERT INTO event_outbox_lease(publisher, owner, expiresAt) VALUES (:publisher, :owner, :expiresAt) "
+                + "ON CONFLICT (publisher) DO NOTHING",
+        connectionType = POSTGRES)
+    int insert(@Bind("publisher") String publisher, @Bind("owner") String owner, @Bind("expiresAt") long expiresAt);
+
+    /** Release the lease so that another server takes it over without waiting for it to expire */
+    @SqlUpdate("UPDATE event_outbox_lease SET expiresAt = 0 WHERE publisher = :publisher AND owner = :owner")
+    void release(@Bind("publisher") String publisher, @Bind("owner") String owner);
+
+    @SqlUpdate("DELETE FROM event_outbox_lease WHERE publisher = :publisher")
+    void delete(@Bind("publisher") String publisher);
+
+    /** Returns the number of leases held by a server, which deliver the change events from the outbox */
+    @SqlQuery("SELECT COUNT(*) FROM event_outbox_lease WHERE expiresAt >= :now")
+    int countHeld(@Bind("now") long now);
+
+    /** Deliver the change events again to the event publisher, starting from the given timestamp */
+    @SqlUpdate("UPDATE event_outbox_lease SET replayFrom = :timestamp WHERE publisher = :publisher")
+    int requestReplay(@Bind("publisher") String publisher, @Bind("timestamp") long timestamp);
+
+    @SqlQuery("SELECT replayFrom FROM event_outbox_lease WHERE publisher = :publisher")
+    Long getReplayFrom(@Bind("publisher") String publisher);
+
+    @SqlUpdate(
+        "UPDATE event_outbox_lease SET replayFrom = NULL WHERE publisher = :publisher AND replayFrom = :timestamp")
+    void clearReplay(@Bind("publisher") String publisher, @Bind("timestamp") long timestamp);
   }
 
   interface TypeEntityDAO extends EntityDAO<Type> {
@@ -2990,6 +3710,30 @@ public interface CollectionDAO {
         @Bind("json") String json,
         @Bind("timestamp") Long timestamp);
 
+    /**
+     * Insert the profiles in a single batch, replacing the profile already stored for the same entity, extension and
+     * timestamp. The lists are of the same size, one element per profile. Only the table and column profile extensions
+     * have a unique key, the rows of the other extensions are always inserted.
+     */
+    @SqlBatch
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_extension_time_series(entityFQN, extension, jsonSchema, json) "
+                + "VALUES (:entityFQN, :extension, :jsonSchema, :json) "
+                + "ON DUPLICATE KEY UPDATE json = :json",
+        connectionType = MYSQL)
+    @ConnectionAwareSqlBatch(
+        value =
+            "INSERT INTO entity_extension_time_series(entityFQN, extension, jsonSchema, json) "
+                + "VALUES (:entityFQN, :extension, :jsonSchema, (:json :: jsonb)) "
+                + "ON CONFLICT (profileKey, extension, timestamp) DO UPDATE SET json = EXCLUDED.json",
+        connectionType = POSTGRES)
+    void upsertProfileBatch(
+        @Bind("entityFQN") List<String> entityFQNs,
+        @Bind("extension") List<String> extensions,
+        @Bind("jsonSchema") List<String> jsonSchemas,
+        @Bind("json") List<String> jsons);
+
     @SqlQuery("SELECT json FROM entity_extension_time_series WHERE entityFQN = :entityFQN AND extension = :extension")
     String getExtension(@Bind("entityFQN") String entityId, @Bind("extension") String extension);
 
@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.sqlobject.transaction.Transactional;
+import org.jdbi.v3.sqlobject.transaction.TransactionalConsumer;
+
+/**
+ * Actions to run once the writes of the current thread are committed, such as publishing change events or populating
+ * caches. Writes made in a transaction started with {@link #useTransaction} are committed with the transaction, and the
+ * actions registered in it run when the handle of the transaction commits. Other writes are committed statement by
+ * statement. Their actions run once the request served by the thread is completed by {@link
+ * org.openmetadata.service.events.CommitCallbackFilter}, or immediately outside of a request, for example in background
+ * jobs.
+ */
+@Slf4j
+public final class CommitCallbacks {
+  private static final ThreadLocal<Callbacks> CALLBACKS = new ThreadLocal<>();
+  private static final ThreadLocal<Handle> TRANSACTION = new ThreadLocal<>();
+
+  private CommitCallbacks() {}
+
+  private static final class Callbacks {
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final Map<Class<?>, Object> attributes = new HashMap<>();
+  }
+
+  /** Start a request. Actions left by a previous request of the thread that was never completed are discarded. */
+  public static void begin() {
+    CALLBACKS.set(new Callbacks());
+  }
+
+  /** Returns true when the current thread serves a request that is not completed yet */
+  public static boolean isActive() {
+    return CALLBACKS.get() != null;
+  }
+
+  /**
+   * Run the writes of {@code callback} in one transaction of {@code dao}. The actions registered with {@link
+   * #afterCommit} by the callback run when the transaction commits, and are discarded when it is rolled back.
+   */
+  public static <T extends Transactional<T>, X extends Exception> void useTransaction(
+      T dao, TransactionalConsumer<T, X> callback) throws X {
+    dao.useTransaction(
+        tx -> {
+          Handle outer = TRANSACTION.get();
+          TRANSACTION.set(tx.getHandle());
+          try {
+            callback.useTransaction(tx);
+          } finally {
+            if (outer == null) {
+              TRANSACTION.remove();
+            } else {
+              TRANSACTION.set(outer);
+            }
+          }
+        });
+  }
+
+  /**
+   * Run the action once the writes made so far by the current thread are committed. In a transaction started with
+   * {@link #useTransaction}, the action runs when the transaction commits and is discarded if it is rolled back.
+   */
+  public static void afterCommit(Runnable action) {
+    Handle transaction = TRANSACTION.get();
+    Callbacks callbacks = CALLBACKS.get();
+    if (transaction != null) {
+      transaction.afterCommit(() -> run(List.of(action)));
+    } else if (callbacks == null) {
+      action.run();
+    } else {
+      callbacks.afterCommit.add(action);
+    }
+  }
+
+  /**
+   * Run the action once the current request is completed, whether its writes are committed or not. These actions run
+   * before the actions after commit that wait for the end of the request, so that caches are invalidated first.
+   */
+  public static void afterCompletion(Runnable action) {
+    Callbacks callbacks = CALLBACKS.get();
+    if (callbacks == null) {
+      action.run();
+    } else {
+      callbacks.afterCompletion.add(action);
+    }
+  }
+
+  /** Returns the state of type {@code type} kept for the current request, or null when there is none */
+  public static <T> T get(Class<T> type) {
+    Callbacks callbacks = CALLBACKS.get();
+    return callbacks == null ? null : type.cast(callbacks.attributes.get(type));
+  }
+
+  /**
+   * Returns the state of type {@code type} kept for the current request, created by {@code supplier} on first use.
+   * Returns null outside of a request.
+   */
+  public static <T> T computeIfAbsent(Class<T> type, Supplier<T> supplier) {
+    Callbacks callbacks = CALLBACKS.get();
+    if (callbacks == null) {
+      return null;
+    }
+    Object value = callbacks.attributes.get(type);
+    if (value == null) {
+      value = supplier.get();
+      callbacks.attributes.put(type, value);
+    }
+    return type.cast(value);
+  }
+
+  /**
+   * Complete the current request. The writes of the request made outside of a transaction are committed statement by
+   * statement, so the actions registered after them run whether the request succeeded or not.
+   */
+  public static void end() {
+    Callbacks callbacks = CALLBACKS.get();
+    CALLBACKS.remove();
+    if (callbacks == null) {
+      return;
+    }
+    run(callbacks.afterCompletion);
+    run(callbacks.afterCommit);
+  }
+
+  private static void run(List<Runnable> actions) {
+    for (Runnable action : actions) {
+      try {
+        action.run();
+      } catch (Exception e) {
+        LOG.error("Failed to run the action of committed writes", e);
+      }
+    }
+  }
+}
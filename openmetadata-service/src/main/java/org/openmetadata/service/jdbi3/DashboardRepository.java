@@ -14,13 +14,13 @@
 package org.openmetadata.service.jdbi3;
 
 import static org.openmetadata.common.utils.CommonUtil.listOrEmpty;
-import static org.openmetadata.service.Entity.FIELD_FOLLOWERS;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.openmetadata.schema.entity.data.Dashboard;
 import org.openmetadata.schema.entity.services.DashboardService;
@@ -58,13 +58,34 @@ public class DashboardRepository extends EntityRepository<Dashboard> {
   @Override
   public Dashboard setFields(Dashboard dashboard, Fields fields) throws IOException {
     dashboard.setService(getContainer(dashboard.getId()));
-    dashboard.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(dashboard) : null);
     dashboard.setCharts(fields.contains("charts") ? getCharts(dashboard) : null);
-    dashboard.setUsageSummary(
+    return setUsageSummary(dashboard, fields);
+  }
+
+  @Override
+  protected void setFieldsInBulk(List<Dashboard> dashboards, Fields fields) throws IOException {
+    fetchAndSetCommonFields(dashboards, fields);
+    Map<UUID, EntityReference> services = getContainersInBulk(dashboards);
+    Map<UUID, List<EntityReference>> charts =
+        fields.contains("charts") ? findToInBulk(dashboards, Relationship.HAS, Entity.CHART) : Collections.emptyMap();
+    for (Dashboard dashboard : dashboards) {
+      dashboard.setService(services.get(dashboard.getId()));
+      if (fields.contains("charts")) {
+        List<EntityReference> dashboardCharts = new ArrayList<>(charts.getOrDefault(dashboard.getId(), List.of()));
+        dashboardCharts.sort(EntityUtil.compareEntityReference);
+        dashboard.setCharts(dashboardCharts);
+      } else {
+        dashboard.setCharts(null);
+      }
+      setUsageSummary(dashboard, fields);
+    }
+  }
+
+  private Dashboard setUsageSummary(Dashboard dashboard, Fields fields) {
+    return dashboard.withUsageSummary(
         fields.contains("usageSummary")
             ? EntityUtil.getLatestUsage(daoCollection.usageDAO(), dashboard.getId())
             : null);
-    return dashboard;
   }
 
   @Override
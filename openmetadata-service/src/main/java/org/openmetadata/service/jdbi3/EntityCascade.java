@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.events.EventOutbox;
+import org.openmetadata.service.events.EventPubSub;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Deletes and restores the entities contained by an entity with set-based operations instead of recursing one entity at
+ * a time. The contained entities are found level by level with one relationship query per batch of {@link
+ * EntityDAO#IN_CLAUSE_BATCH_SIZE} entities. They are then deleted or restored one entity type at a time, from the
+ * entities contained deeper in the hierarchy, with a few batched statements per chunk of {@link
+ * EntityDAO#IN_CLAUSE_BATCH_SIZE} entities of a type.
+ *
+ * <p>Each chunk is deleted or restored in its own transaction, along with the change events of its entities, so that a
+ * large hierarchy is not deleted in a single long transaction. When a cascade fails, the chunks already committed stay
+ * deleted. As the entities contained deeper are deleted first, deleting the entity again deletes the remaining ones.
+ */
+@Slf4j
+final class EntityCascade {
+  private static final List<Integer> DELETE_RELATIONS =
+      List.of(Relationship.CONTAINS.ordinal(), Relationship.PARENT_OF.ordinal());
+  private static final List<Integer> RESTORE_RELATIONS = List.of(Relationship.CONTAINS.ordinal());
+
+  private final CollectionDAO daoCollection;
+
+  EntityCascade(CollectionDAO daoCollection) {
+    this.daoCollection = daoCollection;
+  }
+
+  /** Soft or hard delete all the entities contained by the entity, and write a change event for each of them */
+  void delete(UUID id, String updatedBy, boolean hardDelete) throws IOException {
+    List<Map<String, List<UUID>>> levels = findDescendants(id, DELETE_RELATIONS);
+    EventType eventType = hardDelete ? EventType.ENTITY_DELETED : EventType.ENTITY_SOFT_DELETED;
+    for (int i = levels.size() - 1; i >= 0; i--) {
+      for (Entry<String, List<UUID>> entry : levels.get(i).entrySet()) {
+        LOG.info(
+            "Cascading {} delete to {} {} entities",
+            hardDelete ? "hard" : "soft",
+            entry.getValue().size(),
+            entry.getKey());
+        EntityRepository<?> repository = Entity.getEntityRepository(entry.getKey());
+        for (List<UUID> chunk : Lists.partition(entry.getValue(), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+          CommitCallbacks.useTransaction(
+              daoCollection,
+              tx -> {
+                List<ChangeEvent> events = new ArrayList<>(chunk.size());
+                for (EntityInterface entity : repository.deleteInBulk(chunk, updatedBy, hardDelete)) {
+                  events.add(getChangeEvent(eventType, entry.getKey(), entity));
+                }
+                writeChangeEvents(daoCollection, events);
+              });
+        }
+      }
+    }
+  }
+
+  /** Restore all the soft deleted entities contained by the entity */
+  void restore(UUID id) throws IOException {
+    for (Map<String, List<UUID>> level : findDescendants(id, RESTORE_RELATIONS)) {
+      for (Entry<String, List<UUID>> entry : level.entrySet()) {
+        LOG.info("Cascading restore to {} {} entities", entry.getValue().size(), entry.getKey());
+        EntityRepository<?> repository = Entity.getEntityRepository(entry.getKey());
+        for (List<UUID> chunk : Lists.partition(entry.getValue(), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+          CommitCallbacks.useTransaction(daoCollection, tx -> repository.restoreInBulk(chunk));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the ids of the entities contained by the entity grouped by entity type, one element per level of the
+   * hierarchy starting from the children of the entity. An entity reachable from more than one parent is returned once,
+   * at the level closest to the entity.
+   */
+  List<Map<String, List<UUID>>> findDescendants(UUID id, List<Integer> relations) {
+    List<Map<String, List<UUID>>> levels = new ArrayList<>();
+    Set<UUID> visited = new HashSet<>();
+    visited.add(id);
+    List<String> parents = List.of(id.toString());
+    while (!parents.isEmpty()) {
+      Map<String, List<UUID>> level = new LinkedHashMap<>();
+      List<String> children = new ArrayList<>();
+      for (List<String> batch : Lists.partition(parents, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+        for (EntityRelationshipObject relationship : daoCollection.relationshipDAO().findToBatch(batch, relations)) {
+          if (visited.add(relationship.getToId())) {
+            level.computeIfAbsent(relationship.getToEntity(), type -> new ArrayList<>()).add(relationship.getToId());
+            children.add(relationship.getToId().toString());
+          }
+        }
+      }
+      if (!level.isEmpty()) {
+        levels.add(level);
+      }
+      parents = children;
+    }
+    return levels;
+  }
+
+  /**
+   * Write the change events of entities changed by a bulk operation, which are not recorded by the change event handler
+   * as it only records the changes of a single entity returned in the response. The change events are stored with one
+   * multi-row insert per batch in the transaction of the operation, and published once the transaction is committed.
+   * The cached references of the entities are invalidated by the entity DAO that writes them.
+   */
+  static void writeChangeEvents(CollectionDAO daoCollection, List<ChangeEvent> events) throws JsonProcessingException {
+    List<String> jsons = new ArrayList<>(events.size());
+    for (ChangeEvent event : events) {
+      jsons.add(JsonUtils.pojoToJson(copyWithMaskedEntity(event)));
+    }
+    for (List<String> batch : Lists.partition(jsons, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      daoCollection.changeEventDAO().insertBatch(batch);
+    }
+    if (!EventOutbox.isEnabled()) { // Otherwise event publishers read the change events from the change_event table
+      CommitCallbacks.afterCommit(() -> EventPubSub.publishAll(events));
+    }
+  }
+
+  static ChangeEvent getChangeEvent(EventType eventType, String entityType, EntityInterface entity) {
+    Double previousVersion;
+    if (eventType == EventType.ENTITY_CREATED) {
+      previousVersion = null;
+    } else if (eventType == EventType.ENTITY_DELETED) {
+      previousVersion = entity.getVersion();
+    } else {
+      previousVersion = entity.getChangeDescription().getPreviousVersion();
+    }
+    return new ChangeEvent()
+        .withEventType(eventType)
+        .withEntityId(entity.getId())
+        .withEntityType(entityType)
+        .withEntityFullyQualifiedName(entity.getFullyQualifiedName())
+        .withUserName(entity.getUpdatedBy())
+        .withTimestamp(entity.getUpdatedAt())
+        .withChangeDescription(entity.getChangeDescription())
+        .withCurrentVersion(entity.getVersion())
+        .withPreviousVersion(previousVersion)
+        .withEntity(entity);
+  }
+
+  private static ChangeEvent copyWithMaskedEntity(ChangeEvent event) throws JsonProcessingException {
+    return new ChangeEvent()
+        .withEventType(event.getEventType())
+        .withEntityId(event.getEntityId())
+        .withEntityType(event.getEntityType())
+        .withEntityFullyQualifiedName(event.getEntityFullyQualifiedName())
+        .withUserName(event.getUserName())
+        .withTimestamp(event.getTimestamp())
+        .withChangeDescription(event.getChangeDescription())
+        .withCurrentVersion(event.getCurrentVersion())
+        .withPreviousVersion(event.getPreviousVersion())
+        .withEntity(JsonUtils.pojoToMaskedJson(event.getEntity()));
+  }
+}
@@ -18,25 +18,38 @@ import static org.openmetadata.service.jdbi3.locator.ConnectionType.MYSQL;
 import static org.openmetadata.service.jdbi3.locator.ConnectionType.POSTGRES;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.SneakyThrows;
 import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindList;
 import org.jdbi.v3.sqlobject.customizer.Define;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 import org.openmetadata.schema.EntityInterface;
 import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.EntityReferenceCache;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
 import org.openmetadata.service.exception.EntityNotFoundException;
+import org.openmetadata.service.jdbi3.locator.ConnectionAwareSqlBatch;
 import org.openmetadata.service.jdbi3.locator.ConnectionAwareSqlUpdate;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.util.FullyQualifiedName;
 import org.openmetadata.service.util.JsonUtils;
 
 public interface EntityDAO<T extends EntityInterface> {
+  /** Maximum number of ids or names bound to a single IN clause, or sent in a single batch, by the bulk queries */
+  int IN_CLAUSE_BATCH_SIZE = 500;
+
   /** Methods that need to be overridden by interfaces extending this */
   String getTableName();
 
@@ -53,12 +66,26 @@ public interface EntityDAO<T extends EntityInterface> {
   @ConnectionAwareSqlUpdate(value = "INSERT INTO <table> (json) VALUES (:json :: jsonb)", connectionType = POSTGRES)
   void insert(@Define("table") String table, @Bind("json") String json);
 
+  /** Insert the entities in a single batch, one element per entity */
+  @SqlBatch
+  @ConnectionAwareSqlBatch(value = "INSERT INTO <table> (json) VALUES (:json)", connectionType = MYSQL)
+  @ConnectionAwareSqlBatch(value = "INSERT INTO <table> (json) VALUES (:json :: jsonb)", connectionType = POSTGRES)
+  void insertBatch(@Define("table") String table, @Bind("json") List<String> jsons);
+
   @ConnectionAwareSqlUpdate(value = "UPDATE <table> SET  json = :json WHERE id = :id", connectionType = MYSQL)
   @ConnectionAwareSqlUpdate(
       value = "UPDATE <table> SET  json = (:json :: jsonb) WHERE id = :id",
       connectionType = POSTGRES)
   void update(@Define("table") String table, @Bind("id") String id, @Bind("json") String json);
 
+  /** Update the entities in a single batch. The lists are of the same size, one element per entity. */
+  @SqlBatch
+  @ConnectionAwareSqlBatch(value = "UPDATE <table> SET  json = :json WHERE id = :id", connectionType = MYSQL)
+  @ConnectionAwareSqlBatch(
+      value = "UPDATE <table> SET  json = (:json :: jsonb) WHERE id = :id",
+      connectionType = POSTGRES)
+  void updateBatch(@Define("table") String table, @Bind("id") List<String> ids, @Bind("json") List<String> jsons);
+
   @SqlQuery("SELECT json FROM <table> WHERE id = :id <cond>")
   String findById(@Define("table") String table, @Bind("id") String id, @Define("cond") String cond);
 
@@ -69,6 +96,16 @@ public interface EntityDAO<T extends EntityInterface> {
       @Bind("name") String name,
       @Define("cond") String cond);
 
+  @SqlQuery("SELECT json FROM <table> WHERE id IN (<ids>) <cond>")
+  List<String> findByIds(@Define("table") String table, @BindList("ids") List<String> ids, @Define("cond") String cond);
+
+  @SqlQuery("SELECT json FROM <table> WHERE <nameColumn> IN (<names>) <cond>")
+  List<String> findByNames(
+      @Define("table") String table,
+      @Define("nameColumn") String nameColumn,
+      @BindList("names") List<String> names,
+      @Define("cond") String cond);
+
   @SqlQuery("SELECT count(*) FROM <table> <cond>")
   int listCount(@Define("table") String table, @Define("nameColumn") String nameColumn, @Define("cond") String cond);
 
@@ -106,17 +143,55 @@ public interface EntityDAO<T extends EntityInterface> {
   @SqlUpdate("DELETE FROM <table> WHERE id = :id")
   int delete(@Define("table") String table, @Bind("id") String id);
 
+  @SqlUpdate("DELETE FROM <table> WHERE id IN (<ids>)")
+  int deleteBatch(@Define("table") String table, @BindList("ids") List<String> ids);
+
   /** Default methods that interfaces with implementation. Don't override */
   default void insert(EntityInterface entity) throws JsonProcessingException {
     insert(getTableName(), JsonUtils.pojoToJson(entity));
+    invalidateCaches(entity.getId());
   }
 
   default void update(UUID id, String json) {
     update(getTableName(), id.toString(), json);
+    invalidateCaches(id);
   }
 
   default void update(EntityInterface entity) throws JsonProcessingException {
     update(getTableName(), entity.getId().toString(), JsonUtils.pojoToJson(entity));
+    invalidateCaches(entity.getId());
+  }
+
+  /** Update the entities in batches of {@link #IN_CLAUSE_BATCH_SIZE} with a single round trip per batch */
+  default void updateAll(List<? extends EntityInterface> entities) throws JsonProcessingException {
+    for (List<? extends EntityInterface> batch : Lists.partition(entities, IN_CLAUSE_BATCH_SIZE)) {
+      List<String> ids = new ArrayList<>(batch.size());
+      List<String> jsons = new ArrayList<>(batch.size());
+      for (EntityInterface entity : batch) {
+        ids.add(entity.getId().toString());
+        jsons.add(JsonUtils.pojoToJson(entity));
+      }
+      updateBatch(getTableName(), ids, jsons);
+    }
+    entities.forEach(entity -> invalidateCaches(entity.getId()));
+  }
+
+  /** Delete the entities with the given ids in batches of {@link #IN_CLAUSE_BATCH_SIZE} */
+  default void deleteAll(List<UUID> ids) {
+    List<String> idStrings = ids.stream().map(UUID::toString).collect(Collectors.toList());
+    for (List<String> batch : Lists.partition(idStrings, IN_CLAUSE_BATCH_SIZE)) {
+      deleteBatch(getTableName(), batch);
+    }
+    ids.forEach(EntityDAO::invalidateCaches);
+  }
+
+  /**
+   * Invalidate the cached reference of a written entity, and the access decisions made on it as its owner or tags may
+   * have changed. Called for the writes that don't go through the default methods of this interface.
+   */
+  static void invalidateCaches(UUID id) {
+    EntityReferenceCache.invalidate(id);
+    PolicyDecisionCache.invalidateEntity(id);
   }
 
   default String getCondition(Include include) {
@@ -150,6 +225,63 @@ public interface EntityDAO<T extends EntityInterface> {
     return jsonToEntity(findByName(getTableName(), getNameColumn(), fqn, getCondition(include)), fqn);
   }
 
+  /**
+   * Get the entities with the given ids in the same order as {@code ids}. The ids are read in batches of {@link
+   * #IN_CLAUSE_BATCH_SIZE} with a single query per batch. Throws {@link EntityNotFoundException} when any of the
+   * entities is not found.
+   */
+  default List<T> findEntitiesByIds(List<UUID> ids, Include include) throws IOException {
+    List<String> idStrings = ids.stream().map(UUID::toString).collect(Collectors.toList());
+    List<String> distinctIds = idStrings.stream().distinct().collect(Collectors.toList());
+    Map<String, T> entities = new HashMap<>();
+    for (List<String> batch : Lists.partition(distinctIds, IN_CLAUSE_BATCH_SIZE)) {
+      for (String json : findByIds(getTableName(), batch, getCondition(include))) {
+        T entity = JsonUtils.readValue(json, getEntityClass());
+        entities.put(entity.getId().toString(), entity);
+      }
+    }
+    return orderedEntities(idStrings, entities);
+  }
+
+  /**
+   * Get the entities with the given names in the same order as {@code names}. The names are read in batches of {@link
+   * #IN_CLAUSE_BATCH_SIZE} with a single query per batch. Throws {@link EntityNotFoundException} when any of the
+   * entities is not found.
+   */
+  default List<T> findEntitiesByNames(List<String> names, Include include) throws IOException {
+    return orderedEntities(names, findExistingEntitiesByNames(names, include));
+  }
+
+  /**
+   * Get the entities that exist among those with the given names, keyed by name. The names are read in batches of
+   * {@link #IN_CLAUSE_BATCH_SIZE} with a single query per batch.
+   */
+  default Map<String, T> findExistingEntitiesByNames(List<String> names, Include include) throws IOException {
+    List<String> distinctNames = names.stream().distinct().collect(Collectors.toList());
+    boolean byName = getNameColumn().equals("name");
+    Map<String, T> entities = new HashMap<>();
+    for (List<String> batch : Lists.partition(distinctNames, IN_CLAUSE_BATCH_SIZE)) {
+      for (String json : findByNames(getTableName(), getNameColumn(), batch, getCondition(include))) {
+        T entity = JsonUtils.readValue(json, getEntityClass());
+        entities.put(byName ? entity.getName() : entity.getFullyQualifiedName(), entity);
+      }
+    }
+    return entities;
+  }
+
+  private List<T> orderedEntities(List<String> keys, Map<String, T> entities) {
+    List<T> result = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      T entity = entities.get(key);
+      if (entity == null) {
+        String entityType = Entity.getEntityTypeFromClass(getEntityClass());
+        throw EntityNotFoundException.byMessage(CatalogExceptionMessage.entityNotFound(entityType, key));
+      }
+      result.add(entity);
+    }
+    return result;
+  }
+
   default T jsonToEntity(String json, String identity) throws IOException {
     Class<T> clz = getEntityClass();
     T entity = null;
@@ -220,6 +352,7 @@ public interface EntityDAO<T extends EntityInterface> {
 
   default int delete(String id) {
     int rowsDeleted = delete(getTableName(), id);
+    invalidateCaches(UUID.fromString(id));
     if (rowsDeleted <= 0) {
       String entityType = Entity.getEntityTypeFromClass(getEntityClass());
       throw EntityNotFoundException.byMessage(entityNotFound(entityType, id));
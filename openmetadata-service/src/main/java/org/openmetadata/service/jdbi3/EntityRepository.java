@@ -40,24 +40,33 @@ import static org.openmetadata.service.util.EntityUtil.tagLabelMatch;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Lists;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.ValidationMessage;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.json.JsonPatch;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 import lombok.Getter;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
 import org.openmetadata.common.utils.CommonUtil;
 import org.openmetadata.schema.EntityInterface;
@@ -82,9 +91,10 @@ import org.openmetadata.service.TypeRegistry;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
 import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.exception.UnhandledServerException;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
 import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
-import org.openmetadata.service.jdbi3.CollectionDAO.EntityVersionPair;
 import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecord;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecordWithId;
 import org.openmetadata.service.jdbi3.TableRepository.TableUpdater;
 import org.openmetadata.service.security.policyevaluator.SubjectCache;
 import org.openmetadata.service.util.EntityUtil;
@@ -335,11 +345,9 @@ public abstract class EntityRepository<T extends EntityInterface> {
     if (limitParam > 0) {
       // forward scrolling, if after == null then first page is being asked
       List<String> jsons = dao.listAfter(filter, limitParam + 1, after == null ? "" : RestUtil.decodeCursor(after));
-
-      for (String json : jsons) {
-        T entity = withHref(uriInfo, setFieldsInternal(JsonUtils.readValue(json, entityClass), fields));
-        entities.add(entity);
-      }
+      entities = JsonUtils.readObjects(jsons, entityClass);
+      setFieldsInBulk(entities, fields);
+      entities.forEach(entity -> withHref(uriInfo, entity));
 
       String beforeCursor;
       String afterCursor = null;
@@ -360,12 +368,9 @@ public abstract class EntityRepository<T extends EntityInterface> {
       UriInfo uriInfo, Fields fields, ListFilter filter, int limitParam, String before) throws IOException {
     // Reverse scrolling - Get one extra result used for computing before cursor
     List<String> jsons = dao.listBefore(filter, limitParam + 1, RestUtil.decodeCursor(before));
-
-    List<T> entities = new ArrayList<>();
-    for (String json : jsons) {
-      T entity = withHref(uriInfo, setFieldsInternal(JsonUtils.readValue(json, entityClass), fields));
-      entities.add(entity);
-    }
+    List<T> entities = JsonUtils.readObjects(jsons, entityClass);
+    setFieldsInBulk(entities, fields);
+    entities.forEach(entity -> withHref(uriInfo, entity));
     int total = dao.listCount(filter);
 
     String beforeCursor = null;
@@ -381,10 +386,11 @@ public abstract class EntityRepository<T extends EntityInterface> {
   @Transaction
   public T getVersion(UUID id, String version) throws IOException {
     Double requestedVersion = Double.parseDouble(version);
-    String extension = EntityUtil.getVersionExtension(entityType, requestedVersion);
 
-    // Get previous version from version history
-    String json = daoCollection.entityExtensionDAO().getExtension(id.toString(), extension);
+    // Get previous version from version history, with the next versions it is rebuilt from when stored as a patch
+    List<String> extensions = EntityVersionHistory.getVersionExtensions(entityType, requestedVersion);
+    List<ExtensionRecord> records = daoCollection.entityExtensionDAO().getVersions(id.toString(), extensions);
+    String json = EntityVersionHistory.getVersion(records, requestedVersion, entityClass);
     if (json != null) {
       return JsonUtils.readValue(json, entityClass);
     }
@@ -401,14 +407,12 @@ public abstract class EntityRepository<T extends EntityInterface> {
   public EntityHistory listVersions(UUID id) throws IOException {
     T latest = setFieldsInternal(dao.findEntityById(id, ALL), putFields);
     String extensionPrefix = EntityUtil.getVersionExtensionPrefix(entityType);
-    List<ExtensionRecord> records = daoCollection.entityExtensionDAO().getExtensions(id.toString(), extensionPrefix);
-    List<EntityVersionPair> oldVersions = new ArrayList<>();
-    records.forEach(r -> oldVersions.add(new EntityVersionPair(r)));
-    oldVersions.sort(EntityUtil.compareVersion.reversed());
+    List<ExtensionRecord> records =
+        daoCollection.entityExtensionDAO().getVersionHistory(id.toString(), extensionPrefix);
 
     final List<Object> allVersions = new ArrayList<>();
     allVersions.add(JsonUtils.pojoToJson(latest));
-    oldVersions.forEach(version -> allVersions.add(version.getEntityJson()));
+    allVersions.addAll(EntityVersionHistory.listVersions(records, entityClass));
     return new EntityHistory().withEntityType(entityType).withVersions(allVersions);
   }
 
@@ -433,10 +437,198 @@ public abstract class EntityRepository<T extends EntityInterface> {
     entity.setOwner(fields.contains(FIELD_OWNER) ? getOwner(entity) : null);
     entity.setTags(fields.contains(FIELD_TAGS) ? getTags(entity.getFullyQualifiedName()) : null);
     entity.setExtension(fields.contains(FIELD_EXTENSION) ? getExtension(entity) : null);
+    entity.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(entity) : null);
     setFields(entity, fields);
     return entity;
   }
 
+  /**
+   * Set the requested fields for a page of entities returned by list operations. Owners, tags, extensions and followers
+   * are fetched for the whole page with one query per field instead of one query per field per entity.
+   *
+   * <p>Repositories that can load their own fields in bulk override this method, call {@link
+   * #fetchAndSetCommonFields(List, Fields)} and then set the remaining fields.
+   *
+   * @see TableRepository#setFieldsInBulk(List, Fields) for an example implementation
+   */
+  protected void setFieldsInBulk(List<T> entities, Fields fields) throws IOException {
+    fetchAndSetCommonFields(entities, fields);
+    for (T entity : entities) {
+      setFields(entity, fields);
+    }
+  }
+
+  /** Set owner, tags, extension and followers fields common to all the entities with a handful of bulk queries */
+  protected final void fetchAndSetCommonFields(List<T> entities, Fields fields) throws IOException {
+    if (entities.isEmpty()) {
+      return;
+    }
+    fetchAndSetOwners(entities, fields.contains(FIELD_OWNER));
+    fetchAndSetTags(entities, fields.contains(FIELD_TAGS));
+    fetchAndSetExtensions(entities, fields.contains(FIELD_EXTENSION));
+    fetchAndSetFollowers(entities, fields.contains(FIELD_FOLLOWERS));
+  }
+
+  private void fetchAndSetOwners(List<T> entities, boolean setOwner) throws IOException {
+    Map<UUID, List<EntityReference>> owners =
+        setOwner && supportsOwner ? findFromInBulk(entities, Relationship.OWNS, null) : Collections.emptyMap();
+    for (T entity : entities) {
+      List<EntityReference> entityOwners = owners.get(entity.getId());
+      if (entityOwners != null && entityOwners.size() > 1) {
+        LOG.warn("Possible database issues - multiple owners for entity {}:{}", entityType, entity.getId());
+      }
+      entity.setOwner(entityOwners == null ? null : entityOwners.get(0));
+    }
+  }
+
+  private void fetchAndSetTags(List<T> entities, boolean setTags) {
+    if (!setTags || !supportsTags) {
+      entities.forEach(entity -> entity.setTags(null));
+      return;
+    }
+    Map<String, List<TagLabel>> tags =
+        getTagsInBulk(entities.stream().map(EntityInterface::getFullyQualifiedName).collect(Collectors.toList()));
+    for (T entity : entities) {
+      entity.setTags(tags.getOrDefault(entity.getFullyQualifiedName(), new ArrayList<>()));
+    }
+  }
+
+  private void fetchAndSetExtensions(List<T> entities, boolean setExtension) throws JsonProcessingException {
+    if (!setExtension) {
+      entities.forEach(entity -> entity.setExtension(null));
+      return;
+    }
+    String fieldFQNPrefix = TypeRegistry.getCustomPropertyFQNPrefix(entityType);
+    Map<UUID, ObjectNode> extensions = new HashMap<>();
+    for (List<String> ids : Lists.partition(getIds(entities), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      for (ExtensionRecordWithId extensionRecord :
+          daoCollection.entityExtensionDAO().getExtensionsBatch(ids, fieldFQNPrefix)) {
+        String fieldName = TypeRegistry.getPropertyName(extensionRecord.getExtensionName());
+        extensions
+            .computeIfAbsent(extensionRecord.getId(), id -> JsonUtils.getObjectNode())
+            .set(fieldName, JsonUtils.readTree(extensionRecord.getExtensionJson()));
+      }
+    }
+    for (T entity : entities) {
+      entity.setExtension(extensions.get(entity.getId()));
+    }
+  }
+
+  private void fetchAndSetFollowers(List<T> entities, boolean setFollowers) throws IOException {
+    Map<UUID, List<EntityReference>> followers =
+        setFollowers && supportsFollower
+            ? findFromInBulk(entities, Relationship.FOLLOWS, Entity.USER)
+            : Collections.emptyMap();
+    for (T entity : entities) {
+      entity.setFollowers(
+          setFollowers && supportsFollower ? followers.getOrDefault(entity.getId(), new ArrayList<>()) : null);
+    }
+  }
+
+  /** Get tags for each of the given targets, keyed by the target fullyQualifiedName */
+  protected Map<String, List<TagLabel>> getTagsInBulk(List<String> targetFQNs) {
+    Map<String, List<TagLabel>> tags = new HashMap<>();
+    for (List<String> fqns : Lists.partition(targetFQNs, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      for (Pair<String, TagLabel> tag : daoCollection.tagUsageDAO().getTagsBatch(fqns)) {
+        tags.computeIfAbsent(tag.getLeft(), fqn -> new ArrayList<>()).add(tag.getRight());
+      }
+    }
+    return tags;
+  }
+
+  /**
+   * Find entities related with relationship {@code fromEntityType --- relationship ---> entity} for each of the given
+   * entities, keyed by the entity id. Related entities are resolved to entity references with one query per entity
+   * type. A related entity that no longer exists fails with {@link EntityNotFoundException}, as for a single entity.
+   */
+  protected final Map<UUID, List<EntityReference>> findFromInBulk(
+      List<T> entities, Relationship relationship, String fromEntityType) throws IOException {
+    List<EntityRelationshipObject> records = new ArrayList<>();
+    for (List<String> ids : Lists.partition(getIds(entities), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      records.addAll(
+          fromEntityType == null
+              ? daoCollection.relationshipDAO().findFromBatch(ids, entityType, relationship.ordinal())
+              : daoCollection.relationshipDAO().findFromBatch(ids, entityType, relationship.ordinal(), fromEntityType));
+    }
+    Map<UUID, EntityReference> resolved =
+        getEntityReferencesInBulk(
+            records, EntityRelationshipObject::getFromEntity, EntityRelationshipObject::getFromId);
+    Map<UUID, List<EntityReference>> refs = new HashMap<>();
+    for (EntityRelationshipObject rec : records) {
+      refs.computeIfAbsent(rec.getToId(), id -> new ArrayList<>())
+          .add(getResolved(resolved, rec.getFromEntity(), rec.getFromId()));
+    }
+    return refs;
+  }
+
+  /**
+   * Find entities related with relationship {@code entity --- relationship ---> toEntityType} for each of the given
+   * entities, keyed by the entity id. Related entities are resolved to entity references with one query per entity
+   * type. A related entity that no longer exists fails with {@link EntityNotFoundException}, as for a single entity.
+   */
+  protected final Map<UUID, List<EntityReference>> findToInBulk(
+      List<T> entities, Relationship relationship, String toEntityType) throws IOException {
+    List<EntityRelationshipObject> records = new ArrayList<>();
+    for (List<String> ids : Lists.partition(getIds(entities), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      records.addAll(
+          daoCollection.relationshipDAO().findToBatch(ids, entityType, relationship.ordinal(), toEntityType));
+    }
+    Map<UUID, EntityReference> resolved =
+        getEntityReferencesInBulk(records, EntityRelationshipObject::getToEntity, EntityRelationshipObject::getToId);
+    Map<UUID, List<EntityReference>> refs = new HashMap<>();
+    for (EntityRelationshipObject rec : records) {
+      refs.computeIfAbsent(rec.getFromId(), id -> new ArrayList<>())
+          .add(getResolved(resolved, rec.getToEntity(), rec.getToId()));
+    }
+    return refs;
+  }
+
+  private static EntityReference getResolved(Map<UUID, EntityReference> resolved, String entityType, UUID id) {
+    EntityReference ref = resolved.get(id);
+    if (ref == null) {
+      throw EntityNotFoundException.byMessage(CatalogExceptionMessage.entityNotFound(entityType, id));
+    }
+    return ref;
+  }
+
+  private static Map<UUID, EntityReference> getEntityReferencesInBulk(
+      List<EntityRelationshipObject> records,
+      Function<EntityRelationshipObject, String> typeFunction,
+      Function<EntityRelationshipObject, UUID> idFunction)
+      throws IOException {
+    Map<String, Set<UUID>> idsByType = new HashMap<>();
+    for (EntityRelationshipObject rec : records) {
+      idsByType.computeIfAbsent(typeFunction.apply(rec), type -> new LinkedHashSet<>()).add(idFunction.apply(rec));
+    }
+    Map<UUID, EntityReference> refs = new HashMap<>();
+    for (Entry<String, Set<UUID>> entry : idsByType.entrySet()) {
+      for (EntityReference ref :
+          Entity.getEntityReferencesByIds(entry.getKey(), new ArrayList<>(entry.getValue()), ALL)) {
+        refs.put(ref.getId(), ref);
+      }
+    }
+    return refs;
+  }
+
+  /** Get the container of each of the given entities, keyed by the entity id */
+  protected final Map<UUID, EntityReference> getContainersInBulk(List<T> entities) throws IOException {
+    Map<UUID, EntityReference> containers = new HashMap<>();
+    for (Entry<UUID, List<EntityReference>> entry : findFromInBulk(entities, Relationship.CONTAINS, null).entrySet()) {
+      ensureSingleRelationship(entityType, entry.getKey(), entry.getValue(), Relationship.CONTAINS.value(), true);
+      containers.put(entry.getKey(), entry.getValue().get(0));
+    }
+    for (T entity : entities) {
+      if (!containers.containsKey(entity.getId())) {
+        throw new UnhandledServerException(CatalogExceptionMessage.entityTypeNotFound(entityType));
+      }
+    }
+    return containers;
+  }
+
+  private static List<String> getIds(List<? extends EntityInterface> entities) {
+    return entities.stream().map(entity -> entity.getId().toString()).collect(Collectors.toList());
+  }
+
   @Transaction
   public final PutResponse<T> createOrUpdate(UriInfo uriInfo, T original, T updated) throws IOException {
     prepareInternal(updated);
@@ -482,7 +674,23 @@ public abstract class EntityRepository<T extends EntityInterface> {
   public PutResponse<T> update(UriInfo uriInfo, T original, T updated) throws IOException {
     // Get all the fields in the original entity that can be updated during PUT operation
     setFieldsInternal(original, putFields);
+    String change = updateInternal(original, updated);
+    return new PutResponse<>(Status.OK, withHref(uriInfo, updated), change);
+  }
+
+  /**
+   * Update the original entity, with the fields that can be updated during PUT operation already set, and return {@link
+   * RestUtil#ENTITY_UPDATED} or {@link RestUtil#ENTITY_NO_CHANGE}.
+   */
+  protected final String updateInternal(T original, T updated) throws IOException {
+    return updateInternal(original, updated, false);
+  }
 
+  /**
+   * Update the original entity as {@link #updateInternal(EntityInterface, EntityInterface)} does. When {@code inBulk}
+   * is true, the tags that are stored with the same rows are not written again.
+   */
+  protected final String updateInternal(T original, T updated, boolean inBulk) throws IOException {
     // If the entity state is soft-deleted, recursively undelete the entity and it's children
     if (Boolean.TRUE.equals(original.getDeleted())) {
       restoreEntity(updated.getUpdatedBy(), entityType, original.getId());
@@ -490,9 +698,9 @@ public abstract class EntityRepository<T extends EntityInterface> {
 
     // Update the attributes and relationships of an entity
     EntityUpdater entityUpdater = getUpdater(original, updated, Operation.PUT);
+    entityUpdater.inBulk = inBulk;
     entityUpdater.update();
-    String change = entityUpdater.fieldsChanged() ? RestUtil.ENTITY_UPDATED : RestUtil.ENTITY_NO_CHANGE;
-    return new PutResponse<>(Status.OK, withHref(uriInfo, updated), change);
+    return entityUpdater.fieldsChanged() ? RestUtil.ENTITY_UPDATED : RestUtil.ENTITY_NO_CHANGE;
   }
 
   @Transaction
@@ -638,15 +846,118 @@ public abstract class EntityRepository<T extends EntityInterface> {
       throw new IllegalArgumentException(CatalogExceptionMessage.entityIsNotEmpty(entityType));
     }
     // Delete all the contained entities
-    for (EntityRelationshipRecord entityRelationshipRecord : records) {
-      LOG.info(
-          "Recursively {} deleting {} {}",
-          hardDelete ? "hard" : "soft",
-          entityRelationshipRecord.getType(),
-          entityRelationshipRecord.getId());
-      Entity.deleteEntity(
-          updatedBy, entityRelationshipRecord.getType(), entityRelationshipRecord.getId(), true, hardDelete);
+    new EntityCascade(daoCollection).delete(id, updatedBy, hardDelete);
+  }
+
+  /**
+   * Delete the entities of this type that are contained by an entity being deleted. The entities are soft deleted or
+   * cleaned up in bulk with the same end state as deleting them one at a time. Returns the deleted entities.
+   *
+   * @see EntityCascade#delete(UUID, String, boolean)
+   */
+  final List<T> deleteInBulk(List<UUID> ids, String updatedBy, boolean hardDelete) throws IOException {
+    List<T> entities = dao.findEntitiesByIds(ids, ALL);
+    for (T entity : entities) {
+      preDelete(entity);
     }
+    List<T> deleted;
+    if (supportsSoftDelete && !hardDelete) {
+      deleted = softDeleteInBulk(entities, updatedBy);
+    } else {
+      setFieldsInBulk(entities, putFields);
+      cleanupInBulk(entities);
+      deleted = entities;
+    }
+    for (T entity : entities) {
+      postDelete(entity);
+    }
+    return deleted;
+  }
+
+  /**
+   * Mark the entities as deleted, store their previous versions and return the entities that were not already deleted.
+   * This is the bulk equivalent of the {@link Operation#SOFT_DELETE} update of each entity.
+   */
+  private List<T> softDeleteInBulk(List<T> entities, String updatedBy) throws IOException {
+    long updatedAt = System.currentTimeMillis();
+    List<T> originals = new ArrayList<>();
+    List<T> deleted = new ArrayList<>();
+    for (T entity : entities) {
+      if (Boolean.TRUE.equals(entity.getDeleted())) {
+        continue; // Already deleted, the version of the entity is not changed
+      }
+      originals.add(JsonUtils.readValue(JsonUtils.pojoToJson(entity), entityClass));
+      ChangeDescription change = new ChangeDescription().withPreviousVersion(entity.getVersion());
+      FieldChange fieldChange = new FieldChange().withName(FIELD_DELETED).withOldValue(entity.getDeleted());
+      if (entity.getDeleted() == null) {
+        change.getFieldsAdded().add(fieldChange.withNewValue(true));
+      } else {
+        change.getFieldsUpdated().add(fieldChange.withNewValue(true));
+      }
+      entity.setDeleted(true);
+      entity.setUpdatedBy(updatedBy);
+      entity.setUpdatedAt(updatedAt);
+      entity.setVersion(nextVersion(entity.getVersion()));
+      entity.setChangeDescription(change);
+      deleted.add(entity);
+    }
+    setFieldsInBulk(originals, putFields);
+    EntityVersionHistory.storeVersions(daoCollection.entityExtensionDAO(), entityType, originals);
+    storeDeletedInBulk(deleted);
+    return deleted;
+  }
+
+  /**
+   * Store the soft deleted entities read from the database. Override this when {@link #storeEntity} does more than
+   * store the entity.
+   */
+  protected void storeDeletedInBulk(List<T> entities) throws IOException {
+    dao.updateAll(entities);
+  }
+
+  /**
+   * Bulk equivalent of {@link #cleanup} for the entities contained by an entity being hard deleted. Override this along
+   * with {@link #cleanup} when the cleanup of an entity does more than remove its data.
+   */
+  protected void cleanupInBulk(List<T> entities) throws IOException {
+    List<UUID> ids = entities.stream().map(EntityInterface::getId).collect(Collectors.toList());
+    List<String> fqns = getTopLevelFQNs(entities);
+    for (List<String> batch : Lists.partition(getIds(entities), EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      daoCollection.relationshipDAO().deleteAllBatch(batch, entityType);
+      daoCollection.entityExtensionDAO().deleteAllBatch(batch); // Includes the custom properties
+      daoCollection.usageDAO().deleteBatch(batch);
+    }
+    for (List<String> batch : Lists.partition(fqns, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      daoCollection.fieldRelationshipDAO().deleteAllByPrefixes(batch);
+      daoCollection.tagUsageDAO().deleteTagLabelsByTargetPrefixes(batch);
+    }
+    dao.deleteAll(ids);
+  }
+
+  /**
+   * Returns the fullyQualifiedNames of the entities that are not nested under the name of another of the entities. The
+   * prefix deletes of a name also delete the data of the names nested under it.
+   */
+  private static List<String> getTopLevelFQNs(List<? extends EntityInterface> entities) {
+    Set<String> fqns = entities.stream().map(EntityInterface::getFullyQualifiedName).collect(Collectors.toSet());
+    List<String> topLevel = new ArrayList<>();
+    for (String fqn : fqns) {
+      boolean nested = false;
+      for (int i = fqn.indexOf(Entity.SEPARATOR); i > 0 && !nested; i = fqn.indexOf(Entity.SEPARATOR, i + 1)) {
+        nested = fqns.contains(fqn.substring(0, i));
+      }
+      if (!nested) {
+        topLevel.add(fqn);
+      }
+    }
+    return topLevel;
+  }
+
+  /** Restore the soft deleted entities of this type contained by an entity being restored */
+  final void restoreInBulk(List<UUID> ids) throws IOException {
+    List<T> entities = dao.findEntitiesByIds(ids, DELETED);
+    entities.forEach(entity -> entity.setDeleted(false));
+    dao.updateAll(entities);
   }
 
   protected void cleanup(T entityInterface) throws IOException {
@@ -800,24 +1111,62 @@ public abstract class EntityRepository<T extends EntityInterface> {
     if (nullOrEmpty(tagLabels)) {
       return tagLabels;
     }
+    return addDerivedTags(tagLabels, getDerivedTags(tagLabels));
+  }
+
+  /**
+   * Add derived tags to the given list of tags, using the derived tags of the glossary terms loaded with {@link
+   * #getDerivedTags(Collection)}. Used when adding derived tags to many lists, such as the tags of the columns.
+   */
+  protected final List<TagLabel> addDerivedTags(List<TagLabel> tagLabels, Map<String, List<TagLabel>> derivedTags) {
+    if (nullOrEmpty(tagLabels)) {
+      return tagLabels;
+    }
 
     List<TagLabel> updatedTagLabels = new ArrayList<>();
     EntityUtil.mergeTags(updatedTagLabels, tagLabels);
     for (TagLabel tagLabel : tagLabels) {
-      EntityUtil.mergeTags(updatedTagLabels, getDerivedTags(tagLabel));
+      if (tagLabel.getSource() == TagLabel.TagSource.GLOSSARY) {
+        // Each list gets its own copy of the derived tags
+        List<TagLabel> termTags = derivedTags.getOrDefault(tagLabel.getTagFQN(), Collections.emptyList());
+        EntityUtil.mergeTags(
+            updatedTagLabels, termTags.stream().map(EntityRepository::copy).collect(Collectors.toList()));
+      }
     }
     updatedTagLabels.sort(compareTagLabel);
     return updatedTagLabels;
   }
 
-  /** Get tags associated with a given set of tags */
-  private List<TagLabel> getDerivedTags(TagLabel tagLabel) {
-    if (tagLabel.getSource() == TagLabel.TagSource.GLOSSARY) { // Related tags are only supported for Glossary
-      List<TagLabel> derivedTags = daoCollection.tagUsageDAO().getTags(tagLabel.getTagFQN());
-      derivedTags.forEach(tag -> tag.setLabelType(TagLabel.LabelType.DERIVED));
-      return derivedTags;
+  /**
+   * Get the tags derived from the glossary terms in the given tags, with a single query for all the glossary terms.
+   * Returns a map of glossary term FQN to the tags of the term, with label type {@code DERIVED}.
+   */
+  protected final Map<String, List<TagLabel>> getDerivedTags(Collection<TagLabel> tagLabels) {
+    // Related tags are only supported for Glossary
+    List<String> termFQNs =
+        tagLabels.stream()
+            .filter(tagLabel -> tagLabel.getSource() == TagLabel.TagSource.GLOSSARY)
+            .map(TagLabel::getTagFQN)
+            .distinct()
+            .collect(Collectors.toList());
+    Map<String, List<TagLabel>> derivedTags = new HashMap<>();
+    for (List<String> batch : Lists.partition(termFQNs, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      for (Pair<String, TagLabel> termTag : daoCollection.tagUsageDAO().getTagsBatch(batch)) {
+        TagLabel derivedTag = termTag.getRight().withLabelType(TagLabel.LabelType.DERIVED);
+        derivedTags.computeIfAbsent(termTag.getLeft(), k -> new ArrayList<>()).add(derivedTag);
+      }
     }
-    return Collections.emptyList();
+    return derivedTags;
+  }
+
+  private static TagLabel copy(TagLabel tagLabel) {
+    return new TagLabel()
+        .withTagFQN(tagLabel.getTagFQN())
+        .withDescription(tagLabel.getDescription())
+        .withSource(tagLabel.getSource())
+        .withLabelType(tagLabel.getLabelType())
+        .withState(tagLabel.getState())
+        .withHref(tagLabel.getHref());
   }
 
   protected void applyTags(T entity) {
@@ -829,33 +1178,75 @@ public abstract class EntityRepository<T extends EntityInterface> {
 
   /** Apply tags {@code tagLabels} to the entity or field identified by {@code targetFQN} */
   public void applyTags(List<TagLabel> tagLabels, String targetFQN) {
-    for (TagLabel tagLabel : listOrEmpty(tagLabels)) {
-      if (tagLabel.getSource() == TagLabel.TagSource.TAG) {
-        Tag tag = daoCollection.tagDAO().findEntityByName(tagLabel.getTagFQN());
-        tagLabel.withDescription(tag.getDescription());
-        tagLabel.setSource(TagLabel.TagSource.TAG);
-      } else if (tagLabel.getSource() == TagLabel.TagSource.GLOSSARY) {
-        GlossaryTerm term = daoCollection.glossaryTermDAO().findEntityByName(tagLabel.getTagFQN(), NON_DELETED);
-        tagLabel.withDescription(term.getDescription());
-        tagLabel.setSource(TagLabel.TagSource.GLOSSARY);
+    applyTags(Collections.singletonMap(targetFQN, tagLabels));
+  }
+
+  /**
+   * Apply tags to the entities or fields identified by the keys of {@code tagsByTarget}. The tags and glossary terms
+   * are read with one query for each source, and the tags are applied in a single batch.
+   */
+  @SneakyThrows
+  protected void applyTags(Map<String, List<TagLabel>> tagsByTarget) {
+    List<String> tagFQNs = new ArrayList<>();
+    List<String> termFQNs = new ArrayList<>();
+    for (List<TagLabel> tagLabels : tagsByTarget.values()) {
+      for (TagLabel tagLabel : listOrEmpty(tagLabels)) {
+        if (tagLabel.getSource() == TagLabel.TagSource.TAG) {
+          tagFQNs.add(tagLabel.getTagFQN());
+        } else if (tagLabel.getSource() == TagLabel.TagSource.GLOSSARY) {
+          termFQNs.add(tagLabel.getTagFQN());
+        }
       }
+    }
+    if (tagFQNs.isEmpty() && termFQNs.isEmpty()) {
+      return;
+    }
 
-      // Apply tagLabel to targetFQN that identifies an entity or field
-      daoCollection
-          .tagUsageDAO()
-          .applyTag(
-              tagLabel.getSource().ordinal(),
-              tagLabel.getTagFQN(),
-              targetFQN,
-              tagLabel.getLabelType().ordinal(),
-              tagLabel.getState().ordinal());
+    // Throws EntityNotFoundException when a tag or glossary term does not exist
+    Map<String, String> tagDescriptions = new HashMap<>();
+    tagFQNs = tagFQNs.stream().distinct().collect(Collectors.toList());
+    for (Tag tag : daoCollection.tagDAO().findEntitiesByNames(tagFQNs, NON_DELETED)) {
+      tagDescriptions.put(tag.getFullyQualifiedName(), tag.getDescription());
+    }
+    Map<String, String> termDescriptions = new HashMap<>();
+    termFQNs = termFQNs.stream().distinct().collect(Collectors.toList());
+    for (GlossaryTerm term : daoCollection.glossaryTermDAO().findEntitiesByNames(termFQNs, NON_DELETED)) {
+      termDescriptions.put(term.getFullyQualifiedName(), term.getDescription());
+    }
+
+    List<Integer> sources = new ArrayList<>();
+    List<String> tagUsageFQNs = new ArrayList<>();
+    List<String> targetFQNs = new ArrayList<>();
+    List<Integer> labelTypes = new ArrayList<>();
+    List<Integer> states = new ArrayList<>();
+    for (Entry<String, List<TagLabel>> entry : tagsByTarget.entrySet()) {
+      for (TagLabel tagLabel : listOrEmpty(entry.getValue())) {
+        if (tagLabel.getSource() == TagLabel.TagSource.TAG) {
+          tagLabel.withDescription(tagDescriptions.get(tagLabel.getTagFQN()));
+        } else if (tagLabel.getSource() == TagLabel.TagSource.GLOSSARY) {
+          tagLabel.withDescription(termDescriptions.get(tagLabel.getTagFQN()));
+        }
+
+        // Apply tagLabel to targetFQN that identifies an entity or field
+        sources.add(tagLabel.getSource().ordinal());
+        tagUsageFQNs.add(tagLabel.getTagFQN());
+        targetFQNs.add(entry.getKey());
+        labelTypes.add(tagLabel.getLabelType().ordinal());
+        states.add(tagLabel.getState().ordinal());
+      }
     }
+    daoCollection.tagUsageDAO().applyTags(sources, tagUsageFQNs, targetFQNs, labelTypes, states);
   }
 
   protected List<TagLabel> getTags(String fqn) {
     return !supportsTags ? null : daoCollection.tagUsageDAO().getTags(fqn);
   }
 
+  /** Fully qualified names of the entity and of its fields that tags are applied to */
+  public List<String> getTagTargetFQNs(T entity) {
+    return List.of(entity.getFullyQualifiedName());
+  }
+
   protected List<EntityReference> getFollowers(T entity) throws IOException {
     if (!supportsFollower || entity == null) {
       return Collections.emptyList();
@@ -881,16 +1272,7 @@ public abstract class EntityRepository<T extends EntityInterface> {
 
   public void restoreEntity(String updatedBy, String entityType, UUID id) throws IOException {
     // If an entity being restored contains other **deleted** children entities, restore them
-    List<EntityRelationshipRecord> records =
-        daoCollection.relationshipDAO().findTo(id.toString(), entityType, Relationship.CONTAINS.ordinal());
-
-    if (!records.isEmpty()) {
-      // Restore all the contained entities
-      for (EntityRelationshipRecord entityRelationshipRecord : records) {
-        LOG.info("Recursively restoring {} {}", entityRelationshipRecord.getType(), entityRelationshipRecord.getId());
-        Entity.restoreEntity(updatedBy, entityRelationshipRecord.getType(), entityRelationshipRecord.getId());
-      }
-    }
+    new EntityCascade(daoCollection).restore(id);
 
     // Finally set entity deleted flag to false
     LOG.info("Restoring the {} {}", entityType, id);
@@ -1161,6 +1543,7 @@ public abstract class EntityRepository<T extends EntityInterface> {
     protected boolean majorVersionChange = false;
     protected final User updatingUser;
     private boolean entityRestored = false;
+    private boolean inBulk = false;
 
     public EntityUpdater(T original, T updated, Operation operation) {
       this.original = original;
@@ -1250,9 +1633,6 @@ public abstract class EntityRepository<T extends EntityInterface> {
         return; // Nothing to update
       }
 
-      // Remove current entity tags in the database. It will be added back later from the merged tag list.
-      daoCollection.tagUsageDAO().deleteTagsByTarget(fqn);
-
       if (operation.isPut()) {
         // PUT operation merges tags in the request with what already exists
         EntityUtil.mergeTags(updatedTags, origTags);
@@ -1262,9 +1642,38 @@ public abstract class EntityRepository<T extends EntityInterface> {
       List<TagLabel> deletedTags = new ArrayList<>();
       recordListChange(fieldName, origTags, updatedTags, addedTags, deletedTags, tagLabelMatch);
       updatedTags.sort(compareTagLabel);
+      if (inBulk && sameTagUsage(origTags, updatedTags)) {
+        return; // Tags stored in the database are unchanged
+      }
+
+      // Remove current entity tags in the database and add them back from the merged tag list
+      daoCollection.tagUsageDAO().deleteTagsByTarget(fqn);
       applyTags(updatedTags, fqn);
     }
 
+    /**
+     * Returns true when the tags would be stored with the same rows as the original tags. The descriptions of the
+     * original tags are then copied to the updated tags, as they are otherwise set when the tags are applied.
+     */
+    private boolean sameTagUsage(List<TagLabel> origTags, List<TagLabel> updatedTags) {
+      if (origTags.size() != updatedTags.size()) {
+        return false;
+      }
+      Map<String, TagLabel> origByFQN = new HashMap<>();
+      origTags.forEach(tagLabel -> origByFQN.put(tagLabel.getTagFQN(), tagLabel));
+      for (TagLabel tagLabel : updatedTags) {
+        TagLabel orig = origByFQN.get(tagLabel.getTagFQN());
+        if (orig == null
+            || orig.getSource() != tagLabel.getSource()
+            || orig.getLabelType() != tagLabel.getLabelType()
+            || orig.getState() != tagLabel.getState()) {
+          return false;
+        }
+      }
+      updatedTags.forEach(tagLabel -> tagLabel.setDescription(origByFQN.get(tagLabel.getTagFQN()).getDescription()));
+      return true;
+    }
+
     private void updateExtension() throws JsonProcessingException {
       if (original.getExtension() == updated.getExtension()) {
         return;
@@ -1486,10 +1895,7 @@ public abstract class EntityRepository<T extends EntityInterface> {
     }
 
     private void storeOldVersion() throws JsonProcessingException {
-      String extensionName = EntityUtil.getVersionExtension(entityType, original.getVersion());
-      daoCollection
-          .entityExtensionDAO()
-          .insert(original.getId().toString(), extensionName, entityType, JsonUtils.pojoToJson(original));
+      EntityVersionHistory.storeVersion(daoCollection.entityExtensionDAO(), entityType, original);
     }
 
     private void storeNewVersion() throws IOException {
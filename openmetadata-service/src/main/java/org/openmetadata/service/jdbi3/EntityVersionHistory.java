@@ -0,0 +1,470 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.type.ChangeDescription;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecord;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecordWithId;
+import org.openmetadata.service.util.EntityUtil;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Previous versions of an entity are stored in {@code entity_extension} either as a full copy of the entity or as a
+ * reverse JSON patch that rebuilds the version from the next version of the entity.
+ *
+ * <p>The latest version in the history is always stored in full. When a new version is added, the version before it is
+ * replaced with a patch against it. The last version of every block of {@link #SNAPSHOT_INTERVAL} tenths, that is the
+ * last version of every major version, is kept in full, so rebuilding a version applies at most {@code
+ * SNAPSHOT_INTERVAL - 1} patches, all read from the versions of the same major version.
+ *
+ * <p>A patch is stored with the jsonSchema {@link #PATCH_SCHEMA} as {@code {"patch": [...], "nextVersion": 0.4}}. Full
+ * copies are stored with the entity type as jsonSchema, and {@link #compact} replaces the full copies written before
+ * the versions were stored as patches.
+ *
+ * <p>The new version and the patch of the version before it are written with a single batch statement in the
+ * transaction of the update. The version before it is taken from a cache of the last version stored for each entity,
+ * populated once the update is committed, and is read from the database only when it is not cached, for example after a
+ * restart or when the entity was last updated by another server.
+ */
+@Slf4j
+public final class EntityVersionHistory {
+  public static final String PATCH_SCHEMA = "entityVersionPatch";
+  static final int SNAPSHOT_INTERVAL = 10;
+  private static final String PATCH = "patch";
+  private static final String NEXT_VERSION = "nextVersion";
+  // Arrays whose differing parts are larger than this many pairs of elements are diffed element by element
+  static final int MAX_ALIGNMENT_SIZE = 100_000;
+  private static final long MAX_CACHED_CHARS = 32L * 1024 * 1024;
+  // Last version stored by this server for each entity, with its full JSON
+  private static final Cache<UUID, Pair<Double, String>> LAST_VERSIONS =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHED_CHARS)
+          .weigher((UUID id, Pair<Double, String> version) -> version.getRight().length())
+          .build();
+
+  private EntityVersionHistory() {
+    /* Final class */
+  }
+
+  /**
+   * Store the full copy of a version of the entity that is replaced by a new version, and replace the version before it
+   * with a patch against it.
+   */
+  public static void storeVersion(EntityExtensionDAO dao, String entityType, EntityInterface entity)
+      throws JsonProcessingException {
+    storeVersions(dao, entityType, List.of(entity));
+  }
+
+  /**
+   * Store the full copies of versions of entities of the same type that are replaced by new versions, and replace the
+   * versions before them with patches, with a batch statement for each batch of {@link EntityDAO#IN_CLAUSE_BATCH_SIZE}
+   * entities. The versions before them that are not cached are read with a query for each batch.
+   */
+  public static void storeVersions(EntityExtensionDAO dao, String entityType, List<? extends EntityInterface> entities)
+      throws JsonProcessingException {
+    for (List<? extends EntityInterface> batch : Lists.partition(entities, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      List<String> ids = new ArrayList<>();
+      List<String> extensions = new ArrayList<>();
+      List<String> jsonSchemas = new ArrayList<>();
+      List<String> jsons = new ArrayList<>();
+      Map<UUID, String> previousJsons = new HashMap<>();
+      Map<UUID, String> previousExtensions = new HashMap<>();
+      Map<UUID, Pair<Double, String>> stored = new HashMap<>();
+      for (EntityInterface entity : batch) {
+        String json = JsonUtils.pojoToJson(entity);
+        ids.add(entity.getId().toString());
+        extensions.add(EntityUtil.getVersionExtension(entityType, entity.getVersion()));
+        jsonSchemas.add(entityType);
+        jsons.add(json);
+        stored.put(entity.getId(), Pair.of(entity.getVersion(), json));
+        ChangeDescription change = entity.getChangeDescription();
+        Double previousVersion = change == null ? null : change.getPreviousVersion();
+        if (previousVersion != null
+            && previousVersion < entity.getVersion()
+            && !isSnapshot(previousVersion, entity.getVersion())) {
+          previousExtensions.put(entity.getId(), EntityUtil.getVersionExtension(entityType, previousVersion));
+          Pair<Double, String> cached = LAST_VERSIONS.getIfPresent(entity.getId());
+          if (cached != null && cached.getLeft().equals(previousVersion)) {
+            previousJsons.put(entity.getId(), cached.getRight());
+          }
+        }
+      }
+      readPreviousVersions(dao, previousExtensions, previousJsons);
+
+      for (EntityInterface entity : batch) {
+        String previousJson = previousJsons.get(entity.getId());
+        if (previousJson != null) {
+          Pair<Double, String> next = stored.get(entity.getId());
+          String patch =
+              toPatch(readObject(previousJson), readObject(next.getRight()), next.getLeft(), previousJson.length());
+          if (patch != null) {
+            ids.add(entity.getId().toString());
+            extensions.add(previousExtensions.get(entity.getId()));
+            jsonSchemas.add(PATCH_SCHEMA);
+            jsons.add(patch);
+          }
+        }
+      }
+      if (ids.size() == 1) {
+        dao.insert(ids.get(0), extensions.get(0), entityType, jsons.get(0));
+      } else {
+        dao.insertVersions(ids, extensions, jsonSchemas, jsons);
+      }
+      CommitCallbacks.afterCommit(() -> LAST_VERSIONS.putAll(stored));
+    }
+  }
+
+  /** Read the full copies of the previous versions that are not cached. Versions stored as patches are left out. */
+  private static void readPreviousVersions(
+      EntityExtensionDAO dao, Map<UUID, String> previousExtensions, Map<UUID, String> previousJsons) {
+    List<String> ids = new ArrayList<>();
+    Set<String> names = new LinkedHashSet<>();
+    previousExtensions.forEach(
+        (id, extension) -> {
+          if (!previousJsons.containsKey(id)) {
+            ids.add(id.toString());
+            names.add(extension);
+          }
+        });
+    if (ids.isEmpty()) {
+      return;
+    }
+    if (ids.size() == 1) {
+      UUID id = UUID.fromString(ids.get(0));
+      for (ExtensionRecord previous : dao.getVersions(ids.get(0), new ArrayList<>(names))) {
+        if (!isPatch(previous)) {
+          previousJsons.put(id, previous.getExtensionJson());
+        }
+      }
+      return;
+    }
+    for (ExtensionRecordWithId previous : dao.getExtensionsByNames(ids, new ArrayList<>(names))) {
+      if (previous.getExtensionName().equals(previousExtensions.get(previous.getId()))
+          && !PATCH_SCHEMA.equals(previous.getJsonSchema())) {
+        previousJsons.put(previous.getId(), previous.getExtensionJson());
+      }
+    }
+  }
+
+  /**
+   * Returns the extension names of the versions that {@code version} is rebuilt from, which are the version and the
+   * versions after it up to the last version of its major version. These are read with {@link
+   * EntityExtensionDAO#getVersions} and passed to {@link #getVersion}.
+   */
+  public static List<String> getVersionExtensions(String entityType, Double version) {
+    long tenths = Math.round(version * 10);
+    long end = (tenths / SNAPSHOT_INTERVAL + 1) * SNAPSHOT_INTERVAL;
+    List<String> extensions = new ArrayList<>();
+    for (long t = tenths; t < end; t++) {
+      extensions.add(EntityUtil.getVersionExtension(entityType, t / 10.0));
+    }
+    return extensions;
+  }
+
+  /**
+   * Returns the full JSON of {@code version}, rebuilt from the next versions when it is stored as a patch, or null when
+   * the version is not stored
+   */
+  public static String getVersion(List<ExtensionRecord> records, Double version, Class<?> entityClass)
+      throws IOException {
+    Map<Double, ExtensionRecord> stored = toVersionMap(records);
+    if (!stored.containsKey(version)) {
+      return null;
+    }
+    return toJson(stored.get(version), rebuild(stored, version, new HashMap<>()), entityClass);
+  }
+
+  /** Returns the full JSON of all the versions, ordered from the latest version */
+  public static List<String> listVersions(List<ExtensionRecord> records, Class<?> entityClass) throws IOException {
+    Map<Double, ExtensionRecord> stored = toVersionMap(records);
+    List<Double> versions = new ArrayList<>(stored.keySet());
+    versions.sort((v1, v2) -> Double.compare(v2, v1));
+    Map<Double, JsonStructure> rebuilt = new HashMap<>();
+    List<String> jsons = new ArrayList<>(versions.size());
+    for (Double version : versions) {
+      jsons.add(toJson(stored.get(version), rebuild(stored, version, rebuilt), entityClass));
+    }
+    return jsons;
+  }
+
+  /**
+   * Replace the full copies of the previous versions of an entity with patches, except the versions kept in full.
+   * Versions already stored as patches are left unchanged. Returns the number of versions replaced with a patch.
+   */
+  public static int compact(EntityExtensionDAO dao, String entityType, UUID id) {
+    String prefix = EntityUtil.getVersionExtensionPrefix(entityType);
+    Map<Double, ExtensionRecord> stored = toVersionMap(dao.getVersionHistory(id.toString(), prefix));
+    List<Double> versions = new ArrayList<>(stored.keySet());
+    versions.sort(Double::compare);
+    Map<Double, JsonStructure> rebuilt = new HashMap<>();
+    int count = 0;
+    for (int i = 0; i < versions.size() - 1; i++) {
+      Double version = versions.get(i);
+      Double nextVersion = versions.get(i + 1);
+      ExtensionRecord record = stored.get(version);
+      if (isPatch(record) || isSnapshot(version, nextVersion)) {
+        continue;
+      }
+      String json = record.getExtensionJson();
+      JsonObject next = rebuild(stored, nextVersion, rebuilt).asJsonObject();
+      String patch = toPatch(readObject(json), next, nextVersion, json.length());
+      if (patch != null
+          && dao.replaceWithPatch(id.toString(), record.getExtensionName(), entityType, PATCH_SCHEMA, patch) > 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Compact the previous versions of all the entities. Returns the number of versions replaced with a patch. */
+  public static int compactAll(EntityExtensionDAO dao) {
+    int count = 0;
+    List<Pair<UUID, String>> entities = dao.listVersionedEntities();
+    for (Pair<UUID, String> entity : entities) {
+      count += compact(dao, entity.getRight(), entity.getLeft());
+    }
+    LOG.info("Stored {} previous versions of {} entities as patches", count, entities.size());
+    return count;
+  }
+
+  /** The last version before the next block of versions is kept in full */
+  static boolean isSnapshot(Double version, Double nextVersion) {
+    return Math.round(version * 10) / SNAPSHOT_INTERVAL != Math.round(nextVersion * 10) / SNAPSHOT_INTERVAL;
+  }
+
+  static boolean isPatch(ExtensionRecord record) {
+    return PATCH_SCHEMA.equals(record.getJsonSchema());
+  }
+
+  /** Forget the cached last versions, for tests */
+  @VisibleForTesting
+  static void clearCache() {
+    LAST_VERSIONS.invalidateAll();
+  }
+
+  /**
+   * Returns the stored patch that rebuilds {@code target} from {@code next}, or null when the patch does not rebuild
+   * the version or is not smaller than the full copy of the version.
+   */
+  private static String toPatch(JsonObject target, JsonObject next, Double nextVersion, int fullLength) {
+    JsonPatchBuilder builder = Json.createPatchBuilder();
+    diff("", next, target, builder);
+    JsonPatch patch = builder.build();
+    if (!patch.apply(next).equals(target)) {
+      LOG.warn("Keeping the full copy of a version that the patch does not rebuild");
+      return null;
+    }
+    String json =
+        Json.createObjectBuilder().add(PATCH, patch.toJsonArray()).add(NEXT_VERSION, nextVersion).build().toString();
+    return json.length() < fullLength ? json : null;
+  }
+
+  /**
+   * Add the operations that turn {@code source} into {@code target} to the patch. Unlike {@link Json#createDiff}, which
+   * replaces every element after an inserted or removed array element, arrays are aligned on their longest common
+   * subsequence so that adding or removing a column is a single operation. The alignment is limited to {@link
+   * #MAX_ALIGNMENT_SIZE} pairs of elements, larger arrays are diffed element by element.
+   */
+  private static void diff(String path, JsonValue source, JsonValue target, JsonPatchBuilder patch) {
+    if (source.equals(target)) {
+      return;
+    }
+    if (source.getValueType() == ValueType.OBJECT && target.getValueType() == ValueType.OBJECT) {
+      diffObjects(path, source.asJsonObject(), target.asJsonObject(), patch);
+    } else if (source.getValueType() == ValueType.ARRAY && target.getValueType() == ValueType.ARRAY) {
+      diffArrays(path, source.asJsonArray(), target.asJsonArray(), patch);
+    } else {
+      patch.replace(path, target);
+    }
+  }
+
+  private static void diffObjects(String path, JsonObject source, JsonObject target, JsonPatchBuilder patch) {
+    for (Map.Entry<String, JsonValue> entry : source.entrySet()) {
+      String fieldPath = path + "/" + escape(entry.getKey());
+      JsonValue targetValue = target.get(entry.getKey());
+      if (targetValue == null) {
+        patch.remove(fieldPath);
+      } else {
+        diff(fieldPath, entry.getValue(), targetValue, patch);
+      }
+    }
+    for (Map.Entry<String, JsonValue> entry : target.entrySet()) {
+      if (!source.containsKey(entry.getKey())) {
+        patch.add(path + "/" + escape(entry.getKey()), entry.getValue());
+      }
+    }
+  }
+
+  private static void diffArrays(String path, JsonArray source, JsonArray target, JsonPatchBuilder patch) {
+    // Common prefix and suffix are left out of the alignment
+    int start = 0;
+    while (start < source.size() && start < target.size() && source.get(start).equals(target.get(start))) {
+      start++;
+    }
+    int sourceEnd = source.size();
+    int targetEnd = target.size();
+    while (sourceEnd > start && targetEnd > start && source.get(sourceEnd - 1).equals(target.get(targetEnd - 1))) {
+      sourceEnd--;
+      targetEnd--;
+    }
+
+    int sourceLength = sourceEnd - start;
+    int targetLength = targetEnd - start;
+    if ((long) sourceLength * targetLength > MAX_ALIGNMENT_SIZE) {
+      diffByPosition(path, source, target, start, sourceLength, targetLength, patch);
+      return;
+    }
+
+    // lcs[i][j] is the length of the longest common subsequence of source[start + i..] and target[start + j..]
+    int[][] lcs = new int[sourceLength + 1][targetLength + 1];
+    for (int i = sourceLength - 1; i >= 0; i--) {
+      for (int j = targetLength - 1; j >= 0; j--) {
+        lcs[i][j] =
+            source.get(start + i).equals(target.get(start + j))
+                ? lcs[i + 1][j + 1] + 1
+                : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+      }
+    }
+
+    // Walk the alignment keeping track of the index in the array being patched. Between two common elements the
+    // removed and added elements are paired and diffed, and the remaining ones are removed or added.
+    int index = start;
+    int i = 0;
+    int j = 0;
+    while (i < sourceLength || j < targetLength) {
+      int nextI = i;
+      int nextJ = j;
+      while (nextI < sourceLength
+          && nextJ < targetLength
+          && !source.get(start + nextI).equals(target.get(start + nextJ))) {
+        if (lcs[nextI + 1][nextJ] >= lcs[nextI][nextJ + 1]) {
+          nextI++;
+        } else {
+          nextJ++;
+        }
+      }
+      if (nextI == sourceLength || nextJ == targetLength) {
+        nextI = sourceLength;
+        nextJ = targetLength;
+      }
+      int paired = Math.min(nextI - i, nextJ - j);
+      for (int p = 0; p < paired; p++) {
+        diff(path + "/" + index++, source.get(start + i + p), target.get(start + j + p), patch);
+      }
+      for (int p = paired; p < nextI - i; p++) {
+        patch.remove(path + "/" + index);
+      }
+      for (int p = paired; p < nextJ - j; p++) {
+        patch.add(path + "/" + index++, target.get(start + j + p));
+      }
+      if (nextI < sourceLength) {
+        index++; // Common element
+        nextI++;
+        nextJ++;
+      }
+      i = nextI;
+      j = nextJ;
+    }
+  }
+
+  /** Diff the elements at the same position and remove or add the remaining elements, without aligning the arrays */
+  private static void diffByPosition(
+      String path,
+      JsonArray source,
+      JsonArray target,
+      int start,
+      int sourceLength,
+      int targetLength,
+      JsonPatchBuilder patch) {
+    int paired = Math.min(sourceLength, targetLength);
+    for (int p = 0; p < paired; p++) {
+      diff(path + "/" + (start + p), source.get(start + p), target.get(start + p), patch);
+    }
+    for (int p = paired; p < sourceLength; p++) {
+      patch.remove(path + "/" + (start + paired));
+    }
+    for (int p = paired; p < targetLength; p++) {
+      patch.add(path + "/" + (start + p), target.get(start + p));
+    }
+  }
+
+  /** Escape a key of an object for a JSON pointer */
+  private static String escape(String key) {
+    return key.replace("~", "~0").replace("/", "~1");
+  }
+
+  private static JsonStructure rebuild(
+      Map<Double, ExtensionRecord> stored, Double version, Map<Double, JsonStructure> rebuilt) {
+    JsonStructure json = rebuilt.get(version);
+    if (json != null) {
+      return json;
+    }
+    ExtensionRecord record = stored.get(version);
+    if (record == null) {
+      throw new IllegalStateException("Version " + version + " is missing from the version history");
+    }
+    JsonObject object = readObject(record.getExtensionJson());
+    if (isPatch(record)) {
+      Double nextVersion = object.getJsonNumber(NEXT_VERSION).doubleValue();
+      JsonStructure next = rebuild(stored, nextVersion, rebuilt);
+      json = Json.createPatch(object.getJsonArray(PATCH)).apply(next);
+    } else {
+      json = object;
+    }
+    rebuilt.put(version, json);
+    return json;
+  }
+
+  /** Full copies are returned as stored. Rebuilt versions are written in the same order as the entity class. */
+  private static String toJson(ExtensionRecord record, JsonValue json, Class<?> entityClass) throws IOException {
+    return isPatch(record)
+        ? JsonUtils.pojoToJson(JsonUtils.readValue(json.toString(), entityClass))
+        : record.getExtensionJson();
+  }
+
+  private static Map<Double, ExtensionRecord> toVersionMap(List<ExtensionRecord> records) {
+    Map<Double, ExtensionRecord> versions = new HashMap<>();
+    records.forEach(r -> versions.put(EntityUtil.getVersion(r.getExtensionName()), r));
+    return versions;
+  }
+
+  private static JsonObject readObject(String json) {
+    return JsonUtils.readJson(json).asJsonObject();
+  }
+}
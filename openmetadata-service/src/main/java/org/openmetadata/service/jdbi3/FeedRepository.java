@@ -970,7 +970,20 @@ public class FeedRepository {
   }
 
   private void populateAssignees(List<Thread> threads) {
-    threads.forEach(this::populateAssignees);
+    List<Thread> tasks =
+        threads.stream().filter(thread -> thread.getType().equals(ThreadType.Task)).collect(Collectors.toList());
+    List<EntityReference> assignees =
+        tasks.stream().flatMap(task -> task.getTask().getAssignees().stream()).collect(Collectors.toList());
+    try {
+      // Resolve the assignees of all the tasks together instead of one query per assignee
+      populateEntityReferences(assignees);
+      tasks.forEach(task -> task.getTask().getAssignees().sort(compareEntityReference));
+    } catch (EntityNotFoundException exception) {
+      // Some of the assignees are permanently deleted. Resolve them one at a time to mark the deleted ones
+      tasks.forEach(this::populateAssignees);
+    } catch (IOException ioException) {
+      throw new RuntimeException(ioException);
+    }
   }
 
   private Thread populateAssignees(Thread thread) {
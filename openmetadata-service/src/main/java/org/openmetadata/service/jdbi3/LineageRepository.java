@@ -15,9 +15,15 @@ package org.openmetadata.service.jdbi3;
 
 import static org.openmetadata.common.utils.CommonUtil.listOrEmpty;
 
+import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
@@ -31,7 +37,7 @@ import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.LineageDetails;
 import org.openmetadata.schema.type.Relationship;
 import org.openmetadata.service.Entity;
-import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
 import org.openmetadata.service.util.FullyQualifiedName;
 import org.openmetadata.service.util.JsonUtils;
 
@@ -121,77 +127,66 @@ public class LineageRepository {
   }
 
   private EntityLineage getLineage(EntityReference primary, int upstreamDepth, int downstreamDepth) throws IOException {
-    List<EntityReference> entities = new ArrayList<>();
     EntityLineage lineage =
         new EntityLineage()
             .withEntity(primary)
-            .withNodes(entities)
             .withUpstreamEdges(new ArrayList<>())
             .withDownstreamEdges(new ArrayList<>());
-    getUpstreamLineage(primary.getId(), primary.getType(), lineage, upstreamDepth);
-    getDownstreamLineage(primary.getId(), primary.getType(), lineage, downstreamDepth);
 
-    // Remove duplicate nodes
-    lineage.withNodes(lineage.getNodes().stream().distinct().collect(Collectors.toList()));
-    return lineage;
+    // Entity type of the nodes in the lineage graph other than the primary entity, keyed by node id
+    Map<UUID, String> nodes = new LinkedHashMap<>();
+    getLineage(primary, lineage.getUpstreamEdges(), nodes, upstreamDepth, true);
+    getLineage(primary, lineage.getDownstreamEdges(), nodes, downstreamDepth, false);
+    return lineage.withNodes(getNodeReferences(nodes));
   }
 
-  private void getUpstreamLineage(UUID id, String entityType, EntityLineage lineage, int upstreamDepth)
+  /**
+   * Breadth first traversal of the lineage graph in one direction starting at the primary entity. The edges of all the
+   * nodes at the same depth are read together, and each node is expanded only once so that diamond shaped graphs are
+   * not traversed repeatedly and cycles terminate.
+   */
+  private void getLineage(
+      EntityReference primary, List<Edge> edges, Map<UUID, String> nodes, int depth, boolean upstream)
       throws IOException {
-    if (upstreamDepth == 0) {
-      return;
-    }
-    // from this id ---> find other ids
-    List<EntityRelationshipRecord> records =
-        dao.relationshipDAO().findFrom(id.toString(), entityType, Relationship.UPSTREAM.ordinal());
-
-    final List<EntityReference> upstreamEntityReferences = new ArrayList<>();
-    for (EntityRelationshipRecord entityRelationshipRecord : records) {
-      EntityReference ref =
-          Entity.getEntityReferenceById(
-              entityRelationshipRecord.getType(), entityRelationshipRecord.getId(), Include.ALL);
-      LineageDetails lineageDetails = JsonUtils.readValue(entityRelationshipRecord.getJson(), LineageDetails.class);
-      upstreamEntityReferences.add(ref);
-      lineage
-          .getUpstreamEdges()
-          .add(new Edge().withFromEntity(ref.getId()).withToEntity(id).withLineageDetails(lineageDetails));
-    }
-
-    lineage.getNodes().addAll(upstreamEntityReferences);
-
-    upstreamDepth--;
-    // Recursively add upstream nodes and edges
-    for (EntityReference entity : upstreamEntityReferences) {
-      getUpstreamLineage(entity.getId(), entity.getType(), lineage, upstreamDepth);
+    Set<UUID> visited = new HashSet<>();
+    visited.add(primary.getId());
+    List<String> frontier = List.of(primary.getId().toString());
+    for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+      List<String> nextFrontier = new ArrayList<>();
+      for (List<String> ids : Lists.partition(frontier, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+        // upstream: other ids ---> ids in the frontier, downstream: ids in the frontier ---> other ids
+        List<EntityRelationshipObject> records =
+            upstream
+                ? dao.relationshipDAO().findFromBatch(ids, Relationship.UPSTREAM.ordinal())
+                : dao.relationshipDAO().findToBatch(ids, Relationship.UPSTREAM.ordinal());
+        for (EntityRelationshipObject rec : records) {
+          LineageDetails lineageDetails = JsonUtils.readValue(rec.getJson(), LineageDetails.class);
+          edges.add(
+              new Edge()
+                  .withFromEntity(rec.getFromId())
+                  .withToEntity(rec.getToId())
+                  .withLineageDetails(lineageDetails));
+          UUID nodeId = upstream ? rec.getFromId() : rec.getToId();
+          if (visited.add(nodeId)) {
+            nodes.putIfAbsent(nodeId, upstream ? rec.getFromEntity() : rec.getToEntity());
+            nextFrontier.add(nodeId.toString());
+          }
+        }
+      }
+      frontier = nextFrontier;
     }
   }
 
-  private void getDownstreamLineage(UUID id, String entityType, EntityLineage lineage, int downstreamDepth)
-      throws IOException {
-    if (downstreamDepth == 0) {
-      return;
-    }
-    // from other ids ---> to this id
-    List<EntityRelationshipRecord> records =
-        dao.relationshipDAO().findTo(id.toString(), entityType, Relationship.UPSTREAM.ordinal());
-
-    final List<EntityReference> downstreamEntityReferences = new ArrayList<>();
-    for (EntityRelationshipRecord entityRelationshipRecord : records) {
-      EntityReference ref =
-          Entity.getEntityReferenceById(
-              entityRelationshipRecord.getType(), entityRelationshipRecord.getId(), Include.ALL);
-      LineageDetails lineageDetails = JsonUtils.readValue(entityRelationshipRecord.getJson(), LineageDetails.class);
-      downstreamEntityReferences.add(ref);
-      lineage
-          .getDownstreamEdges()
-          .add(new Edge().withToEntity(ref.getId()).withFromEntity(id).withLineageDetails(lineageDetails));
-    }
-    lineage.getNodes().addAll(downstreamEntityReferences);
-
-    downstreamDepth--;
-    // Recursively add upstream nodes and edges
-    for (EntityReference entity : downstreamEntityReferences) {
-      getDownstreamLineage(entity.getId(), entity.getType(), lineage, downstreamDepth);
+  /** Resolve the references of the lineage nodes with one query per entity type */
+  private List<EntityReference> getNodeReferences(Map<UUID, String> nodes) throws IOException {
+    Map<String, List<UUID>> idsByType = new LinkedHashMap<>();
+    nodes.forEach((id, type) -> idsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(id));
+    Map<UUID, EntityReference> refs = new HashMap<>();
+    for (Map.Entry<String, List<UUID>> entry : idsByType.entrySet()) {
+      for (EntityReference ref : Entity.getEntityReferencesByIds(entry.getKey(), entry.getValue(), Include.ALL)) {
+        refs.put(ref.getId(), ref);
+      }
     }
+    return nodes.keySet().stream().map(refs::get).collect(Collectors.toList());
   }
 }
@@ -13,7 +13,6 @@
 
 package org.openmetadata.service.jdbi3;
 
-import static org.openmetadata.service.Entity.FIELD_FOLLOWERS;
 import static org.openmetadata.service.Entity.STORAGE_SERVICE;
 
 import java.io.IOException;
@@ -57,7 +56,6 @@ public class LocationRepository extends EntityRepository<Location> {
   public Location setFields(Location location, Fields fields) throws IOException {
     location.setService(getContainer(location.getId()));
     location.setPath(location.getPath());
-    location.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(location) : null);
     return location;
   }
 
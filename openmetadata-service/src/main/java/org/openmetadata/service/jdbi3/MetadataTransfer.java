@@ -0,0 +1,486 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.annotations.utils.AnnotationChecker;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.ServiceEntityInterface;
+import org.openmetadata.schema.entity.teams.User;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.EntityReferenceCache;
+import org.openmetadata.service.exception.CatalogExceptionMessage;
+import org.openmetadata.service.jdbi3.CollectionDAO.MetadataTransferDAO;
+import org.openmetadata.service.secrets.SecretsManagerFactory;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Exports the entities of the catalog as newline delimited JSON, one line per entity with its relationships, tag usage
+ * and extensions, and imports them back.
+ *
+ * <p>Each entity table is read with a keyset scan over its name column, {@link #BATCH_SIZE} entities at a time, and the
+ * rows related to a page of entities are read with one query per table. Each page is written and flushed before the
+ * next one is read, so an export holds at most one page in memory. An import reads the lines one at a time and inserts
+ * every {@link #BATCH_SIZE} lines in a single transaction with one batch per table.
+ *
+ * <p>A relationship is exported once, with its from entity when the type of that entity is exported and with its to
+ * entity otherwise. Rows are inserted or replaced by their keys, so importing the same export twice is harmless, and
+ * entities by their id. The tag usage of an imported entity replaces its tag usage in the catalog. An entity with the
+ * name of an existing entity of another id fails the import. The search indexes are not updated by an import and have
+ * to be recreated afterwards.
+ *
+ * <p>Secrets are not exported, as for the users who are not allowed to decrypt them: the connection of a service keeps
+ * only its exposed fields and the credentials of a bot are removed. An imported service or bot that is already in the
+ * catalog keeps its stored connection or credentials, and the ones imported in another catalog have to be set again.
+ */
+@Slf4j
+public class MetadataTransfer {
+  public static final String NDJSON = "application/x-ndjson";
+  static final int BATCH_SIZE = EntityDAO.IN_CLAUSE_BATCH_SIZE;
+
+  private final MetadataTransferDAO dao;
+
+  public MetadataTransfer(MetadataTransferDAO dao) {
+    this.dao = dao;
+  }
+
+  /**
+   * Entity types to export from a comma separated list. All the entity types are exported when the list is empty or
+   * {@code *}. Throws {@link IllegalArgumentException} for unknown entity types.
+   */
+  public static List<String> getEntityTypes(String entityTypesParam) {
+    List<String> entityTypes = Entity.EntityList.getEntityList("entityTypes", entityTypesParam);
+    return entityTypes.isEmpty() || entityTypes.contains("*") ? Entity.getEntityList() : entityTypes;
+  }
+
+  /** Write the entities of the given types to the stream */
+  public int export(List<String> entityTypes, OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    int count = 0;
+    for (String entityType : entityTypes) {
+      count += export(entityType, entityTypes, writer);
+    }
+    writer.flush();
+    return count;
+  }
+
+  private <T extends EntityInterface> int export(String entityType, List<String> entityTypes, Writer writer)
+      throws IOException {
+    EntityRepository<T> repository = Entity.getEntityRepository(entityType);
+    EntityDAO<T> entityDAO = repository.dao;
+    boolean byName = entityDAO.getNameColumn().equals("name");
+    String after = "";
+    int count = 0;
+    List<String> jsons;
+    do {
+      jsons = entityDAO.listAfter(entityDAO.getTableName(), entityDAO.getNameColumn(), "WHERE TRUE", BATCH_SIZE, after);
+      if (jsons.isEmpty()) {
+        break;
+      }
+      List<T> entities = JsonUtils.readObjects(jsons, entityDAO.getEntityClass());
+      writePage(entityType, entityTypes, repository, jsons, entities, writer);
+      writer.flush();
+      T last = entities.get(entities.size() - 1);
+      after = byName ? last.getName() : last.getFullyQualifiedName();
+      count += jsons.size();
+    } while (jsons.size() == BATCH_SIZE);
+    LOG.info("Exported {} entities of type {}", count, entityType);
+    return count;
+  }
+
+  private <T extends EntityInterface> void writePage(
+      String entityType,
+      List<String> entityTypes,
+      EntityRepository<T> repository,
+      List<String> jsons,
+      List<T> entities,
+      Writer writer)
+      throws IOException {
+    List<String> ids = entities.stream().map(e -> e.getId().toString()).collect(Collectors.toList());
+    Map<String, List<RelationshipRow>> relationships = new HashMap<>();
+    dao.findRelationshipsFrom(ids)
+        .forEach(r -> relationships.computeIfAbsent(r.getFromId(), k -> new ArrayList<>()).add(r));
+    dao.findRelationshipsTo(ids, entityTypes)
+        .forEach(r -> relationships.computeIfAbsent(r.getToId(), k -> new ArrayList<>()).add(r));
+
+    Map<String, String> entityIdByTarget = new HashMap<>();
+    for (T entity : entities) {
+      for (String fqn : repository.getTagTargetFQNs(entity)) {
+        entityIdByTarget.put(fqn, entity.getId().toString());
+      }
+    }
+    Map<String, List<TagUsageRow>> tags = new HashMap<>();
+    for (List<String> targets : Lists.partition(new ArrayList<>(entityIdByTarget.keySet()), BATCH_SIZE)) {
+      dao.findTagUsage(targets)
+          .forEach(t -> tags.computeIfAbsent(entityIdByTarget.get(t.getTargetFQN()), k -> new ArrayList<>()).add(t));
+    }
+
+    Map<String, List<ExtensionRow>> extensions =
+        dao.findExtensions(ids).stream().collect(Collectors.groupingBy(ExtensionRow::getId));
+
+    for (int i = 0; i < entities.size(); i++) {
+      String id = ids.get(i);
+      EntityLine line = new EntityLine();
+      line.setEntityType(entityType);
+      line.entity = maskSecrets(repository, entities.get(i)) ? JsonUtils.pojoToJson(entities.get(i)) : jsons.get(i);
+      line.setRelationships(relationships.getOrDefault(id, List.of()));
+      line.setTags(tags.getOrDefault(id, List.of()));
+      line.setExtensions(extensions.getOrDefault(id, List.of()));
+      writer.write(JsonUtils.pojoToJson(line));
+      writer.write('\n');
+    }
+  }
+
+  /**
+   * Read the entities from the stream and insert or replace them. The lines are imported {@link #BATCH_SIZE} at a time,
+   * each batch in its own transaction, and an invalid line fails the import after the previous batches are imported.
+   */
+  public ImportResult importFrom(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+    ImportResult result = new ImportResult();
+    List<EntityLine> batch = new ArrayList<>(BATCH_SIZE);
+    int lineNumber = 0;
+    String line;
+    try {
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+        batch.add(readLine(line, lineNumber));
+        if (batch.size() == BATCH_SIZE) {
+          importBatch(batch, result);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        importBatch(batch, result);
+      }
+    } finally {
+      if (result.teamsImported) {
+        // Teams are imported without their repository, which maintains the team hierarchy when a team is changed
+        TeamHierarchyIndex.reload();
+      }
+    }
+    LOG.info(
+        "Imported {} entities, {} relationships, {} tag usages and {} extensions",
+        result.getEntities(),
+        result.getRelationships(),
+        result.getTags(),
+        result.getExtensions());
+    return result;
+  }
+
+  private static EntityLine readLine(String line, int lineNumber) {
+    EntityLine entityLine;
+    try {
+      entityLine = JsonUtils.readValue(line, EntityLine.class);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(String.format("Invalid entity at line %d: %s", lineNumber, e.getMessage()));
+    }
+    if (entityLine.getEntityType() == null || entityLine.getEntity() == null || entityLine.getId() == null) {
+      throw new IllegalArgumentException(String.format("Invalid entity at line %d: missing entity", lineNumber));
+    }
+    if (!Entity.getEntityList().contains(entityLine.getEntityType())) {
+      throw new IllegalArgumentException(CatalogExceptionMessage.entityTypeNotFound(entityLine.getEntityType()));
+    }
+    return entityLine;
+  }
+
+  private void importBatch(List<EntityLine> batch, ImportResult result) throws IOException {
+    Map<String, List<EntityLine>> linesByType = new LinkedHashMap<>();
+    List<RelationshipRow> relationships = new ArrayList<>();
+    List<TagUsageRow> tags = new ArrayList<>();
+    List<ExtensionRow> extensions = new ArrayList<>();
+    for (EntityLine line : batch) {
+      linesByType.computeIfAbsent(line.getEntityType(), k -> new ArrayList<>()).add(line);
+      relationships.addAll(line.getRelationships());
+      tags.addAll(line.getTags());
+      extensions.addAll(line.getExtensions());
+    }
+    List<String> tagTargets = new ArrayList<>();
+    for (Map.Entry<String, List<EntityLine>> entry : linesByType.entrySet()) {
+      tagTargets.addAll(getTagTargetFQNs(Entity.getEntityRepository(entry.getKey()), entry.getValue()));
+    }
+
+    CommitCallbacks.useTransaction(
+        dao,
+        tx -> {
+          for (Map.Entry<String, List<EntityLine>> entry : linesByType.entrySet()) {
+            EntityRepository<?> repository = Entity.getEntityRepository(entry.getKey());
+            EntityDAO<?> entityDAO = repository.dao;
+            checkIds(tx, entry.getKey(), entityDAO, entry.getValue());
+            keepSecrets(tx, repository, entry.getValue());
+            tx.upsertEntities(entityDAO.getTableName(), map(entry.getValue(), EntityLine::getEntity));
+          }
+          for (List<String> targets : Lists.partition(tagTargets, BATCH_SIZE)) {
+            tx.deleteTagUsage(targets);
+          }
+          if (!relationships.isEmpty()) {
+            tx.upsertRelationships(
+                map(relationships, RelationshipRow::getFromId),
+                map(relationships, RelationshipRow::getToId),
+                map(relationships, RelationshipRow::getFromEntity),
+                map(relationships, RelationshipRow::getToEntity),
+                map(relationships, RelationshipRow::getRelation),
+                map(relationships, RelationshipRow::getJson));
+          }
+          if (!tags.isEmpty()) {
+            tx.upsertTagUsage(
+                map(tags, TagUsageRow::getSource),
+                map(tags, TagUsageRow::getTagFQN),
+                map(tags, TagUsageRow::getTargetFQN),
+                map(tags, TagUsageRow::getLabelType),
+                map(tags, TagUsageRow::getState));
+          }
+          if (!extensions.isEmpty()) {
+            tx.upsertExtensions(
+                map(extensions, ExtensionRow::getId),
+                map(extensions, ExtensionRow::getExtension),
+                map(extensions, ExtensionRow::getJsonSchema),
+                map(extensions, ExtensionRow::getJson));
+          }
+        });
+
+    // Entities cached before the import are replaced by the imported ones
+    for (EntityLine line : batch) {
+      EntityReferenceCache.invalidate(line.getEntityType(), line.getId(), line.getFullyQualifiedName());
+      PolicyDecisionCache.invalidateEntity(line.getId());
+    }
+    result.entities += batch.size();
+    result.relationships += relationships.size();
+    result.tags += tags.size();
+    result.extensions += extensions.size();
+    result.teamsImported |= linesByType.containsKey(Entity.TEAM);
+  }
+
+  /** Targets of the tag usage of the imported entities, which is replaced by the imported tag usage */
+  private static <T extends EntityInterface> List<String> getTagTargetFQNs(
+      EntityRepository<T> repository, List<EntityLine> lines) throws IOException {
+    List<String> targets = new ArrayList<>();
+    for (EntityLine line : lines) {
+      T entity = JsonUtils.readValue(line.getEntity(), repository.dao.getEntityClass());
+      repository.getTagTargetFQNs(entity).stream().filter(Objects::nonNull).forEach(targets::add);
+    }
+    return targets;
+  }
+
+  /**
+   * Secrets are removed from the connection of a service and from the credentials of a bot, as they are for the users
+   * who cannot decrypt them. Returns true when the entity has secrets.
+   */
+  private static boolean maskSecrets(EntityRepository<?> repository, EntityInterface entity) throws IOException {
+    if (entity instanceof ServiceEntityInterface && repository instanceof ServiceEntityRepository) {
+      ServiceEntityInterface service = (ServiceEntityInterface) entity;
+      if (service.getConnection() == null || service.getConnection().getConfig() == null) {
+        return false;
+      }
+      Object config =
+          SecretsManagerFactory.getSecretsManager()
+              .encryptOrDecryptServiceConnectionConfig(
+                  service.getConnection().getConfig(),
+                  service.getServiceType().value(),
+                  service.getName(),
+                  ((ServiceEntityRepository<?, ?>) repository).getServiceType(),
+                  false);
+      service
+          .getConnection()
+          .setConfig(
+              AnnotationChecker.isExposedFieldPresent(config.getClass())
+                  ? JsonUtils.toExposedEntity(config, config.getClass())
+                  : null);
+      return true;
+    }
+    if (entity instanceof User && ((User) entity).getAuthenticationMechanism() != null) {
+      ((User) entity).getAuthenticationMechanism().setConfig(null);
+      return true;
+    }
+    return false;
+  }
+
+  /** Imported services and bots that are in the catalog keep their stored connection and credentials */
+  private static <T extends EntityInterface> void keepSecrets(
+      MetadataTransferDAO tx, EntityRepository<T> repository, List<EntityLine> lines) throws IOException {
+    Class<T> entityClass = repository.dao.getEntityClass();
+    if (!ServiceEntityInterface.class.isAssignableFrom(entityClass) && !User.class.equals(entityClass)) {
+      return;
+    }
+    Map<UUID, T> stored = new HashMap<>();
+    for (String json : tx.findEntities(repository.dao.getTableName(), map(lines, line -> line.getId().toString()))) {
+      T entity = JsonUtils.readValue(json, entityClass);
+      stored.put(entity.getId(), entity);
+    }
+    for (EntityLine line : lines) {
+      T entity = stored.get(line.getId());
+      if (entity == null) {
+        continue;
+      }
+      T imported = JsonUtils.readValue(line.getEntity(), entityClass);
+      if (imported instanceof ServiceEntityInterface) {
+        ServiceEntityInterface service = (ServiceEntityInterface) imported;
+        ServiceEntityInterface storedService = (ServiceEntityInterface) entity;
+        if (service.getConnection() == null || storedService.getConnection() == null) {
+          continue;
+        }
+        service.getConnection().setConfig(storedService.getConnection().getConfig());
+      } else {
+        User user = (User) imported;
+        if (user.getAuthenticationMechanism() == null) {
+          continue;
+        }
+        user.setAuthenticationMechanism(((User) entity).getAuthenticationMechanism());
+      }
+      line.entity = JsonUtils.pojoToJson(imported);
+    }
+  }
+
+  /**
+   * Entities are replaced by their id. An entity with the name of an entity of another id, in the catalog or earlier in
+   * the batch, would leave the relationships of one of them pointing to a missing entity, and fails the import instead.
+   */
+  private static void checkIds(
+      MetadataTransferDAO tx, String entityType, EntityDAO<?> entityDAO, List<EntityLine> lines) {
+    boolean byName = entityDAO.getNameColumn().equals("name");
+    Function<EntityLine, String> name = byName ? EntityLine::getName : EntityLine::getFullyQualifiedName;
+    Map<String, UUID> ids = new HashMap<>();
+    tx.findEntityIds(entityDAO.getTableName(), entityDAO.getNameColumn(), map(lines, name))
+        .forEach(pair -> ids.put(pair.getRight(), pair.getLeft()));
+    for (EntityLine line : lines) {
+      UUID id = ids.putIfAbsent(name.apply(line), line.getId());
+      if (id != null && !id.equals(line.getId())) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Entity %s %s with id %s already exists with id %s", entityType, name.apply(line), line.getId(), id));
+      }
+    }
+  }
+
+  private static <R, V> List<V> map(List<R> rows, Function<R, V> getter) {
+    return rows.stream().map(getter).collect(Collectors.toList());
+  }
+
+  private static String toRawJson(JsonNode node) {
+    return node == null || node.isNull() ? null : node.toString();
+  }
+
+  /** A line of the export, which is an entity as stored in its table with the rows of the other tables about it */
+  @Getter
+  @Setter
+  public static class EntityLine {
+    private String entityType;
+
+    @JsonRawValue private String entity;
+    @JsonIgnore private UUID id;
+    @JsonIgnore private String name;
+    @JsonIgnore private String fullyQualifiedName;
+
+    private List<RelationshipRow> relationships = List.of();
+    private List<TagUsageRow> tags = List.of();
+    private List<ExtensionRow> extensions = List.of();
+
+    public void setEntity(JsonNode node) {
+      this.entity = toRawJson(node);
+      this.id = node == null || !node.path("id").isTextual() ? null : UUID.fromString(node.get("id").asText());
+      this.name = node == null ? null : node.path("name").asText(null);
+      this.fullyQualifiedName = node == null ? null : node.path("fullyQualifiedName").asText(null);
+    }
+  }
+
+  /** A row of {@code entity_relationship} */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class RelationshipRow {
+    private String fromId;
+    private String toId;
+    private String fromEntity;
+    private String toEntity;
+    private int relation;
+
+    @JsonRawValue private String json;
+
+    public void setJson(JsonNode node) {
+      this.json = toRawJson(node);
+    }
+  }
+
+  /** A row of {@code tag_usage} */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class TagUsageRow {
+    private int source;
+    private String tagFQN;
+    private String targetFQN;
+    private int labelType;
+    private int state;
+  }
+
+  /** A row of {@code entity_extension}, such as a previous version or the custom properties of an entity */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ExtensionRow {
+    private String id;
+    private String extension;
+    private String jsonSchema;
+
+    @JsonRawValue private String json;
+
+    public void setJson(JsonNode node) {
+      this.json = toRawJson(node);
+    }
+  }
+
+  /** Number of rows imported in each table */
+  @Getter
+  public static class ImportResult {
+    private int entities;
+    private int relationships;
+    private int tags;
+    private int extensions;
+    @JsonIgnore private boolean teamsImported;
+  }
+}
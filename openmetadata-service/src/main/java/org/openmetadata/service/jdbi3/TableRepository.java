@@ -20,7 +20,6 @@ import static org.openmetadata.common.utils.CommonUtil.nullOrEmpty;
 import static org.openmetadata.service.Entity.DATABASE_SCHEMA;
 import static org.openmetadata.service.Entity.FIELD_DESCRIPTION;
 import static org.openmetadata.service.Entity.FIELD_DISPLAY_NAME;
-import static org.openmetadata.service.Entity.FIELD_FOLLOWERS;
 import static org.openmetadata.service.Entity.FIELD_OWNER;
 import static org.openmetadata.service.Entity.FIELD_TAGS;
 import static org.openmetadata.service.Entity.LOCATION;
@@ -30,6 +29,7 @@ import static org.openmetadata.service.util.LambdaExceptionUtil.ignoringComparat
 import static org.openmetadata.service.util.LambdaExceptionUtil.rethrowFunction;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Streams;
 import java.io.IOException;
 import java.security.MessageDigest;
@@ -38,10 +38,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
@@ -58,6 +63,9 @@ import org.openmetadata.schema.api.data.CreateTableProfile;
 import org.openmetadata.schema.entity.data.DatabaseSchema;
 import org.openmetadata.schema.entity.data.Table;
 import org.openmetadata.schema.tests.CustomMetric;
+import org.openmetadata.schema.type.BulkItemResult;
+import org.openmetadata.schema.type.BulkItemResult.Status;
+import org.openmetadata.schema.type.ChangeEvent;
 import org.openmetadata.schema.type.Column;
 import org.openmetadata.schema.type.ColumnJoin;
 import org.openmetadata.schema.type.ColumnProfile;
@@ -65,6 +73,7 @@ import org.openmetadata.schema.type.ColumnProfilerConfig;
 import org.openmetadata.schema.type.DailyCount;
 import org.openmetadata.schema.type.DataModel;
 import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.EventType;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.JoinedWith;
 import org.openmetadata.schema.type.Relationship;
@@ -76,6 +85,7 @@ import org.openmetadata.schema.type.TableProfile;
 import org.openmetadata.schema.type.TableProfilerConfig;
 import org.openmetadata.schema.type.TagLabel;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.TypeRegistry;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
 import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.resources.databases.DatabaseUtil;
@@ -119,11 +129,34 @@ public class TableRepository extends EntityRepository<Table> {
   @Override
   public Table setFields(Table table, Fields fields) throws IOException {
     setDefaultFields(table);
+    getColumnTags(fields.contains(FIELD_TAGS), table.getColumns());
+    return setTableFields(table, fields);
+  }
+
+  @Override
+  protected void setFieldsInBulk(List<Table> tables, Fields fields) throws IOException {
+    fetchAndSetCommonFields(tables, fields);
+    fetchAndSetColumnTags(tables, fields.contains(FIELD_TAGS));
+
+    // Tables on a page typically share a handful of schemas. Look up each schema only once.
+    Map<UUID, EntityReference> schemaRefs = getContainersInBulk(tables);
+    Map<UUID, DatabaseSchema> schemas = new HashMap<>();
+    for (Table table : tables) {
+      EntityReference schemaRef = schemaRefs.get(table.getId());
+      DatabaseSchema schema = schemas.get(schemaRef.getId());
+      if (schema == null) {
+        schema = Entity.getEntity(schemaRef, Fields.EMPTY_FIELDS, Include.ALL);
+        schemas.put(schemaRef.getId(), schema);
+      }
+      table.withDatabaseSchema(schemaRef).withDatabase(schema.getDatabase()).withService(schema.getService());
+      setTableFields(table, fields);
+    }
+  }
+
+  private Table setTableFields(Table table, Fields fields) throws IOException {
     table.setTableConstraints(fields.contains("tableConstraints") ? table.getTableConstraints() : null);
-    table.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(table) : null);
     table.setUsageSummary(
         fields.contains("usageSummary") ? EntityUtil.getLatestUsage(daoCollection.usageDAO(), table.getId()) : null);
-    getColumnTags(fields.contains(FIELD_TAGS), table.getColumns());
     table.setJoins(fields.contains("joins") ? getJoins(table) : null);
     table.setSampleData(fields.contains("sampleData") ? getSampleData(table) : null);
     table.setViewDefinition(fields.contains("viewDefinition") ? table.getViewDefinition() : null);
@@ -266,66 +299,33 @@ public class TableRepository extends EntityRepository<Table> {
   public Table addTableProfileData(UUID tableId, CreateTableProfile createTableProfile) throws IOException {
     // Validate the request content
     Table table = dao.findEntityById(tableId);
-    TableProfile storedTableProfile =
-        JsonUtils.readValue(
-            daoCollection
-                .entityExtensionTimeSeriesDao()
-                .getExtensionAtTimestamp(
-                    table.getFullyQualifiedName(),
-                    TABLE_PROFILE_EXTENSION,
-                    createTableProfile.getTableProfile().getTimestamp()),
-            TableProfile.class);
-    if (storedTableProfile != null) {
-      daoCollection
-          .entityExtensionTimeSeriesDao()
-          .update(
-              table.getFullyQualifiedName(),
-              TABLE_PROFILE_EXTENSION,
-              JsonUtils.pojoToJson(createTableProfile.getTableProfile()),
-              createTableProfile.getTableProfile().getTimestamp());
-    } else {
-      daoCollection
-          .entityExtensionTimeSeriesDao()
-          .insert(
-              table.getFullyQualifiedName(),
-              TABLE_PROFILE_EXTENSION,
-              "tableProfile",
-              JsonUtils.pojoToJson(createTableProfile.getTableProfile()));
-    }
-
-    for (ColumnProfile columnProfile : createTableProfile.getColumnProfile()) {
+    Map<String, Column> columns = new HashMap<>();
+    listOrEmpty(table.getColumns()).forEach(c -> columns.putIfAbsent(c.getName(), c));
+    List<ColumnProfile> columnProfiles = listOrEmpty(createTableProfile.getColumnProfile());
+    for (ColumnProfile columnProfile : columnProfiles) {
       // Validate all the columns
-      Column column =
-          table.getColumns().stream().filter(c -> c.getName().equals(columnProfile.getName())).findFirst().orElse(null);
-      if (column == null) {
+      if (!columns.containsKey(columnProfile.getName())) {
         throw new IllegalArgumentException("Invalid column name " + columnProfile.getName());
       }
-      ColumnProfile storedColumnProfile =
-          JsonUtils.readValue(
-              daoCollection
-                  .entityExtensionTimeSeriesDao()
-                  .getExtensionAtTimestamp(
-                      column.getFullyQualifiedName(), TABLE_COLUMN_PROFILE_EXTENSION, columnProfile.getTimestamp()),
-              ColumnProfile.class);
-
-      if (storedColumnProfile != null) {
-        daoCollection
-            .entityExtensionTimeSeriesDao()
-            .update(
-                column.getFullyQualifiedName(),
-                TABLE_COLUMN_PROFILE_EXTENSION,
-                JsonUtils.pojoToJson(columnProfile),
-                storedColumnProfile.getTimestamp());
-      } else {
-        daoCollection
-            .entityExtensionTimeSeriesDao()
-            .insert(
-                column.getFullyQualifiedName(),
-                TABLE_COLUMN_PROFILE_EXTENSION,
-                "columnProfile",
-                JsonUtils.pojoToJson(columnProfile));
-      }
     }
+
+    // Upsert the table and column profiles in a single batch, replacing the profiles stored at the same timestamp
+    int size = columnProfiles.size() + 1;
+    List<String> entityFQNs = new ArrayList<>(size);
+    List<String> extensions = new ArrayList<>(size);
+    List<String> jsonSchemas = new ArrayList<>(size);
+    List<String> jsons = new ArrayList<>(size);
+    entityFQNs.add(table.getFullyQualifiedName());
+    extensions.add(TABLE_PROFILE_EXTENSION);
+    jsonSchemas.add("tableProfile");
+    jsons.add(JsonUtils.pojoToJson(createTableProfile.getTableProfile()));
+    for (ColumnProfile columnProfile : columnProfiles) {
+      entityFQNs.add(columns.get(columnProfile.getName()).getFullyQualifiedName());
+      extensions.add(TABLE_COLUMN_PROFILE_EXTENSION);
+      jsonSchemas.add("columnProfile");
+      jsons.add(JsonUtils.pojoToJson(columnProfile));
+    }
+    daoCollection.entityExtensionTimeSeriesDao().upsertProfileBatch(entityFQNs, extensions, jsonSchemas, jsons);
     setFieldsInternal(table, Fields.EMPTY_FIELDS);
     return table.withProfile(createTableProfile.getTableProfile());
   }
@@ -517,11 +517,14 @@ public class TableRepository extends EntityRepository<Table> {
       return;
     }
 
-    for (Column column : columns) {
-      column.setTags(addDerivedTags(column.getTags()));
-      if (column.getChildren() != null) {
-        addDerivedColumnTags(column.getChildren());
-      }
+    // Read the tags of all the glossary terms used by the columns at once
+    List<Column> flattened = new ArrayList<>();
+    flattenColumns(columns, flattened);
+    List<TagLabel> columnTags = new ArrayList<>();
+    flattened.forEach(column -> columnTags.addAll(listOrEmpty(column.getTags())));
+    Map<String, List<TagLabel>> derivedTags = getDerivedTags(columnTags);
+    for (Column column : flattened) {
+      column.setTags(addDerivedTags(column.getTags(), derivedTags));
     }
   }
 
@@ -543,12 +546,226 @@ public class TableRepository extends EntityRepository<Table> {
     addDerivedColumnTags(table.getColumns());
   }
 
+  /**
+   * Create or update tables of a database schema with a few batched statements instead of a handful of statements per
+   * table. The schema is looked up once, the tags of all the tables are validated together, and the existing tables are
+   * read with one query per batch of {@link EntityDAO#IN_CLAUSE_BATCH_SIZE} names. New tables, their relationships,
+   * tags and extensions are then inserted with a single batch each. Tables that already exist are updated as with
+   * {@code PUT}, and only those that changed are written.
+   *
+   * <p>Tables that are invalid, repeated in the request or use tags that do not exist are reported as failed and are
+   * not written. Returns the result for each table in the order of the given tables.
+   */
+  @Transaction
+  public List<BulkItemResult> createOrUpdateInBulk(List<Table> tables) throws IOException {
+    List<BulkItemResult> results = new ArrayList<>(tables.size());
+    tables.forEach(table -> results.add(new BulkItemResult().withName(table.getName())));
+    if (tables.isEmpty()) {
+      return results;
+    }
+
+    DatabaseSchema schema = Entity.getEntity(tables.get(0).getDatabaseSchema(), Fields.EMPTY_FIELDS, Include.ALL);
+    for (Table table : tables) {
+      if (!schema.getId().equals(table.getDatabaseSchema().getId())) {
+        throw new IllegalArgumentException(
+            String.format("All the tables must belong to the database schema %s", schema.getFullyQualifiedName()));
+      }
+    }
+
+    // Tables to write by FQN, in the order of the request
+    Map<String, Integer> indexes = new LinkedHashMap<>();
+    for (int i = 0; i < tables.size(); i++) {
+      Table table = tables.get(i);
+      table.setDatabaseSchema(schema.getEntityReference());
+      table.setDatabase(schema.getDatabase());
+      table.setService(schema.getService());
+      table.setServiceType(schema.getServiceType());
+      setFullyQualifiedName(table);
+      setColumnFQN(table.getFullyQualifiedName(), table.getColumns());
+      results.get(i).setFullyQualifiedName(table.getFullyQualifiedName());
+      if (indexes.containsKey(table.getFullyQualifiedName())) {
+        failed(results.get(i), "Table is repeated in the request");
+        continue;
+      }
+      try {
+        validateExtension(table);
+      } catch (IllegalArgumentException e) {
+        failed(results.get(i), e.getMessage());
+        continue;
+      }
+      indexes.put(table.getFullyQualifiedName(), i);
+    }
+    addDerivedTagsInBulk(tables, indexes, results);
+
+    Map<String, Table> originals = dao.findExistingEntitiesByNames(new ArrayList<>(indexes.keySet()), Include.ALL);
+    List<Table> created = new ArrayList<>();
+    List<Table> updatedOriginals = new ArrayList<>();
+    List<Table> updated = new ArrayList<>();
+    for (Entry<String, Integer> entry : indexes.entrySet()) {
+      Table table = tables.get(entry.getValue());
+      Table original = originals.get(entry.getKey());
+      if (original == null) {
+        created.add(table);
+      } else {
+        updatedOriginals.add(original);
+        updated.add(table);
+      }
+    }
+
+    List<ChangeEvent> events = new ArrayList<>();
+    createInBulk(created);
+    for (Table table : created) {
+      events.add(EntityCascade.getChangeEvent(EventType.ENTITY_CREATED, TABLE, table));
+      results.get(indexes.get(table.getFullyQualifiedName())).withId(table.getId()).withStatus(Status.CREATED);
+    }
+
+    // Get all the fields in the original tables that can be updated during PUT operation
+    setFieldsInBulk(updatedOriginals, putFields);
+    for (int i = 0; i < updated.size(); i++) {
+      Table table = updated.get(i);
+      boolean changed = RestUtil.ENTITY_UPDATED.equals(updateInternal(updatedOriginals.get(i), table, true));
+      if (changed) {
+        events.add(EntityCascade.getChangeEvent(EventType.ENTITY_UPDATED, TABLE, table));
+      }
+      results
+          .get(indexes.get(table.getFullyQualifiedName()))
+          .withId(table.getId())
+          .withStatus(changed ? Status.UPDATED : Status.NO_CHANGE);
+    }
+    EntityCascade.writeChangeEvents(daoCollection, events);
+    return results;
+  }
+
+  private static void failed(BulkItemResult result, String message) {
+    result.withStatus(Status.FAILED).withMessage(message);
+  }
+
+  /**
+   * Validate the tags of the tables and their columns, and add the derived tags, with one query per tag source for all
+   * the tables. Tables using tags that do not exist are reported as failed and removed from {@code indexes}.
+   */
+  private void addDerivedTagsInBulk(List<Table> tables, Map<String, Integer> indexes, List<BulkItemResult> results)
+      throws IOException {
+    Map<Integer, List<Column>> columns = new HashMap<>();
+    List<TagLabel> tagLabels = new ArrayList<>();
+    for (int index : indexes.values()) {
+      Table table = tables.get(index);
+      List<Column> flattened = new ArrayList<>();
+      flattenColumns(table.getColumns(), flattened);
+      columns.put(index, flattened);
+      tagLabels.addAll(listOrEmpty(table.getTags()));
+      flattened.forEach(column -> tagLabels.addAll(listOrEmpty(column.getTags())));
+    }
+
+    Map<TagLabel.TagSource, Set<String>> existing = new EnumMap<>(TagLabel.TagSource.class);
+    existing.put(TagLabel.TagSource.TAG, findExistingTags(daoCollection.tagDAO(), TagLabel.TagSource.TAG, tagLabels));
+    existing.put(
+        TagLabel.TagSource.GLOSSARY,
+        findExistingTags(daoCollection.glossaryTermDAO(), TagLabel.TagSource.GLOSSARY, tagLabels));
+    Iterator<Integer> iterator = indexes.values().iterator();
+    while (iterator.hasNext()) {
+      int index = iterator.next();
+      Table table = tables.get(index);
+      List<TagLabel> tableTags = new ArrayList<>(listOrEmpty(table.getTags()));
+      columns.get(index).forEach(column -> tableTags.addAll(listOrEmpty(column.getTags())));
+      Optional<TagLabel> missing =
+          tableTags.stream()
+              .filter(tagLabel -> !existing.get(tagLabel.getSource()).contains(tagLabel.getTagFQN()))
+              .findFirst();
+      if (missing.isPresent()) {
+        String entityType = missing.get().getSource() == TagLabel.TagSource.TAG ? Entity.TAG : Entity.GLOSSARY_TERM;
+        failed(results.get(index), CatalogExceptionMessage.entityNotFound(entityType, missing.get().getTagFQN()));
+        iterator.remove();
+      }
+    }
+
+    Map<String, List<TagLabel>> derivedTags = getDerivedTags(tagLabels);
+    for (int index : indexes.values()) {
+      Table table = tables.get(index);
+      table.setTags(addDerivedTags(table.getTags(), derivedTags));
+      columns.get(index).forEach(column -> column.setTags(addDerivedTags(column.getTags(), derivedTags)));
+    }
+  }
+
+  private static Set<String> findExistingTags(EntityDAO<?> tagDAO, TagLabel.TagSource source, List<TagLabel> tagLabels)
+      throws IOException {
+    List<String> tagFQNs =
+        tagLabels.stream()
+            .filter(tagLabel -> tagLabel.getSource() == source)
+            .map(TagLabel::getTagFQN)
+            .collect(Collectors.toList());
+    return tagDAO.findExistingEntitiesByNames(tagFQNs, Include.NON_DELETED).keySet();
+  }
+
+  /** Insert the new tables, their relationships, tags and extensions with a single batch each */
+  private void createInBulk(List<Table> tables) throws JsonProcessingException {
+    if (tables.isEmpty()) {
+      return;
+    }
+    List<String> jsons = new ArrayList<>(tables.size());
+    List<String> fromIds = new ArrayList<>();
+    List<String> toIds = new ArrayList<>();
+    List<String> fromEntities = new ArrayList<>();
+    List<String> toEntities = new ArrayList<>();
+    List<Integer> relations = new ArrayList<>();
+    Map<String, List<TagLabel>> tagsByTarget = new LinkedHashMap<>();
+    List<String> extensionIds = new ArrayList<>();
+    List<String> extensions = new ArrayList<>();
+    List<String> extensionJsons = new ArrayList<>();
+    for (Table table : tables) {
+      jsons.add(getStoredJson(table));
+
+      // Add relationship from database schema to table, and from owner to table
+      List<EntityReference> from = new ArrayList<>(List.of(table.getDatabaseSchema()));
+      List<Relationship> fromRelations = new ArrayList<>(List.of(Relationship.CONTAINS));
+      if (table.getOwner() != null) {
+        from.add(table.getOwner());
+        fromRelations.add(Relationship.OWNS);
+      }
+      for (int i = 0; i < from.size(); i++) {
+        fromIds.add(from.get(i).getId().toString());
+        toIds.add(table.getId().toString());
+        fromEntities.add(from.get(i).getType());
+        toEntities.add(TABLE);
+        relations.add(fromRelations.get(i).ordinal());
+      }
+
+      tagsByTarget.put(table.getFullyQualifiedName(), table.getTags());
+      tagsByTarget.putAll(getColumnTagsByTarget(table.getColumns()));
+
+      Iterator<Entry<String, JsonNode>> customFields = JsonUtils.valueToTree(table.getExtension()).fields();
+      while (customFields.hasNext()) {
+        Entry<String, JsonNode> entry = customFields.next();
+        extensionIds.add(table.getId().toString());
+        extensions.add(TypeRegistry.getCustomPropertyFQN(entityType, entry.getKey()));
+        extensionJsons.add(JsonUtils.pojoToJson(entry.getValue()));
+      }
+    }
+    dao.insertBatch(dao.getTableName(), jsons);
+    tables.forEach(table -> EntityDAO.invalidateCaches(table.getId()));
+    daoCollection.relationshipDAO().insertBatch(fromIds, toIds, fromEntities, toEntities, relations);
+    applyTags(tagsByTarget);
+    if (!extensionIds.isEmpty()) {
+      daoCollection.entityExtensionDAO().insertBatch(extensionIds, extensions, "customFieldSchema", extensionJsons);
+    }
+  }
+
   private EntityReference getLocation(Table table) throws IOException {
     return getToEntityRef(table.getId(), Relationship.HAS, LOCATION, false);
   }
 
   @Override
   public void storeEntity(Table table, boolean update) throws IOException {
+    if (update) {
+      dao.update(table.getId(), getStoredJson(table));
+    } else {
+      dao.insert(dao.getTableName(), getStoredJson(table));
+      EntityDAO.invalidateCaches(table.getId());
+    }
+  }
+
+  /** JSON of the table as stored in the database, without the fields that are built from relationships */
+  private String getStoredJson(Table table) throws JsonProcessingException {
     // Relationships and fields such as href are derived and not stored as part of json
     EntityReference owner = table.getOwner();
     List<TagLabel> tags = table.getTags();
@@ -562,10 +779,11 @@ public class TableRepository extends EntityRepository<Table> {
     table.setColumns(cloneWithoutTags(columnWithTags));
     table.getColumns().forEach(column -> column.setTags(null));
 
-    store(table.getId(), table, update);
+    String json = JsonUtils.pojoToJson(table);
 
     // Restore the relationships
     table.withOwner(owner).withTags(tags).withColumns(columnWithTags).withService(service);
+    return json;
   }
 
   @Override
@@ -613,20 +831,25 @@ public class TableRepository extends EntityRepository<Table> {
   }
 
   private void applyTags(List<Column> columns) {
-    // Add column level tags by adding tag to column relationship
-    for (Column column : columns) {
-      applyTags(column.getTags(), column.getFullyQualifiedName());
-      if (column.getChildren() != null) {
-        applyTags(column.getChildren());
-      }
-    }
+    applyTags(getColumnTagsByTarget(columns));
+  }
+
+  /** Returns the tags of the columns and their children, by column FQN */
+  private static Map<String, List<TagLabel>> getColumnTagsByTarget(List<Column> columns) {
+    List<Column> flattened = new ArrayList<>();
+    flattenColumns(columns, flattened);
+    Map<String, List<TagLabel>> tagsByTarget = new LinkedHashMap<>();
+    flattened.forEach(column -> tagsByTarget.put(column.getFullyQualifiedName(), column.getTags()));
+    return tagsByTarget;
   }
 
   @Override
   public void applyTags(Table table) {
-    // Add table level tags by adding tag to table relationship
-    super.applyTags(table);
-    applyTags(table.getColumns());
+    // Add table level tags and column level tags in a single batch
+    Map<String, List<TagLabel>> tagsByTarget = new LinkedHashMap<>();
+    tagsByTarget.put(table.getFullyQualifiedName(), table.getTags());
+    tagsByTarget.putAll(getColumnTagsByTarget(table.getColumns()));
+    applyTags(tagsByTarget);
   }
 
   private void getColumnTags(boolean setTags, List<Column> columns) {
@@ -636,6 +859,35 @@ public class TableRepository extends EntityRepository<Table> {
     }
   }
 
+  private void fetchAndSetColumnTags(List<Table> tables, boolean setTags) {
+    List<Column> columns = new ArrayList<>();
+    tables.forEach(table -> flattenColumns(table.getColumns(), columns));
+    if (!setTags) {
+      columns.forEach(c -> c.setTags(null));
+      return;
+    }
+    Map<String, List<TagLabel>> tags =
+        getTagsInBulk(columns.stream().map(Column::getFullyQualifiedName).collect(Collectors.toList()));
+    columns.forEach(c -> c.setTags(tags.getOrDefault(c.getFullyQualifiedName(), new ArrayList<>())));
+  }
+
+  @Override
+  public List<String> getTagTargetFQNs(Table table) {
+    List<Column> columns = new ArrayList<>();
+    flattenColumns(table.getColumns(), columns);
+    List<String> targetFQNs = new ArrayList<>(columns.size() + 1);
+    targetFQNs.add(table.getFullyQualifiedName());
+    columns.forEach(c -> targetFQNs.add(c.getFullyQualifiedName()));
+    return targetFQNs;
+  }
+
+  private static void flattenColumns(List<Column> columns, List<Column> flattened) {
+    for (Column c : listOrEmpty(columns)) {
+      flattened.add(c);
+      flattenColumns(c.getChildren(), flattened);
+    }
+  }
+
   private void getColumnProfile(boolean setProfile, List<Column> columns) throws IOException {
     if (setProfile) {
       for (Column c : listOrEmpty(columns)) {
@@ -980,9 +1232,9 @@ public class TableRepository extends EntityRepository<Table> {
           deleted -> daoCollection.tagUsageDAO().deleteTagsByTarget(deleted.getFullyQualifiedName()));
 
       // Add tags related to newly added columns
-      for (Column added : addedColumns) {
-        applyTags(added.getTags(), added.getFullyQualifiedName());
-      }
+      Map<String, List<TagLabel>> addedTags = new LinkedHashMap<>();
+      addedColumns.forEach(added -> addedTags.put(added.getFullyQualifiedName(), added.getTags()));
+      applyTags(addedTags);
 
       // Carry forward the user generated metadata from existing columns to new columns
       for (Column updated : updatedColumns) {
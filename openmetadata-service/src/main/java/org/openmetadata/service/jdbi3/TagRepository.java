@@ -26,7 +26,9 @@ import org.openmetadata.schema.entity.tags.Tag;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.TagLabel.TagSource;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.EntityReferenceCache;
 import org.openmetadata.service.resources.tags.TagResource;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.util.EntityUtil.Fields;
 import org.openmetadata.service.util.FullyQualifiedName;
 import org.openmetadata.service.util.JsonUtils;
@@ -43,21 +45,19 @@ public class TagRepository extends EntityRepository<Tag> {
    *
    * <p>Replace primary tag name: Prefix = cat1.primaryTag1 and newPrefix = cat1.primaryTag2 replaces the FQN of all the
    * children tags from cat1.primaryTag1.secondaryTag1 to cat2.primaryTag2.secondaryTag1
+   *
+   * <p>The tags and the tag labels using them are updated with a statement per table, in the transaction of the update
+   * that renames the category or the tag.
    */
-  public void updateChildrenTagNames(String prefix, String newPrefix) throws IOException {
-    // Update the fully qualified names of all the primary and secondary tags
-    ListFilter listFilter = new ListFilter(Include.ALL).addQueryParam("parent", prefix);
-    List<String> groupJsons = dao.listAfter(listFilter, 10000, null);
-
-    for (String json : groupJsons) {
-      Tag tag = JsonUtils.readValue(json, Tag.class);
-      String oldFQN = tag.getFullyQualifiedName();
-      String newFQN = oldFQN.replace(prefix, newPrefix);
-      LOG.info("Replacing tag fqn from {} to {}", oldFQN, newFQN);
-      tag.setFullyQualifiedName(oldFQN.replace(prefix, newPrefix));
-      daoCollection.tagDAO().update(tag.getId(), JsonUtils.pojoToJson(tag));
-      updateChildrenTagNames(oldFQN, newFQN);
-    }
+  public void updateChildrenTagNames(String prefix, String newPrefix) {
+    List<String> renamedIds = daoCollection.tagDAO().listIdsByFqnPrefix(prefix);
+    int tags = daoCollection.tagDAO().updateFqnPrefix(prefix, newPrefix);
+    int tagLabels = daoCollection.tagUsageDAO().updateTagPrefix(TagSource.TAG.ordinal(), prefix, newPrefix);
+    LOG.info("Replaced tag fqn prefix {} with {} in {} tags and {} tag labels", prefix, newPrefix, tags, tagLabels);
+    // The renamed tags are not written through the entity DAO that invalidates their cached references
+    renamedIds.forEach(id -> EntityReferenceCache.invalidate(UUID.fromString(id)));
+    // Access decisions on the entities labeled with the renamed tags are made with the tag names
+    CommitCallbacks.afterCompletion(PolicyDecisionCache::invalidateAll);
   }
 
   // Populate the children tags for a given tag
@@ -148,9 +148,9 @@ public class TagRepository extends EntityRepository<Tag> {
 
     public void updateName(Tag original, Tag updated) throws IOException {
       if (!original.getName().equals(updated.getName())) {
-        // Category name changed - update tag names starting from category and all the children tags
-        LOG.info("Tag category name changed from {} to {}", original.getName(), updated.getName());
-        updateChildrenTagNames(original.getName(), updated.getName());
+        // Tag name changed - update the names of all the children tags
+        LOG.info("Tag name changed from {} to {}", original.getName(), updated.getName());
+        updateChildrenTagNames(original.getFullyQualifiedName(), updated.getFullyQualifiedName());
         recordChange("name", original.getName(), updated.getName());
       }
 
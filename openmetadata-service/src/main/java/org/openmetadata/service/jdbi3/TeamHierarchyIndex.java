@@ -0,0 +1,412 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
+
+/**
+ * In-memory closure of the team hierarchy. For every team, it keeps all its ancestors and all its descendants, so
+ * checking if a team is under another team is a single lookup instead of a walk up the parents of the team.
+ *
+ * <p>Only the teams that are not deleted are indexed. Teams without a parent are children of the organization, as
+ * listed by {@link CollectionDAO.TeamDAO#listTeamsUnderOrganization}. A team can have multiple parents, so the closure
+ * keeps the number of paths between an ancestor and a descendant, and a pair is removed only when its last path is
+ * removed.
+ *
+ * <p>The index is loaded when the server starts and is maintained by {@link TeamRepository} once a team that is
+ * created, whose parents or children change, or that is deleted is committed. Teams can also be changed by the other
+ * servers, so the index is reloaded in the background when it is older than {@link #REFRESH_INTERVAL_IN_MILLIS}. The
+ * index being reloaded is served until the reload completes, and it is replaced only when the reloaded hierarchy is
+ * different. A reload that overlaps a change made by this server is done again, as it may have missed the change.
+ */
+@Slf4j
+public class TeamHierarchyIndex {
+  static final long REFRESH_INTERVAL_IN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static volatile TeamHierarchyIndex INSTANCE;
+  private static final int MAX_RELOAD_ATTEMPTS = 3;
+  private static final AtomicBoolean RELOADING = new AtomicBoolean();
+  private static final Executor DEFAULT_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "team-hierarchy-reload");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private static Executor executor = DEFAULT_EXECUTOR;
+  private static CollectionDAO dao;
+
+  private final UUID organizationId;
+  private final String organizationName;
+  private final Map<UUID, String> names = new HashMap<>();
+  private final Map<String, UUID> ids = new HashMap<>();
+  private final Map<UUID, Set<UUID>> parents = new HashMap<>();
+  private final Map<UUID, Set<UUID>> children = new HashMap<>();
+  // Team -> ancestor -> number of paths from the ancestor to the team
+  private final Map<UUID, Map<UUID, Long>> ancestors = new HashMap<>();
+  // Team -> descendant -> number of paths from the team to the descendant
+  private final Map<UUID, Map<UUID, Long>> descendants = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Number of changes made to the index, to find the reloads that overlap a change
+  private final AtomicLong changes = new AtomicLong();
+  volatile long loadedAt = System.currentTimeMillis();
+
+  TeamHierarchyIndex(UUID organizationId, String organizationName) {
+    this.organizationId = organizationId;
+    this.organizationName = organizationName;
+    addTeam(organizationId, organizationName);
+  }
+
+  /** Load the hierarchy of the teams from the database. Expected to be called when the organization is initialized. */
+  public static void initialize(CollectionDAO dao, UUID organizationId, String organizationName) {
+    TeamHierarchyIndex.dao = dao;
+    INSTANCE = load(organizationId, organizationName);
+    LOG.info("Team hierarchy is initialized with {} teams", INSTANCE.size());
+  }
+
+  /** Returns null when the index is not initialized. The index is reloaded in the background when it has expired. */
+  public static TeamHierarchyIndex getInstance() {
+    TeamHierarchyIndex index = INSTANCE;
+    if (index != null
+        && System.currentTimeMillis() - index.loadedAt > REFRESH_INTERVAL_IN_MILLIS
+        && RELOADING.compareAndSet(false, true)) {
+      try {
+        executor.execute(() -> reloadInBackground(index));
+      } catch (RejectedExecutionException e) {
+        RELOADING.set(false);
+        LOG.warn("Failed to schedule the reload of the team hierarchy", e);
+      }
+    }
+    return index;
+  }
+
+  private static void reloadInBackground(TeamHierarchyIndex index) {
+    try {
+      for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+        long changes = index.changes.get();
+        TeamHierarchyIndex loaded = load(index.organizationId, index.organizationName);
+        if (changes == index.changes.get()) {
+          replace(index, loaded);
+          return;
+        }
+      }
+      LOG.warn("Team hierarchy changed during each reload, retrying after {} ms", REFRESH_INTERVAL_IN_MILLIS);
+    } catch (Exception e) {
+      LOG.warn("Failed to reload the team hierarchy, retrying after {} ms", REFRESH_INTERVAL_IN_MILLIS, e);
+    } finally {
+      index.loadedAt = System.currentTimeMillis();
+      RELOADING.set(false);
+    }
+  }
+
+  /** Reload the index now, after the teams are changed in the database other than by {@link TeamRepository} */
+  public static void reload() {
+    TeamHierarchyIndex index = INSTANCE;
+    if (index != null) {
+      replace(index, load(index.organizationId, index.organizationName));
+    }
+  }
+
+  /** Replace the index with the reloaded one when the hierarchy is different */
+  private static void replace(TeamHierarchyIndex index, TeamHierarchyIndex loaded) {
+    if (!index.sameHierarchy(loaded) && INSTANCE == index) {
+      INSTANCE = loaded;
+      // Decisions may have been made with the teams changed by the other servers
+      PolicyDecisionCache.invalidateAll();
+    }
+  }
+
+  /** Use the given executor to reload the index, for tests. Returns the executor used before. */
+  @VisibleForTesting
+  static Executor setExecutor(Executor newExecutor) {
+    Executor previous = executor;
+    executor = newExecutor == null ? DEFAULT_EXECUTOR : newExecutor;
+    return previous;
+  }
+
+  @VisibleForTesting
+  static void reset() {
+    INSTANCE = null;
+  }
+
+  private static TeamHierarchyIndex load(UUID organizationId, String organizationName) {
+    TeamHierarchyIndex index = new TeamHierarchyIndex(organizationId, organizationName);
+    List<Pair<UUID, String>> teams = dao.teamDAO().listTeamNames();
+    List<Pair<UUID, UUID>> edges = new ArrayList<>();
+    for (EntityRelationshipObject edge :
+        dao.relationshipDAO().findAll(Entity.TEAM, Entity.TEAM, Relationship.PARENT_OF.ordinal())) {
+      edges.add(Pair.of(edge.getFromId(), edge.getToId()));
+    }
+    index.load(teams, edges);
+    return index;
+  }
+
+  /** Load the teams and their parent -> child edges. Edges with teams that are not in the list are ignored. */
+  void load(List<Pair<UUID, String>> teams, List<Pair<UUID, UUID>> edges) {
+    write(
+        () -> {
+          teams.forEach(team -> addTeam(team.getLeft(), team.getRight()));
+          Map<UUID, List<UUID>> teamParents = new HashMap<>();
+          for (Pair<UUID, UUID> edge : edges) {
+            teamParents.computeIfAbsent(edge.getRight(), k -> new ArrayList<>()).add(edge.getLeft());
+          }
+          for (Pair<UUID, String> team : teams) {
+            setParentsInternal(team.getLeft(), teamParents.getOrDefault(team.getLeft(), Collections.emptyList()));
+          }
+          return null;
+        });
+  }
+
+  /**
+   * Add the team, or update its name and parents. Parents that are not indexed, such as deleted teams, are ignored.
+   * Returns true if the parents of the team changed.
+   */
+  public boolean putTeam(UUID teamId, String name, Collection<UUID> parentIds) {
+    return write(
+        () -> {
+          String oldName = names.get(teamId);
+          if (oldName != null && !oldName.equals(name)) {
+            ids.remove(oldName);
+          }
+          addTeam(teamId, name);
+          return setParentsInternal(teamId, parentIds);
+        });
+  }
+
+  /** Update the parents of a team that is indexed. Returns true if the parents of the team changed. */
+  public boolean setParents(UUID teamId, Collection<UUID> parentIds) {
+    return write(() -> names.containsKey(teamId) && setParentsInternal(teamId, parentIds));
+  }
+
+  /** Remove the team. Its children that don't have other parents are moved to the organization. */
+  public void removeTeam(UUID teamId) {
+    if (teamId.equals(organizationId)) {
+      return;
+    }
+    write(
+        () -> {
+          if (!names.containsKey(teamId)) {
+            return null;
+          }
+          for (UUID parent : new ArrayList<>(parents.get(teamId))) {
+            removeEdge(parent, teamId);
+          }
+          for (UUID child : new ArrayList<>(children.get(teamId))) {
+            removeEdge(teamId, child);
+            if (parents.get(child).isEmpty()) {
+              addEdge(organizationId, child);
+            }
+          }
+          ids.remove(names.remove(teamId));
+          parents.remove(teamId);
+          children.remove(teamId);
+          ancestors.remove(teamId);
+          descendants.remove(teamId);
+          return null;
+        });
+  }
+
+  public boolean contains(UUID teamId) {
+    return read(() -> names.containsKey(teamId));
+  }
+
+  /** Returns the id of the team with the given name, or null when the team is not indexed */
+  public UUID getTeamId(String name) {
+    return read(() -> ids.get(name));
+  }
+
+  /** Returns the parents of the team, ordered by id */
+  public List<UUID> getParents(UUID teamId) {
+    return read(() -> sorted(parents.get(teamId)));
+  }
+
+  /** Returns the children of the team, ordered by id */
+  public List<UUID> getChildren(UUID teamId) {
+    return read(() -> sorted(children.get(teamId)));
+  }
+
+  /** Returns the ancestors of the team, nearest first */
+  public List<UUID> getAncestors(UUID teamId) {
+    return read(
+        () -> {
+          Set<UUID> visited = new LinkedHashSet<>();
+          Queue<UUID> queue = new ArrayDeque<>(sorted(parents.get(teamId)));
+          while (!queue.isEmpty()) {
+            UUID team = queue.remove();
+            if (visited.add(team)) {
+              queue.addAll(sorted(parents.get(team)));
+            }
+          }
+          return new ArrayList<>(visited);
+        });
+  }
+
+  /** Returns all the teams under the team */
+  public Set<UUID> getDescendants(UUID teamId) {
+    return read(() -> new HashSet<>(descendants.getOrDefault(teamId, Collections.emptyMap()).keySet()));
+  }
+
+  /** Returns true if the team is the given ancestor or is under it */
+  public boolean isSelfOrAncestor(UUID ancestorId, UUID teamId) {
+    return ancestorId.equals(teamId) || isAncestor(ancestorId, teamId);
+  }
+
+  /** Returns true if the team is under the given ancestor */
+  public boolean isAncestor(UUID ancestorId, UUID teamId) {
+    return read(() -> ancestors.getOrDefault(teamId, Collections.emptyMap()).containsKey(ancestorId));
+  }
+
+  public int size() {
+    return read(names::size);
+  }
+
+  /** Returns true if the other index has the same teams with the same names and parents */
+  boolean sameHierarchy(TeamHierarchyIndex other) {
+    return read(() -> other.read(() -> names.equals(other.names) && parents.equals(other.parents)));
+  }
+
+  private void addTeam(UUID teamId, String name) {
+    names.put(teamId, name);
+    ids.put(name, teamId);
+    parents.computeIfAbsent(teamId, k -> new HashSet<>());
+    children.computeIfAbsent(teamId, k -> new HashSet<>());
+    ancestors.computeIfAbsent(teamId, k -> new HashMap<>());
+    descendants.computeIfAbsent(teamId, k -> new HashMap<>());
+  }
+
+  private boolean setParentsInternal(UUID teamId, Collection<UUID> parentIds) {
+    if (teamId.equals(organizationId)) {
+      return false;
+    }
+    // The organization is the parent only of the teams that don't have any other parent
+    Set<UUID> newParents = new HashSet<>();
+    for (UUID parentId : parentIds) {
+      if (!names.containsKey(parentId) || parentId.equals(organizationId)) {
+        continue;
+      }
+      if (parentId.equals(teamId) || ancestors.get(parentId).containsKey(teamId)) {
+        LOG.warn("Ignoring parent {} of team {} that creates a cycle in the team hierarchy", parentId, teamId);
+        continue;
+      }
+      newParents.add(parentId);
+    }
+    if (newParents.isEmpty()) {
+      newParents.add(organizationId);
+    }
+    Set<UUID> oldParents = new HashSet<>(parents.get(teamId));
+    if (oldParents.equals(newParents)) {
+      return false;
+    }
+    for (UUID parent : oldParents) {
+      if (!newParents.contains(parent)) {
+        removeEdge(parent, teamId);
+      }
+    }
+    for (UUID parent : newParents) {
+      if (!oldParents.contains(parent)) {
+        addEdge(parent, teamId);
+      }
+    }
+    return true;
+  }
+
+  private void addEdge(UUID parent, UUID child) {
+    parents.get(child).add(parent);
+    children.get(parent).add(child);
+    updatePaths(parent, child, 1);
+  }
+
+  private void removeEdge(UUID parent, UUID child) {
+    if (parents.get(child).remove(parent)) {
+      children.get(parent).remove(child);
+      updatePaths(parent, child, -1);
+    }
+  }
+
+  /** Add or remove the paths that go through the edge parent -> child, between the ancestors and the descendants */
+  private void updatePaths(UUID parent, UUID child, long sign) {
+    Map<UUID, Long> above = new HashMap<>(ancestors.get(parent));
+    above.put(parent, 1L);
+    Map<UUID, Long> below = new HashMap<>(descendants.get(child));
+    below.put(child, 1L);
+    for (Map.Entry<UUID, Long> ancestor : above.entrySet()) {
+      for (Map.Entry<UUID, Long> descendant : below.entrySet()) {
+        long paths = sign * ancestor.getValue() * descendant.getValue();
+        updateCount(ancestors.get(descendant.getKey()), ancestor.getKey(), paths);
+        updateCount(descendants.get(ancestor.getKey()), descendant.getKey(), paths);
+      }
+    }
+  }
+
+  private static void updateCount(Map<UUID, Long> counts, UUID team, long delta) {
+    // The pair is removed when there are no more paths between the teams
+    counts.merge(team, delta, (count, d) -> count + d == 0 ? null : count + d);
+  }
+
+  private static List<UUID> sorted(Set<UUID> teams) {
+    if (teams == null) {
+      return new ArrayList<>();
+    }
+    // Same order as the relationships listed from the database
+    List<UUID> list = new ArrayList<>(teams);
+    list.sort(Comparator.comparing(UUID::toString));
+    return list;
+  }
+
+  private <T> T read(Supplier<T> supplier) {
+    lock.readLock().lock();
+    try {
+      return supplier.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private <T> T write(Supplier<T> supplier) {
+    lock.writeLock().lock();
+    try {
+      changes.incrementAndGet();
+      return supplier.get();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -36,13 +36,20 @@ import static org.openmetadata.service.exception.CatalogExceptionMessage.invalid
 import static org.openmetadata.service.exception.CatalogExceptionMessage.invalidParentCount;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.schema.api.teams.CreateTeam.TeamType;
@@ -52,14 +59,13 @@ import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.Relationship;
 import org.openmetadata.service.Entity;
-import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
 import org.openmetadata.service.resources.teams.TeamResource;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.security.policyevaluator.SubjectCache;
 import org.openmetadata.service.util.EntityUtil;
 import org.openmetadata.service.util.EntityUtil.Fields;
 import org.openmetadata.service.util.JsonUtils;
-import org.openmetadata.service.util.ResultList;
 
 @Slf4j
 public class TeamRepository extends EntityRepository<Team> {
@@ -133,6 +139,9 @@ public class TeamRepository extends EntityRepository<Team> {
         .withParents(parents)
         .withChildren(children)
         .withPolicies(policies);
+    if (update) {
+      updateHierarchy(team);
+    }
   }
 
   @Override
@@ -157,6 +166,7 @@ public class TeamRepository extends EntityRepository<Team> {
     for (EntityReference policy : listOrEmpty(team.getPolicies())) {
       addRelationship(team.getId(), policy.getId(), TEAM, POLICY, Relationship.HAS);
     }
+    updateHierarchy(team);
   }
 
   @Override
@@ -184,10 +194,113 @@ public class TeamRepository extends EntityRepository<Team> {
       }
     }
     super.cleanup(team);
+    UUID teamId = team.getId();
+    CommitCallbacks.afterCommit(
+        () -> {
+          TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
+          if (hierarchy != null && hierarchy.contains(teamId)) {
+            hierarchy.removeTeam(teamId);
+            PolicyDecisionCache.invalidateAll();
+          }
+        });
     SubjectCache.getInstance().invalidateTeam(team.getId());
   }
 
-  private TeamHierarchy getTeamHierarchy(Team team) {
+  @Override
+  protected void storeDeletedInBulk(List<Team> teams) throws IOException {
+    // Teams are stored one at a time to update the team hierarchy
+    for (Team team : teams) {
+      storeEntity(setFieldsInternal(team, putFields), true);
+    }
+  }
+
+  @Override
+  protected void cleanupInBulk(List<Team> teams) throws IOException {
+    // Teams are cleaned up one at a time to move their children to the organization and update the team hierarchy
+    for (Team team : teams) {
+      cleanup(team);
+    }
+  }
+
+  /**
+   * Update the team hierarchy index from the parent relationships of the team and of its children once they are
+   * committed, so that the index never has the hierarchy of a request that fails.
+   */
+  private void updateHierarchy(Team team) {
+    UUID teamId = team.getId();
+    String name = team.getName();
+    boolean deleted = Boolean.TRUE.equals(team.getDeleted());
+    CommitCallbacks.afterCommit(() -> updateHierarchy(teamId, name, deleted));
+  }
+
+  private void updateHierarchy(UUID teamId, String name, boolean deleted) {
+    TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
+    if (hierarchy == null) {
+      return; // Organization is being initialized
+    }
+    boolean changed = true;
+    if (deleted) {
+      hierarchy.removeTeam(teamId);
+    } else {
+      // Parents are read from the database, as the index has the parents before the change
+      List<UUID> parentIds =
+          findFrom(teamId, TEAM, Relationship.PARENT_OF, TEAM).stream()
+              .map(EntityRelationshipRecord::getId)
+              .collect(Collectors.toList());
+      changed = hierarchy.putTeam(teamId, name, parentIds);
+      if (!teamId.equals(organization.getId())) {
+        // Children that were added or removed from the team
+        Map<UUID, List<UUID>> childParents = new HashMap<>();
+        hierarchy.getChildren(teamId).forEach(child -> childParents.put(child, new ArrayList<>()));
+        findTo(teamId, TEAM, Relationship.PARENT_OF, TEAM)
+            .forEach(child -> childParents.put(child.getId(), new ArrayList<>()));
+        List<String> childIds = childParents.keySet().stream().map(UUID::toString).collect(Collectors.toList());
+        for (List<String> batch : Lists.partition(childIds, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+          daoCollection
+              .relationshipDAO()
+              .findFromBatch(batch, TEAM, Relationship.PARENT_OF.ordinal(), TEAM)
+              .forEach(r -> childParents.get(r.getToId()).add(r.getFromId()));
+        }
+        for (Map.Entry<UUID, List<UUID>> child : childParents.entrySet()) {
+          changed |= hierarchy.setParents(child.getKey(), child.getValue());
+        }
+      }
+    }
+    if (changed) {
+      PolicyDecisionCache.invalidateAll();
+    }
+  }
+
+  /** Returns the ids of all the teams under a team, from the team hierarchy index when the team is indexed */
+  private Set<UUID> getDescendantIds(UUID teamId) {
+    TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
+    if (hierarchy != null && hierarchy.contains(teamId)) {
+      return hierarchy.getDescendants(teamId);
+    }
+    Set<UUID> descendants = new HashSet<>();
+    Queue<UUID> queue = new ArrayDeque<>(List.of(teamId));
+    while (!queue.isEmpty()) {
+      for (EntityRelationshipRecord child : findTo(queue.remove(), TEAM, Relationship.PARENT_OF, TEAM)) {
+        if (descendants.add(child.getId())) {
+          queue.add(child.getId());
+        }
+      }
+    }
+    return descendants;
+  }
+
+  /** Returns the ids of the parents of a team, from the team hierarchy index when the team is indexed */
+  private List<UUID> getParentIds(UUID teamId) {
+    TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
+    if (hierarchy != null && hierarchy.contains(teamId)) {
+      return hierarchy.getParents(teamId);
+    }
+    return findFrom(teamId, TEAM, Relationship.PARENT_OF, TEAM).stream()
+        .map(EntityRelationshipRecord::getId)
+        .collect(Collectors.toList());
+  }
+
+  private static TeamHierarchy getTeamHierarchy(Team team) {
     return new TeamHierarchy()
         .withId(team.getId())
         .withTeamType(team.getTeamType())
@@ -199,93 +312,60 @@ public class TeamRepository extends EntityRepository<Team> {
         .withChildren(null);
   }
 
-  private TeamHierarchy deepCopy(TeamHierarchy team) {
-    TeamHierarchy newTeam =
-        new TeamHierarchy()
-            .withId(team.getId())
-            .withTeamType(team.getTeamType())
-            .withName(team.getName())
-            .withDisplayName(team.getDisplayName())
-            .withHref(team.getHref())
-            .withFullyQualifiedName(team.getFullyQualifiedName())
-            .withIsJoinable(team.getIsJoinable());
-    if (team.getChildren() != null) {
-      List<TeamHierarchy> children = new ArrayList<>();
-      for (TeamHierarchy n : team.getChildren()) {
-        children.add(deepCopy(n));
+  public List<TeamHierarchy> listHierarchy(ListFilter filter, int limit, Boolean isJoinable) throws IOException {
+    // Parents of the teams are looked up in the team hierarchy index instead of being read for each team
+    List<Team> teams = listAfter(null, Fields.EMPTY_FIELDS, filter, limit, null).getData();
+    return buildHierarchy(teams, isJoinable, organization.getId(), this::getParentIds);
+  }
+
+  /**
+   * Build the hierarchy of the joinable teams. Each team is placed under its first parent, up to the teams directly
+   * under the organization. Every team is visited once, and the walk up the parents of a team stops at the first parent
+   * that is already in the hierarchy.
+   */
+  static List<TeamHierarchy> buildHierarchy(
+      List<Team> teams, Boolean isJoinable, UUID organizationId, Function<UUID, List<UUID>> parentIds) {
+    Map<UUID, Team> teamsById = new HashMap<>();
+    teams.forEach(t -> teamsById.put(t.getId(), t));
+    Map<UUID, TeamHierarchy> nodes = new HashMap<>();
+    Map<UUID, TeamHierarchy> roots = new LinkedHashMap<>();
+    for (Team team : teams) {
+      if ((Boolean.TRUE.equals(isJoinable) && !Boolean.TRUE.equals(team.getIsJoinable()))
+          || team.getName().equals(ORGANIZATION_NAME)
+          || nodes.containsKey(team.getId())) {
+        continue;
       }
-      newTeam.withChildren(children);
-    }
-    return newTeam;
-  }
-
-  private TeamHierarchy mergeTrees(TeamHierarchy team1, TeamHierarchy team2) {
-    List<TeamHierarchy> team1Children = team1.getChildren();
-    List<TeamHierarchy> team2Children = team2.getChildren();
-    if (team1Children != null && team2Children != null) {
-      List<TeamHierarchy> toMerge = new ArrayList<>(team1Children);
-      toMerge.retainAll(team2Children);
-
-      for (TeamHierarchy n : toMerge) mergeTrees(n, team2Children.get(team2Children.indexOf(n)));
-    }
-    if (team2Children != null) {
-      List<TeamHierarchy> toAdd = new ArrayList<>(team2Children);
-      if (team1Children != null) {
-        toAdd.removeAll(team1Children);
-      } else {
-        team1.setChildren(new ArrayList<>());
+      Team current = team;
+      TeamHierarchy node = getTeamHierarchy(team);
+      nodes.put(team.getId(), node);
+      while (true) {
+        List<UUID> parents = parentIds.apply(current.getId());
+        if (parents.isEmpty() || parents.get(0).equals(organizationId)) {
+          roots.put(current.getId(), node);
+          break;
+        }
+        Team parent = teamsById.get(parents.get(0));
+        if (parent == null) {
+          throw new IllegalArgumentException(TEAM_HIERARCHY);
+        }
+        TeamHierarchy parentNode = nodes.get(parent.getId());
+        boolean linked = parentNode != null;
+        if (!linked) {
+          parentNode = getTeamHierarchy(parent);
+          nodes.put(parent.getId(), parentNode);
+        }
+        if (parentNode.getChildren() == null) {
+          parentNode.setChildren(new ArrayList<>());
+        }
+        parentNode.getChildren().add(node);
+        if (linked) {
+          break; // Rest of the hierarchy above the parent is already built
+        }
+        current = parent;
+        node = parentNode;
       }
-      for (TeamHierarchy n : toAdd) team1.getChildren().add(deepCopy(n));
     }
-
-    return team1;
-  }
-
-  public List<TeamHierarchy> listHierarchy(ListFilter filter, int limit, Boolean isJoinable) throws IOException {
-    Fields fields = getFields("parents");
-    Map<UUID, TeamHierarchy> map = new HashMap<>();
-    ResultList<Team> resultList = listAfter(null, fields, filter, limit, null);
-    List<Team> allTeams = resultList.getData();
-    List<Team> joinableTeams =
-        allTeams.stream()
-            .filter(Boolean.TRUE.equals(isJoinable) ? Team::getIsJoinable : t -> true)
-            .filter(t -> !t.getName().equals(ORGANIZATION_NAME))
-            .collect(Collectors.toList());
-    // build hierarchy of joinable teams
-    joinableTeams.forEach(
-        team -> {
-          Team currentTeam = team;
-          TeamHierarchy currentHierarchy = getTeamHierarchy(team);
-          while (currentTeam != null
-              && currentTeam.getParents().size() > 0
-              && !currentTeam.getParents().get(0).getName().equals(ORGANIZATION_NAME)) {
-            EntityReference parentRef = currentTeam.getParents().get(0);
-            Team parent =
-                allTeams.stream()
-                    .filter(t -> t.getId().equals(parentRef.getId()))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException(TEAM_HIERARCHY));
-            currentHierarchy = getTeamHierarchy(parent).withChildren(new ArrayList<>(List.of(currentHierarchy)));
-            if (map.containsKey(parent.getId())) {
-              TeamHierarchy parentTeam = map.get(parent.getId());
-              currentHierarchy = mergeTrees(parentTeam, currentHierarchy);
-              currentTeam =
-                  allTeams.stream()
-                      .filter(t -> t.getId().equals(parent.getId()))
-                      .findFirst()
-                      .orElseThrow(() -> new IllegalArgumentException(TEAM_HIERARCHY));
-            } else {
-              currentTeam = parent;
-            }
-          }
-          UUID currentId = currentHierarchy.getId();
-          if (!map.containsKey(currentId)) {
-            map.put(currentId, currentHierarchy);
-          } else {
-            map.put(currentId, mergeTrees(map.get(currentId), currentHierarchy));
-          }
-        });
-    return new ArrayList<>(map.values());
+    return new ArrayList<>(roots.values());
   }
 
   private List<EntityReference> getUsers(Team team) throws IOException {
@@ -293,12 +373,14 @@ public class TeamRepository extends EntityRepository<Team> {
     return EntityUtil.populateEntityReferences(userIds, Entity.USER);
   }
 
-  private Integer getUserCount(UUID teamId) throws IOException {
-    List<EntityRelationshipRecord> userIds = findTo(teamId, TEAM, Relationship.HAS, Entity.USER);
-    int userCount = userIds.size();
-    List<EntityReference> children = getChildren(teamId);
-    for (EntityReference child : children) {
-      userCount += getUserCount(child.getId());
+  private Integer getUserCount(UUID teamId) {
+    // Count the users of the team and of all the teams under it, with a query for each batch of teams
+    List<String> teamIds = new ArrayList<>(List.of(teamId.toString()));
+    getDescendantIds(teamId).forEach(id -> teamIds.add(id.toString()));
+    int userCount = 0;
+    for (List<String> batch : Lists.partition(teamIds, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      userCount +=
+          daoCollection.relationshipDAO().findToCountBatch(batch, TEAM, Relationship.HAS.ordinal(), Entity.USER);
     }
     return userCount;
   }
@@ -420,19 +502,10 @@ public class TeamRepository extends EntityRepository<Team> {
   }
 
   private List<Team> getTeams(List<EntityReference> teamRefs) throws IOException {
-    List<Team> teams = new ArrayList<>();
-    for (EntityReference teamRef : teamRefs) {
-      try {
-        Team team = dao.findEntityById(teamRef.getId());
-        teams.add(team);
-      } catch (EntityNotFoundException ex) {
-        // Team was soft-deleted
-        LOG.debug("Failed to populate team since it might be soft deleted.", ex);
-        // Ensure that the team was soft-deleted otherwise throw an exception
-        dao.findEntityById(teamRef.getId(), Include.DELETED);
-      }
-    }
-    return teams;
+    // Read all the teams, including soft-deleted ones, to ensure they exist and skip the soft-deleted teams
+    return dao.findEntitiesByIds(EntityUtil.toIds(teamRefs), Include.ALL).stream()
+        .filter(team -> !Boolean.TRUE.equals(team.getDeleted()))
+        .collect(Collectors.toList());
   }
 
   // Validate if the team can given type of parents
@@ -490,6 +563,7 @@ public class TeamRepository extends EntityRepository<Team> {
       organization = JsonUtils.readValue(json, Team.class);
       LOG.info("Organization is already initialized");
     }
+    TeamHierarchyIndex.initialize(daoCollection, organization.getId(), organization.getName());
   }
 
   /** Handles entity updated from PUT and POST operation. */
@@ -13,8 +13,6 @@
 
 package org.openmetadata.service.jdbi3;
 
-import static org.openmetadata.service.Entity.FIELD_FOLLOWERS;
-
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -90,7 +88,6 @@ public class TopicRepository extends EntityRepository<Topic> {
   @Override
   public Topic setFields(Topic topic, Fields fields) throws IOException {
     topic.setService(getContainer(topic.getId()));
-    topic.setFollowers(fields.contains(FIELD_FOLLOWERS) ? getFollowers(topic) : null);
     topic.setSampleData(fields.contains("sampleData") ? getSampleData(topic) : null);
     return topic;
   }
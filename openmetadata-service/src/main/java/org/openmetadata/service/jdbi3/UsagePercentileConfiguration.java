@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import javax.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UsagePercentileConfiguration {
+  /** When disabled, percentile ranks are computed from the request thread on each usage report */
+  private boolean enabled = true;
+
+  /** Time to wait after a usage report before computing the percentile ranks of its entity type and date */
+  @Min(1)
+  private long delayInSeconds = 10;
+
+  /** Time given to the scheduler to compute the pending percentile ranks when the application is stopped */
+  @Min(1)
+  private long shutdownTimeoutInSeconds = 30;
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openmetadata.service.jdbi3.CollectionDAO.UsageDAO;
+
+/**
+ * Computes the usage percentile ranks of an entity type on a date after a delay, from a dedicated thread, instead of on
+ * each usage report. The usage reports of an entity type and date received while a computation is waiting are coalesced
+ * into that computation, so that the ranks are computed once for all the usage reported by an ingestion run.
+ */
+@Slf4j
+public class UsagePercentileScheduler {
+  private static UsagePercentileScheduler instance;
+
+  private final UsageDAO dao;
+  private final long delayInSeconds;
+  private final long shutdownTimeoutInSeconds;
+  private final Set<Pair<String, String>> pending = ConcurrentHashMap.newKeySet();
+  private final ScheduledThreadPoolExecutor executor;
+
+  UsagePercentileScheduler(UsagePercentileConfiguration config, UsageDAO dao) {
+    this.dao = dao;
+    this.delayInSeconds = config.getDelayInSeconds();
+    this.shutdownTimeoutInSeconds = config.getShutdownTimeoutInSeconds();
+    this.executor =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, "usage-percentile");
+              thread.setDaemon(true);
+              return thread;
+            });
+    // Pending computations are run by stop() instead of waiting for their delay
+    this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  // Expected to be called only once during application startup
+  public static void initialize(UsagePercentileConfiguration config, UsageDAO dao) {
+    if (config == null || !config.isEnabled()) {
+      LOG.info("Usage percentile scheduler is disabled");
+      return;
+    }
+    if (instance == null) {
+      instance = new UsagePercentileScheduler(config, dao);
+      LOG.info("Usage percentile scheduler is started with delay {} seconds", config.getDelayInSeconds());
+    }
+  }
+
+  /** Returns the scheduler or null when it is not initialized or disabled */
+  public static UsagePercentileScheduler getInstance() {
+    return instance;
+  }
+
+  /** Stop the scheduler after computing the pending percentile ranks */
+  public static void shutdown() throws InterruptedException {
+    if (instance != null) {
+      instance.stop();
+      instance = null;
+    }
+  }
+
+  /** Compute the percentile ranks of the entity type on the date, unless a computation is already waiting */
+  public void schedule(String entityType, String date) {
+    Pair<String, String> key = Pair.of(entityType, date);
+    if (!pending.add(key)) {
+      return;
+    }
+    try {
+      executor.schedule(() -> compute(key), delayInSeconds, TimeUnit.SECONDS);
+    } catch (RejectedExecutionException e) {
+      compute(key); // Scheduler is stopped
+    }
+  }
+
+  void stop() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(shutdownTimeoutInSeconds, TimeUnit.SECONDS)) {
+      LOG.warn("Usage percentile scheduler did not stop in {} seconds", shutdownTimeoutInSeconds);
+      return;
+    }
+    for (Pair<String, String> key : List.copyOf(pending)) {
+      compute(key);
+    }
+    LOG.info("Usage percentile scheduler is stopped");
+  }
+
+  private void compute(Pair<String, String> key) {
+    // Usage reported from now on schedules another computation
+    if (!pending.remove(key)) {
+      return;
+    }
+    try {
+      dao.computePercentile(key.getLeft(), key.getRight());
+    } catch (Exception e) {
+      LOG.error("Failed to compute the usage percentile of {} on {}", key.getLeft(), key.getRight(), e);
+    }
+  }
+}
@@ -20,13 +20,24 @@ import static org.openmetadata.service.Entity.MLMODEL;
 import static org.openmetadata.service.Entity.TABLE;
 import static org.openmetadata.service.util.EntityUtil.fieldUpdated;
 
+import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import javax.ws.rs.core.Response;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.sqlobject.transaction.Transaction;
@@ -35,11 +46,13 @@ import org.openmetadata.schema.entity.data.Chart;
 import org.openmetadata.schema.entity.data.Dashboard;
 import org.openmetadata.schema.entity.data.MlModel;
 import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.BulkUsage;
 import org.openmetadata.schema.type.ChangeDescription;
 import org.openmetadata.schema.type.ChangeEvent;
 import org.openmetadata.schema.type.DailyCount;
 import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.EntityUsage;
+import org.openmetadata.schema.type.EntityUsageCount;
 import org.openmetadata.schema.type.EventType;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.UsageDetails;
@@ -54,6 +67,7 @@ import org.openmetadata.service.util.RestUtil;
 public class UsageRepository {
   private static final String PUT = "createOrUpdate";
   private static final String POST = "createNew";
+  private static final Set<String> SUPPORTED_TYPES = Set.of(TABLE, DASHBOARD, CHART, MLMODEL);
   private final CollectionDAO dao;
 
   public UsageRepository(CollectionDAO dao) {
@@ -102,6 +116,97 @@ public class UsageRepository {
     return addUsage(PUT, entityType, ref.getId().toString(), usage);
   }
 
+  /**
+   * Add the daily usage counts of many entities with a few batched statements. The entities of each type are looked up
+   * with one query per batch of {@link EntityDAO#IN_CLAUSE_BATCH_SIZE} ids or names, the counts reported for the same
+   * entity and date are added up, and the usage of tables is added to their schema and database once per batch. The
+   * rolling counts are then recomputed in one set-based statement per batch of entities, and the percentile ranks are
+   * scheduled for every entity type and date whose rolling counts changed.
+   */
+  @Transaction
+  public void createOrUpdateInBulk(BulkUsage bulkUsage) throws IOException {
+    Map<String, List<EntityUsageCount>> usageByType = new LinkedHashMap<>();
+    for (EntityUsageCount usage : bulkUsage.getUsage()) {
+      if (!SUPPORTED_TYPES.contains(usage.getEntityType())) {
+        throw new IllegalArgumentException(CatalogExceptionMessage.entityTypeNotSupported(usage.getEntityType()));
+      }
+      if (usage.getId() == null && usage.getFullyQualifiedName() == null) {
+        throw new IllegalArgumentException("Usage of " + usage.getEntityType() + " must have an id or a name");
+      }
+      usageByType.computeIfAbsent(usage.getEntityType(), type -> new ArrayList<>()).add(usage);
+    }
+
+    // Daily count by entity type, entity id and date
+    Map<Triple<String, String, String>, Integer> counts = new LinkedHashMap<>();
+    for (Map.Entry<String, List<EntityUsageCount>> entry : usageByType.entrySet()) {
+      String entityType = entry.getKey();
+      List<EntityUsageCount> usages = entry.getValue();
+      List<EntityInterface> entities = getEntities(entityType, usages);
+      for (int i = 0; i < usages.size(); i++) {
+        EntityUsageCount usage = usages.get(i);
+        EntityInterface entity = entities.get(i);
+        counts.merge(Triple.of(entityType, entity.getId().toString(), usage.getDate()), usage.getCount(), Integer::sum);
+        if (entity instanceof Table) {
+          // If table usage was reported, add the usage count to schema and database
+          Table table = (Table) entity;
+          String schemaId = table.getDatabaseSchema().getId().toString();
+          String databaseId = table.getDatabase().getId().toString();
+          counts.merge(Triple.of(Entity.DATABASE_SCHEMA, schemaId, usage.getDate()), usage.getCount(), Integer::sum);
+          counts.merge(Triple.of(Entity.DATABASE, databaseId, usage.getDate()), usage.getCount(), Integer::sum);
+        }
+      }
+    }
+    if (counts.isEmpty()) {
+      return;
+    }
+
+    List<String> dates = new ArrayList<>(counts.size());
+    List<String> ids = new ArrayList<>(counts.size());
+    List<String> entityTypes = new ArrayList<>(counts.size());
+    List<Integer> dailyCounts = new ArrayList<>(counts.size());
+    counts.forEach(
+        (key, count) -> {
+          entityTypes.add(key.getLeft());
+          ids.add(key.getMiddle());
+          dates.add(key.getRight());
+          dailyCounts.add(count);
+        });
+    dao.usageDAO().insertOrUpdateCountBatch(dates, ids, entityTypes, dailyCounts);
+
+    // Dates are in ISO 8601 format and are ordered as strings
+    String fromDate = Collections.min(dates);
+    String toDate = Collections.max(dates);
+    List<String> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+    Set<Pair<String, String>> percentiles = new LinkedHashSet<>();
+    for (List<String> batch : Lists.partition(distinctIds, EntityDAO.IN_CLAUSE_BATCH_SIZE)) {
+      dao.usageDAO().updateRollingCounts(batch, fromDate, toDate);
+      // The rolling counts, and so the percentile ranks, also change on the dates after the reported ones
+      percentiles.addAll(dao.usageDAO().listUsageDates(batch, fromDate, toDate));
+    }
+    percentiles.forEach(percentile -> computePercentileLater(percentile.getLeft(), percentile.getRight()));
+  }
+
+  /** Get the entities for which the usage is reported, in the same order as the usage */
+  private List<EntityInterface> getEntities(String entityType, List<EntityUsageCount> usages) throws IOException {
+    EntityDAO<?> entityDAO = Entity.getEntityRepository(entityType).dao;
+    List<UUID> ids = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    for (EntityUsageCount usage : usages) {
+      if (usage.getId() != null) {
+        ids.add(usage.getId());
+      } else {
+        names.add(usage.getFullyQualifiedName());
+      }
+    }
+    Iterator<? extends EntityInterface> byId = entityDAO.findEntitiesByIds(ids, Include.NON_DELETED).iterator();
+    Iterator<? extends EntityInterface> byName = entityDAO.findEntitiesByNames(names, Include.NON_DELETED).iterator();
+    List<EntityInterface> entities = new ArrayList<>(usages.size());
+    for (EntityUsageCount usage : usages) {
+      entities.add(usage.getId() != null ? byId.next() : byName.next());
+    }
+    return entities;
+  }
+
   @Transaction
   public void computePercentile(String entityType, String date) {
     dao.usageDAO().computePercentile(entityType, date);
@@ -140,7 +245,7 @@ public class UsageRepository {
     dao.usageDAO()
         .insertOrUpdateCount(
             usage.getDate(), table.getDatabase().getId().toString(), Entity.DATABASE, usage.getCount());
-    dao.usageDAO().computePercentile(entityType, usage.getDate());
+    computePercentileLater(entityType, usage.getDate());
 
     ChangeDescription change =
         getChangeDescription(table.getVersion(), updated.getUsageSummary(), table.getUsageSummary());
@@ -188,6 +293,15 @@ public class UsageRepository {
     return new RestUtil.PutResponse<>(Response.Status.CREATED, changeEvent, RestUtil.ENTITY_FIELDS_CHANGED);
   }
 
+  private void computePercentileLater(String entityType, String date) {
+    UsagePercentileScheduler scheduler = UsagePercentileScheduler.getInstance();
+    if (scheduler != null) {
+      scheduler.schedule(entityType, date);
+    } else {
+      dao.usageDAO().computePercentile(entityType, date);
+    }
+  }
+
   private void insertToUsageRepository(String method, String entityId, String entityType, DailyCount usage) {
     if (method.equals(POST)) {
       dao.usageDAO().insert(usage.getDate(), entityId, entityType, usage.getCount());
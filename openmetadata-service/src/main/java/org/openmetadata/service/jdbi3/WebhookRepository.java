@@ -17,7 +17,7 @@ import static org.openmetadata.service.util.EntityUtil.eventFilterMatch;
 import static org.openmetadata.service.util.EntityUtil.failureDetailsMatch;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventProcessor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,9 +30,9 @@ import org.openmetadata.schema.type.Webhook;
 import org.openmetadata.schema.type.Webhook.Status;
 import org.openmetadata.schema.type.WebhookType;
 import org.openmetadata.service.Entity;
-import org.openmetadata.service.events.EventPubSub;
-import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.events.EventOutbox;
 import org.openmetadata.service.events.MSTeamsWebhookPublisher;
+import org.openmetadata.service.events.OutboxEventProcessor;
 import org.openmetadata.service.events.WebhookPublisher;
 import org.openmetadata.service.resources.events.WebhookResource;
 import org.openmetadata.service.slack.SlackWebhookEventPublisher;
@@ -67,6 +67,14 @@ public class WebhookRepository extends EntityRepository<Webhook> {
     // No relationship to store
   }
 
+  @Override
+  protected void cleanup(Webhook webhook) throws IOException {
+    super.cleanup(webhook);
+    // The cursor and the lease of the webhook in the change event outbox
+    daoCollection.entityExtensionTimeSeriesDao().delete(webhook.getName(), OutboxEventProcessor.CURSOR_EXTENSION);
+    daoCollection.eventOutboxLeaseDAO().delete(webhook.getName());
+  }
+
   @Override
   public void restorePatchAttributes(Webhook original, Webhook updated) {
     updated.withId(original.getId()).withName(original.getName());
@@ -95,7 +103,7 @@ public class WebhookRepository extends EntityRepository<Webhook> {
     } else {
       publisher = new WebhookPublisher(webhook, daoCollection);
     }
-    BatchEventProcessor<ChangeEventHolder> processor = EventPubSub.addEventHandler(publisher);
+    EventProcessor processor = EventOutbox.addEventPublisher(webhook.getName(), publisher);
     publisher.setProcessor(processor);
     webhookPublisherMap.put(webhook.getId(), publisher);
     LOG.info("Webhook publisher subscription started for {}", webhook.getName());
@@ -117,7 +125,7 @@ public class WebhookRepository extends EntityRepository<Webhook> {
       previousPublisher.updateWebhook(webhook);
       if (status != Status.ACTIVE && status != Status.AWAITING_RETRY) {
         // Restart the previously stopped publisher (in states notStarted, error, retryLimitReached)
-        BatchEventProcessor<ChangeEventHolder> processor = EventPubSub.addEventHandler(previousPublisher);
+        EventProcessor processor = EventOutbox.addEventPublisher(webhook.getName(), previousPublisher);
         previousPublisher.setProcessor(processor);
         LOG.info("Webhook publisher restarted for {}", webhook.getName());
       }
@@ -130,9 +138,10 @@ public class WebhookRepository extends EntityRepository<Webhook> {
   public void deleteWebhookPublisher(UUID id) throws InterruptedException {
     WebhookPublisher publisher = webhookPublisherMap.remove(id);
     if (publisher != null) {
+      publisher.stopRetries(); // Discard the change events waiting for a retry
       publisher.getProcessor().halt();
       publisher.awaitShutdown();
-      EventPubSub.removeProcessor(publisher.getProcessor());
+      EventOutbox.removeProcessor(publisher.getProcessor());
       LOG.info("Webhook publisher deleted for {}", publisher.getWebhook().getName());
     }
   }
@@ -149,6 +158,7 @@ public class WebhookRepository extends EntityRepository<Webhook> {
       recordChange("endPoint", original.getEndpoint(), updated.getEndpoint());
       recordChange("batchSize", original.getBatchSize(), updated.getBatchSize());
       recordChange("timeout", original.getTimeout(), updated.getTimeout());
+      recordChange("maxInFlightRequests", original.getMaxInFlightRequests(), updated.getMaxInFlightRequests());
       updateEventFilters();
       if (fieldsChanged()) {
         // If updating the other fields, opportunistically use it to capture failure details
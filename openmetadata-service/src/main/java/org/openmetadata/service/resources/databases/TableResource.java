@@ -13,6 +13,8 @@
 
 package org.openmetadata.service.resources.databases;
 
+import static org.openmetadata.service.util.EntityUtil.createOrUpdateOperation;
+
 import io.swagger.annotations.Api;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.Operation;
@@ -24,7 +26,10 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import javax.json.JsonPatch;
 import javax.validation.Valid;
@@ -47,15 +52,19 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
+import org.openmetadata.schema.api.data.BulkCreateTable;
 import org.openmetadata.schema.api.data.CreateTable;
 import org.openmetadata.schema.api.data.CreateTableProfile;
 import org.openmetadata.schema.api.tests.CreateCustomMetric;
 import org.openmetadata.schema.entity.data.Table;
 import org.openmetadata.schema.tests.CustomMetric;
+import org.openmetadata.schema.type.BulkItemResult;
+import org.openmetadata.schema.type.BulkResponse;
 import org.openmetadata.schema.type.ChangeEvent;
 import org.openmetadata.schema.type.ColumnProfile;
 import org.openmetadata.schema.type.DataModel;
 import org.openmetadata.schema.type.EntityHistory;
+import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.MetadataOperation;
 import org.openmetadata.schema.type.SQLQuery;
@@ -64,14 +73,18 @@ import org.openmetadata.schema.type.TableJoins;
 import org.openmetadata.schema.type.TableProfile;
 import org.openmetadata.schema.type.TableProfilerConfig;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.jdbi3.CollectionDAO;
 import org.openmetadata.service.jdbi3.ListFilter;
 import org.openmetadata.service.jdbi3.TableRepository;
 import org.openmetadata.service.resources.Collection;
 import org.openmetadata.service.resources.EntityResource;
+import org.openmetadata.service.security.AuthorizationException;
 import org.openmetadata.service.security.Authorizer;
 import org.openmetadata.service.security.policyevaluator.OperationContext;
+import org.openmetadata.service.security.policyevaluator.ResourceContext;
 import org.openmetadata.service.util.EntityUtil.Fields;
+import org.openmetadata.service.util.FullyQualifiedName;
 import org.openmetadata.service.util.ResultList;
 
 @Path("/v1/tables")
@@ -353,6 +366,78 @@ public class TableResource extends EntityResource<Table, TableRepository> {
     return createOrUpdate(uriInfo, securityContext, table);
   }
 
+  @PUT
+  @Path("/bulk")
+  @Operation(
+      operationId = "bulkCreateOrUpdateTables",
+      summary = "Create or update tables in bulk",
+      tags = "tables",
+      description =
+          "Create or update many tables of the same database schema in a single request. Tables that do not exist are "
+              + "created and the others are updated. The result of each table is returned in the order of the request. "
+              + "Invalid tables, and tables the user is not allowed to create or update, are reported as failed "
+              + "without failing the other tables.",
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Result of each table",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Bad request"),
+        @ApiResponse(responseCode = "404", description = "Database schema is not found")
+      })
+  public BulkResponse bulkCreateOrUpdate(
+      @Context UriInfo uriInfo, @Context SecurityContext securityContext, @Valid BulkCreateTable bulkCreate)
+      throws IOException {
+    String user = securityContext.getUserPrincipal().getName();
+    List<CreateTable> creates = bulkCreate.getTables();
+    BulkItemResult[] results = new BulkItemResult[creates.size()];
+    List<Table> tables = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    Map<UUID, String> schemaFQNs = new HashMap<>();
+    for (int i = 0; i < creates.size(); i++) {
+      try {
+        Table table = getTable(creates.get(i), user);
+        authorizeInBulk(securityContext, table, schemaFQNs);
+        tables.add(table);
+        positions.add(i);
+      } catch (IllegalArgumentException | EntityNotFoundException | AuthorizationException e) {
+        results[i] =
+            new BulkItemResult()
+                .withName(creates.get(i).getName())
+                .withStatus(BulkItemResult.Status.FAILED)
+                .withMessage(e.getMessage());
+      }
+    }
+    List<BulkItemResult> tableResults = dao.createOrUpdateInBulk(tables);
+    for (int i = 0; i < positions.size(); i++) {
+      results[positions.get(i)] = tableResults.get(i);
+    }
+    long failed = Arrays.stream(results).filter(r -> r.getStatus() == BulkItemResult.Status.FAILED).count();
+    return new BulkResponse()
+        .withNumberOfRowsProcessed(results.length)
+        .withNumberOfRowsFailed((int) failed)
+        .withResults(Arrays.asList(results));
+  }
+
+  /**
+   * Authorize creating or updating a table of a bulk request, as a single create or update of the table is authorized.
+   * The FQN of the table is built from its database schema, which is looked up once for all the tables of the schema.
+   */
+  private void authorizeInBulk(SecurityContext securityContext, Table table, Map<UUID, String> schemaFQNs)
+      throws IOException {
+    EntityReference schemaReference = table.getDatabaseSchema();
+    String schemaFQN = schemaFQNs.get(schemaReference.getId());
+    if (schemaFQN == null) {
+      schemaFQN =
+          Entity.getEntityReferenceById(Entity.DATABASE_SCHEMA, schemaReference.getId(), Include.ALL)
+              .getFullyQualifiedName();
+      schemaFQNs.put(schemaReference.getId(), schemaFQN);
+    }
+    ResourceContext resourceContext = getResourceContextByName(FullyQualifiedName.add(schemaFQN, table.getName()));
+    OperationContext operationContext = new OperationContext(entityType, createOrUpdateOperation(resourceContext));
+    authorizer.authorize(securityContext, operationContext, resourceContext);
+  }
+
   @PATCH
   @Path("/{id}")
   @Operation(
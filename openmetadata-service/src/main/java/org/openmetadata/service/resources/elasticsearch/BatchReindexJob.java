@@ -0,0 +1,342 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.elasticsearch;
+
+import static org.openmetadata.service.Entity.TABLE;
+import static org.openmetadata.service.Entity.TEAM;
+import static org.openmetadata.service.resources.elasticsearch.BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH;
+import static org.openmetadata.service.resources.elasticsearch.BuildSearchIndexResource.ELASTIC_SEARCH_EXTENSION;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.api.CreateEventPublisherJob;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.settings.EntityProgress;
+import org.openmetadata.schema.settings.EventPublisherJob;
+import org.openmetadata.schema.settings.FailureDetails;
+import org.openmetadata.schema.settings.Stats;
+import org.openmetadata.schema.type.Include;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.elasticsearch.ElasticSearchIndexDefinition;
+import org.openmetadata.service.elasticsearch.ElasticSearchIndexDefinition.ElasticSearchIndexType;
+import org.openmetadata.service.elasticsearch.ElasticSearchIndexFactory;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.EntityRepository;
+import org.openmetadata.service.jdbi3.ListFilter;
+import org.openmetadata.service.socket.WebSocketManager;
+import org.openmetadata.service.util.EntityUtil;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.ResultList;
+
+/**
+ * Reindexes entity types into ElasticSearch in batch mode. Entity types are reindexed in parallel by a pool of workers.
+ * Each worker pages through its entity type with the keyset cursor of {@link EntityRepository#listAfter}, sends each
+ * page with a single bulk request and checkpoints the cursor once the bulk request is applied. The checkpoints are
+ * stored with the batch job status, so a job interrupted by a restart resumes from the last page indexed for each
+ * entity type.
+ */
+@Slf4j
+public class BatchReindexJob implements Runnable {
+  /** Fields that are excluded from the search indexes and are not fetched when reindexing */
+  private static final List<String> NON_INDEXED_FIELDS =
+      List.of("owns", "joins", "sampleData", "profile", "tableProfile", "tableQueries", "customMetrics");
+
+  private final CollectionDAO dao;
+  private final RestHighLevelClient client;
+  private final ElasticSearchIndexDefinition indexDefinition;
+  @Getter private final EventPublisherJob job;
+  private final boolean recreateIndex;
+  private final UUID startedBy;
+  private long lastUpdateTime;
+
+  private BatchReindexJob(
+      CollectionDAO dao,
+      RestHighLevelClient client,
+      ElasticSearchIndexDefinition indexDefinition,
+      EventPublisherJob job,
+      boolean recreateIndex,
+      UUID startedBy) {
+    this.dao = dao;
+    this.client = client;
+    this.indexDefinition = indexDefinition;
+    this.job = job;
+    this.recreateIndex = recreateIndex;
+    this.startedBy = startedBy;
+    this.lastUpdateTime = job.getTimestamp();
+  }
+
+  /** Start a new batch job for the entity types in the request, discarding the checkpoints of the previous job */
+  public static BatchReindexJob create(
+      CollectionDAO dao,
+      RestHighLevelClient client,
+      ElasticSearchIndexDefinition indexDefinition,
+      CreateEventPublisherJob createRequest,
+      UUID startedBy)
+      throws IOException {
+    EventPublisherJob job = getBatchJob(dao);
+    List<EntityProgress> entityProgress =
+        createRequest.getEntities().stream()
+            .map(entityType -> new EntityProgress().withEntityType(entityType).withStats(newStats()))
+            .collect(Collectors.toList());
+    job.withStatus(EventPublisherJob.Status.STARTING)
+        .withStats(newStats())
+        .withEntities(createRequest.getEntities())
+        .withBatchSize(createRequest.getBatchSize())
+        .withWorkers(createRequest.getWorkers())
+        .withEntityProgress(entityProgress)
+        .withFailureDetails(null)
+        .withStartTime(System.currentTimeMillis())
+        .withEndTime(null);
+    BatchReindexJob reindexJob =
+        new BatchReindexJob(
+            dao, client, indexDefinition, job, Boolean.TRUE.equals(createRequest.getRecreateIndex()), startedBy);
+    reindexJob.updateJob();
+    return reindexJob;
+  }
+
+  /** Returns the batch job interrupted by a restart, or null when there is no such job */
+  public static BatchReindexJob resume(
+      CollectionDAO dao, RestHighLevelClient client, ElasticSearchIndexDefinition indexDefinition) throws IOException {
+    EventPublisherJob job = getBatchJob(dao);
+    if (!isResumable(job)) {
+      return null;
+    }
+    // Indexes are never recreated on resume as that would drop the entities already indexed
+    return new BatchReindexJob(dao, client, indexDefinition, job, false, null);
+  }
+
+  /** A batch job is resumable when it was running and has entity types that are not completely indexed */
+  public static boolean isResumable(EventPublisherJob job) {
+    return job != null
+        && job.getStatus() != EventPublisherJob.Status.IDLE
+        && job.getStatus() != EventPublisherJob.Status.COMPLETED
+        && job.getEntityProgress().stream().anyMatch(progress -> !Boolean.TRUE.equals(progress.getCompleted()));
+  }
+
+  @Override
+  public void run() {
+    List<EntityProgress> pending =
+        job.getEntityProgress().stream()
+            .filter(progress -> !Boolean.TRUE.equals(progress.getCompleted()))
+            .collect(Collectors.toList());
+    int workers = Math.max(1, Math.min(Objects.requireNonNullElse(job.getWorkers(), 1), pending.size()));
+    LOG.info("Reindexing {} entity types with {} workers", pending.size(), workers);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder().setNameFormat("es-reindex-%d").build());
+    pending.forEach(progress -> executor.submit(() -> reindexEntityType(progress)));
+    executor.shutdown();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+      return; // The job is left running and is resumed on restart
+    }
+    finish();
+  }
+
+  private void reindexEntityType(EntityProgress progress) {
+    String entityType = progress.getEntityType();
+    try {
+      ElasticSearchIndexType indexType = indexDefinition.getIndexMappingByEntityType(entityType);
+      if (recreateIndex) {
+        indexDefinition.deleteIndex(indexType);
+        indexDefinition.createIndex(indexType);
+      }
+      EntityRepository<EntityInterface> entityRepository = Entity.getEntityRepository(entityType);
+      EntityUtil.Fields fields = getFields(entityType, entityRepository);
+      long start = System.nanoTime();
+      int processed = 0;
+      String after = progress.getAfter();
+      do {
+        ResultList<EntityInterface> result =
+            entityRepository.listAfter(null, fields, new ListFilter(Include.ALL), job.getBatchSize(), after);
+        BulkRequest bulkRequest = new BulkRequest();
+        int failed = 0;
+        FailureDetails failureDetails = null;
+        for (EntityInterface entity : result.getData()) {
+          UpdateRequest request = getUpdateRequest(indexType, entityType, entity);
+          if (request != null) {
+            bulkRequest.add(request);
+          } else {
+            failed++;
+          }
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+          // Failure to send the bulk request stops the entity type without moving its checkpoint
+          BulkResponse response = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+          for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+              BulkItemResponse.Failure failure = item.getFailure();
+              failureDetails =
+                  new FailureDetails()
+                      .withContext(String.format("Entities Info : \n ID : [%s] ", failure.getId()))
+                      .withLastFailedReason(
+                          String.format(
+                              "Index Type: [%s], Reason: [%s] \n Trace : [%s]",
+                              failure.getIndex(),
+                              failure.getMessage(),
+                              ExceptionUtils.getStackTrace(failure.getCause())));
+              failed++;
+            }
+          }
+        }
+        processed += result.getData().size();
+        after = result.getPaging().getAfter();
+        checkpoint(
+            progress,
+            after,
+            result.getPaging().getTotal(),
+            result.getData().size() - failed,
+            failed,
+            processed * 1e9 / Math.max(1, System.nanoTime() - start),
+            failureDetails);
+      } while (after != null);
+    } catch (Exception ex) {
+      LOG.error("Failed in reindexing entities of type : {}, Reason : ", entityType, ex);
+      FailureDetails failureDetails =
+          new FailureDetails()
+              .withContext(String.format("%s:Failure in fetching Data", entityType))
+              .withLastFailedReason(
+                  String.format("Failed in listing all Entities \n Reason : %s", ExceptionUtils.getStackTrace(ex)));
+      checkpoint(progress, progress.getAfter(), null, 0, 0, progress.getRecordsPerSecond(), failureDetails);
+    }
+  }
+
+  /**
+   * Record the progress of an entity type after a page is indexed and persist the checkpoint. Workers share the job
+   * record, so the updates are serialized.
+   */
+  private synchronized void checkpoint(
+      EntityProgress progress,
+      String after,
+      Integer total,
+      int success,
+      int failed,
+      double recordsPerSecond,
+      FailureDetails failureDetails) {
+    Stats stats = progress.getStats();
+    if (total != null) {
+      stats.setTotal(total);
+      progress.setAfter(after);
+      progress.setCompleted(after == null);
+    }
+    stats.setSuccess(stats.getSuccess() + success);
+    stats.setFailed(stats.getFailed() + failed);
+    progress.setRecordsPerSecond(recordsPerSecond);
+
+    job.setStats(
+        new Stats()
+            .withTotal(sum(Stats::getTotal))
+            .withSuccess(sum(Stats::getSuccess))
+            .withFailed(sum(Stats::getFailed)));
+    if (failureDetails != null) {
+      job.setFailureDetails(failureDetails.withLastFailedAt(System.currentTimeMillis()));
+      job.setStatus(EventPublisherJob.Status.ACTIVEWITHERROR);
+    } else if (job.getStatus() == EventPublisherJob.Status.STARTING) {
+      job.setStatus(EventPublisherJob.Status.ACTIVE);
+    }
+    updateJob();
+  }
+
+  private synchronized void finish() {
+    boolean completed =
+        job.getEntityProgress().stream().allMatch(progress -> Boolean.TRUE.equals(progress.getCompleted()));
+    // Entity types that could not be completed are retried when the server restarts
+    job.setStatus(completed ? EventPublisherJob.Status.IDLE : EventPublisherJob.Status.ACTIVEWITHERROR);
+    job.setEndTime(System.currentTimeMillis());
+    updateJob();
+    LOG.info("Reindexing finished with status {} and stats {}", job.getStatus(), job.getStats());
+  }
+
+  private void updateJob() {
+    try {
+      long updateTime = Math.max(System.currentTimeMillis(), lastUpdateTime + 1);
+      job.setTimestamp(updateTime);
+      dao.entityExtensionTimeSeriesDao()
+          .update(ELASTIC_SEARCH_ENTITY_FQN_BATCH, ELASTIC_SEARCH_EXTENSION, JsonUtils.pojoToJson(job), lastUpdateTime);
+      lastUpdateTime = updateTime;
+      if (startedBy != null && WebSocketManager.getInstance() != null) {
+        WebSocketManager.getInstance()
+            .sendToOne(startedBy, WebSocketManager.JOB_STATUS_BROADCAST_CHANNEL, JsonUtils.pojoToJson(job));
+      }
+    } catch (Exception e) {
+      LOG.error("Failed to Update Elastic Search Job Info", e);
+    }
+  }
+
+  private int sum(ToIntFunction<Stats> getter) {
+    return job.getEntityProgress().stream().mapToInt(progress -> getter.applyAsInt(progress.getStats())).sum();
+  }
+
+  private static EntityUtil.Fields getFields(String entityType, EntityRepository<EntityInterface> entityRepository) {
+    List<String> allowedFields = entityRepository.getAllowedFields();
+    if (entityType.equals(TEAM)) {
+      // just name and display name are needed
+      return new EntityUtil.Fields(allowedFields, "name,displayName");
+    }
+    List<String> fields = new ArrayList<>(allowedFields);
+    fields.removeAll(NON_INDEXED_FIELDS);
+    return new EntityUtil.Fields(allowedFields, String.join(",", fields));
+  }
+
+  private static UpdateRequest getUpdateRequest(
+      ElasticSearchIndexType indexType, String entityType, EntityInterface entity) {
+    try {
+      if (entityType.equals(TABLE) && ((Table) entity).getColumns() != null) {
+        ((Table) entity).getColumns().forEach(column -> column.setProfile(null));
+      }
+      UpdateRequest updateRequest = new UpdateRequest(indexType.indexName, entity.getId().toString());
+      updateRequest.doc(
+          JsonUtils.pojoToJson(
+              Objects.requireNonNull(ElasticSearchIndexFactory.buildIndex(entityType, entity)).buildESDoc()),
+          XContentType.JSON);
+      updateRequest.docAsUpsert(true);
+      return updateRequest;
+    } catch (Exception ex) {
+      LOG.error("Failed in creating update Request for indexType : {}, entityType: {}", indexType, entityType, ex);
+    }
+    return null;
+  }
+
+  private static EventPublisherJob getBatchJob(CollectionDAO dao) throws IOException {
+    String json =
+        dao.entityExtensionTimeSeriesDao().getExtension(ELASTIC_SEARCH_ENTITY_FQN_BATCH, ELASTIC_SEARCH_EXTENSION);
+    return json == null ? null : JsonUtils.readValue(json, EventPublisherJob.class);
+  }
+
+  private static Stats newStats() {
+    return new Stats().withTotal(0).withSuccess(0).withFailed(0);
+  }
+}
@@ -1,7 +1,6 @@
 package org.openmetadata.service.resources.elasticsearch;
 
 import static org.openmetadata.service.Entity.TABLE;
-import static org.openmetadata.service.Entity.TEAM;
 
 import io.swagger.annotations.Api;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,7 +16,6 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiConsumer;
 import javax.validation.Valid;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -31,16 +29,9 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.exception.ExceptionUtils;
-import org.elasticsearch.action.ActionListener;
-import org.elasticsearch.action.bulk.BackoffPolicy;
-import org.elasticsearch.action.bulk.BulkProcessor;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.openmetadata.schema.EntityInterface;
 import org.openmetadata.schema.api.CreateEventPublisherJob;
@@ -49,7 +40,6 @@ import org.openmetadata.schema.entity.data.Table;
 import org.openmetadata.schema.entity.teams.User;
 import org.openmetadata.schema.settings.EventPublisherJob;
 import org.openmetadata.schema.settings.FailureDetails;
-import org.openmetadata.schema.settings.Stats;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.service.Entity;
 import org.openmetadata.service.OpenMetadataApplicationConfig;
@@ -82,6 +72,7 @@ public class BuildSearchIndexResource {
   private final Authorizer authorizer;
   private final ExecutorService threadScheduler;
   private final UserRepository userRepository;
+  private BatchReindexJob batchJob;
 
   public BuildSearchIndexResource(CollectionDAO dao, Authorizer authorizer) {
     this.dao = dao;
@@ -99,17 +90,6 @@ public class BuildSearchIndexResource {
     }
   }
 
-  private BulkProcessor getBulkProcessor(BulkProcessorListener listener, int bulkSize, int flushIntervalInSeconds) {
-    BiConsumer<BulkRequest, ActionListener<BulkResponse>> bulkConsumer =
-        (request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener);
-    BulkProcessor.Builder builder = BulkProcessor.builder(bulkConsumer, listener, "es-reindex");
-    builder.setBulkActions(bulkSize);
-    builder.setConcurrentRequests(2);
-    builder.setFlushInterval(TimeValue.timeValueSeconds(flushIntervalInSeconds));
-    builder.setBackoffPolicy(BackoffPolicy.constantBackoff(TimeValue.timeValueSeconds(1L), 3));
-    return builder.build();
-  }
-
   @POST
   @Path("/reindex")
   @Operation(
@@ -129,7 +109,7 @@ public class BuildSearchIndexResource {
     User user =
         userRepository.getByName(null, securityContext.getUserPrincipal().getName(), userRepository.getFields("id"));
     if (createRequest.getRunMode() == RunMode.BATCH) {
-      return startReindexingBatchMode(uriInfo, user.getId(), createRequest);
+      return startReindexingBatchMode(user.getId(), createRequest);
     } else {
       return startReindexingStreamMode(uriInfo, user.getId(), createRequest);
     }
@@ -177,18 +157,43 @@ public class BuildSearchIndexResource {
     return Response.status(Response.Status.OK).entity("Reindexing Started").build();
   }
 
-  private synchronized Response startReindexingBatchMode(
-      UriInfo uriInfo, UUID startedBy, CreateEventPublisherJob createRequest) {
-    // create a new Job
+  private synchronized Response startReindexingBatchMode(UUID startedBy, CreateEventPublisherJob createRequest)
+      throws IOException {
+    if (batchJob != null) {
+      return Response.status(Response.Status.CONFLICT).entity("Reindexing is already running").build();
+    }
+    submitBatchJob(BatchReindexJob.create(dao, client, elasticSearchIndexDefinition, createRequest, startedBy));
+    return Response.status(Response.Status.OK).entity("Reindexing Started").build();
+  }
+
+  /** Resume the batch job interrupted by a restart. Called once all the entity repositories are registered. */
+  public synchronized void resumeBatchJob() {
+    if (client == null || batchJob != null) {
+      return;
+    }
+    try {
+      BatchReindexJob job = BatchReindexJob.resume(dao, client, elasticSearchIndexDefinition);
+      if (job != null) {
+        LOG.info("Resuming reindexing of entities {}", job.getJob().getEntities());
+        submitBatchJob(job);
+      }
+    } catch (IOException e) {
+      LOG.error("Failed to resume reindexing", e);
+    }
+  }
+
+  private void submitBatchJob(BatchReindexJob job) {
+    batchJob = job;
     threadScheduler.submit(
         () -> {
           try {
-            this.submitBatchJob(uriInfo, startedBy, createRequest);
-          } catch (IOException e) {
-            LOG.error("Reindexing Batch Job error", e);
+            job.run();
+          } finally {
+            synchronized (this) {
+              batchJob = null;
+            }
           }
         });
-    return Response.status(Response.Status.OK).entity("Reindexing Started").build();
   }
 
   private synchronized void submitStreamJob(UriInfo uriInfo, UUID startedBy, CreateEventPublisherJob createRequest) {
@@ -222,91 +227,6 @@ public class BuildSearchIndexResource {
     }
   }
 
-  private synchronized void submitBatchJob(UriInfo uriInfo, UUID startedBy, CreateEventPublisherJob createRequest)
-      throws IOException {
-    long updateTime = Date.from(LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant()).getTime();
-    String recordString =
-        dao.entityExtensionTimeSeriesDao().getExtension(ELASTIC_SEARCH_ENTITY_FQN_BATCH, ELASTIC_SEARCH_EXTENSION);
-    EventPublisherJob lastRecord = JsonUtils.readValue(recordString, EventPublisherJob.class);
-    long originalLastUpdate = lastRecord.getTimestamp();
-    lastRecord.setStatus(EventPublisherJob.Status.STARTING);
-    lastRecord.setStats(new Stats().withFailed(0).withTotal(0).withSuccess(0));
-    lastRecord.setTimestamp(updateTime);
-    lastRecord.setEntities(createRequest.getEntities());
-    dao.entityExtensionTimeSeriesDao()
-        .update(
-            ELASTIC_SEARCH_ENTITY_FQN_BATCH,
-            ELASTIC_SEARCH_EXTENSION,
-            JsonUtils.pojoToJson(lastRecord),
-            originalLastUpdate);
-
-    // Update Listener for only Batch
-    BulkProcessorListener bulkProcessorListener = new BulkProcessorListener(dao, startedBy);
-    BulkProcessor processor =
-        getBulkProcessor(bulkProcessorListener, createRequest.getBatchSize(), createRequest.getFlushIntervalInSec());
-
-    for (String entityName : createRequest.getEntities()) {
-      try {
-        updateEntityBatch(processor, bulkProcessorListener, uriInfo, entityName, createRequest);
-      } catch (Exception ex) {
-        LOG.error("Reindexing intermittent failure for entityType : {}", entityName, ex);
-      }
-    }
-  }
-
-  private synchronized void updateEntityBatch(
-      BulkProcessor processor,
-      BulkProcessorListener listener,
-      UriInfo uriInfo,
-      String entityType,
-      CreateEventPublisherJob createRequest) {
-    listener.allowTotalRequestUpdate();
-
-    ElasticSearchIndexDefinition.ElasticSearchIndexType indexType =
-        elasticSearchIndexDefinition.getIndexMappingByEntityType(entityType);
-
-    if (Boolean.TRUE.equals(createRequest.getRecreateIndex())) {
-      // Delete index
-      elasticSearchIndexDefinition.deleteIndex(indexType);
-      // Create index
-      elasticSearchIndexDefinition.createIndex(indexType);
-    }
-
-    // Start fetching a list of Entities and pushing them to ES
-    EntityRepository<EntityInterface> entityRepository = Entity.getEntityRepository(entityType);
-    List<String> allowedFields = entityRepository.getAllowedFields();
-    String fields = String.join(",", allowedFields);
-    ResultList<EntityInterface> result;
-    String after = null;
-    try {
-      do {
-        if (entityType.equals(TEAM)) {
-          // just name and display name are needed
-          fields = "name,displayName";
-        }
-        result =
-            entityRepository.listAfter(
-                uriInfo,
-                new EntityUtil.Fields(allowedFields, fields),
-                new ListFilter(Include.ALL),
-                createRequest.getBatchSize(),
-                after);
-        listener.addRequests(result.getPaging().getTotal());
-        updateElasticSearchForEntityBatch(indexType, processor, entityType, result.getData());
-        processor.flush();
-        after = result.getPaging().getAfter();
-      } while (after != null);
-    } catch (Exception ex) {
-      LOG.error("Failed in listing all Entities of type : {}, Reason : ", entityType, ex);
-      FailureDetails failureDetails =
-          new FailureDetails()
-              .withContext(String.format("%s:Failure in fetching Data", entityType))
-              .withLastFailedReason(
-                  String.format("Failed in listing all Entities \n Reason : %s", ExceptionUtils.getStackTrace(ex)));
-      listener.updateElasticSearchStatus(EventPublisherJob.Status.IDLE, failureDetails, null);
-    }
-  }
-
   private synchronized void updateEntityStream(
       UriInfo uriInfo, UUID startedBy, String entityType, CreateEventPublisherJob createRequest) throws IOException {
 
@@ -343,22 +263,6 @@ public class BuildSearchIndexResource {
     }
   }
 
-  private synchronized void updateElasticSearchForEntityBatch(
-      ElasticSearchIndexDefinition.ElasticSearchIndexType indexType,
-      BulkProcessor bulkProcessor,
-      String entityType,
-      List<EntityInterface> entities) {
-    for (EntityInterface entity : entities) {
-      if (entityType.equals(TABLE)) {
-        ((Table) entity).getColumns().forEach(table -> table.setProfile(null));
-      }
-      UpdateRequest request = getUpdateRequest(indexType, entityType, entity);
-      if (request != null) {
-        bulkProcessor.add(request);
-      }
-    }
-  }
-
   private synchronized void updateElasticSearchForEntityStream(String entityType, List<EntityInterface> entities)
       throws IOException {
     String reindexJobString =
@@ -25,15 +25,20 @@ import java.util.Objects;
 import javax.validation.Valid;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 import lombok.Getter;
 import org.openmetadata.schema.type.ChangeEvent;
 import org.openmetadata.service.Entity.EntityList;
+import org.openmetadata.service.events.EventOutbox;
 import org.openmetadata.service.jdbi3.ChangeEventRepository;
 import org.openmetadata.service.jdbi3.CollectionDAO;
 import org.openmetadata.service.resources.Collection;
@@ -122,4 +127,32 @@ public class EventResource {
     events.sort(EntityUtil.compareChangeEvent); // Sort change events based on time
     return new ChangeEventList(events, null, null, events.size()); // TODO
   }
+
+  @PUT
+  @Path("/publishers/{name}/replay")
+  @Operation(
+      operationId = "replayChangeEvents",
+      summary = "Replay change events to an event publisher",
+      tags = "events",
+      description =
+          "Deliver the change events starting from a given timestamp again to an event publisher. "
+              + "Only supported when the change event outbox is enabled.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "Replay started"),
+        @ApiResponse(responseCode = "404", description = "Event publisher {name} is not reading from the outbox")
+      })
+  public Response replay(
+      @Context SecurityContext securityContext,
+      @Parameter(description = "Name of the event publisher", schema = @Schema(type = "string")) @PathParam("name")
+          String name,
+      @Parameter(
+              description = "Replay change events starting from this unix timestamp in milliseconds",
+              required = true,
+              schema = @Schema(type = "long", example = "1426349294842"))
+          @QueryParam("timestamp")
+          long timestamp) {
+    authorizer.authorizeAdmin(securityContext);
+    EventOutbox.replay(name, timestamp);
+    return Response.ok().build();
+  }
 }
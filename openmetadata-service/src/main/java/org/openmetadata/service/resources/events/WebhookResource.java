@@ -361,6 +361,7 @@ public class WebhookResource extends EntityResource<Webhook, WebhookRepository>
         .withEventFilters(create.getEventFilters())
         .withBatchSize(create.getBatchSize())
         .withTimeout(create.getTimeout())
+        .withMaxInFlightRequests(create.getMaxInFlightRequests())
         .withEnabled(create.getEnabled())
         .withSecretKey(create.getSecretKey())
         .withStatus(Boolean.TRUE.equals(create.getEnabled()) ? Status.ACTIVE : Status.DISABLED)
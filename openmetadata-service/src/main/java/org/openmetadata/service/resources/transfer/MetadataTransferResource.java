@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.transfer;
+
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.MetadataTransfer;
+import org.openmetadata.service.jdbi3.MetadataTransfer.ImportResult;
+import org.openmetadata.service.resources.Collection;
+import org.openmetadata.service.security.Authorizer;
+
+@Path("/v1/transfer")
+@Api(value = "Metadata transfer", tags = "Metadata transfer")
+@Produces(MediaType.APPLICATION_JSON)
+@Collection(name = "transfer")
+public class MetadataTransferResource {
+  private final MetadataTransfer transfer;
+  private final Authorizer authorizer;
+
+  public MetadataTransferResource(CollectionDAO dao, Authorizer authorizer) {
+    this.transfer = new MetadataTransfer(dao.metadataTransferDAO());
+    this.authorizer = authorizer;
+  }
+
+  @GET
+  @Path("/export")
+  @Produces(MetadataTransfer.NDJSON)
+  @Operation(
+      operationId = "exportMetadata",
+      summary = "Export the entities",
+      tags = "transfer",
+      description =
+          "Export the entities of the given types with their relationships, tags and extensions as newline delimited "
+              + "JSON, one entity per line. The export is streamed as it is read from the database. The secrets of "
+              + "the service connections and of the bots are not exported.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "Entities, one per line"),
+        @ApiResponse(responseCode = "400", description = "Unknown entity type")
+      })
+  public Response exportMetadata(
+      @Context UriInfo uriInfo,
+      @Context SecurityContext securityContext,
+      @Parameter(
+              description =
+                  "Comma separated list of the entity types to export. All the entity types are exported "
+                      + "when not given or `*`",
+              schema = @Schema(type = "string", example = "databaseService,database,databaseSchema,table"))
+          @QueryParam("entityTypes")
+          String entityTypesParam) {
+    authorizer.authorizeAdmin(securityContext);
+    List<String> entityTypes = MetadataTransfer.getEntityTypes(entityTypesParam);
+    StreamingOutput output = out -> transfer.export(entityTypes, out);
+    return Response.ok(output, MetadataTransfer.NDJSON).build();
+  }
+
+  @PUT
+  @Path("/import")
+  @Consumes(MetadataTransfer.NDJSON)
+  @Operation(
+      operationId = "importMetadata",
+      summary = "Import the entities",
+      tags = "transfer",
+      description =
+          "Import the entities exported by `/v1/transfer/export`. Entities, relationships, tags and extensions "
+              + "that already exist are replaced, except for the connections of the services and the credentials of "
+              + "the bots. The search indexes have to be recreated after an import.",
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Number of rows imported",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResult.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid line")
+      })
+  public ImportResult importMetadata(@Context UriInfo uriInfo, @Context SecurityContext securityContext, InputStream in)
+      throws IOException {
+    authorizer.authorizeAdmin(securityContext);
+    return transfer.importFrom(in);
+  }
+}
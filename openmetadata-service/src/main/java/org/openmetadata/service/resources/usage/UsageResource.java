@@ -37,6 +37,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.schema.type.BulkUsage;
 import org.openmetadata.schema.type.DailyCount;
 import org.openmetadata.schema.type.EntityUsage;
 import org.openmetadata.service.Entity;
@@ -278,6 +279,29 @@ public class UsageResource {
     return dao.createOrUpdateByName(entity, fullyQualifiedName, usage).toResponse();
   }
 
+  @PUT
+  @Path("/bulk")
+  @Operation(
+      operationId = "reportBulkEntityUsage",
+      summary = "Report usage in bulk",
+      tags = "usage",
+      description =
+          "Report the daily usage counts of many entities identified by id or fully qualified name. The counts are "
+              + "added to the usage already reported for the entity and date. Usage of tables is also added to their "
+              + "database schema and database.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "Usage reported"),
+        @ApiResponse(responseCode = "400", description = "Bad request"),
+        @ApiResponse(responseCode = "404", description = "Entity for one of the usage counts is not found")
+      })
+  public Response createOrUpdateInBulk(
+      @Context UriInfo uriInfo,
+      @Parameter(description = "Daily usage counts of the entities") @Valid BulkUsage bulkUsage)
+      throws IOException {
+    dao.createOrUpdateInBulk(bulkUsage);
+    return Response.ok().build();
+  }
+
   @POST
   @Path("/compute.percentile/{entity}/{date}")
   @Operation(
@@ -57,6 +57,7 @@ import org.openmetadata.service.secrets.SecretsManagerFactory;
 import org.openmetadata.service.security.jwt.JWTTokenGenerator;
 import org.openmetadata.service.security.policyevaluator.OperationContext;
 import org.openmetadata.service.security.policyevaluator.PolicyCache;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.security.policyevaluator.PolicyEvaluator;
 import org.openmetadata.service.security.policyevaluator.ResourceContextInterface;
 import org.openmetadata.service.security.policyevaluator.RoleCache;
@@ -80,6 +81,7 @@ public class DefaultAuthorizer implements Authorizer {
     SubjectCache.initialize();
     PolicyCache.initialize();
     RoleCache.initialize();
+    PolicyDecisionCache.initialize();
     initializeUsers(config);
   }
 
@@ -6,7 +6,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.schema.entity.policies.accessControl.Rule;
 import org.openmetadata.schema.type.MetadataOperation;
@@ -18,15 +17,26 @@ import org.openmetadata.service.resources.CollectionRegistry;
 import org.openmetadata.service.security.AuthorizationException;
 import org.openmetadata.service.security.policyevaluator.SubjectContext.PolicyContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 
-/** This class is used in a single threaded model and hence does not have concurrency support */
+/**
+ * Rule with its condition parsed into an expression. Compiled rules are cached in {@link PolicyCache} and evaluated by
+ * concurrent requests, and hence are thread-safe. The condition is parsed on first use, and the expression is published
+ * only once the functions it uses are known. The expression is evaluated with a new {@link RuleEvaluator} as the root
+ * object on each evaluation, and {@link org.springframework.expression.spel.standard.SpelExpression} supports
+ * concurrent evaluations, including while it compiles itself.
+ */
 @Slf4j
 public class CompiledRule extends Rule {
-  private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
-  @JsonIgnore private Expression expression;
-  @JsonIgnore @Getter private boolean resourceBased = false;
+  // Conditions are compiled to bytecode after they are first evaluated. Conditions that can't be compiled, for example
+  // when an argument must be converted to the parameter type of a function, continue to be interpreted.
+  private static final SpelExpressionParser EXPRESSION_PARSER =
+      new SpelExpressionParser(
+          new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, CompiledRule.class.getClassLoader()));
+  @JsonIgnore private volatile Expression expression;
+  @JsonIgnore private boolean resourceBased = false; // Written before the expression is published
 
   public CompiledRule(Rule rule) {
     super();
@@ -69,8 +79,10 @@ public class CompiledRule extends Rule {
     if (this.getCondition() == null) {
       return null;
     }
-    if (expression == null) {
-      expression = parseExpression(getCondition());
+    Expression parsed = expression;
+    if (parsed == null) {
+      // Concurrent requests may parse the condition at the same time, which results in equivalent expressions
+      parsed = parseExpression(getCondition());
       List<String> resourceBasedFunctions = CollectionRegistry.getInstance().getResourceBasedFunctions();
       for (String function : resourceBasedFunctions) {
         if (getCondition().contains(function)) {
@@ -78,8 +90,15 @@ public class CompiledRule extends Rule {
           break;
         }
       }
+      expression = parsed;
     }
-    return expression;
+    return parsed;
+  }
+
+  /** Returns true when the condition uses a function that evaluates the resource based policies */
+  public boolean isResourceBased() {
+    getExpression(); // Functions used by the condition are known once it is parsed
+    return resourceBased;
   }
 
   public void evaluateDenyRule(
@@ -208,15 +227,16 @@ public class CompiledRule extends Rule {
     return getOperations().contains(operation);
   }
 
-  private boolean matchExpression(
+  boolean matchExpression(
       PolicyContext policyContext, SubjectContext subjectContext, ResourceContextInterface resourceContext) {
     Expression expression = getExpression();
     if (expression == null) {
       return true;
     }
+    // Rule evaluator is the root object of the expression. The expression reuses its own evaluation context when it is
+    // interpreted and needs none when it is compiled.
     RuleEvaluator ruleEvaluator = new RuleEvaluator(policyContext, subjectContext, resourceContext);
-    StandardEvaluationContext evaluationContext = new StandardEvaluationContext(ruleEvaluator);
-    return Boolean.TRUE.equals(expression.getValue(evaluationContext, Boolean.class));
+    return Boolean.TRUE.equals(expression.getValue(ruleEvaluator, Boolean.class));
   }
 
   public static boolean overrideAccess(Access newAccess, Access currentAccess) {
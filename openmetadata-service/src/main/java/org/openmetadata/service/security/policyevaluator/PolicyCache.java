@@ -66,6 +66,7 @@ public class PolicyCache {
   public void invalidatePolicy(UUID policyId) {
     try {
       POLICY_CACHE.invalidate(policyId);
+      PolicyDecisionCache.invalidateAll();
     } catch (Exception ex) {
       LOG.error("Failed to invalidate cache for policy {}", policyId, ex);
     }
@@ -81,6 +82,7 @@ public class PolicyCache {
 
   public static void cleanUp() {
     POLICY_CACHE.cleanUp();
+    PolicyDecisionCache.invalidateAll();
     INITIALIZED = false;
   }
 
@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.security.policyevaluator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.MetadataOperation;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.service.jdbi3.CommitCallbacks;
+
+/**
+ * Cache of the access decisions made by {@link PolicyEvaluator#hasPermission}. Rules only use the owner and the tags of
+ * the resource being accessed. A decision on an entity is keyed by the user, the requested operations, and the id of
+ * the entity, so that a cached decision is returned without reading the owner and the tags of the entity. Decisions on
+ * other resources, whose owner and tags are known without reading them, are keyed by the owner and the tags.
+ *
+ * <p>The key also includes a policy version that is incremented whenever an entry in {@link SubjectCache}, {@link
+ * PolicyCache}, or {@link RoleCache} is invalidated. Decisions made with the previous users, teams, roles, or policies
+ * are then never returned, even when they are cached by a request that was being evaluated during the invalidation. In
+ * the same way, the key of a decision on an entity includes a version of the entity that is replaced whenever the
+ * entity is written, see {@link #invalidateEntity}.
+ */
+@Slf4j
+public class PolicyDecisionCache {
+  private static final PolicyDecisionCache INSTANCE = new PolicyDecisionCache();
+  private static volatile boolean INITIALIZED = false;
+  private static final AtomicLong POLICY_VERSION = new AtomicLong();
+  private static final AtomicLong ENTITY_VERSION = new AtomicLong();
+
+  protected static Cache<DecisionKey, Decision> DECISION_CACHE;
+  // Version of the entities that the cached decisions are made on. Decisions made on an entity that is no longer in
+  // this cache are never returned.
+  private static Cache<UUID, Long> ENTITY_VERSIONS;
+
+  /** Ids of the entities written by the current request, whose decisions are invalidated again when it completes */
+  private static final class Written {
+    private final Set<UUID> ids = new HashSet<>();
+
+    private void invalidate() {
+      Cache<UUID, Long> entityVersions = ENTITY_VERSIONS;
+      if (entityVersions != null) {
+        entityVersions.invalidateAll(ids);
+      }
+    }
+  }
+
+  public static PolicyDecisionCache getInstance() {
+    return INSTANCE;
+  }
+
+  /** To be called during application startup by Default Authorizer */
+  public static void initialize() {
+    if (!INITIALIZED) {
+      // Expire the decisions as the users and teams they are based on expire in the subject cache
+      DECISION_CACHE = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(1, TimeUnit.MINUTES).build();
+      ENTITY_VERSIONS = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(1, TimeUnit.MINUTES).build();
+      INITIALIZED = true;
+      LOG.info("Policy decision cache is initialized");
+    }
+  }
+
+  public static void cleanUp() {
+    invalidateAll();
+    INITIALIZED = false;
+  }
+
+  /** Invalidate all the decisions. Called when a user, team, role, or policy used in the decisions changes */
+  public static void invalidateAll() {
+    POLICY_VERSION.incrementAndGet();
+    if (DECISION_CACHE != null) {
+      DECISION_CACHE.invalidateAll();
+    }
+    if (ENTITY_VERSIONS != null) {
+      ENTITY_VERSIONS.invalidateAll();
+    }
+  }
+
+  /**
+   * Invalidate the decisions made on an entity. Called whenever the entity is written, which includes the changes to
+   * its owner and its tags. The decisions are invalidated again when the current request completes, as decisions made
+   * by other requests until then are based on the entity before the write is committed.
+   */
+  public static void invalidateEntity(UUID id) {
+    Cache<UUID, Long> entityVersions = ENTITY_VERSIONS;
+    if (entityVersions == null || id == null) {
+      return;
+    }
+    entityVersions.invalidate(id);
+    Written written =
+        CommitCallbacks.computeIfAbsent(
+            Written.class,
+            () -> {
+              Written newWritten = new Written();
+              CommitCallbacks.afterCompletion(newWritten::invalidate);
+              return newWritten;
+            });
+    if (written != null) {
+      written.ids.add(id);
+    }
+  }
+
+  public boolean isEnabled() {
+    return INITIALIZED;
+  }
+
+  /** Build the key for the decision. Must be called before the policies are evaluated as that changes the operations */
+  public DecisionKey getKey(
+      SubjectContext subjectContext, ResourceContextInterface resourceContext, OperationContext operationContext)
+      throws IOException {
+    String userName = subjectContext.getUser().getName();
+    List<MetadataOperation> operations = new ArrayList<>(operationContext.getOperations());
+    UUID entityId = resourceContext.getEntityId();
+    if (entityId != null) {
+      long entityVersion = ENTITY_VERSIONS.asMap().computeIfAbsent(entityId, id -> ENTITY_VERSION.incrementAndGet());
+      return new DecisionKey(
+          userName,
+          POLICY_VERSION.get(),
+          resourceContext.getResource(),
+          operations,
+          entityId,
+          entityVersion,
+          null,
+          null,
+          null,
+          null);
+    }
+    EntityReference owner = resourceContext.getOwner();
+    List<TagLabel> tags = resourceContext.getTags();
+    return new DecisionKey(
+        userName,
+        POLICY_VERSION.get(),
+        resourceContext.getResource(),
+        operations,
+        null,
+        0,
+        owner == null ? null : owner.getType(),
+        owner == null ? null : owner.getId(),
+        owner == null ? null : owner.getName(),
+        tags == null ? null : tags.stream().map(TagLabel::getTagFQN).sorted().collect(Collectors.toList()));
+  }
+
+  public Decision getDecision(DecisionKey key) {
+    return DECISION_CACHE.getIfPresent(key);
+  }
+
+  public void putDecision(DecisionKey key, Decision decision) {
+    DECISION_CACHE.put(key, decision);
+  }
+
+  @EqualsAndHashCode
+  static class DecisionKey {
+    private final String userName;
+    private final long policyVersion;
+    private final String resource;
+    private final List<MetadataOperation> operations;
+    private final UUID entityId;
+    private final long entityVersion;
+    private final String ownerType;
+    private final UUID ownerId;
+    private final String ownerName;
+    private final List<String> tagFQNs;
+
+    DecisionKey(
+        String userName,
+        long policyVersion,
+        String resource,
+        List<MetadataOperation> operations,
+        UUID entityId,
+        long entityVersion,
+        String ownerType,
+        UUID ownerId,
+        String ownerName,
+        List<String> tagFQNs) {
+      this.userName = userName;
+      this.policyVersion = policyVersion;
+      this.resource = resource;
+      this.operations = operations;
+      this.entityId = entityId;
+      this.entityVersion = entityVersion;
+      this.ownerType = ownerType;
+      this.ownerId = ownerId;
+      this.ownerName = ownerName;
+      this.tagFQNs = tagFQNs;
+    }
+  }
+
+  /** Decision made for a key. Denied decisions keep the message of the authorization exception that was thrown */
+  static class Decision {
+    static final Decision ALLOWED = new Decision(null);
+    private final String deniedMessage;
+
+    Decision(String deniedMessage) {
+      this.deniedMessage = deniedMessage;
+    }
+
+    boolean isAllowed() {
+      return deniedMessage == null;
+    }
+
+    String getDeniedMessage() {
+      return deniedMessage;
+    }
+  }
+}
@@ -33,6 +33,8 @@ import org.openmetadata.schema.type.ResourcePermission;
 import org.openmetadata.service.ResourceRegistry;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
 import org.openmetadata.service.security.AuthorizationException;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache.Decision;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache.DecisionKey;
 import org.openmetadata.service.security.policyevaluator.SubjectContext.PolicyContext;
 import org.openmetadata.service.security.policyevaluator.SubjectContext.PolicyIterator;
 
@@ -57,12 +59,41 @@ public class PolicyEvaluator {
 
   private PolicyEvaluator() {}
 
-  /** Checks if the policy has rules that give permission to perform an operation on the given entity. */
+  /**
+   * Checks if the policy has rules that give permission to perform an operation on the given entity. The decision is
+   * cached in {@link PolicyDecisionCache} when it is initialized.
+   */
   public static void hasPermission(
       @NonNull SubjectContext subjectContext,
       @NonNull ResourceContextInterface resourceContext,
       @NonNull OperationContext operationContext)
       throws IOException {
+    PolicyDecisionCache decisionCache = PolicyDecisionCache.getInstance();
+    if (!decisionCache.isEnabled()) {
+      evaluatePermission(subjectContext, resourceContext, operationContext);
+      return;
+    }
+    DecisionKey key = decisionCache.getKey(subjectContext, resourceContext, operationContext);
+    Decision decision = decisionCache.getDecision(key);
+    if (decision == null) {
+      try {
+        evaluatePermission(subjectContext, resourceContext, operationContext);
+        decisionCache.putDecision(key, Decision.ALLOWED);
+      } catch (AuthorizationException e) {
+        decisionCache.putDecision(key, new Decision(e.getMessage()));
+        throw e;
+      }
+      return;
+    }
+    if (!decision.isAllowed()) {
+      throw new AuthorizationException(decision.getDeniedMessage());
+    }
+    operationContext.getOperations().clear(); // All operations have been allowed
+  }
+
+  private static void evaluatePermission(
+      SubjectContext subjectContext, ResourceContextInterface resourceContext, OperationContext operationContext)
+      throws IOException {
     // First run through all the DENY policies based on the user
     evaluateDenySubjectPolicies(subjectContext, resourceContext, operationContext);
 
@@ -13,6 +13,7 @@ import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.TagLabel;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.jdbi3.EntityRepository;
 import org.openmetadata.service.util.EntityUtil;
 
@@ -50,6 +51,21 @@ public class ResourceContext implements ResourceContextInterface {
     return resolveEntity();
   }
 
+  @Override
+  public UUID getEntityId() {
+    if (entity != null) {
+      return entity.getId();
+    }
+    if (id != null || name == null) {
+      return id;
+    }
+    try {
+      return Entity.getEntityReferenceByName(resource, name, Include.NON_DELETED).getId();
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+  }
+
   private EntityInterface resolveEntity() throws IOException {
     if (entity == null) {
       String fields = "";
@@ -2,6 +2,7 @@ package org.openmetadata.service.security.policyevaluator;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 import org.openmetadata.schema.EntityInterface;
 import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.TagLabel;
@@ -16,4 +17,13 @@ public interface ResourceContextInterface {
   List<TagLabel> getTags() throws IOException;
 
   EntityInterface getEntity() throws IOException;
+
+  /**
+   * Get the id of the entity that the owner and the tags are read from, without reading the entity. Access decisions
+   * are cached by this id. Return null when the owner and the tags are not read from an entity, or the entity is not
+   * found, and the access decisions are then cached by the owner and the tags.
+   */
+  default UUID getEntityId() throws IOException {
+    return null;
+  }
 }
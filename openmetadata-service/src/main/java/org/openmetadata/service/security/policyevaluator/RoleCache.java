@@ -62,6 +62,7 @@ public class RoleCache {
   public void invalidateRole(UUID roleId) {
     try {
       ROLE_CACHE.invalidate(roleId);
+      PolicyDecisionCache.invalidateAll();
     } catch (Exception ex) {
       LOG.error("Failed to invalidate cache for role {}", roleId, ex);
     }
@@ -78,6 +79,7 @@ public class RoleCache {
 
   public static void cleanUp() {
     ROLE_CACHE.cleanUp();
+    PolicyDecisionCache.invalidateAll();
     INITIALIZED = false;
   }
 }
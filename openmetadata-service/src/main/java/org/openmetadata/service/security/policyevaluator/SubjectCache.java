@@ -35,6 +35,7 @@ import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.service.Entity;
 import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.jdbi3.EntityRepository;
+import org.openmetadata.service.jdbi3.TeamHierarchyIndex;
 import org.openmetadata.service.util.EntityUtil.Fields;
 
 /** Subject context used for Access Control Policies */
@@ -95,12 +96,14 @@ public class SubjectCache {
     LOG.info("Subject cache is cleaned up");
     USER_CACHE.invalidateAll();
     TEAM_CACHE.invalidateAll();
+    PolicyDecisionCache.invalidateAll();
     INITIALIZED = false;
   }
 
   public void invalidateUser(String userName) {
     try {
       USER_CACHE.invalidate(userName);
+      PolicyDecisionCache.invalidateAll();
     } catch (Exception ex) {
       LOG.error("Failed to invalidate cache for user {}", userName, ex);
     }
@@ -109,6 +112,7 @@ public class SubjectCache {
   public void invalidateTeam(UUID teamId) {
     try {
       TEAM_CACHE.invalidate(teamId);
+      PolicyDecisionCache.invalidateAll();
     } catch (Exception ex) {
       LOG.error("Failed to invalidate cache for team {}", teamId, ex);
     }
@@ -116,7 +120,14 @@ public class SubjectCache {
 
   public List<EntityReference> getRolesForTeams(List<EntityReference> teams) {
     List<EntityReference> roles = new ArrayList<>();
+    TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
     for (EntityReference teamRef : listOrEmpty(teams)) {
+      if (hierarchy != null && hierarchy.contains(teamRef.getId())) {
+        // Roles of the team and of all its ancestors, without walking up the parents of each team
+        roles.addAll(getDefaultRoles(teamRef.getId()));
+        hierarchy.getAncestors(teamRef.getId()).forEach(ancestor -> roles.addAll(getDefaultRoles(ancestor)));
+        continue;
+      }
       Team team = getTeam(teamRef.getId());
       if (team != null) {
         roles.addAll(team.getDefaultRoles());
@@ -126,6 +137,11 @@ public class SubjectCache {
     return roles.stream().distinct().collect(Collectors.toList());
   }
 
+  private List<EntityReference> getDefaultRoles(UUID teamId) {
+    Team team = getTeam(teamId);
+    return team == null ? new ArrayList<>() : listOrEmpty(team.getDefaultRoles());
+  }
+
   static class UserLoader extends CacheLoader<String, SubjectContext> {
     @Override
     public SubjectContext load(@CheckForNull String userName) throws IOException {
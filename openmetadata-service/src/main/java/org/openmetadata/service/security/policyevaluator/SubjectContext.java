@@ -28,6 +28,7 @@ import org.openmetadata.schema.entity.teams.Team;
 import org.openmetadata.schema.entity.teams.User;
 import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.TeamHierarchyIndex;
 
 /** Subject context used for Access Control Policies */
 @Slf4j
@@ -83,7 +84,18 @@ public class SubjectContext {
   /** Return true if given list of teams is part of the hierarchy of parentTeam */
   private boolean isInTeam(String parentTeam, List<EntityReference> teams) {
     Stack<EntityReference> stack = new Stack<>();
-    listOrEmpty(teams).forEach(stack::push);
+    TeamHierarchyIndex hierarchy = TeamHierarchyIndex.getInstance();
+    UUID parentTeamId = hierarchy == null ? null : hierarchy.getTeamId(parentTeam);
+    for (EntityReference team : listOrEmpty(teams)) {
+      if (parentTeamId != null && hierarchy.contains(team.getId())) {
+        // Look up the ancestors of the team in the team hierarchy index instead of walking up its parents
+        if (hierarchy.isSelfOrAncestor(parentTeamId, team.getId())) {
+          return true;
+        }
+      } else {
+        stack.push(team);
+      }
+    }
     while (!stack.empty()) {
       Team parent = SubjectCache.getInstance().getTeam(stack.pop().getId());
       if (parent.getName().equals(parentTeam)) {
@@ -25,6 +25,7 @@ import org.openmetadata.schema.type.EntityReference;
 import org.openmetadata.schema.type.Include;
 import org.openmetadata.schema.type.TagLabel;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.exception.EntityNotFoundException;
 import org.openmetadata.service.jdbi3.EntityRepository;
 import org.openmetadata.service.resources.feeds.MessageParser.EntityLink;
 import org.openmetadata.service.util.EntityUtil;
@@ -64,6 +65,22 @@ public class TestCaseResourceContext implements ResourceContextInterface {
     return resolveEntity();
   }
 
+  @Override
+  public UUID getEntityId() {
+    if (entity != null) {
+      return entity.getId();
+    }
+    if (entityLink == null) {
+      return null; // The entity that has the test case is not known without reading the test case
+    }
+    try {
+      return Entity.getEntityReferenceByName(entityLink.getEntityType(), entityLink.getEntityFQN(), Include.NON_DELETED)
+          .getId();
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+  }
+
   private EntityInterface resolveEntity() throws IOException {
     if (entity == null) {
       if (entityLink != null) {
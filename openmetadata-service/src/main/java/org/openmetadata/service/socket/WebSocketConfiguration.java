@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.socket;
+
+import javax.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class WebSocketConfiguration {
+  /** Number of threads that send the queued messages to the connected sockets */
+  @Min(1)
+  private int fanOutThreads = 2;
+
+  /** Maximum number of messages waiting to be sent to a user. The oldest message is dropped when it is full. */
+  @Min(1)
+  private int maxQueuedMessagesPerUser = 100;
+
+  /**
+   * Time a message waits before it is sent. A message about the same feed thread received during that time replaces the
+   * waiting one instead of being sent again.
+   */
+  @Min(0)
+  private long coalesceWindowInMillis = 100;
+}
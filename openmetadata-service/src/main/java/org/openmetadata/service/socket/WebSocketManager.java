@@ -2,6 +2,9 @@ package org.openmetadata.service.socket;
 
 import static org.openmetadata.common.utils.CommonUtil.listOrEmpty;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.socket.engineio.server.EngineIoServer;
 import io.socket.engineio.server.EngineIoServerOptions;
 import io.socket.socketio.server.SocketIoNamespace;
@@ -9,10 +12,25 @@ import io.socket.socketio.server.SocketIoServer;
 import io.socket.socketio.server.SocketIoSocket;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
 
+/**
+ * Pushes activity feed notifications to the connected users.
+ *
+ * <p>Sending a message only adds it to the outbound queue of each receiving user, so the request thread that produced
+ * the notification does not wait for the sockets. The queues are drained by a small pool of fan-out threads, one user
+ * at a time, so the messages of a user are sent in order. A queue holds up to {@link
+ * WebSocketConfiguration#getMaxQueuedMessagesPerUser()} messages and drops the oldest message when a slow client lets
+ * it fill up. Messages wait {@link WebSocketConfiguration#getCoalesceWindowInMillis()} before they are sent, and a
+ * message with the same coalesce key, such as the id of a feed thread, replaces the waiting one.
+ */
 @Slf4j
 public class WebSocketManager {
   private static WebSocketManager INSTANCE;
@@ -24,10 +42,29 @@ public class WebSocketManager {
   public static final String MENTION_CHANNEL = "mentionChannel";
   public static final String ANNOUNCEMENT_CHANNEL = "announcementChannel";
   private final Map<UUID, Map<String, SocketIoSocket>> activityFeedEndpoints = new ConcurrentHashMap<>();
+  private final Map<UUID, OutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService fanOutExecutor;
+  private final int maxQueuedMessagesPerUser;
+  private final long coalesceWindowInMillis;
+  private final AtomicInteger connectedSessions = new AtomicInteger();
+  private final AtomicLong queueDepth = new AtomicLong();
+  private final AtomicLong droppedMessages = new AtomicLong();
+  private final AtomicLong coalescedMessages = new AtomicLong();
 
-  private WebSocketManager(EngineIoServerOptions eiOptions) {
+  WebSocketManager(EngineIoServerOptions eiOptions, WebSocketConfiguration config, MeterRegistry meterRegistry) {
     engineIoServer = new EngineIoServer(eiOptions);
     socketIoServer = new SocketIoServer(engineIoServer);
+    maxQueuedMessagesPerUser = config.getMaxQueuedMessagesPerUser();
+    coalesceWindowInMillis = config.getCoalesceWindowInMillis();
+    fanOutExecutor =
+        Executors.newScheduledThreadPool(
+            config.getFanOutThreads(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "websocket-fanout");
+              thread.setDaemon(true);
+              return thread;
+            });
+    registerMetrics(meterRegistry);
     initializeHandlers();
   }
 
@@ -51,10 +88,7 @@ public class WebSocketManager {
                 "disconnect",
                 args1 -> {
                   LOG.info("Client from: {} with Remote Address:{} disconnected.", userId, remoteAddress);
-                  UUID id = UUID.fromString(userId);
-                  Map<String, SocketIoSocket> allUserConnection = activityFeedEndpoints.get(id);
-                  allUserConnection.remove(socket.getId());
-                  activityFeedEndpoints.put(id, allUserConnection);
+                  removeSocket(UUID.fromString(userId), socket);
                 });
 
             // On Socket Connection Error
@@ -73,17 +107,43 @@ public class WebSocketManager {
                         userId,
                         remoteAddress));
 
-            UUID id = UUID.fromString(userId);
-            Map<String, SocketIoSocket> userSocketConnections;
-            userSocketConnections =
-                activityFeedEndpoints.containsKey(id) ? activityFeedEndpoints.get(id) : new HashMap<>();
-            userSocketConnections.put(socket.getId(), socket);
-            activityFeedEndpoints.put(id, userSocketConnections);
+            addSocket(UUID.fromString(userId), socket);
           }
         });
     ns.on("error", args -> LOG.error("Connection error on the server"));
   }
 
+  void addSocket(UUID userId, SocketIoSocket socket) {
+    activityFeedEndpoints.compute(
+        userId,
+        (id, sockets) -> {
+          Map<String, SocketIoSocket> userSockets = sockets == null ? new ConcurrentHashMap<>() : sockets;
+          if (userSockets.put(socket.getId(), socket) == null) {
+            connectedSessions.incrementAndGet();
+          }
+          return userSockets;
+        });
+  }
+
+  void removeSocket(UUID userId, SocketIoSocket socket) {
+    activityFeedEndpoints.computeIfPresent(
+        userId,
+        (id, sockets) -> {
+          if (sockets.remove(socket.getId()) != null) {
+            connectedSessions.decrementAndGet();
+          }
+          if (!sockets.isEmpty()) {
+            return sockets;
+          }
+          // Discard the messages waiting for the last socket of the user
+          OutboundQueue queue = outboundQueues.remove(id);
+          if (queue != null) {
+            queue.clear();
+          }
+          return null;
+        });
+  }
+
   public static WebSocketManager getInstance() {
     return INSTANCE;
   }
@@ -93,28 +153,188 @@ public class WebSocketManager {
   }
 
   public void broadCastMessageToAll(String event, String message) {
-    activityFeedEndpoints.forEach((key, value) -> value.forEach((key1, value1) -> value1.send(event, message)));
+    broadCastMessageToAll(event, message, null);
+  }
+
+  /** Send the message to all the connected users. Messages with the same event and coalesce key are coalesced. */
+  public void broadCastMessageToAll(String event, String message, String coalesceKey) {
+    activityFeedEndpoints.keySet().forEach(receiver -> enqueue(receiver, event, message, coalesceKey));
   }
 
   public void sendToOne(UUID receiver, String event, String message) {
+    sendToOne(receiver, event, message, null);
+  }
+
+  public void sendToOne(UUID receiver, String event, String message, String coalesceKey) {
     if (activityFeedEndpoints.containsKey(receiver)) {
-      activityFeedEndpoints.get(receiver).forEach((key, value) -> value.send(event, message));
+      enqueue(receiver, event, message, coalesceKey);
     }
   }
 
   public void sendToManyWithUUID(List<UUID> receivers, String event, String message) {
-    receivers.forEach(e -> sendToOne(e, event, message));
+    sendToManyWithUUID(receivers, event, message, null);
+  }
+
+  public void sendToManyWithUUID(List<UUID> receivers, String event, String message, String coalesceKey) {
+    receivers.forEach(e -> sendToOne(e, event, message, coalesceKey));
   }
 
   public void sendToManyWithString(List<EntityRelationshipRecord> receivers, String event, String message) {
-    receivers.forEach(e -> sendToOne(e.getId(), event, message));
+    sendToManyWithString(receivers, event, message, null);
+  }
+
+  public void sendToManyWithString(
+      List<EntityRelationshipRecord> receivers, String event, String message, String coalesceKey) {
+    receivers.forEach(e -> sendToOne(e.getId(), event, message, coalesceKey));
+  }
+
+  public int getConnectedSessionCount() {
+    return connectedSessions.get();
+  }
+
+  /** Number of messages waiting to be sent to all the users */
+  public long getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  public long getDroppedMessageCount() {
+    return droppedMessages.get();
+  }
+
+  public long getCoalescedMessageCount() {
+    return coalescedMessages.get();
+  }
+
+  private void enqueue(UUID receiver, String event, String message, String coalesceKey) {
+    OutboundQueue queue = outboundQueues.computeIfAbsent(receiver, OutboundQueue::new);
+    if (queue.add(new OutboundMessage(event, message, coalesceKey))) {
+      fanOutExecutor.schedule(queue::drain, coalesceWindowInMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void registerMetrics(MeterRegistry meterRegistry) {
+    Gauge.builder("webSocket.connectedSessions", connectedSessions, AtomicInteger::get)
+        .description("Number of connected activity feed sockets")
+        .register(meterRegistry);
+    Gauge.builder("webSocket.queueDepth", queueDepth, AtomicLong::get)
+        .description("Number of messages waiting to be sent to the connected users")
+        .register(meterRegistry);
+    FunctionCounter.builder("webSocket.dropped", droppedMessages, AtomicLong::get)
+        .description("Number of messages dropped because the queue of a slow client was full")
+        .register(meterRegistry);
+    FunctionCounter.builder("webSocket.coalesced", coalescedMessages, AtomicLong::get)
+        .description("Number of messages replaced by a newer message about the same feed thread")
+        .register(meterRegistry);
+  }
+
+  /** Stop sending the queued messages. Expected to be called only once when the application is stopped. */
+  public static void shutdown() {
+    if (INSTANCE != null) {
+      INSTANCE.stop();
+    }
+  }
+
+  void stop() {
+    fanOutExecutor.shutdownNow();
+  }
+
+  private static class OutboundMessage {
+    private final String event;
+    private final String coalesceKey;
+    private String message;
+
+    OutboundMessage(String event, String message, String coalesceKey) {
+      this.event = event;
+      this.message = message;
+      this.coalesceKey = coalesceKey == null ? null : event + ":" + coalesceKey;
+    }
+  }
+
+  /** Messages waiting to be sent to the sockets of a user */
+  private class OutboundQueue {
+    private final UUID userId;
+    private final Deque<OutboundMessage> messages = new ArrayDeque<>();
+    private final Map<String, OutboundMessage> waiting = new HashMap<>(); // Messages by coalesce key
+    private boolean draining;
+
+    OutboundQueue(UUID userId) {
+      this.userId = userId;
+    }
+
+    /** Add a message, and return true when the queue must be drained */
+    synchronized boolean add(OutboundMessage message) {
+      if (message.coalesceKey != null) {
+        OutboundMessage previous = waiting.get(message.coalesceKey);
+        if (previous != null) {
+          previous.message = message.message;
+          coalescedMessages.incrementAndGet();
+          return false;
+        }
+        waiting.put(message.coalesceKey, message);
+      }
+      if (messages.size() >= maxQueuedMessagesPerUser) {
+        remove(messages.poll());
+        queueDepth.decrementAndGet();
+        droppedMessages.incrementAndGet();
+      }
+      messages.add(message);
+      queueDepth.incrementAndGet();
+      if (draining) {
+        return false;
+      }
+      draining = true;
+      return true;
+    }
+
+    /** Send the queued messages, then drain the messages queued in the meantime after the coalesce window */
+    void drain() {
+      List<OutboundMessage> batch;
+      synchronized (this) {
+        batch = new ArrayList<>(messages);
+        batch.forEach(this::remove);
+        messages.clear();
+        queueDepth.addAndGet(-batch.size());
+      }
+      Map<String, SocketIoSocket> sockets = activityFeedEndpoints.getOrDefault(userId, Collections.emptyMap());
+      for (OutboundMessage message : batch) {
+        for (SocketIoSocket socket : sockets.values()) {
+          try {
+            socket.send(message.event, message.message);
+          } catch (Exception e) {
+            LOG.warn("Failed to send {} message to user {}", message.event, userId, e);
+          }
+        }
+      }
+      synchronized (this) {
+        if (messages.isEmpty()) {
+          draining = false;
+          if (sockets.isEmpty()) { // The user disconnected
+            outboundQueues.remove(userId, this);
+          }
+          return;
+        }
+      }
+      fanOutExecutor.schedule(this::drain, coalesceWindowInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void clear() {
+      queueDepth.addAndGet(-messages.size());
+      messages.clear();
+      waiting.clear();
+    }
+
+    private void remove(OutboundMessage message) {
+      if (message.coalesceKey != null) {
+        waiting.remove(message.coalesceKey);
+      }
+    }
   }
 
   public static class WebSocketManagerBuilder {
     private WebSocketManagerBuilder() {}
 
-    public static void build(EngineIoServerOptions eiOptions) {
-      INSTANCE = new WebSocketManager(eiOptions);
+    public static void build(EngineIoServerOptions eiOptions, WebSocketConfiguration config, MeterRegistry registry) {
+      INSTANCE = new WebSocketManager(eiOptions, config, registry);
     }
   }
 }
@@ -22,12 +22,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BiPredicate;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.ws.rs.WebApplicationException;
 import lombok.Getter;
 import lombok.NonNull;
@@ -189,9 +192,16 @@ public final class EntityUtil {
   // TODO delete
   public static List<EntityReference> populateEntityReferences(List<EntityReference> list) throws IOException {
     if (list != null) {
-      for (EntityReference ref : list) {
-        EntityReference ref2 = Entity.getEntityReferenceById(ref.getType(), ref.getId(), ALL);
-        EntityUtil.copy(ref2, ref);
+      // Read the references of each entity type with a single query instead of one query per reference
+      Map<String, List<EntityReference>> refsByType =
+          list.stream()
+              .collect(Collectors.groupingBy(EntityReference::getType, LinkedHashMap::new, Collectors.toList()));
+      for (Map.Entry<String, List<EntityReference>> entry : refsByType.entrySet()) {
+        List<EntityReference> refs = entry.getValue();
+        List<EntityReference> refs2 = Entity.getEntityReferencesByIds(entry.getKey(), toIds(refs), ALL);
+        for (int i = 0; i < refs.size(); i++) {
+          EntityUtil.copy(refs2.get(i), refs.get(i));
+        }
       }
       list.sort(compareEntityReference);
     }
@@ -205,18 +215,15 @@ public final class EntityUtil {
     }
     List<EntityReference> refs = new ArrayList<>();
     for (EntityRelationshipRecord ref : list) {
-      refs.add(Entity.getEntityReferenceById(ref.getType(), ref.getId(), ALL));
+      refs.add(new EntityReference().withId(ref.getId()).withType(ref.getType()));
     }
-    refs.sort(compareEntityReference);
-    return refs;
+    return populateEntityReferences(refs);
   }
 
   public static List<EntityReference> populateEntityReferences(
       List<EntityRelationshipRecord> records, @NonNull String entityType) throws IOException {
-    List<EntityReference> refs = new ArrayList<>(records.size());
-    for (EntityRelationshipRecord id : records) {
-      refs.add(Entity.getEntityReferenceById(entityType, id.getId(), ALL));
-    }
+    List<UUID> ids = records.stream().map(EntityRelationshipRecord::getId).collect(Collectors.toList());
+    List<EntityReference> refs = Entity.getEntityReferencesByIds(entityType, ids, ALL);
     refs.sort(compareEntityReference);
     return refs;
   }
@@ -1,25 +1,17 @@
 package org.openmetadata.service.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import org.antlr.v4.runtime.BailErrorStrategy;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
-import org.openmetadata.schema.FqnBaseListener;
-import org.openmetadata.schema.FqnLexer;
-import org.openmetadata.schema.FqnParser;
-import org.openmetadata.schema.FqnParser.FqnContext;
-import org.openmetadata.schema.FqnParser.QuotedNameContext;
-import org.openmetadata.schema.FqnParser.UnquotedNameContext;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.openmetadata.service.Entity;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
 
 public class FullyQualifiedName {
-  // Quoted name of format "sss" or unquoted string sss
-  private static final Pattern namePattern = Pattern.compile("^(\")([^\"]+)(\")$|^(.*)$");
+  private static final char QUOTE = '"';
+  private static final char SEPARATOR = '.';
+  private static volatile Cache<String, String[]> splitCache;
 
   private FullyQualifiedName() {
     /* Utility class with private constructor */
@@ -39,76 +31,113 @@ public class FullyQualifiedName {
     return String.join(Entity.SEPARATOR, list);
   }
 
+  /**
+   * Split the FQN into its names. Follows Fqn.g4 where an unquoted name has no '"' or '.', and a quoted name has no '"'
+   * but has at least one '.'. Quoted names are returned with their quotes.
+   */
   public static String[] split(String string) {
-    SplitListener listener = new SplitListener();
-    walk(string, listener);
-    return listener.split();
+    Cache<String, String[]> cache = splitCache;
+    if (cache == null) {
+      return splitNames(string);
+    }
+    String[] split = cache.getIfPresent(string);
+    if (split == null) {
+      split = splitNames(string); // Invalid FQNs throw an exception and are not cached
+      cache.put(string, split);
+    }
+    return split.clone();
   }
 
-  private static <L extends FqnBaseListener> void walk(String string, L listener) {
-    FqnLexer fqnLexer = new FqnLexer(CharStreams.fromString(string));
-    CommonTokenStream tokens = new CommonTokenStream(fqnLexer);
-    FqnParser fqnParser = new FqnParser(tokens);
-    fqnParser.setErrorHandler(new BailErrorStrategy());
-    FqnContext fqn = fqnParser.fqn();
-    ParseTreeWalker walker = new ParseTreeWalker();
-    walker.walk(listener, fqn);
+  /**
+   * Memoize the split of the given number of most recently used FQNs. Splitting an FQN is a single pass over it, so
+   * this only helps when the same long FQNs are split repeatedly.
+   */
+  public static void enableSplitCache(long maximumSize) {
+    splitCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
   }
 
-  private static class SplitListener extends FqnBaseListener {
-    final List<String> list = new ArrayList<>();
-
-    public String[] split() {
-      return list.toArray(new String[0]);
-    }
+  public static void disableSplitCache() {
+    splitCache = null;
+  }
 
-    @Override
-    public void enterQuotedName(QuotedNameContext ctx) {
-      list.add(ctx.getText());
+  private static String[] splitNames(String string) {
+    List<String> list = new ArrayList<>();
+    int length = string.length();
+    int start = 0;
+    while (true) {
+      int end;
+      if (start < length && string.charAt(start) == QUOTE) {
+        end = string.indexOf(QUOTE, start + 1) + 1;
+        if (end == 0 || string.lastIndexOf(SEPARATOR, end - 2) <= start) {
+          throw invalidFqn(string, start); // Unterminated quoted name or quoted name without '.'
+        }
+      } else {
+        end = start;
+        while (end < length && string.charAt(end) != SEPARATOR && string.charAt(end) != QUOTE) {
+          end++;
+        }
+        if (end == start) {
+          throw invalidFqn(string, start); // Empty name
+        }
+      }
+      list.add(string.substring(start, end));
+      if (end == length) {
+        return list.toArray(new String[0]);
+      }
+      if (string.charAt(end) != SEPARATOR) {
+        throw invalidFqn(string, end); // Name is followed by a quote instead of a separator
+      }
+      start = end + 1;
     }
+  }
 
-    @Override
-    public void enterUnquotedName(UnquotedNameContext ctx) {
-      list.add(ctx.getText());
-    }
+  private static ParseCancellationException invalidFqn(String string, int position) {
+    return new ParseCancellationException(String.format("Invalid FQN %s at position %d", string, position));
   }
 
   /** Adds quotes to name as required */
   public static String quoteName(String name) {
-    Matcher matcher = namePattern.matcher(name);
-    if (!matcher.find() || matcher.end() != name.length()) {
-      throw new IllegalArgumentException(CatalogExceptionMessage.invalidName(name));
-    }
-
-    // Name matches quoted string "sss".
+    // Name is a quoted string "sss".
     // If quoted string does not contain "." return unquoted sss, else return quoted "sss"
-    if (matcher.group(1) != null) {
-      String unquotedName = matcher.group(2);
-      return unquotedName.contains(".") ? name : unquotedName;
+    if (isQuoted(name)) {
+      String unquotedName = name.substring(1, name.length() - 1);
+      return unquotedName.indexOf(SEPARATOR) >= 0 ? name : unquotedName;
     }
 
-    // Name matches unquoted string sss
+    // Name is an unquoted string sss
     // If unquoted string contains ".", return quoted "sss", else unquoted sss
-    String unquotedName = matcher.group(4);
-    if (!unquotedName.contains("\"")) {
-      return unquotedName.contains(".") ? "\"" + name + "\"" : unquotedName;
+    if (name.indexOf(QUOTE) < 0 && !hasLineTerminator(name)) {
+      return name.indexOf(SEPARATOR) >= 0 ? QUOTE + name + QUOTE : name;
     }
     throw new IllegalArgumentException(CatalogExceptionMessage.invalidName(name));
   }
 
-  /** Adds quotes to name as required */
+  /** Removes quotes from name as required */
   public static String unquoteName(String name) {
-    Matcher matcher = namePattern.matcher(name);
-    if (!matcher.find() || matcher.end() != name.length()) {
+    if (isQuoted(name)) {
+      return name.substring(1, name.length() - 1);
+    }
+    if (hasLineTerminator(name)) {
       throw new IllegalArgumentException(CatalogExceptionMessage.invalidName(name));
     }
+    return name;
+  }
 
-    // Name matches quoted string "sss".
-    // If quoted string does not contain "." return unquoted sss, else return quoted "sss"
-    if (matcher.group(1) != null) {
-      return matcher.group(2);
+  /** Returns true for a name of format "sss" where sss is not empty and has no quotes */
+  private static boolean isQuoted(String name) {
+    int last = name.length() - 1;
+    return last >= 2 && name.charAt(0) == QUOTE && name.indexOf(QUOTE, 1) == last;
+  }
+
+  /** Unquoted names can't have the line terminators of {@link java.util.regex.Pattern}, which used to validate them */
+  private static boolean hasLineTerminator(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return true;
+      }
     }
-    return name;
+    return false;
   }
 
   public static String getTableFQN(String columnFQN) {
@@ -24,11 +24,18 @@ import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.jackson.Jackson;
 import io.dropwizard.jersey.validation.Validators;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Scanner;
 import javax.validation.Validator;
 import org.apache.commons.cli.CommandLine;
@@ -47,14 +54,24 @@ import org.openmetadata.service.OpenMetadataApplicationConfig;
 import org.openmetadata.service.elasticsearch.ElasticSearchIndexDefinition;
 import org.openmetadata.service.fernet.Fernet;
 import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.MetadataTransferDAO;
+import org.openmetadata.service.jdbi3.EntityRepository;
+import org.openmetadata.service.jdbi3.EntityVersionHistory;
+import org.openmetadata.service.jdbi3.MetadataTransfer;
+import org.openmetadata.service.jdbi3.MetadataTransfer.ImportResult;
+import org.openmetadata.service.jdbi3.TagCategoryRepository;
+import org.openmetadata.service.jdbi3.TagRepository;
 import org.openmetadata.service.jdbi3.locator.ConnectionAwareAnnotationSqlLocator;
 import org.openmetadata.service.secrets.SecretsManagerFactory;
+import org.reflections.Reflections;
 
 public final class TablesInitializer {
   private static final String DEBUG_MODE_ENABLED = "debug_mode";
   private static final String OPTION_SCRIPT_ROOT_PATH = "script-root";
   private static final String OPTION_CONFIG_FILE_PATH = "config";
   private static final String DISABLE_VALIDATE_ON_MIGRATE = "disable-validate-on-migrate";
+  private static final String OPTION_FILE_PATH = "file";
+  private static final String OPTION_ENTITY_TYPES = "entity-types";
   private static final Options OPTIONS;
   private static boolean DEBUG_MODE = false;
 
@@ -95,6 +112,20 @@ public final class TablesInitializer {
     OPTIONS.addOption(
         null, SchemaMigrationOption.ES_DROP.toString(), false, "Drop all the indexes in the elastic search");
     OPTIONS.addOption(null, SchemaMigrationOption.ES_MIGRATE.toString(), false, "Update Elastic Search index mapping");
+    OPTIONS.addOption(
+        null,
+        SchemaMigrationOption.COMPACT_VERSIONS.toString(),
+        false,
+        "Store the previous versions of the entities as patches against the next version");
+    OPTIONS.addOption(
+        null,
+        SchemaMigrationOption.EXPORT.toString(),
+        false,
+        "Export the entities to the file as newline delimited JSON");
+    OPTIONS.addOption(null, SchemaMigrationOption.IMPORT.toString(), false, "Import the entities from the file");
+    OPTIONS.addOption("f", OPTION_FILE_PATH, true, "File to export the entities to or to import them from");
+    OPTIONS.addOption(
+        null, OPTION_ENTITY_TYPES, true, "Comma separated list of the entity types to export, all by default");
   }
 
   private TablesInitializer() {}
@@ -182,7 +213,7 @@ public final class TablesInitializer {
             !disableValidateOnMigrate);
     RestHighLevelClient client = ElasticSearchClientUtils.createElasticSearchClient(esConfig);
     try {
-      execute(config, flyway, client, schemaMigrationOptionSpecified);
+      execute(config, flyway, client, schemaMigrationOptionSpecified, commandLine);
       printToConsoleInDebug(schemaMigrationOptionSpecified + "option successful");
     } catch (Exception e) {
       printError(schemaMigrationOptionSpecified + "option failed with : " + e);
@@ -223,8 +254,9 @@ public final class TablesInitializer {
       OpenMetadataApplicationConfig config,
       Flyway flyway,
       RestHighLevelClient client,
-      SchemaMigrationOption schemaMigrationOption)
-      throws SQLException {
+      SchemaMigrationOption schemaMigrationOption,
+      CommandLine commandLine)
+      throws SQLException, IOException {
     final Jdbi jdbi =
         Jdbi.create(
             config.getDataSourceFactory().getUrl(),
@@ -291,11 +323,56 @@ public final class TablesInitializer {
         esIndexDefinition = new ElasticSearchIndexDefinition(client, jdbi.onDemand(CollectionDAO.class));
         esIndexDefinition.dropIndexes();
         break;
+      case COMPACT_VERSIONS:
+        EntityVersionHistory.compactAll(jdbi.onDemand(CollectionDAO.class).entityExtensionDAO());
+        break;
+      case EXPORT:
+        registerEntityRepositories(jdbi.onDemand(CollectionDAO.class));
+        List<String> entityTypes = MetadataTransfer.getEntityTypes(commandLine.getOptionValue(OPTION_ENTITY_TYPES));
+        try (OutputStream out = Files.newOutputStream(getFilePath(commandLine))) {
+          int count = new MetadataTransfer(jdbi.onDemand(MetadataTransferDAO.class)).export(entityTypes, out);
+          printToConsoleMandatory("Exported " + count + " entities");
+        }
+        break;
+      case IMPORT:
+        registerEntityRepositories(jdbi.onDemand(CollectionDAO.class));
+        try (InputStream in = Files.newInputStream(getFilePath(commandLine))) {
+          ImportResult result = new MetadataTransfer(jdbi.onDemand(MetadataTransferDAO.class)).importFrom(in);
+          printToConsoleMandatory(
+              String.format(
+                  "Imported %d entities, %d relationships, %d tag usages and %d extensions. "
+                      + "Recreate the search indexes with es-drop and es-create.",
+                  result.getEntities(), result.getRelationships(), result.getTags(), result.getExtensions()));
+        }
+        break;
       default:
         throw new SQLException("SchemaMigrationHelper unable to execute the option : " + schemaMigrationOption);
     }
   }
 
+  private static Path getFilePath(CommandLine commandLine) {
+    if (!commandLine.hasOption(OPTION_FILE_PATH)) {
+      throw new IllegalArgumentException("Option '" + OPTION_FILE_PATH + "' must be specified");
+    }
+    return Path.of(commandLine.getOptionValue(OPTION_FILE_PATH));
+  }
+
+  /** Entity repositories register their entity types when they are created, which the server does on startup */
+  private static void registerEntityRepositories(CollectionDAO dao) throws IOException {
+    Reflections reflections = new Reflections("org.openmetadata.service.jdbi3");
+    for (Class<?> clz : reflections.getSubTypesOf(EntityRepository.class)) {
+      if (Modifier.isAbstract(clz.getModifiers()) || clz == TagRepository.class || clz == TagCategoryRepository.class) {
+        continue;
+      }
+      try {
+        clz.getConstructor(CollectionDAO.class).newInstance(dao);
+      } catch (ReflectiveOperationException e) {
+        throw new IOException("Failed to create the repository " + clz.getSimpleName(), e);
+      }
+    }
+    new TagCategoryRepository(dao, new TagRepository(dao));
+  }
+
   private static void usage() {
     HelpFormatter formatter = new HelpFormatter();
     formatter.printHelp("TableInitializer [options]", TablesInitializer.OPTIONS);
@@ -325,7 +402,10 @@ public final class TablesInitializer {
     REPAIR("repair"),
     ES_DROP("es-drop"),
     ES_CREATE("es-create"),
-    ES_MIGRATE("es-migrate");
+    ES_MIGRATE("es-migrate"),
+    COMPACT_VERSIONS("compact-versions"),
+    EXPORT("export"),
+    IMPORT("import");
     private final String value;
 
     SchemaMigrationOption(String schemaMigrationOption) {
@@ -0,0 +1,222 @@
+package org.openmetadata.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.Include;
+import org.openmetadata.service.jdbi3.CommitCallbacks;
+
+class EntityReferenceCacheTest {
+  private final AtomicInteger loads = new AtomicInteger();
+  private final AtomicReference<EntityReference> stored = new AtomicReference<>();
+  private final UUID id = UUID.randomUUID();
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    EntityReferenceCache.initialize(new EntityReferenceCacheConfiguration(), meterRegistry);
+    stored.set(reference("db.schema.t1", false));
+  }
+
+  @AfterEach
+  void tearDown() {
+    CommitCallbacks.end();
+    EntityReferenceCache.cleanUp();
+  }
+
+  @Test
+  void test_getById_cachesReference() throws IOException {
+    EntityReference ref1 = getById();
+    EntityReference ref2 = getById();
+    assertEquals(1, loads.get());
+    assertEquals(ref1, ref2);
+    assertNotSame(ref1, ref2);
+
+    // Callers modifying the returned reference must not change the cached reference
+    ref2.setHref(java.net.URI.create("http://localhost/" + id));
+    assertNull(getById().getHref());
+    assertEquals(1, loads.get());
+
+    assertEquals(1.0, getCacheCount("miss"));
+    assertEquals(2.0, getCacheCount("hit"));
+  }
+
+  @Test
+  void test_update_invalidatesReference() throws IOException {
+    assertEquals("db.schema.t1", getById().getFullyQualifiedName());
+
+    // Update the entity and notify the cache, as done by the EntityDAO and the ChangeEventHandler
+    stored.set(reference("db.schema.t1", false).withDescription("updated"));
+    EntityReferenceCache.invalidate(id);
+    assertEquals("updated", getById().getDescription());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void test_rename_doesNotServeOldName() throws IOException {
+    assertEquals(id, getByName("db.schema.t1", Include.NON_DELETED).getId());
+    getByName("db.schema.t1", Include.NON_DELETED);
+    assertEquals(1, loads.get());
+
+    // Rename without invalidating the name index. Lookup by the new name must load the reference again.
+    stored.set(reference("db.schema.t2", false));
+    EntityReferenceCache.invalidate(id);
+    assertEquals("db.schema.t2", getByName("db.schema.t2", Include.NON_DELETED).getFullyQualifiedName());
+    assertEquals(2, loads.get());
+
+    // Old name still maps to the entity id, but the cached reference has a different name and is not served
+    getByName("db.schema.t1", Include.NON_DELETED);
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void test_softDelete_honorsInclude() throws IOException {
+    getByName("db.schema.t1", Include.NON_DELETED);
+    stored.set(reference("db.schema.t1", true));
+    EntityReferenceCache.invalidate(Entity.TABLE, id, "db.schema.t1");
+
+    EntityReference ref = getByName("db.schema.t1", Include.ALL);
+    assertEquals(true, ref.getDeleted());
+    assertEquals(2, loads.get());
+
+    // A cached deleted reference must not be returned for non-deleted lookups
+    getByName("db.schema.t1", Include.NON_DELETED);
+    assertEquals(3, loads.get());
+    getByName("db.schema.t1", Include.DELETED);
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void test_uncommittedWrite_notCached() throws IOException {
+    getById();
+
+    // A request renames the entity and reads its own write before the write is committed
+    CommitCallbacks.begin();
+    stored.set(reference("db.schema.t2", false));
+    EntityReferenceCache.invalidate(Entity.TABLE, id, "db.schema.t1");
+    assertEquals("db.schema.t2", getByName("db.schema.t2", Include.NON_DELETED).getFullyQualifiedName());
+    assertEquals("db.schema.t2", getById().getFullyQualifiedName());
+    assertFalse(EntityReferenceCache.getInstance().isCached(id));
+    assertEquals(3, loads.get());
+
+    // The transaction of the rename is rolled back and the request fails. The reference is loaded and cached again.
+    stored.set(reference("db.schema.t1", false));
+    CommitCallbacks.end();
+    assertEquals("db.schema.t1", getById().getFullyQualifiedName());
+    assertTrue(EntityReferenceCache.getInstance().isCached(id));
+    getById();
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void test_committedWrite_invalidatedOnCompletion() throws IOException {
+    CommitCallbacks.begin();
+    stored.set(reference("db.schema.t1", false).withDescription("updated"));
+    EntityReferenceCache.invalidate(id);
+
+    // A concurrent reader caches the reference committed before the write
+    stored.set(reference("db.schema.t1", false));
+    CompletableFuture.runAsync(
+            () -> {
+              try {
+                getById();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .join();
+    stored.set(reference("db.schema.t1", false).withDescription("updated"));
+    assertTrue(EntityReferenceCache.getInstance().isCached(id));
+
+    CommitCallbacks.end();
+    assertFalse(EntityReferenceCache.getInstance().isCached(id));
+    assertEquals("updated", getById().getDescription());
+    assertTrue(EntityReferenceCache.getInstance().isCached(id));
+  }
+
+  @Test
+  void test_renamedChildren_invalidatedById() throws IOException {
+    UUID tagId = UUID.randomUUID();
+    AtomicReference<String> tagFqn = new AtomicReference<>("Category.Primary.Secondary");
+    EntityReferenceCache.ReferenceLoader loader =
+        () -> {
+          loads.incrementAndGet();
+          return new EntityReference().withId(tagId).withType(Entity.TAG).withFullyQualifiedName(tagFqn.get());
+        };
+    EntityReferenceCache cache = EntityReferenceCache.getInstance();
+    cache.getByName(Entity.TAG, "Category.Primary.Secondary", Include.NON_DELETED, loader);
+    getById(); // A table that is not renamed stays cached
+
+    // The category is renamed by a request, and the tags under it are renamed without going through the entity DAO
+    CommitCallbacks.begin();
+    tagFqn.set("Renamed.Primary.Secondary");
+    EntityReferenceCache.invalidate(tagId);
+    assertFalse(cache.isCached(tagId));
+    assertTrue(cache.isCached(id));
+    EntityReference ref = cache.getByName(Entity.TAG, "Renamed.Primary.Secondary", Include.NON_DELETED, loader);
+    assertEquals("Renamed.Primary.Secondary", ref.getFullyQualifiedName());
+    assertFalse(cache.isCached(tagId)); // Not cached until the request completes
+
+    CommitCallbacks.end();
+    assertEquals("Renamed.Primary.Secondary", cache.getById(Entity.TAG, tagId, loader).getFullyQualifiedName());
+    assertTrue(cache.isCached(tagId));
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void test_disabledCache() {
+    EntityReferenceCache.cleanUp();
+    EntityReferenceCacheConfiguration config = new EntityReferenceCacheConfiguration();
+    config.setEnabled(false);
+    EntityReferenceCache.initialize(config, meterRegistry);
+    assertNull(EntityReferenceCache.getInstance());
+    EntityReferenceCache.invalidate(Entity.TABLE, id, "db.schema.t1"); // No-op when disabled
+  }
+
+  private double getCacheCount(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", "entityReferenceCache.byId")
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+
+  private EntityReference getById() throws IOException {
+    return EntityReferenceCache.getInstance().getById(Entity.TABLE, id, this::load);
+  }
+
+  private EntityReference getByName(String fqn, Include include) throws IOException {
+    return EntityReferenceCache.getInstance().getByName(Entity.TABLE, fqn, include, this::load);
+  }
+
+  private EntityReference load() {
+    loads.incrementAndGet();
+    EntityReference ref = stored.get();
+    return reference(ref.getFullyQualifiedName(), ref.getDeleted()).withDescription(ref.getDescription());
+  }
+
+  private EntityReference reference(String fqn, boolean deleted) {
+    return new EntityReference()
+        .withId(id)
+        .withType(Entity.TABLE)
+        .withName(fqn.substring(fqn.lastIndexOf('.') + 1))
+        .withFullyQualifiedName(fqn)
+        .withDeleted(deleted);
+  }
+}
@@ -30,6 +30,7 @@ import org.openmetadata.service.fernet.Fernet;
 import org.openmetadata.service.resources.CollectionRegistry;
 import org.openmetadata.service.resources.events.WebhookCallbackResource;
 import org.openmetadata.service.security.policyevaluator.PolicyCache;
+import org.openmetadata.service.security.policyevaluator.PolicyDecisionCache;
 import org.openmetadata.service.security.policyevaluator.RoleCache;
 import org.openmetadata.service.security.policyevaluator.SubjectCache;
 import org.testcontainers.containers.JdbcDatabaseContainer;
@@ -99,6 +100,8 @@ public abstract class OpenMetadataApplicationTest {
     SubjectCache.cleanUp();
     PolicyCache.cleanUp();
     RoleCache.cleanUp();
+    PolicyDecisionCache.cleanUp();
+    EntityReferenceCache.cleanUp();
   }
 
   public static Client getClient() {
@@ -0,0 +1,245 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.settings.EventPublisherJob;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionTimeSeriesDAO;
+import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
+import org.openmetadata.service.util.JsonUtils;
+
+/** Tests the bulk indexing of change events against a local HTTP server that implements the _bulk API */
+@Slf4j
+class ElasticSearchEventPublisherTest {
+  private final List<String> bulkRequestUris = Collections.synchronizedList(new ArrayList<>());
+  private final List<List<String>> bulkRequestDocs = Collections.synchronizedList(new ArrayList<>());
+  private final Map<String, Integer> failedDocs = new HashMap<>();
+  private final List<EventPublisherJob> failureUpdates = new ArrayList<>();
+  private HttpServer server;
+  private RestHighLevelClient client;
+  private ElasticSearchEventPublisher publisher;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/_bulk", this::handleBulk);
+    server.start();
+    client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+
+    CollectionDAO dao = mock(CollectionDAO.class);
+    EntityExtensionTimeSeriesDAO timeSeriesDAO = mock(EntityExtensionTimeSeriesDAO.class);
+    when(dao.entityExtensionTimeSeriesDao()).thenReturn(timeSeriesDAO);
+    when(timeSeriesDAO.getExtension(anyString(), anyString()))
+        .thenReturn(JsonUtils.pojoToJson(new EventPublisherJob().withTimestamp(0L)));
+    doAnswer(
+            invocation ->
+                failureUpdates.add(JsonUtils.readValue((String) invocation.getArgument(2), EventPublisherJob.class)))
+        .when(timeSeriesDAO)
+        .update(anyString(), anyString(), anyString(), anyLong());
+    publisher = new ElasticSearchEventPublisher(100, client, dao);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test
+  void test_singleBulkRequestPerBatch() throws IOException {
+    List<ChangeEvent> events = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      events.add(tableEvent(EventType.ENTITY_CREATED, "t" + i));
+    }
+    events.add(tableEvent(EventType.ENTITY_SOFT_DELETED, "t10"));
+    events.add(tableEvent(EventType.ENTITY_DELETED, "t11"));
+
+    publisher.publish(new ChangeEventList(events, null, null, events.size()));
+    assertEquals(1, bulkRequestUris.size());
+    // Refresh policy requested by the delete request is applied to the whole bulk request
+    assertTrue(bulkRequestUris.get(0).contains("refresh=wait_for"), bulkRequestUris.get(0));
+    assertTrue(failureUpdates.isEmpty());
+  }
+
+  @Test
+  void test_failedItemsAreReportedIndividually() throws IOException {
+    List<ChangeEvent> events = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      events.add(tableEvent(EventType.ENTITY_CREATED, "t" + i));
+    }
+    failedDocs.put(events.get(1).getEntityId().toString(), 404);
+    failedDocs.put(events.get(3).getEntityId().toString(), 400);
+
+    publisher.publish(new ChangeEventList(events, null, null, events.size()));
+    assertEquals(1, bulkRequestUris.size());
+    assertEquals(2, failureUpdates.size());
+    assertFailure(failureUpdates.get(0), "t1", "Missing Document while Updating ES");
+    assertFailure(failureUpdates.get(1), "t3", "Failed while updating ES");
+  }
+
+  @Test
+  void test_timedOutItemIsRetried() throws IOException {
+    List<ChangeEvent> events = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      events.add(tableEvent(EventType.ENTITY_CREATED, "t" + i));
+    }
+    String timedOut = events.get(1).getEntityId().toString();
+    failedDocs.put(timedOut, 504);
+
+    ChangeEventList list = new ChangeEventList(events, null, null, events.size());
+    assertThrows(ElasticSearchRetriableException.class, () -> publisher.publish(list));
+    assertEquals(1, failureUpdates.size());
+    assertFailure(failureUpdates.get(0), "t1", "Timeout when updating ES request");
+
+    // The retry publishes the same change events along with a new one. Only the item that timed out is sent again.
+    failedDocs.clear();
+    List<ChangeEvent> retried = new ArrayList<>(events);
+    retried.add(tableEvent(EventType.ENTITY_CREATED, "t3"));
+    publisher.publish(new ChangeEventList(retried, null, null, retried.size()));
+    assertEquals(3, bulkRequestDocs.size());
+    assertEquals(List.of(timedOut), bulkRequestDocs.get(1));
+    assertEquals(List.of(retried.get(3).getEntityId().toString()), bulkRequestDocs.get(2));
+
+    // Once published, the change events are no longer skipped
+    publisher.publish(new ChangeEventList(events, null, null, events.size()));
+    assertEquals(3, bulkRequestDocs.get(3).size());
+  }
+
+  @Test
+  void test_throughput() throws IOException {
+    int batches = 20;
+    int batchSize = 100;
+    long start = System.nanoTime();
+    for (int batch = 0; batch < batches; batch++) {
+      List<ChangeEvent> events = new ArrayList<>();
+      for (int i = 0; i < batchSize; i++) {
+        events.add(tableEvent(EventType.ENTITY_CREATED, "t" + i));
+      }
+      publisher.publish(new ChangeEventList(events, null, null, events.size()));
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    LOG.info(
+        "Published {} change events with {} bulk requests at {} events/second",
+        batches * batchSize,
+        bulkRequestUris.size(),
+        batches * batchSize * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+    assertEquals(batches, bulkRequestUris.size());
+  }
+
+  private static void assertFailure(EventPublisherJob job, String tableName, String reason) {
+    assertEquals(EventPublisherJob.Status.ACTIVEWITHERROR, job.getStatus());
+    assertTrue(job.getFailureDetails().getContext().contains("\"name\":\"" + tableName + "\""));
+    assertTrue(job.getFailureDetails().getLastFailedReason().startsWith(reason));
+  }
+
+  private static ChangeEvent tableEvent(EventType eventType, String name) {
+    EntityReference service = new EntityReference().withId(UUID.randomUUID()).withType(Entity.DATABASE_SERVICE);
+    Table table =
+        new Table()
+            .withId(UUID.randomUUID())
+            .withName(name)
+            .withFullyQualifiedName("service.db.schema." + name)
+            .withService(service.withName("service"))
+            .withDatabase(new EntityReference().withId(UUID.randomUUID()).withType(Entity.DATABASE).withName("db"))
+            .withDatabaseSchema(
+                new EntityReference().withId(UUID.randomUUID()).withType(Entity.DATABASE_SCHEMA).withName("schema"));
+    return new ChangeEvent()
+        .withEventType(eventType)
+        .withEntityType(Entity.TABLE)
+        .withEntityId(table.getId())
+        .withEntity(table)
+        .withCurrentVersion(0.1)
+        .withPreviousVersion(0.1)
+        .withTimestamp(System.currentTimeMillis());
+  }
+
+  /** Responds to each action in the bulk request, failing the documents in {@link #failedDocs} */
+  private void handleBulk(HttpExchange exchange) throws IOException {
+    bulkRequestUris.add(exchange.getRequestURI().toString());
+    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    ObjectNode response = JsonUtils.getObjectNode();
+    ArrayNode items = response.putArray("items");
+    boolean errors = false;
+    List<String> docs = new ArrayList<>();
+    bulkRequestDocs.add(docs);
+    String[] lines = body.split("\n");
+    for (int i = 0; i < lines.length; i++) {
+      JsonNode action = JsonUtils.readTree(lines[i]);
+      String op = action.fieldNames().next();
+      String index = action.get(op).get("_index").asText();
+      String id = action.get(op).get("_id").asText();
+      docs.add(id);
+      if (!op.equals("delete")) {
+        i++; // Skip the document or script of the action
+      }
+      ObjectNode item = items.addObject().putObject(op);
+      item.put("_index", index).put("_type", "_doc").put("_id", id);
+      Integer status = failedDocs.get(id);
+      if (status == null) {
+        item.put("_version", 1).put("result", op.equals("delete") ? "deleted" : "updated");
+        item.putObject("_shards").put("total", 1).put("successful", 1).put("failed", 0);
+        item.put("_seq_no", 0).put("_primary_term", 1).put("status", 200);
+      } else {
+        errors = true;
+        item.put("status", status);
+        item.putObject("error").put("type", "stub_exception").put("reason", "Stub failure with status " + status);
+      }
+    }
+    response.put("took", 1).put("errors", errors);
+
+    byte[] bytes = JsonUtils.pojoToJson(response).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+}
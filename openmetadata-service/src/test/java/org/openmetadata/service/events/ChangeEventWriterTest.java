@@ -0,0 +1,181 @@
+package org.openmetadata.service.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.service.events.ChangeEventWriterConfiguration.OverflowPolicy;
+import org.openmetadata.service.jdbi3.CollectionDAO.ChangeEventDAO;
+
+class ChangeEventWriterTest {
+  private final List<String> rows = Collections.synchronizedList(new ArrayList<>());
+  private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ChangeEventDAO dao = mock(ChangeEventDAO.class);
+
+  @BeforeEach
+  void setUp() {
+    doAnswer(
+            invocation -> {
+              List<String> jsons = invocation.getArgument(0);
+              batchSizes.add(jsons.size());
+              rows.addAll(jsons);
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyList());
+    doAnswer(invocation -> rows.add(invocation.getArgument(0))).when(dao).insert(anyString());
+  }
+
+  @Test
+  void test_ordering_and_drainOnShutdown() throws InterruptedException {
+    ChangeEventWriterConfiguration config = config(10000, OverflowPolicy.BLOCK);
+    config.setMaxDelayInMillis(60000); // Only full batches are written before shutdown
+    ChangeEventWriter writer = new ChangeEventWriter(config, dao, meterRegistry);
+
+    List<String> events = events(1050);
+    events.forEach(writer::write);
+    writer.stop();
+
+    // All the change events are written in order, including the ones still queued at shutdown
+    assertEquals(events, rows);
+    assertTrue(batchSizes.stream().allMatch(size -> size <= config.getBatchSize()));
+    assertTrue(batchSizes.size() < events.size());
+
+    // Change events written after the writer is stopped are inserted directly
+    writer.write("late");
+    assertEquals("late", rows.get(rows.size() - 1));
+  }
+
+  @Test
+  void test_flushAfterMaxDelay() throws InterruptedException {
+    ChangeEventWriter writer = new ChangeEventWriter(config(10000, OverflowPolicy.BLOCK), dao, meterRegistry);
+    events(3).forEach(writer::write);
+    Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> rows.size() == 3);
+    assertEquals(List.of(3), batchSizes);
+    assertEquals(1, meterRegistry.get("changeEventWriter.flushSize").summary().count());
+    writer.stop();
+  }
+
+  @Test
+  void test_noChangeEventIsLostWhenQueueIsFull() throws InterruptedException {
+    for (OverflowPolicy overflowPolicy : OverflowPolicy.values()) {
+      rows.clear();
+      ChangeEventWriter writer = new ChangeEventWriter(config(4, overflowPolicy), dao, meterRegistry);
+      List<String> events = events(2000);
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      events.forEach(event -> executor.execute(() -> writer.write(event)));
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+      assertTrue(writer.awaitWritten(5000));
+      assertEquals(new HashSet<>(events), new HashSet<>(rows), overflowPolicy.toString());
+      assertEquals(events.size(), rows.size(), overflowPolicy.toString());
+      writer.stop();
+    }
+  }
+
+  @Test
+  void test_awaitWritten() throws InterruptedException {
+    ChangeEventWriterConfiguration config = config(10000, OverflowPolicy.BLOCK);
+    config.setMaxDelayInMillis(60000); // Written only when a reader waits for them
+    ChangeEventWriter writer = new ChangeEventWriter(config, dao, meterRegistry);
+    assertTrue(writer.awaitWritten(0)); // Nothing to wait for
+
+    events(3).forEach(writer::write);
+    assertTrue(writer.awaitWritten(5000));
+    assertEquals(events(3), rows);
+
+    // Times out when the writer is blocked writing the change events
+    batchSizes.clear();
+    CountDownLatch release = blockWriter();
+    writer.write("blocked");
+    assertFalse(writer.awaitWritten(100));
+    release.countDown();
+    assertTrue(writer.awaitWritten(5000));
+    assertEquals("blocked", rows.get(rows.size() - 1));
+    writer.stop();
+  }
+
+  @Test
+  void test_callerRunsWhenQueueIsFull() throws InterruptedException {
+    CountDownLatch release = blockWriter();
+    ChangeEventWriter writer = new ChangeEventWriter(config(2, OverflowPolicy.CALLER_RUNS), dao, meterRegistry);
+
+    writer.write("first");
+    Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> batchSizes.size() == 1);
+    events(3).forEach(writer::write); // The last change event is inserted by the caller
+    assertEquals(List.of("event-2"), rows);
+    assertEquals(1.0, meterRegistry.get("changeEventWriter.callerInserts").counter().count());
+
+    release.countDown();
+    writer.stop();
+    assertEquals(List.of("event-2", "first", "event-0", "event-1"), rows);
+  }
+
+  @Test
+  void test_failedBatchIsRetriedOneAtATime() throws InterruptedException {
+    doAnswer(
+            invocation -> {
+              throw new IllegalStateException("Batch insert failed");
+            })
+        .when(dao)
+        .insertBatch(anyList());
+    ChangeEventWriter writer = new ChangeEventWriter(config(10000, OverflowPolicy.BLOCK), dao, meterRegistry);
+    List<String> events = events(5);
+    events.forEach(writer::write);
+    writer.stop();
+    assertEquals(events, rows);
+  }
+
+  /** Block the first batch insert until the returned latch is released */
+  private CountDownLatch blockWriter() {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              List<String> jsons = invocation.getArgument(0);
+              boolean first = batchSizes.isEmpty();
+              batchSizes.add(jsons.size());
+              if (first) {
+                release.await();
+              }
+              rows.addAll(jsons);
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyList());
+    return release;
+  }
+
+  private static ChangeEventWriterConfiguration config(int queueSize, OverflowPolicy overflowPolicy) {
+    ChangeEventWriterConfiguration config = new ChangeEventWriterConfiguration();
+    config.setQueueSize(queueSize);
+    config.setBatchSize(100);
+    config.setMaxDelayInMillis(10);
+    config.setOverflowPolicy(overflowPolicy);
+    return config;
+  }
+
+  private static List<String> events(int count) {
+    return IntStream.range(0, count).mapToObj(i -> "event-" + i).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,198 @@
+package org.openmetadata.service.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lmax.disruptor.EventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.events.EventPubSubConfiguration.OverflowPolicy;
+
+class EventPubSubTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    release.countDown();
+    EventPubSub.shutdown();
+  }
+
+  @Test
+  void test_slowHandlerDoesNotBlockPublishers() throws Exception {
+    EventPubSub.start(config(8, OverflowPolicy.SPILL), meterRegistry);
+    EventPubSub.addEventHandler(
+        "slow",
+        (EventHandler<ChangeEventHolder>)
+            (holder, sequence, endOfBatch) -> {
+              Thread.sleep(1); // Artificially slow event handler
+              received.add(holder.get().getEntityFullyQualifiedName());
+            });
+
+    int threads = 4;
+    int eventsPerThread = 250;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<Long>> maxLatencies = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      String thread = "thread" + t;
+      maxLatencies.add(
+          executorService.submit(
+              () -> {
+                long maxLatency = 0;
+                for (int i = 0; i < eventsPerThread; i++) {
+                  long start = System.nanoTime();
+                  assertTrue(EventPubSub.tryPublish(event(thread + "." + i)));
+                  maxLatency = Math.max(maxLatency, System.nanoTime() - start);
+                }
+                return maxLatency;
+              }));
+    }
+    for (Future<Long> maxLatency : maxLatencies) {
+      // Publishing a change event never waits for the slow event handler
+      assertTrue(maxLatency.get() < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    executorService.shutdown();
+    assertTrue(meterRegistry.get("eventPubSub.spilled").counter().count() > 0);
+    assertTrue(meterRegistry.get("eventPubSub.lag").tag("processor", "slow").gauge().value() > 0);
+
+    // All change events are delivered, in the order they were published by each thread
+    Awaitility.await().atMost(Duration.ofSeconds(30)).until(() -> received.size() == threads * eventsPerThread);
+    for (int t = 0; t < threads; t++) {
+      String prefix = "thread" + t + ".";
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < eventsPerThread; i++) {
+        expected.add(prefix + i);
+      }
+      assertEquals(expected, received.stream().filter(e -> e.startsWith(prefix)).collect(Collectors.toList()));
+    }
+    assertEquals(0.0, meterRegistry.get("eventPubSub.spillQueueDepth").gauge().value());
+    assertEquals(0.0, meterRegistry.get("eventPubSub.dropped").counter().count());
+  }
+
+  @Test
+  void test_dropWhenRingIsFull() {
+    EventPubSub.start(config(4, OverflowPolicy.DROP), meterRegistry);
+    EventPubSub.addEventHandler("blocked", blockedHandler());
+
+    int published = 0;
+    for (int i = 0; i < 10; i++) {
+      published += EventPubSub.tryPublish(event("event" + i)) ? 1 : 0;
+    }
+    // The ring buffer holds 4 change events while the event handler is blocked on the first one
+    assertEquals(4, published);
+    assertEquals(6.0, meterRegistry.get("eventPubSub.dropped").counter().count());
+    assertEquals(0.0, meterRegistry.get("eventPubSub.remainingCapacity").gauge().value());
+    assertEquals(4.0, meterRegistry.get("eventPubSub.lag").tag("processor", "blocked").gauge().value());
+  }
+
+  @Test
+  void test_dropWhenSpillQueueIsFull() {
+    EventPubSubConfiguration config = config(2, OverflowPolicy.SPILL);
+    config.setSpillQueueSize(3);
+    EventPubSub.start(config, meterRegistry);
+    EventPubSub.addEventHandler("blocked", blockedHandler());
+
+    int published = 0;
+    for (int i = 0; i < 10; i++) {
+      published += EventPubSub.tryPublish(event("event" + i)) ? 1 : 0;
+    }
+    // The ring buffer holds 2 change events and the spill queue 3 more
+    assertEquals(5, published);
+    assertEquals(5.0, meterRegistry.get("eventPubSub.dropped").counter().count());
+    assertEquals(5.0, meterRegistry.get("eventPubSub.spillQueueFull").counter().count());
+
+    // The change events that were not dropped are delivered in order
+    release.countDown();
+    Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 5);
+    assertEquals(List.of("event0", "event1", "event2", "event3", "event4"), received);
+  }
+
+  @Test
+  void test_ringSizeIsRoundedUpToPowerOf2() {
+    assertEquals(8, EventPubSub.ringSize(8));
+    assertEquals(8, EventPubSub.ringSize(5));
+    assertEquals(1024, EventPubSub.ringSize(1000));
+
+    EventPubSub.start(config(3, OverflowPolicy.DROP), meterRegistry);
+    assertEquals(4.0, meterRegistry.get("eventPubSub.remainingCapacity").gauge().value());
+  }
+
+  @Test
+  void test_blockWithTimeout() {
+    EventPubSubConfiguration config = config(2, OverflowPolicy.BLOCK);
+    config.setBlockTimeoutInMillis(50);
+    EventPubSub.start(config, meterRegistry);
+    EventPubSub.addEventHandler("blocked", blockedHandler());
+
+    assertTrue(EventPubSub.tryPublish(event("event0")));
+    assertTrue(EventPubSub.tryPublish(event("event1")));
+    long start = System.nanoTime();
+    assertFalse(EventPubSub.tryPublish(event("event2")));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1.0, meterRegistry.get("eventPubSub.dropped").counter().count());
+
+    // Once the event handler catches up, change events are published again
+    release.countDown();
+    Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> received.size() == 2);
+    assertTrue(EventPubSub.tryPublish(event("event3")));
+  }
+
+  @Test
+  void test_publishAllDoesNotDrop() {
+    EventPubSub.start(config(4, OverflowPolicy.DROP), meterRegistry);
+    EventPubSub.addEventHandler("blocked", blockedHandler());
+
+    // Publishing many more change events than the ring buffer holds does not wait for the blocked event handler
+    List<ChangeEvent> events = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      events.add(event("event" + i));
+      expected.add("event" + i);
+    }
+    assertTrue(EventPubSub.publishAll(events));
+
+    release.countDown();
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> received.size() == 100);
+    assertEquals(expected, received);
+    assertEquals(0.0, meterRegistry.get("eventPubSub.dropped").counter().count());
+  }
+
+  private EventHandler<ChangeEventHolder> blockedHandler() {
+    return (holder, sequence, endOfBatch) -> {
+      release.await();
+      received.add(holder.get().getEntityFullyQualifiedName());
+    };
+  }
+
+  private static EventPubSubConfiguration config(int ringSize, OverflowPolicy overflowPolicy) {
+    EventPubSubConfiguration config = new EventPubSubConfiguration();
+    config.setRingSize(ringSize);
+    config.setOverflowPolicy(overflowPolicy);
+    return config;
+  }
+
+  private static ChangeEvent event(String name) {
+    return new ChangeEvent()
+        .withEntityType(Entity.TABLE)
+        .withEntityId(UUID.randomUUID())
+        .withEntityFullyQualifiedName(name);
+  }
+}
@@ -0,0 +1,393 @@
+package org.openmetadata.service.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.ChangeEventDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionTimeSeriesDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.EventOutboxLeaseDAO;
+import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Tests the outbox against an in-memory change_event table, cursor store and lease table in place of the database. The
+ * offset of the change event at index i of the table is i + 1, and change events can be written without being committed
+ * yet.
+ */
+class OutboxEventProcessorTest {
+  private static final String NAME = "publisher";
+  private final long base = System.currentTimeMillis() - 60000;
+  private final List<ChangeEvent> changeEvents = Collections.synchronizedList(new ArrayList<>());
+  private final Set<Long> uncommitted = ConcurrentHashMap.newKeySet();
+  private final Map<String, String> cursors = new ConcurrentHashMap<>();
+  private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final EventOutboxConfiguration config = new EventOutboxConfiguration();
+  private CollectionDAO dao;
+
+  @BeforeEach
+  void setup() {
+    config.setBatchSize(10);
+    config.setPollIntervalInMillis(10);
+    config.setMaxTransactionTimeInMillis(TimeUnit.MINUTES.toMillis(1));
+
+    ChangeEventDAO changeEventDAO = mock(ChangeEventDAO.class);
+    when(changeEventDAO.listAfterOffset(anyLong(), anyInt()))
+        .thenAnswer(i -> listAfterOffset(i.getArgument(0), i.getArgument(1)));
+    when(changeEventDAO.listByOffsets(anyList())).thenAnswer(i -> listByOffsets(i.getArgument(0)));
+    when(changeEventDAO.getFirstOffset(anyLong())).thenAnswer(i -> getFirstOffset(i.getArgument(0)));
+    when(changeEventDAO.getLastOffset()).thenAnswer(i -> changeEvents.isEmpty() ? null : (long) changeEvents.size());
+
+    EntityExtensionTimeSeriesDAO timeSeriesDAO = mock(EntityExtensionTimeSeriesDAO.class);
+    when(timeSeriesDAO.getExtension(anyString(), eq(OutboxEventProcessor.CURSOR_EXTENSION)))
+        .thenAnswer(i -> cursors.get((String) i.getArgument(0)));
+    doAnswer(i -> cursors.put(i.getArgument(0), i.getArgument(3)))
+        .when(timeSeriesDAO)
+        .insert(anyString(), eq(OutboxEventProcessor.CURSOR_EXTENSION), anyString(), anyString());
+    doAnswer(i -> cursors.put(i.getArgument(0), i.getArgument(2)))
+        .when(timeSeriesDAO)
+        .update(anyString(), eq(OutboxEventProcessor.CURSOR_EXTENSION), anyString(), anyLong());
+
+    EventOutboxLeaseDAO leaseDAO = mock(EventOutboxLeaseDAO.class);
+    when(leaseDAO.renew(anyString(), anyString(), anyLong(), anyLong()))
+        .thenAnswer(i -> renew(i.getArgument(0), i.getArgument(1), i.getArgument(2), i.getArgument(3)));
+    when(leaseDAO.insert(anyString(), anyString(), anyLong()))
+        .thenAnswer(i -> insertLease(i.getArgument(0), new Lease(i.getArgument(1), i.getArgument(2))));
+    doAnswer(i -> renew(i.getArgument(0), i.getArgument(1), 0, Long.MIN_VALUE))
+        .when(leaseDAO)
+        .release(anyString(), anyString());
+    when(leaseDAO.requestReplay(anyString(), anyLong()))
+        .thenAnswer(i -> setReplayFrom(i.getArgument(0), i.getArgument(1)));
+    when(leaseDAO.getReplayFrom(anyString())).thenAnswer(i -> leases.get((String) i.getArgument(0)).replayFrom);
+    doAnswer(i -> setReplayFrom(i.getArgument(0), null)).when(leaseDAO).clearReplay(anyString(), anyLong());
+
+    dao = mock(CollectionDAO.class);
+    when(dao.changeEventDAO()).thenReturn(changeEventDAO);
+    when(dao.entityExtensionTimeSeriesDao()).thenReturn(timeSeriesDAO);
+    when(dao.eventOutboxLeaseDAO()).thenReturn(leaseDAO);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void test_resumeAfterCrash() throws IOException {
+    // The cursor persisted before change events had an offset is resumed from its event time
+    saveCursor(base);
+    addEvents(100, 3);
+
+    // The first publisher crashes after delivering 35 change events, in the middle of a page
+    RecordingPublisher first = new RecordingPublisher(35);
+    OutboxEventProcessor processor = start(first);
+    Awaitility.await().dontCatchUncaughtExceptions().atMost(Duration.ofSeconds(10)).until(() -> !processor.isRunning());
+    assertEquals(names(0, 35), first.received);
+    int cursor = (int) readCursor();
+    assertTrue(cursor <= 35);
+
+    // After the restart, the change events are delivered again starting after the persisted cursor
+    RecordingPublisher second = new RecordingPublisher(-1);
+    start(second);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> second.received.size() >= 100 - cursor);
+    assertEquals(names(cursor, 100), second.received);
+    assertEquals(100, readCursor());
+
+    // No change event is lost across the crash
+    List<String> all = new ArrayList<>(first.received);
+    all.addAll(second.received);
+    assertTrue(all.containsAll(names(0, 100)));
+  }
+
+  @Test
+  void test_replayFromTimestamp() throws IOException {
+    saveCursor(base);
+    addEvents(50, 2);
+    RecordingPublisher publisher = new RecordingPublisher(-1);
+    OutboxEventProcessor processor = start(publisher);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 50);
+
+    // Replay from the millisecond of the 21st change event
+    processor.replay(changeEvents.get(20).getTimestamp());
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 80);
+    List<String> expected = names(0, 50);
+    expected.addAll(names(20, 50));
+    assertEquals(expected, publisher.received);
+  }
+
+  @Test
+  void test_changeEventCommittedLateIsDelivered() throws IOException {
+    // The 5th change event is written by a slow transaction, and has an older event time than the ones after it
+    saveCursor(base);
+    addEvents(20, 1);
+    changeEvents.get(4).setTimestamp(base - 1000);
+    uncommitted.add(5L);
+    RecordingPublisher publisher = new RecordingPublisher(-1);
+    OutboxEventProcessor processor = start(publisher);
+
+    // The change events after the missing offset are delivered without waiting for it
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 19);
+    List<String> expected = names(0, 4);
+    expected.addAll(names(5, 20));
+    assertEquals(expected, publisher.received);
+    assertEquals(20, processor.getCursor());
+    assertEquals(List.of(5L), readPersistedCursor().getMissingOffsets());
+
+    // The change event is delivered once committed, and its offset is no longer missing
+    uncommitted.clear();
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 20);
+    expected.add("event4");
+    assertEquals(expected, publisher.received);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> readPersistedCursor().getMissingOffsets() == null);
+    assertEquals(20, readCursor());
+  }
+
+  @Test
+  void test_missingOffsetIsDroppedAfterMaxTransactionTime() throws IOException {
+    // The 5th change event is rolled back, and its offset is never committed
+    config.setMaxTransactionTimeInMillis(100);
+    saveCursor(base);
+    addEvents(20, 1);
+    uncommitted.add(5L);
+    RecordingPublisher publisher = new RecordingPublisher(-1);
+    start(publisher);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 19);
+
+    // The offset is no longer read once it has been missing for longer than a transaction
+    addEvents(1, 1);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 20);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> readPersistedCursor().getMissingOffsets() == null);
+    List<String> expected = names(0, 4);
+    expected.addAll(names(5, 21));
+    assertEquals(expected, publisher.received);
+  }
+
+  @Test
+  void test_onlyTheLeaseHolderDelivers() throws IOException {
+    config.setLeaseDurationInMillis(TimeUnit.MINUTES.toMillis(1));
+    saveCursor(base);
+    addEvents(30, 1);
+    RecordingPublisher first = new RecordingPublisher(-1);
+    RecordingPublisher second = new RecordingPublisher(-1);
+    OutboxEventProcessor firstProcessor = start("server1", first);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> first.received.size() == 30);
+    OutboxEventProcessor secondProcessor = start("server2", second);
+
+    // The server without the lease does not deliver the change events
+    addEvents(10, 1);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> first.received.size() == 40);
+    assertEquals(names(0, 40), first.received);
+    assertTrue(second.received.isEmpty());
+    assertEquals("server1", leases.get(NAME).owner);
+
+    // The lease is released when the server stops, and the other server resumes after the persisted cursor
+    firstProcessor.halt();
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> "server2".equals(leases.get(NAME).owner));
+    addEvents(10, 1);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> second.received.size() == 10);
+    assertEquals(names(40, 50), second.received);
+    assertEquals(40, first.received.size());
+    assertEquals(50, secondProcessor.getCursor());
+  }
+
+  @Test
+  void test_newPublisherStartsFromNow() {
+    addEvents(10, 1);
+    RecordingPublisher publisher = new RecordingPublisher(-1);
+    start(publisher);
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> cursors.containsKey(NAME));
+
+    // Change events from before the publisher was added are not delivered
+    changeEvents.add(event("new", System.currentTimeMillis()));
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> publisher.received.size() == 1);
+    assertEquals(List.of("new"), publisher.received);
+  }
+
+  private OutboxEventProcessor start(RecordingPublisher publisher) {
+    return start("server", publisher);
+  }
+
+  private OutboxEventProcessor start(String server, RecordingPublisher publisher) {
+    OutboxEventProcessor processor = new OutboxEventProcessor(NAME, server, publisher, dao, config);
+    executor.execute(processor);
+    return processor;
+  }
+
+  private List<Pair<Long, String>> listAfterOffset(long after, int limit) throws IOException {
+    List<Pair<Long, String>> rows = new ArrayList<>();
+    synchronized (changeEvents) {
+      for (long offset = after + 1; offset <= changeEvents.size() && rows.size() < limit; offset++) {
+        if (!uncommitted.contains(offset)) {
+          rows.add(Pair.of(offset, JsonUtils.pojoToJson(changeEvents.get((int) offset - 1))));
+        }
+      }
+    }
+    return rows;
+  }
+
+  private List<Pair<Long, String>> listByOffsets(List<Long> offsets) throws IOException {
+    List<Pair<Long, String>> rows = new ArrayList<>();
+    synchronized (changeEvents) {
+      for (long offset : offsets) {
+        if (offset <= changeEvents.size() && !uncommitted.contains(offset)) {
+          rows.add(Pair.of(offset, JsonUtils.pojoToJson(changeEvents.get((int) offset - 1))));
+        }
+      }
+    }
+    return rows;
+  }
+
+  private int renew(String publisher, String owner, long expiresAt, long now) {
+    synchronized (leases) {
+      Lease lease = leases.get(publisher);
+      if (lease == null || (!lease.owner.equals(owner) && lease.expiresAt >= now)) {
+        return 0;
+      }
+      leases.put(publisher, new Lease(owner, expiresAt).withReplayFrom(lease.replayFrom));
+      return 1;
+    }
+  }
+
+  private int insertLease(String publisher, Lease lease) {
+    synchronized (leases) {
+      return leases.putIfAbsent(publisher, lease) == null ? 1 : 0;
+    }
+  }
+
+  private int setReplayFrom(String publisher, Long timestamp) {
+    synchronized (leases) {
+      Lease lease = leases.get(publisher);
+      if (lease == null) {
+        return 0;
+      }
+      lease.withReplayFrom(timestamp);
+      return 1;
+    }
+  }
+
+  private Long getFirstOffset(long eventTime) {
+    Set<Long> offsets = new HashSet<>();
+    synchronized (changeEvents) {
+      for (int i = 0; i < changeEvents.size(); i++) {
+        if (changeEvents.get(i).getTimestamp() >= eventTime && !uncommitted.contains(i + 1L)) {
+          offsets.add(i + 1L);
+        }
+      }
+    }
+    return offsets.stream().min(Long::compare).orElse(null);
+  }
+
+  private void addEvents(int count, int eventsPerMillisecond) {
+    int start = changeEvents.size();
+    long startTime = start == 0 ? base + 1 : changeEvents.get(start - 1).getTimestamp() + 1;
+    for (int i = 0; i < count; i++) {
+      changeEvents.add(event("event" + (start + i), startTime + i / eventsPerMillisecond));
+    }
+  }
+
+  private List<String> names(int from, int to) {
+    List<String> names = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      names.add("event" + i);
+    }
+    return names;
+  }
+
+  private void saveCursor(long timestamp) throws IOException {
+    cursors.put(NAME, JsonUtils.pojoToJson(new OutboxEventProcessor.ChangeEventCursor().withTimestamp(timestamp)));
+  }
+
+  private long readCursor() throws IOException {
+    return readPersistedCursor().getOffset();
+  }
+
+  private OutboxEventProcessor.ChangeEventCursor readPersistedCursor() throws IOException {
+    return JsonUtils.readValue(cursors.get(NAME), OutboxEventProcessor.ChangeEventCursor.class);
+  }
+
+  private static ChangeEvent event(String name, long timestamp) {
+    return new ChangeEvent()
+        .withEventType(EventType.ENTITY_UPDATED)
+        .withEntityType(Entity.TABLE)
+        .withEntityId(UUID.randomUUID())
+        .withEntityFullyQualifiedName(name)
+        .withTimestamp(timestamp);
+  }
+
+  /** Event publisher that records the delivered change events and crashes after the given number of them */
+  private static class RecordingPublisher extends AbstractEventPublisher {
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final int crashAfter;
+
+    RecordingPublisher(int crashAfter) {
+      super(4, null);
+      this.crashAfter = crashAfter;
+    }
+
+    @Override
+    public void publish(ChangeEventList events) {
+      for (ChangeEvent event : events.getData()) {
+        if (received.size() == crashAfter) {
+          throw new Crash();
+        }
+        received.add(event.getEntityFullyQualifiedName());
+      }
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public void onShutdown() {}
+  }
+
+  /** Lease of an event publisher, as stored in the event_outbox_lease table */
+  private static class Lease {
+    private final String owner;
+    private final long expiresAt;
+    private Long replayFrom;
+
+    Lease(String owner, long expiresAt) {
+      this.owner = owner;
+      this.expiresAt = expiresAt;
+    }
+
+    Lease withReplayFrom(Long replayFrom) {
+      this.replayFrom = replayFrom;
+      return this;
+    }
+  }
+
+  /** Stops the event processor thread like a server that stops without shutting down */
+  private static class Crash extends Error {}
+}
@@ -0,0 +1,198 @@
+package org.openmetadata.service.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.common.utils.CommonUtil;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.schema.type.Webhook;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.WebhookDAO;
+import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.RestUtil;
+
+/** Tests the webhook HTTP transport against a local HTTP stub that responds after a delay */
+class WebhookHttpClientTest {
+  private static final long LATENCY_IN_MILLIS = 0;
+  private final ExecutorService serverExecutor = Executors.newFixedThreadPool(64);
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final Map<String, AtomicInteger> inFlightPerWebhook = new ConcurrentHashMap<>();
+  private final AtomicInteger maxInFlightPerWebhook = new AtomicInteger();
+  private final Map<String, List<String>> delivered = new ConcurrentHashMap<>();
+  private final List<String> signatures = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+  private HttpServer server;
+
+  @BeforeEach
+  void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(serverExecutor);
+    server.createContext(
+        "/",
+        exchange -> {
+          String path = exchange.getRequestURI().getPath();
+          AtomicInteger webhookInFlight = inFlightPerWebhook.computeIfAbsent(path, k -> new AtomicInteger());
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          maxInFlightPerWebhook.accumulateAndGet(webhookInFlight.incrementAndGet(), Math::max);
+          try (InputStream body = exchange.getRequestBody()) {
+            String json = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(json);
+            signatures.add(exchange.getRequestHeaders().getFirst(RestUtil.SIGNATURE_HEADER));
+            if (json.contains("\"data\"")) {
+              ChangeEventList list = JsonUtils.readValue(json, ChangeEventList.class);
+              List<String> received = delivered.computeIfAbsent(path, k -> new ArrayList<>());
+              list.getData().forEach(e -> received.add(e.getEntityFullyQualifiedName()));
+            }
+            Thread.sleep(LATENCY_IN_MILLIS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            webhookInFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+          }
+          exchange.sendResponseHeaders(200, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  void test_maxInFlightRequests() throws Exception {
+    WebhookHttpClient client = new WebhookHttpClient(webhook("webhook").withMaxInFlightRequests(3));
+    List<CompletableFuture<HttpResponse<Void>>> futures = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      futures.add(client.post(endpoint("webhook"), "{}", Map.of()));
+    }
+    for (CompletableFuture<HttpResponse<Void>> future : futures) {
+      assertEquals(200, future.join().statusCode());
+    }
+    assertTrue(maxInFlight.get() <= 3, "Requests in flight " + maxInFlight.get());
+    assertTrue(maxInFlight.get() > 1, "Requests are not sent concurrently");
+  }
+
+  @Test
+  void test_signature() throws Exception {
+    WebhookHttpClient client = new WebhookHttpClient(webhook("webhook").withSecretKey("secret"));
+    client.post(endpoint("webhook"), "{\"a\":1}", Map.of()).join();
+    client.post(endpoint("webhook"), "{\"b\":2}", Map.of()).join();
+    assertEquals("sha256=" + CommonUtil.calculateHMAC("secret", bodies.get(0)), signatures.get(0));
+    assertEquals("sha256=" + CommonUtil.calculateHMAC("secret", bodies.get(1)), signatures.get(1));
+
+    // Requests are not signed without a secret key
+    new WebhookHttpClient(webhook("unsigned")).post(endpoint("unsigned"), "{}", Map.of()).join();
+    assertEquals(null, signatures.get(2));
+  }
+
+  @Test
+  void test_publishToManyWebhooks() throws Exception {
+    // Each webhook receives its change events from its own event processor thread, in batches of 10
+    int webhooks = 50;
+    int events = 100;
+    int batchSize = 10;
+    List<Thread> processors = new ArrayList<>();
+    for (int w = 0; w < webhooks; w++) {
+      String name = "webhook" + w;
+      WebhookPublisher publisher = new NoStatusWebhookPublisher(webhook(name).withBatchSize(batchSize));
+      publisher.onStart();
+      processors.add(new Thread(() -> publish(publisher, events)));
+    }
+
+    processors.forEach(Thread::start);
+    for (Thread processor : processors) {
+      processor.join(TimeUnit.SECONDS.toMillis(60));
+      assertFalse(processor.isAlive());
+    }
+
+    // Every webhook receives its change events in order
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < events; i++) {
+      expected.add("event" + i);
+    }
+    for (int w = 0; w < webhooks; w++) {
+      assertEquals(expected, delivered.get("/webhook" + w));
+    }
+
+    // Webhooks are called in parallel, and each webhook receives its batches one at a time
+    assertTrue(maxInFlight.get() > 1, "Webhooks are not called in parallel");
+    assertEquals(1, maxInFlightPerWebhook.get());
+  }
+
+  private static void publish(WebhookPublisher publisher, int events) {
+    ChangeEventHolder holder = new ChangeEventHolder();
+    try {
+      for (int i = 0; i < events; i++) {
+        holder.set(
+            new ChangeEvent()
+                .withEventType(EventType.ENTITY_CREATED)
+                .withEntityType(Entity.TABLE)
+                .withEntityId(UUID.randomUUID())
+                .withEntityFullyQualifiedName("event" + i)
+                .withTimestamp((long) i));
+        publisher.onEvent(holder, i, false);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Webhook webhook(String name) {
+    return new Webhook().withId(UUID.randomUUID()).withName(name).withEndpoint(endpoint(name));
+  }
+
+  private URI endpoint(String name) {
+    return URI.create("http://localhost:" + server.getAddress().getPort() + "/" + name);
+  }
+
+  /** Webhook publisher that does not store the webhook status */
+  private static class NoStatusWebhookPublisher extends WebhookPublisher {
+    NoStatusWebhookPublisher(Webhook webhook) {
+      super(webhook, dao());
+    }
+
+    @Override
+    protected void storeStatus() {
+      /* Nothing to store */
+    }
+
+    private static CollectionDAO dao() {
+      CollectionDAO dao = mock(CollectionDAO.class);
+      when(dao.webhookDAO()).thenReturn(mock(WebhookDAO.class));
+      return dao;
+    }
+  }
+}
@@ -0,0 +1,341 @@
+package org.openmetadata.service.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.schema.type.Webhook;
+import org.openmetadata.schema.type.Webhook.Status;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.events.errors.EventPublisherException;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.WebhookDAO;
+import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
+import org.openmetadata.service.util.JsonUtils;
+
+/** Tests the webhook retries with a controllable clock and scheduler against a local HTTP stub */
+class WebhookPublisherTest {
+  private final ManualClock clock = new ManualClock();
+  private final List<ScheduledTask> tasks = Collections.synchronizedList(new ArrayList<>());
+  private final ConcurrentLinkedQueue<Integer> responses = new ConcurrentLinkedQueue<>();
+  private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger requests = new AtomicInteger();
+  private final List<Webhook> statuses = Collections.synchronizedList(new ArrayList<>());
+  private HttpServer server;
+  private TestWebhookPublisher publisher;
+
+  @BeforeEach
+  void setup() throws IOException {
+    // Local HTTP stub that responds with the queued status codes, and then with 200
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          requests.incrementAndGet();
+          int status = responses.isEmpty() ? 200 : responses.remove();
+          try (InputStream body = exchange.getRequestBody()) {
+            if (status == 200) {
+              ChangeEventList list =
+                  JsonUtils.readValue(new String(body.readAllBytes(), StandardCharsets.UTF_8), ChangeEventList.class);
+              list.getData().forEach(e -> delivered.add(e.getEntityFullyQualifiedName()));
+            }
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    server.start();
+
+    CollectionDAO dao = mock(CollectionDAO.class);
+    when(dao.webhookDAO()).thenReturn(mock(WebhookDAO.class));
+    Webhook webhook =
+        new Webhook()
+            .withId(UUID.randomUUID())
+            .withName("webhook")
+            .withBatchSize(100)
+            .withEndpoint(URI.create("http://localhost:" + server.getAddress().getPort() + "/callback"));
+    publisher = new TestWebhookPublisher(webhook, dao, scheduler());
+    publisher.onStart();
+  }
+
+  @AfterEach
+  void tearDown() {
+    publisher.onShutdown();
+    server.stop(0);
+  }
+
+  @Test
+  void test_retryWithBackoffDoesNotBlock() throws Exception {
+    responses.add(503);
+    responses.add(503);
+
+    // The failed batch is parked for a retry and the event processor is not blocked
+    long start = System.nanoTime();
+    publish(0, 2);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    assertEquals(1, requests.get());
+    assertStatus(Status.AWAITING_RETRY, 3000, 2);
+
+    // Change events received during the backoff are queued behind the failed batch without calling the webhook
+    publish(2, 6);
+    assertEquals(1, requests.get());
+    assertEquals(6, publisher.getRetryQueueDepth());
+    assertTrue(publisher.hasPendingEvents());
+
+    // Nothing is retried before the backoff with jitter expires
+    clock.advance(2000);
+    runDueTasks();
+    assertEquals(1, requests.get());
+
+    // The retry fails again and the next attempt is scheduled with the next backoff
+    clock.advance(1600);
+    runDueTasks();
+    assertEquals(2, requests.get());
+    assertStatus(Status.AWAITING_RETRY, 30000, 6);
+
+    // The retry succeeds and the rest of the retry queue is delivered in order
+    clock.advance(36000);
+    runDueTasks();
+    assertEquals(List.of("event0", "event1", "event2", "event3", "event4", "event5"), delivered);
+    assertEquals(0, publisher.getRetryQueueDepth());
+    assertFalse(publisher.hasPendingEvents());
+    Webhook last = statuses.get(statuses.size() - 1);
+    assertEquals(Status.ACTIVE, last.getStatus());
+    assertNull(last.getFailureDetails().getRetryQueueDepth());
+
+    // Change events are delivered directly again
+    publish(6, 8);
+    assertEquals(List.of("event6", "event7"), delivered.subList(6, 8));
+  }
+
+  @Test
+  void test_eventsAreDroppedWhenRetryQueueIsFull() throws Exception {
+    int max = AbstractEventPublisher.MAX_RETRY_QUEUE_SIZE;
+    responses.add(500);
+    publish(0, max);
+    assertEquals(max, publisher.getRetryQueueDepth());
+
+    // The event processor is not blocked, the batch that doesn't fit in the retry queue is dropped
+    publish(max, max + 2);
+    assertEquals(max, publisher.getRetryQueueDepth());
+    assertEquals(2, publisher.getDroppedEvents());
+    assertTrue(publisher.hasPendingEvents());
+
+    // The change events in the retry queue are delivered and the next ones are delivered directly
+    clock.advance(3600);
+    runDueTasks();
+    assertEquals(max, delivered.size());
+    assertFalse(publisher.hasPendingEvents());
+    publish(max + 2, max + 3);
+    assertEquals("event" + (max + 2), delivered.get(delivered.size() - 1));
+    assertEquals(2, publisher.getDroppedEvents());
+  }
+
+  @Test
+  void test_failedMessagesAreRetried() throws Exception {
+    publisher.messages = true;
+    responses.add(200);
+    responses.add(503);
+
+    // Only the change event whose message failed is parked for a retry
+    publish(0, 3);
+    assertEquals(3, requests.get());
+    assertEquals(List.of("event0", "event2"), delivered);
+    assertEquals(1, publisher.getRetryQueueDepth());
+    assertStatus(Status.AWAITING_RETRY, 3000, 1);
+
+    // Change events received during the backoff are queued behind it
+    publish(3, 4);
+    assertEquals(3, requests.get());
+    assertEquals(2, publisher.getRetryQueueDepth());
+
+    // The message of the first change event fails again and is retried with the next backoff
+    responses.add(503);
+    clock.advance(3600);
+    runDueTasks();
+    assertEquals(5, requests.get());
+    assertEquals(List.of("event0", "event2", "event3"), delivered);
+    assertEquals(1, publisher.getRetryQueueDepth());
+    assertStatus(Status.AWAITING_RETRY, 30000, 1);
+
+    clock.advance(36000);
+    runDueTasks();
+    assertEquals(List.of("event0", "event2", "event3", "event1"), delivered);
+    assertFalse(publisher.hasPendingEvents());
+  }
+
+  @Test
+  void test_stopRetries() throws Exception {
+    responses.add(500);
+    publish(0, 4);
+    assertEquals(4, publisher.getRetryQueueDepth());
+
+    publisher.stopRetries();
+    assertEquals(0, publisher.getRetryQueueDepth());
+    clock.advance(TimeUnit.DAYS.toMillis(1));
+    runDueTasks();
+    assertEquals(1, requests.get());
+    assertTrue(delivered.isEmpty());
+  }
+
+  private void publish(int from, int to) throws Exception {
+    ChangeEventHolder holder = new ChangeEventHolder();
+    for (int i = from; i < to; i++) {
+      holder.set(
+          new ChangeEvent()
+              .withEventType(EventType.ENTITY_CREATED)
+              .withEntityType(Entity.TABLE)
+              .withEntityId(UUID.randomUUID())
+              .withEntityFullyQualifiedName("event" + i)
+              .withTimestamp((long) i));
+      publisher.onEvent(holder, i, i == to - 1);
+    }
+  }
+
+  private void assertStatus(Status status, long backoff, int retryQueueDepth) {
+    Webhook last = statuses.get(statuses.size() - 1);
+    assertEquals(status, last.getStatus());
+    // The next attempt is after the backoff with up to 20% jitter
+    long nextAttempt = last.getFailureDetails().getNextAttempt();
+    assertTrue(nextAttempt >= clock.millis() + backoff * 0.8 && nextAttempt <= clock.millis() + backoff * 1.2);
+    assertEquals(nextAttempt, publisher.getNextAttempt());
+    assertEquals(retryQueueDepth, last.getFailureDetails().getRetryQueueDepth());
+  }
+
+  /** Run the first scheduled task that is due */
+  private void runDueTask() {
+    ScheduledTask due = null;
+    synchronized (tasks) {
+      for (Iterator<ScheduledTask> it = tasks.iterator(); it.hasNext(); ) {
+        ScheduledTask task = it.next();
+        if (task.dueTime <= clock.millis()) {
+          it.remove();
+          if (!task.cancelled) {
+            due = task;
+          }
+          break;
+        }
+      }
+    }
+    if (due != null) {
+      due.runnable.run();
+    }
+  }
+
+  private void runDueTasks() {
+    while (tasks.stream().anyMatch(t -> t.dueTime <= clock.millis())) {
+      runDueTask();
+    }
+  }
+
+  private ScheduledExecutorService scheduler() {
+    ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+        .thenAnswer(
+            i -> {
+              ScheduledTask task =
+                  new ScheduledTask(
+                      i.getArgument(0), clock.millis() + ((TimeUnit) i.getArgument(2)).toMillis(i.getArgument(1)));
+              tasks.add(task);
+              ScheduledFuture<?> future = mock(ScheduledFuture.class);
+              when(future.cancel(false)).thenAnswer(c -> task.cancelled = true);
+              return future;
+            });
+    return scheduler;
+  }
+
+  private static class ScheduledTask {
+    private final Runnable runnable;
+    private final long dueTime;
+    private volatile boolean cancelled;
+
+    ScheduledTask(Runnable runnable, long dueTime) {
+      this.runnable = runnable;
+      this.dueTime = dueTime;
+    }
+  }
+
+  private static class ManualClock extends Clock {
+    private volatile long millis = 1_000_000;
+
+    void advance(long delta) {
+      millis += delta;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+
+  /**
+   * Records the webhook status instead of storing it. Publishes a message per change event, as the publishers for chat
+   * applications do, when {@link #messages} is set.
+   */
+  private class TestWebhookPublisher extends WebhookPublisher {
+    private boolean messages;
+
+    TestWebhookPublisher(Webhook webhook, CollectionDAO dao, ScheduledExecutorService scheduler) {
+      super(webhook, dao, scheduler, WebhookPublisherTest.this.clock);
+    }
+
+    @Override
+    public void publish(ChangeEventList list) throws EventPublisherException, IOException, InterruptedException {
+      if (messages) {
+        publishMessages(list.getData(), event -> new ChangeEventList(List.of(event), null, null, 1));
+      } else {
+        super.publish(list);
+      }
+    }
+
+    @Override
+    protected void storeStatus() throws IOException {
+      statuses.add(JsonUtils.readValue(JsonUtils.pojoToJson(getWebhook()), Webhook.class));
+    }
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.openmetadata.schema.type.Relationship.CONTAINS;
+import static org.openmetadata.service.Entity.ADMIN_USER_NAME;
+import static org.openmetadata.service.jdbi3.InMemoryDatabase.entity;
+import static org.openmetadata.service.jdbi3.InMemoryDatabase.key;
+
+import com.lmax.disruptor.EventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.awaitility.Awaitility;
+import org.jdbi.v3.sqlobject.transaction.TransactionalConsumer;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.type.ChangeDescription;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.TypeRegistry;
+import org.openmetadata.service.events.EventPubSub;
+import org.openmetadata.service.events.EventPubSub.ChangeEventHolder;
+import org.openmetadata.service.events.EventPubSubConfiguration;
+import org.openmetadata.service.events.EventPubSubConfiguration.OverflowPolicy;
+import org.openmetadata.service.util.EntityUtil;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Tests the queries and transactions of the cascading delete of a database service hierarchy, with the DAOs backed by
+ * in-memory tables. The rows left by the cascading delete and restore are compared with the recursive implementation on
+ * the database by EntityCascadeResourceTest.
+ */
+class EntityCascadeTest {
+  private static final String TABLE_ENTITY = "table_entity";
+  private final InMemoryDatabase db = new InMemoryDatabase();
+  private UUID serviceId;
+
+  @Test
+  void test_changeEventsArePublishedAfterCommit() throws Exception {
+    // The ring buffer is much smaller than the number of change events, and full change events would be dropped
+    EventPubSubConfiguration config = new EventPubSubConfiguration();
+    config.setRingSize(8);
+    config.setOverflowPolicy(OverflowPolicy.DROP);
+    EventPubSub.start(config, new SimpleMeterRegistry());
+    List<String> published = Collections.synchronizedList(new ArrayList<>());
+    EventPubSub.addEventHandler(
+        "cascade",
+        (EventHandler<ChangeEventHolder>)
+            (holder, sequence, endOfBatch) -> published.add(holder.get().getEntityFullyQualifiedName()));
+    try {
+      EntityCascadeTest cascade = new EntityCascadeTest().withHierarchy(2, 3, 20);
+      // Each chunk is published when its transaction commits, without waiting for the end of the request
+      CommitCallbacks.begin();
+      new EntityCascade(cascade.daoCollection()).delete(cascade.serviceId, ADMIN_USER_NAME, false);
+      List<String> expected = new ArrayList<>();
+      for (String json : cascade.db.changeEvents) {
+        expected.add(JsonUtils.readValue(json, ChangeEvent.class).getEntityFullyQualifiedName());
+      }
+      Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> published.size() == expected.size());
+      assertEquals(expected, published);
+    } finally {
+      CommitCallbacks.end();
+      EventPubSub.shutdown();
+    }
+  }
+
+  @Test
+  void test_deleteInChunkTransactions() throws Exception {
+    // 2 databases, 6 schemas and 1200 tables in the service
+    withHierarchy(2, 3, 200);
+    CollectionDAO daoCollection = daoCollection();
+    db.transactionCount.set(0);
+    new EntityCascade(daoCollection).delete(serviceId, ADMIN_USER_NAME, true);
+
+    // One transaction per chunk of each entity type: 3 chunks of tables, 1 of schemas and 1 of databases
+    assertEquals(5, db.transactionCount.get());
+    assertEquals(1, db.entities.values().stream().mapToInt(Map::size).sum());
+    assertChangeEvents(db.changeEvents, EventType.ENTITY_DELETED, 2 + 2 * 3 + 2 * 3 * 200);
+
+    // A failed chunk is rolled back, the chunks committed before it stay deleted and deleting again deletes the rest
+    EntityCascadeTest failing = new EntityCascadeTest().withHierarchy(1, 1, 1200);
+    CollectionDAO failingDAO = failing.daoCollection();
+    AtomicInteger transactions = new AtomicInteger();
+    doAnswer(
+            i -> {
+              if (transactions.incrementAndGet() == 2) {
+                throw new IllegalStateException("Chunk rolled back");
+              }
+              failing.db.transaction.run(failingDAO, i.<TransactionalConsumer<CollectionDAO, ?>>getArgument(0));
+              return null;
+            })
+        .when(failingDAO)
+        .useTransaction(any(TransactionalConsumer.class));
+    EntityCascade cascade = new EntityCascade(failingDAO);
+    assertThrows(IllegalStateException.class, () -> cascade.delete(failing.serviceId, ADMIN_USER_NAME, true));
+    assertEquals(1200 - 500, failing.db.entities.get(TABLE_ENTITY).size());
+    assertEquals(500, failing.db.changeEvents.size());
+    cascade.delete(failing.serviceId, ADMIN_USER_NAME, true);
+    assertEquals(1, failing.db.entities.values().stream().mapToInt(Map::size).sum());
+  }
+
+  @Test
+  void test_deleteLargeHierarchy() throws Exception {
+    // 10 databases, 100 schemas and 10000 tables in the service
+    withHierarchy(10, 10, 100);
+    CollectionDAO daoCollection = daoCollection();
+    db.queryCount.set(0);
+    new EntityCascade(daoCollection).delete(serviceId, ADMIN_USER_NAME, false);
+    int softDeleteQueries = db.queryCount.get();
+
+    db.queryCount.set(0);
+    new EntityCascade(daoCollection).delete(serviceId, ADMIN_USER_NAME, true);
+    int hardDeleteQueries = db.queryCount.get();
+
+    // The recursive delete of a database with 1 schema and 100 tables, for comparison
+    EntityCascadeTest recursive = new EntityCascadeTest().withHierarchy(1, 1, 100);
+    recursive.db.queryCount.set(0);
+    RecursiveCascade.deleteRecursively(Entity.DATABASE_SERVICE, recursive.serviceId, false);
+    int recursiveQueries = recursive.db.queryCount.get();
+
+    assertEquals(1, db.entities.values().stream().mapToInt(Map::size).sum());
+    // Tables are loaded and deleted in batches, databases and schemas still set their fields one at a time
+    assertTrue(softDeleteQueries < 2000, "Soft delete queries " + softDeleteQueries);
+    assertTrue(hardDeleteQueries < 2000, "Hard delete queries " + hardDeleteQueries);
+    assertTrue(recursiveQueries > 20 * 102, "Recursive delete queries " + recursiveQueries);
+  }
+
+  private static void assertChangeEvents(List<String> jsons, EventType eventType, int count) throws Exception {
+    assertEquals(count, jsons.size());
+    for (String json : jsons) {
+      ChangeEvent event = JsonUtils.readValue(json, ChangeEvent.class);
+      assertEquals(eventType, event.getEventType());
+      assertTrue(event.getEntity() instanceof String);
+    }
+  }
+
+  /** A database service with databases, schemas and tables, and another service that is not deleted */
+  private EntityCascadeTest withHierarchy(int databases, int schemas, int tables) throws Exception {
+    daoCollection();
+    DatabaseService service = entity(new DatabaseService(), "mysql", "mysql");
+    serviceId = service.getId();
+    db.store("dbservice_entity", service);
+    for (int d = 0; d < databases; d++) {
+      Database database = entity(new Database(), "db" + d, "mysql.db" + d);
+      db.store("database_entity", database);
+      db.addRelationship(service.getId(), Entity.DATABASE_SERVICE, database.getId(), Entity.DATABASE, CONTAINS);
+      for (int s = 0; s < schemas; s++) {
+        DatabaseSchema schema = entity(new DatabaseSchema(), "schema" + s, database.getFullyQualifiedName() + ".s" + s);
+        schema.setDatabase(reference(database, Entity.DATABASE));
+        db.store("database_schema_entity", schema);
+        db.addRelationship(database.getId(), Entity.DATABASE, schema.getId(), Entity.DATABASE_SCHEMA, CONTAINS);
+        for (int t = 0; t < tables; t++) {
+          addTable(schema, t);
+        }
+      }
+    }
+    // Lineage to a table of another service, that is not deleted with the service
+    db.fieldRelationships.add("otherService.db.schema.table.c0");
+    return this;
+  }
+
+  private void addTable(DatabaseSchema schema, int t) throws Exception {
+    String fqn = schema.getFullyQualifiedName() + ".t" + t;
+    Table table = entity(new Table(), "t" + t, fqn);
+    table.setDatabaseSchema(reference(schema, Entity.DATABASE_SCHEMA));
+    table.setDatabase(schema.getDatabase());
+    table.setExtension(Map.of("rows", 100));
+    table.setColumns(
+        List.of(
+            new Column().withName("c0").withDataType(ColumnDataType.INT).withFullyQualifiedName(fqn + ".c0"),
+            new Column().withName("c1").withDataType(ColumnDataType.STRING).withFullyQualifiedName(fqn + ".c1")));
+    if (t % 5 == 0) {
+      // Table with a previous version
+      table.setDescription("description");
+      table.setVersion(0.2);
+      table.setChangeDescription(new ChangeDescription().withPreviousVersion(0.1));
+      Table previous = JsonUtils.readValue(JsonUtils.pojoToJson(table), Table.class);
+      previous.withDescription(null).withVersion(0.1).withChangeDescription(null);
+      String versionKey = key(table.getId(), EntityUtil.getVersionExtension(Entity.TABLE, 0.1));
+      db.extensions.put(versionKey, JsonUtils.pojoToJson(previous));
+      db.extensionSchemas.put(versionKey, Entity.TABLE);
+    }
+    if (t % 7 == 0) {
+      table.setDeleted(true);
+    }
+    db.store(TABLE_ENTITY, table);
+    db.addRelationship(schema.getId(), Entity.DATABASE_SCHEMA, table.getId(), Entity.TABLE, CONTAINS);
+    db.addTag(fqn, "PII.Sensitive", TagSource.TAG, LabelType.MANUAL);
+    db.addTag(fqn + ".c0", "Tier.Tier1", TagSource.TAG, LabelType.MANUAL);
+    db.extensions.put(key(table.getId(), TypeRegistry.getCustomPropertyFQN(Entity.TABLE, "rows")), "100");
+    db.fieldRelationships.add(fqn + ".c0");
+    db.usage.add(table.getId().toString());
+  }
+
+  private static EntityReference reference(EntityInterface entity, String entityType) {
+    return new EntityReference()
+        .withId(entity.getId())
+        .withType(entityType)
+        .withName(entity.getName())
+        .withFullyQualifiedName(entity.getFullyQualifiedName())
+        .withDeleted(false);
+  }
+
+  /** Repositories backed by the in-memory tables of this test, registered as the repositories of their entity */
+  private CollectionDAO daoCollection() {
+    CollectionDAO daoCollection = db.daoCollection();
+    new DatabaseServiceRepository(daoCollection);
+    new DatabaseRepository(daoCollection);
+    new DatabaseSchemaRepository(daoCollection);
+    new TableRepository(daoCollection);
+    return daoCollection;
+  }
+}
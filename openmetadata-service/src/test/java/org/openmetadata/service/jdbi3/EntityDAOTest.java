@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.Include;
+import org.openmetadata.service.exception.EntityNotFoundException;
+import org.openmetadata.service.jdbi3.CollectionDAO.TableDAO;
+import org.openmetadata.service.util.JsonUtils;
+
+@Slf4j
+class EntityDAOTest {
+  /** Simulated database round trip for each query issued by the DAO */
+  private static final long QUERY_LATENCY_MICROS = 200;
+
+  private final Map<String, String> jsonById = new HashMap<>();
+  private final Map<String, String> jsonByName = new HashMap<>();
+  private final List<UUID> ids = new ArrayList<>();
+  private final AtomicInteger queryCount = new AtomicInteger();
+  private TableDAO dao;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    for (int i = 0; i < 1000; i++) {
+      Table table =
+          new Table().withId(UUID.randomUUID()).withName("t" + i).withFullyQualifiedName("service.db.schema.t" + i);
+      String json = JsonUtils.pojoToJson(table);
+      jsonById.put(table.getId().toString(), json);
+      jsonByName.put(table.getFullyQualifiedName(), json);
+      ids.add(table.getId());
+    }
+    Collections.shuffle(ids);
+
+    dao = mock(TableDAO.class, CALLS_REAL_METHODS);
+    doAnswer(
+            invocation -> {
+              List<String> batch = invocation.getArgument(1);
+              return query(batch, jsonById);
+            })
+        .when(dao)
+        .findByIds(anyString(), anyList(), anyString());
+    doAnswer(
+            invocation -> {
+              List<String> batch = invocation.getArgument(2);
+              return query(batch, jsonByName);
+            })
+        .when(dao)
+        .findByNames(anyString(), anyString(), anyList(), anyString());
+    doAnswer(
+            invocation ->
+                query(List.of((String) invocation.getArgument(1)), jsonById).stream().findFirst().orElse(null))
+        .when(dao)
+        .findById(anyString(), anyString(), any());
+  }
+
+  @Test
+  void test_findEntitiesByIds_preservesOrder() throws IOException {
+    List<UUID> requested = new ArrayList<>(ids.subList(0, 10));
+    requested.add(requested.get(0)); // Duplicate ids are returned in each of their positions
+
+    List<Table> tables = dao.findEntitiesByIds(requested, Include.NON_DELETED);
+    assertEquals(requested, tables.stream().map(Table::getId).collect(Collectors.toList()));
+    assertEquals(1, queryCount.get());
+  }
+
+  @Test
+  void test_findEntitiesByNames_preservesOrder() throws IOException {
+    List<String> names = List.of("service.db.schema.t7", "service.db.schema.t3", "service.db.schema.t5");
+    List<Table> tables = dao.findEntitiesByNames(names, Include.NON_DELETED);
+    assertEquals(names, tables.stream().map(Table::getFullyQualifiedName).collect(Collectors.toList()));
+    assertEquals(1, queryCount.get());
+  }
+
+  @Test
+  void test_findEntitiesByIds_missingEntity() {
+    List<UUID> requested = List.of(ids.get(0), UUID.randomUUID());
+    assertThrows(EntityNotFoundException.class, () -> dao.findEntitiesByIds(requested, Include.NON_DELETED));
+  }
+
+  @Test
+  void test_findEntitiesByIds_empty() throws IOException {
+    assertEquals(List.of(), dao.findEntitiesByIds(List.of(), Include.NON_DELETED));
+    assertEquals(0, queryCount.get());
+  }
+
+  @Test
+  void test_findEntitiesByIds_queryCountAndLatency() throws IOException {
+    for (int count : List.of(10, 100, 1000)) {
+      List<UUID> requested = ids.subList(0, count);
+
+      queryCount.set(0);
+      long start = System.nanoTime();
+      for (UUID id : requested) {
+        dao.findEntityById(id, Include.NON_DELETED);
+      }
+      long perIdMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+      int perIdQueries = queryCount.get();
+
+      queryCount.set(0);
+      start = System.nanoTime();
+      dao.findEntitiesByIds(requested, Include.NON_DELETED);
+      long bulkMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+      int bulkQueries = queryCount.get();
+
+      LOG.info(
+          "{} references: per-id lookup {} queries in {} us, bulk lookup {} queries in {} us",
+          count,
+          perIdQueries,
+          perIdMicros,
+          bulkQueries,
+          bulkMicros);
+      assertEquals(count, perIdQueries);
+      assertEquals((count + EntityDAO.IN_CLAUSE_BATCH_SIZE - 1) / EntityDAO.IN_CLAUSE_BATCH_SIZE, bulkQueries);
+    }
+  }
+
+  private List<String> query(List<String> keys, Map<String, String> table) throws InterruptedException {
+    queryCount.incrementAndGet();
+    TimeUnit.MICROSECONDS.sleep(QUERY_LATENCY_MICROS);
+    return keys.stream().map(table::get).filter(json -> json != null).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.openmetadata.schema.type.Relationship.CONTAINS;
+import static org.openmetadata.service.jdbi3.InMemoryDatabase.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.exception.CatalogExceptionMessage;
+import org.openmetadata.service.exception.EntityNotFoundException;
+
+/** Relationships of a page of entities fetched in bulk, as used by list operations */
+class EntityRepositoryBulkTest {
+  private final InMemoryDatabase db = new InMemoryDatabase();
+  private final List<DatabaseSchema> schemas = new ArrayList<>();
+  private final List<Table> tables = new ArrayList<>();
+  private DatabaseSchemaRepository schemaRepository;
+  private TableRepository tableRepository;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    CollectionDAO daoCollection = db.daoCollection();
+    new DatabaseRepository(daoCollection);
+    schemaRepository = new DatabaseSchemaRepository(daoCollection);
+    tableRepository = new TableRepository(daoCollection);
+
+    Database database = entity(new Database(), "db", "mysql.db");
+    db.store("database_entity", database);
+    for (int s = 0; s < 2; s++) {
+      DatabaseSchema schema = entity(new DatabaseSchema(), "s" + s, "mysql.db.s" + s);
+      db.store("database_schema_entity", schema);
+      db.addRelationship(database.getId(), Entity.DATABASE, schema.getId(), Entity.DATABASE_SCHEMA, CONTAINS);
+      schemas.add(schema);
+      for (int t = 0; t < 3; t++) {
+        Table table = entity(new Table(), "t" + t, schema.getFullyQualifiedName() + ".t" + t);
+        db.store("table_entity", table);
+        db.addRelationship(schema.getId(), Entity.DATABASE_SCHEMA, table.getId(), Entity.TABLE, CONTAINS);
+        tables.add(table);
+      }
+    }
+  }
+
+  @Test
+  void test_findFromInBulk() throws Exception {
+    Map<UUID, List<EntityReference>> containers = tableRepository.findFromInBulk(tables, CONTAINS, null);
+    assertEquals(tables.size(), containers.size());
+    for (int i = 0; i < tables.size(); i++) {
+      assertEquals(List.of(schemas.get(i / 3).getId()), ids(containers.get(tables.get(i).getId())));
+    }
+  }
+
+  @Test
+  void test_findToInBulk() throws Exception {
+    Map<UUID, List<EntityReference>> contained = schemaRepository.findToInBulk(schemas, CONTAINS, Entity.TABLE);
+    assertEquals(schemas.size(), contained.size());
+    for (int s = 0; s < schemas.size(); s++) {
+      List<UUID> expected =
+          tables.subList(s * 3, s * 3 + 3).stream().map(Table::getId).sorted().collect(Collectors.toList());
+      assertEquals(expected, ids(contained.get(schemas.get(s).getId())));
+    }
+  }
+
+  @Test
+  void test_missingEntityIsNotFound() throws Exception {
+    // A relationship with a schema whose row no longer exists
+    UUID missingSchema = UUID.randomUUID();
+    db.addRelationship(missingSchema, Entity.DATABASE_SCHEMA, tables.get(0).getId(), Entity.TABLE, CONTAINS);
+    EntityNotFoundException exception =
+        assertThrows(EntityNotFoundException.class, () -> tableRepository.findFromInBulk(tables, CONTAINS, null));
+    assertEquals(CatalogExceptionMessage.entityNotFound(Entity.DATABASE_SCHEMA, missingSchema), exception.getMessage());
+
+    // A relationship with a table whose row no longer exists
+    UUID missingTable = UUID.randomUUID();
+    db.addRelationship(schemas.get(1).getId(), Entity.DATABASE_SCHEMA, missingTable, Entity.TABLE, CONTAINS);
+    exception =
+        assertThrows(
+            EntityNotFoundException.class, () -> schemaRepository.findToInBulk(schemas, CONTAINS, Entity.TABLE));
+    assertEquals(CatalogExceptionMessage.entityNotFound(Entity.TABLE, missingTable), exception.getMessage());
+  }
+
+  private static List<UUID> ids(List<EntityReference> refs) {
+    return refs.stream().map(EntityReference::getId).sorted().collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.data.GlossaryTerm;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.tags.Tag;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.exception.EntityNotFoundException;
+import org.openmetadata.service.jdbi3.CollectionDAO.GlossaryTermDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.TagDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.TagUsageDAO;
+import org.openmetadata.service.jdbi3.locator.ConnectionAwareAnnotationSqlLocator;
+import org.openmetadata.service.util.JsonUtils;
+
+/** Tests applying tags to tables, counting the queries issued for the tags and the tag usage */
+class EntityRepositoryTagsTest {
+  private final Map<String, String> tags = new HashMap<>();
+  private final Map<String, String> terms = new HashMap<>();
+  // Tag usage as stored in the database, by target FQN
+  private final Map<String, List<TagLabel>> tagUsage = new HashMap<>();
+  private final AtomicInteger queryCount = new AtomicInteger();
+  private TagDAO tagDAO;
+  private GlossaryTermDAO glossaryTermDAO;
+  private TagUsageDAO tagUsageDAO;
+  private TableRepository repository;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      addTag("PII.tag" + i);
+      addTag("Tier.Tier" + i);
+      addTerm("glossary.term" + i);
+    }
+    // Tags of the glossary terms, that are derived by the targets tagged with the terms
+    tagUsage.put("glossary.term0", List.of(label("PII.tag0", TagSource.TAG), label("Tier.Tier0", TagSource.TAG)));
+    tagUsage.put("glossary.term1", List.of(label("PII.tag0", TagSource.TAG), label("PII.tag1", TagSource.TAG)));
+
+    tagDAO = mock(TagDAO.class, CALLS_REAL_METHODS);
+    doAnswer(invocation -> query(invocation.getArgument(2), tags))
+        .when(tagDAO)
+        .findByNames(anyString(), anyString(), anyList(), anyString());
+    doAnswer(invocation -> query(List.of((String) invocation.getArgument(2)), tags).stream().findFirst().orElse(null))
+        .when(tagDAO)
+        .findByName(anyString(), anyString(), anyString(), anyString());
+    glossaryTermDAO = mock(GlossaryTermDAO.class, CALLS_REAL_METHODS);
+    doAnswer(invocation -> query(invocation.getArgument(2), terms))
+        .when(glossaryTermDAO)
+        .findByNames(anyString(), anyString(), anyList(), anyString());
+    doAnswer(invocation -> query(List.of((String) invocation.getArgument(2)), terms).stream().findFirst().orElse(null))
+        .when(glossaryTermDAO)
+        .findByName(anyString(), anyString(), anyString(), anyString());
+
+    tagUsageDAO = mock(TagUsageDAO.class);
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              List<Pair<String, TagLabel>> result = new ArrayList<>();
+              for (String target : (List<String>) invocation.getArgument(0)) {
+                tagUsage.getOrDefault(target, List.of()).forEach(t -> result.add(Pair.of(target, copy(t))));
+              }
+              return result;
+            })
+        .when(tagUsageDAO)
+        .getTagsBatch(anyList());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              List<Integer> sources = invocation.getArgument(0);
+              List<String> tagFQNs = invocation.getArgument(1);
+              List<String> targetFQNs = invocation.getArgument(2);
+              for (int i = 0; i < tagFQNs.size(); i++) {
+                TagLabel tagLabel = label(tagFQNs.get(i), TagSource.values()[sources.get(i)]);
+                tagUsage.computeIfAbsent(targetFQNs.get(i), k -> new ArrayList<>()).add(tagLabel);
+              }
+              return null;
+            })
+        .when(tagUsageDAO)
+        .applyTags(anyList(), anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              return null;
+            })
+        .when(tagUsageDAO)
+        .applyTag(anyInt(), anyString(), anyString(), anyInt(), anyInt());
+
+    CollectionDAO dao = mock(CollectionDAO.class);
+    when(dao.tableDAO()).thenReturn(mock(CollectionDAO.TableDAO.class, CALLS_REAL_METHODS));
+    when(dao.tagDAO()).thenReturn(tagDAO);
+    when(dao.glossaryTermDAO()).thenReturn(glossaryTermDAO);
+    when(dao.tagUsageDAO()).thenReturn(tagUsageDAO);
+    repository = new TableRepository(dao);
+  }
+
+  @Test
+  void test_derivedTagsFromGlossaryTerms() {
+    List<TagLabel> column1 = List.of(label("glossary.term0", TagSource.GLOSSARY), label("PII.tag0", TagSource.TAG));
+    List<TagLabel> column2 =
+        List.of(label("glossary.term1", TagSource.GLOSSARY), label("glossary.term0", TagSource.GLOSSARY));
+    List<TagLabel> column3 = List.of(label("Tier.Tier5", TagSource.TAG));
+    List<TagLabel> allTags = new ArrayList<>(column1);
+    allTags.addAll(column2);
+    allTags.addAll(column3);
+
+    // The tags of all the glossary terms are read with one query
+    Map<String, List<TagLabel>> derivedTags = repository.getDerivedTags(allTags);
+    assertEquals(1, queryCount.get());
+    List<TagLabel> derived1 = repository.addDerivedTags(column1, derivedTags);
+    List<TagLabel> derived2 = repository.addDerivedTags(column2, derivedTags);
+    List<TagLabel> derived3 = repository.addDerivedTags(column3, derivedTags);
+    assertEquals(1, queryCount.get());
+
+    // The manual tag is kept when the same tag is also derived from a glossary term
+    assertTags(List.of("PII.tag0:Manual", "Tier.Tier0:Derived", "glossary.term0:Manual"), derived1);
+    assertTags(
+        List.of(
+            "PII.tag0:Derived",
+            "PII.tag1:Derived",
+            "Tier.Tier0:Derived",
+            "glossary.term0:Manual",
+            "glossary.term1:Manual"),
+        derived2);
+    assertTags(List.of("Tier.Tier5:Manual"), derived3);
+
+    // Each list has its own copy of the derived tags, with the same result as adding the derived tags to one list
+    assertNotSame(find(derived1, "Tier.Tier0"), find(derived2, "Tier.Tier0"));
+    assertEquals(derived2, repository.addDerivedTags(column2));
+  }
+
+  @Test
+  void test_applyTagsToWideTable() {
+    for (int columns : List.of(50, 500)) {
+      Table table = wideTable(columns);
+
+      // Apply the tags one label at a time, as done before the batch path
+      tagUsage.clear();
+      queryCount.set(0);
+      applyTagsPerLabel(table.getTags(), table.getFullyQualifiedName());
+      table.getColumns().forEach(c -> applyTagsPerLabel(c.getTags(), c.getFullyQualifiedName()));
+      int perLabelQueries = queryCount.get();
+
+      tagUsage.clear();
+      queryCount.set(0);
+      repository.applyTags(table);
+      int batchQueries = queryCount.get();
+
+      assertEquals(2 * (3 * columns + 1), perLabelQueries);
+      // One query for the tags, one for the glossary terms and one batch for the tag usage
+      assertEquals(3, batchQueries);
+
+      // Every label is applied to its target, with the description of the tag or glossary term
+      assertEquals(columns + 1, tagUsage.size());
+      for (Column column : table.getColumns()) {
+        assertEquals(3, tagUsage.get(column.getFullyQualifiedName()).size());
+        column.getTags().forEach(t -> assertEquals("description of " + t.getTagFQN(), t.getDescription()));
+      }
+      assertEquals(
+          List.of("Tier.Tier1"),
+          tagUsage.get(table.getFullyQualifiedName()).stream().map(TagLabel::getTagFQN).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void test_applyTagsWithMissingTag() {
+    Table table = wideTable(10);
+    table.getColumns().get(5).getTags().add(label("PII.missing", TagSource.TAG));
+    assertThrows(EntityNotFoundException.class, () -> repository.applyTags(table));
+    assertTrue(tagUsage.keySet().stream().noneMatch(target -> target.startsWith("service.db.schema.wide")));
+  }
+
+  @Test
+  void test_applyTagsBatchSqlForEachConnection() throws Exception {
+    java.lang.reflect.Method method =
+        TagUsageDAO.class.getMethod("applyTags", List.class, List.class, List.class, List.class, List.class);
+    String mysql = new ConnectionAwareAnnotationSqlLocator("com.mysql.cj.jdbc.Driver").locate(null, method, null);
+    String postgres = new ConnectionAwareAnnotationSqlLocator("org.postgresql.Driver").locate(null, method, null);
+    assertTrue(mysql.startsWith("INSERT IGNORE INTO tag_usage"));
+    assertTrue(postgres.endsWith("ON CONFLICT (source, tagFQN, targetFQN) DO NOTHING"));
+  }
+
+  /** Tags of each column as applied by the earlier implementation, one lookup and one insert for each label */
+  private void applyTagsPerLabel(List<TagLabel> tagLabels, String targetFQN) {
+    for (TagLabel tagLabel : tagLabels) {
+      if (tagLabel.getSource() == TagSource.TAG) {
+        tagLabel.withDescription(tagDAO.findEntityByName(tagLabel.getTagFQN()).getDescription());
+      } else {
+        tagLabel.withDescription(glossaryTermDAO.findEntityByName(tagLabel.getTagFQN()).getDescription());
+      }
+      tagUsageDAO.applyTag(
+          tagLabel.getSource().ordinal(),
+          tagLabel.getTagFQN(),
+          targetFQN,
+          tagLabel.getLabelType().ordinal(),
+          tagLabel.getState().ordinal());
+    }
+  }
+
+  private Table wideTable(int columnCount) {
+    String tableFQN = "service.db.schema.wide" + columnCount;
+    List<Column> columns = new ArrayList<>();
+    for (int i = 0; i < columnCount; i++) {
+      List<TagLabel> columnTags = new ArrayList<>();
+      columnTags.add(label("PII.tag" + (i % 20), TagSource.TAG));
+      columnTags.add(label("Tier.Tier" + (i % 20), TagSource.TAG));
+      columnTags.add(label("glossary.term" + (i % 20), TagSource.GLOSSARY));
+      columns.add(
+          new Column()
+              .withName("c" + i)
+              .withFullyQualifiedName(tableFQN + ".c" + i)
+              .withDataType(ColumnDataType.INT)
+              .withTags(columnTags));
+    }
+    return new Table()
+        .withName("wide" + columnCount)
+        .withFullyQualifiedName(tableFQN)
+        .withColumns(columns)
+        .withTags(new ArrayList<>(List.of(label("Tier.Tier1", TagSource.TAG))));
+  }
+
+  private List<String> query(List<String> keys, Map<String, String> table) {
+    queryCount.incrementAndGet();
+    return keys.stream().map(table::get).filter(json -> json != null).collect(Collectors.toList());
+  }
+
+  private void addTag(String fqn) throws Exception {
+    Tag tag = new Tag().withName(fqn).withFullyQualifiedName(fqn).withDescription("description of " + fqn);
+    tags.put(fqn, JsonUtils.pojoToJson(tag));
+  }
+
+  private void addTerm(String fqn) throws Exception {
+    GlossaryTerm term =
+        new GlossaryTerm().withName(fqn).withFullyQualifiedName(fqn).withDescription("description of " + fqn);
+    terms.put(fqn, JsonUtils.pojoToJson(term));
+  }
+
+  private static void assertTags(List<String> expected, List<TagLabel> actual) {
+    assertEquals(
+        expected,
+        actual.stream().map(t -> t.getTagFQN() + ":" + t.getLabelType().value()).collect(Collectors.toList()));
+  }
+
+  private static TagLabel find(List<TagLabel> tagLabels, String tagFQN) {
+    return tagLabels.stream().filter(t -> t.getTagFQN().equals(tagFQN)).findFirst().orElseThrow();
+  }
+
+  private static TagLabel label(String tagFQN, TagSource source) {
+    return new TagLabel().withTagFQN(tagFQN).withSource(source).withLabelType(LabelType.MANUAL);
+  }
+
+  private static TagLabel copy(TagLabel tagLabel) {
+    return label(tagLabel.getTagFQN(), tagLabel.getSource()).withLabelType(tagLabel.getLabelType());
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.ChangeDescription;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.FieldChange;
+import org.openmetadata.schema.type.TableType;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecord;
+import org.openmetadata.service.util.EntityUtil;
+import org.openmetadata.service.util.JsonUtils;
+
+/** Tests that every previous version of a table is rebuilt from the version history stored as patches */
+@Slf4j
+class EntityVersionHistoryTest {
+  private final Random random = new Random(11);
+  // Stored rows by extension name, with the keys of the JSON ordered as the database orders them
+  private final Map<String, ExtensionRecord> rows = new TreeMap<>();
+  private final AtomicInteger queryCount = new AtomicInteger();
+  private final UUID tableId = UUID.randomUUID();
+  private EntityExtensionDAO dao;
+
+  @BeforeEach
+  void setUp() {
+    EntityVersionHistory.clearCache();
+    dao = mock(EntityExtensionDAO.class);
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              String extension = invocation.getArgument(1);
+              rows.put(
+                  extension,
+                  new ExtensionRecord(extension, invocation.getArgument(2), normalize(invocation.getArgument(3))));
+              return null;
+            })
+        .when(dao)
+        .insert(anyString(), anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              List<String> extensions = invocation.getArgument(1);
+              List<String> jsonSchemas = invocation.getArgument(2);
+              List<String> jsons = invocation.getArgument(3);
+              for (int i = 0; i < extensions.size(); i++) {
+                rows.put(
+                    extensions.get(i),
+                    new ExtensionRecord(extensions.get(i), jsonSchemas.get(i), normalize(jsons.get(i))));
+              }
+              return null;
+            })
+        .when(dao)
+        .insertVersions(anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              List<String> extensions = invocation.getArgument(1);
+              return extensions.stream().map(rows::get).filter(Objects::nonNull).collect(Collectors.toList());
+            })
+        .when(dao)
+        .getVersions(anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              String prefix = invocation.getArgument(1) + ".";
+              return rows.entrySet().stream()
+                  .filter(e -> e.getKey().startsWith(prefix))
+                  .map(Map.Entry::getValue)
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .getVersionHistory(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              queryCount.incrementAndGet();
+              String extension = invocation.getArgument(1);
+              ExtensionRecord row = rows.get(extension);
+              if (row == null || !row.getJsonSchema().equals(invocation.getArgument(2))) {
+                return 0;
+              }
+              rows.put(
+                  extension,
+                  new ExtensionRecord(extension, invocation.getArgument(3), normalize(invocation.getArgument(4))));
+              return 1;
+            })
+        .when(dao)
+        .replaceWithPatch(anyString(), anyString(), anyString(), anyString(), anyString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    EntityVersionHistory.clearCache();
+  }
+
+  @Test
+  void test_rebuildEveryVersion() throws Exception {
+    List<Table> versions = generateVersions(200, 100);
+    for (Table version : versions.subList(0, versions.size() - 1)) {
+      EntityVersionHistory.storeVersion(dao, Entity.TABLE, version);
+    }
+    assertHistory(versions);
+
+    // Rebuilding a version applies at most 9 patches
+    List<Double> stored = rows.keySet().stream().map(EntityUtil::getVersion).sorted().collect(Collectors.toList());
+    int patches = 0;
+    for (Double version : stored) {
+      boolean isPatch = EntityVersionHistory.isPatch(rows.get(extension(version)));
+      patches = isPatch ? patches + 1 : 0;
+      assertTrue(patches < EntityVersionHistory.SNAPSHOT_INTERVAL);
+    }
+    assertFalse(EntityVersionHistory.isPatch(rows.get(extension(stored.get(stored.size() - 1)))));
+  }
+
+  @Test
+  void test_compactExistingVersions() throws Exception {
+    List<Table> versions = generateVersions(60, 50);
+
+    // Versions stored in full before the history was stored as patches
+    for (Table version : versions.subList(0, 40)) {
+      dao.insert(tableId.toString(), extension(version.getVersion()), Entity.TABLE, JsonUtils.pojoToJson(version));
+    }
+    int snapshots = 0;
+    for (int i = 0; i < 39; i++) {
+      snapshots +=
+          EntityVersionHistory.isSnapshot(versions.get(i).getVersion(), versions.get(i + 1).getVersion()) ? 1 : 0;
+    }
+    assertEquals(39 - snapshots, EntityVersionHistory.compact(dao, Entity.TABLE, tableId));
+    assertEquals(0, EntityVersionHistory.compact(dao, Entity.TABLE, tableId));
+    assertHistory(versions.subList(0, 41));
+
+    // New versions are added after the compacted versions
+    for (Table version : versions.subList(40, versions.size() - 1)) {
+      EntityVersionHistory.storeVersion(dao, Entity.TABLE, version);
+    }
+    assertHistory(versions);
+  }
+
+  @Test
+  void test_storageAndWriteQueries() throws Exception {
+    List<Table> versions = generateVersions(201, 200);
+
+    // Full copy of every version, as stored before the history was stored as patches
+    for (Table version : versions.subList(0, 200)) {
+      dao.insert(tableId.toString(), extension(version.getVersion()), Entity.TABLE, JsonUtils.pojoToJson(version));
+    }
+    int fullQueries = queryCount.get();
+    long fullBytes = storedBytes();
+
+    // Writing a version and the patch of the version before it takes the same single statement
+    rows.clear();
+    queryCount.set(0);
+    for (Table version : versions.subList(0, 200)) {
+      EntityVersionHistory.storeVersion(dao, Entity.TABLE, version);
+    }
+    long patchBytes = storedBytes();
+    LOG.info("200 versions of a table with 200 columns: full copies {} bytes, patches {} bytes", fullBytes, patchBytes);
+    assertEquals(fullQueries, queryCount.get());
+    assertTrue(patchBytes * 4 < fullBytes);
+    assertHistory(versions);
+  }
+
+  @Test
+  void test_previousVersionIsReadWhenNotCached() throws Exception {
+    List<Table> versions = generateVersions(4, 10);
+    for (int i = 1; i < versions.size(); i++) { // Minor versions only, so that no version is kept in full
+      versions.get(i).setVersion(EntityUtil.nextVersion(versions.get(i - 1).getVersion()));
+      versions.get(i).getChangeDescription().setPreviousVersion(versions.get(i - 1).getVersion());
+    }
+    EntityVersionHistory.storeVersion(dao, Entity.TABLE, versions.get(0));
+
+    // Last updated by another server
+    EntityVersionHistory.clearCache();
+    queryCount.set(0);
+    EntityVersionHistory.storeVersion(dao, Entity.TABLE, versions.get(1));
+    assertEquals(2, queryCount.get());
+    assertTrue(EntityVersionHistory.isPatch(rows.get(extension(versions.get(0).getVersion()))));
+
+    // An update that is rolled back leaves the cache unchanged
+    Map<String, ExtensionRecord> committed = new TreeMap<>(rows);
+    CollectionDAO daoCollection = new InMemoryDatabase().daoCollection();
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            CommitCallbacks.useTransaction(
+                daoCollection,
+                tx -> {
+                  EntityVersionHistory.storeVersion(dao, Entity.TABLE, versions.get(2));
+                  throw new IllegalStateException("Rolled back");
+                }));
+    rows.clear();
+    rows.putAll(committed);
+    queryCount.set(0);
+    EntityVersionHistory.storeVersion(dao, Entity.TABLE, versions.get(2));
+    assertEquals(1, queryCount.get());
+    assertHistory(versions);
+  }
+
+  @Test
+  void test_largeArraysAreDiffedByPosition() throws Exception {
+    int columnCount = (int) Math.sqrt(EntityVersionHistory.MAX_ALIGNMENT_SIZE) + 10;
+    List<Table> versions = generateVersions(1, columnCount);
+    Table table = versions.get(0);
+    for (int i = 1; i < 4; i++) {
+      Table updated = JsonUtils.readValue(JsonUtils.pojoToJson(table), Table.class);
+      List<Column> columns = updated.getColumns();
+      columns.add(0, column("first" + i)); // Shifts every column
+      columns.get(columns.size() - 1).setDescription("last " + i);
+      updated
+          .withVersion(EntityUtil.nextVersion(table.getVersion()))
+          .withChangeDescription(new ChangeDescription().withPreviousVersion(table.getVersion()));
+      versions.add(updated);
+      table = updated;
+    }
+    for (Table version : versions.subList(0, versions.size() - 1)) {
+      EntityVersionHistory.storeVersion(dao, Entity.TABLE, version);
+    }
+    assertHistory(versions);
+  }
+
+  /** Every stored version is rebuilt as the JSON of the entity when the version was stored */
+  private void assertHistory(List<Table> versions) throws Exception {
+    List<Table> previous = new ArrayList<>(versions.subList(0, versions.size() - 1));
+    List<ExtensionRecord> records = dao.getVersionHistory(tableId.toString(), "table.version");
+    List<String> history = EntityVersionHistory.listVersions(records, Table.class);
+    assertEquals(previous.size(), history.size());
+    for (int i = 0; i < previous.size(); i++) {
+      Table expected = previous.get(previous.size() - 1 - i);
+      String expectedJson = JsonUtils.pojoToJson(expected);
+      ExtensionRecord stored = rows.get(extension(expected.getVersion()));
+      String actual = history.get(i);
+      if (EntityVersionHistory.isPatch(stored)) {
+        assertEquals(expectedJson, actual); // Rebuilt versions are written in the order of the entity class
+      } else {
+        assertEquals(stored.getExtensionJson(), actual); // Full copies are returned as stored in the database
+      }
+      assertEquals(expectedJson, JsonUtils.pojoToJson(JsonUtils.readValue(actual, Table.class)));
+
+      // A version is rebuilt from the versions of its major version only
+      List<String> extensions = EntityVersionHistory.getVersionExtensions(Entity.TABLE, expected.getVersion());
+      assertTrue(extensions.size() <= EntityVersionHistory.SNAPSHOT_INTERVAL);
+      List<ExtensionRecord> versionRecords = dao.getVersions(tableId.toString(), extensions);
+      assertEquals(actual, EntityVersionHistory.getVersion(versionRecords, expected.getVersion(), Table.class));
+    }
+  }
+
+  /** Generate versions of a table, where each version changes the table or its columns */
+  private List<Table> generateVersions(int count, int columnCount) throws Exception {
+    List<Column> columns = new ArrayList<>();
+    for (int i = 0; i < columnCount; i++) {
+      columns.add(column("c" + i));
+    }
+    Table table =
+        new Table()
+            .withId(tableId)
+            .withName("wide")
+            .withFullyQualifiedName("service.db.schema.wide")
+            .withDescription("description")
+            .withTableType(TableType.Regular)
+            .withColumns(columns)
+            .withVersion(0.1)
+            .withUpdatedBy("admin")
+            .withUpdatedAt(1000L);
+    List<Table> versions = new ArrayList<>();
+    versions.add(table);
+    for (int i = 1; i < count; i++) {
+      Table original = versions.get(i - 1);
+      Table updated = JsonUtils.readValue(JsonUtils.pojoToJson(original), Table.class);
+      String field = mutate(updated, i);
+      Double version =
+          random.nextInt(10) == 0
+              ? EntityUtil.nextMajorVersion(original.getVersion())
+              : EntityUtil.nextVersion(original.getVersion());
+      updated
+          .withVersion(version)
+          .withUpdatedAt(original.getUpdatedAt() + 1000)
+          .withUpdatedBy("user" + random.nextInt(5))
+          .withChangeDescription(
+              new ChangeDescription()
+                  .withPreviousVersion(original.getVersion())
+                  .withFieldsUpdated(List.of(new FieldChange().withName(field).withNewValue("v" + i))));
+      versions.add(updated);
+    }
+    return versions;
+  }
+
+  private String mutate(Table table, int i) {
+    List<Column> columns = table.getColumns();
+    Column column = columns.get(random.nextInt(columns.size()));
+    switch (random.nextInt(7)) {
+      case 0:
+        table.setDescription("description " + i);
+        return "description";
+      case 1:
+        column.setDescription("column description " + i);
+        return "columns.description";
+      case 2:
+        columns.add(random.nextInt(columns.size() + 1), column("new" + i));
+        return "columns";
+      case 3:
+        columns.remove(column);
+        return "columns";
+      case 4:
+        List<TagLabel> tags = column.getTags() == null ? new ArrayList<>() : column.getTags();
+        tags.add(new TagLabel().withTagFQN("PII.tag" + i).withSource(TagLabel.TagSource.TAG));
+        column.setTags(tags);
+        return "columns.tags";
+      case 5:
+        table.setOwner(new EntityReference().withId(UUID.randomUUID()).withType(Entity.USER).withName("u" + i));
+        return "owner";
+      default:
+        column.setDataType(ColumnDataType.values()[random.nextInt(ColumnDataType.values().length)]);
+        column.setDataTypeDisplay(column.getDataType().value().toLowerCase());
+        return "columns.dataType";
+    }
+  }
+
+  private Column column(String name) {
+    return new Column()
+        .withName(name)
+        .withFullyQualifiedName("service.db.schema.wide." + name)
+        .withDataType(ColumnDataType.VARCHAR)
+        .withDataLength(255)
+        .withDataTypeDisplay("varchar(255)")
+        .withDescription("description of " + name)
+        .withOrdinalPosition(random.nextInt(1000));
+  }
+
+  private String extension(Double version) {
+    return EntityUtil.getVersionExtension(Entity.TABLE, version);
+  }
+
+  private long storedBytes() {
+    return rows.values().stream().mapToLong(row -> row.getExtensionJson().length()).sum();
+  }
+
+  /** Order the keys of the JSON objects by length and then by name, as MySQL and Postgres store them */
+  private static String normalize(String json) throws Exception {
+    return normalizeNode(JsonUtils.readTree(json)).toString();
+  }
+
+  private static JsonNode normalizeNode(JsonNode node) {
+    if (node.isObject()) {
+      ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+      List<String> names = new ArrayList<>();
+      node.fieldNames().forEachRemaining(names::add);
+      names.sort(Comparator.comparing(String::length).thenComparing(Comparator.naturalOrder()));
+      names.forEach(name -> sorted.set(name, normalizeNode(node.get(name))));
+      return sorted;
+    } else if (node.isArray()) {
+      for (int i = 0; i < node.size(); i++) {
+        ((ArrayNode) node).set(i, normalizeNode(node.get(i)));
+      }
+    }
+    return node;
+  }
+}
@@ -0,0 +1,835 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jdbi.v3.sqlobject.transaction.TransactionalConsumer;
+import org.mockito.stubbing.Answer;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.State;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionTimeSeriesDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecord;
+import org.openmetadata.service.jdbi3.CollectionDAO.ExtensionRecordWithId;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * In-memory tables behind mocked DAOs, for the tests of the repositories that are about the queries they issue. Each
+ * DAO method counts as one query in {@link #queryCount}, and a DAO method that is not implemented here fails the test.
+ */
+class InMemoryDatabase {
+  /** Default answer of the mocked DAOs, which only implements the default methods of the DAO interfaces */
+  static final Answer<Object> UNSUPPORTED =
+      invocation -> {
+        if (invocation.getMethod().isDefault()) {
+          return invocation.callRealMethod();
+        }
+        throw new UnsupportedOperationException(invocation.getMethod().toString());
+      };
+
+  final AtomicInteger queryCount = new AtomicInteger();
+  /** Number of transactions run with {@link CollectionDAO#useTransaction} */
+  final AtomicInteger transactionCount = new AtomicInteger();
+  /** Handle of the transactions run with {@link CollectionDAO#useTransaction} */
+  final MockTransaction transaction = new MockTransaction();
+  /** Rows of the entity tables by id, by table name */
+  final Map<String, Map<String, String>> entities = new TreeMap<>();
+
+  final Set<Relation> relationships = new TreeSet<>();
+  /** Rows of entity_extension by {@link #key} */
+  final TreeMap<String, String> extensions = new TreeMap<>();
+
+  final Map<String, String> extensionSchemas = new HashMap<>();
+  /** Rows of tag_usage as {@code targetFQN|tagFQN|source|labelType} */
+  final TreeSet<String> tagUsage = new TreeSet<>();
+
+  final Set<String> fieldRelationships = new TreeSet<>();
+  final Set<String> usage = new TreeSet<>();
+  final List<String> changeEvents = new ArrayList<>();
+  /** Rows of entity_extension_time_series as {@code entityFQN|extension|timestamp} */
+  final Map<String, String> timeSeries = new TreeMap<>();
+
+  private final Map<String, Map<String, String>> idsByName = new HashMap<>();
+  private CollectionDAO daoCollection;
+
+  /** The DAOs backed by the tables of this database */
+  CollectionDAO daoCollection() {
+    if (daoCollection != null) {
+      return daoCollection;
+    }
+    CollectionDAO.DatabaseServiceDAO dbServiceDAO = entityDAO(CollectionDAO.DatabaseServiceDAO.class);
+    CollectionDAO.DatabaseDAO databaseDAO = entityDAO(CollectionDAO.DatabaseDAO.class);
+    CollectionDAO.DatabaseSchemaDAO databaseSchemaDAO = entityDAO(CollectionDAO.DatabaseSchemaDAO.class);
+    CollectionDAO.TableDAO tableDAO = entityDAO(CollectionDAO.TableDAO.class);
+    CollectionDAO.TagDAO tagDAO = entityDAO(CollectionDAO.TagDAO.class);
+    CollectionDAO.GlossaryTermDAO glossaryTermDAO = entityDAO(CollectionDAO.GlossaryTermDAO.class);
+    CollectionDAO.EntityRelationshipDAO relationshipDAO = relationshipDAO();
+    CollectionDAO.EntityExtensionDAO extensionDAO = extensionDAO();
+    EntityExtensionTimeSeriesDAO timeSeriesDAO = timeSeriesDAO();
+    CollectionDAO.TagUsageDAO tagUsageDAO = tagUsageDAO();
+    CollectionDAO.FieldRelationshipDAO fieldRelationshipDAO = fieldRelationshipDAO();
+    CollectionDAO.UsageDAO usageDAO = usageDAO();
+    CollectionDAO.ChangeEventDAO changeEventDAO = changeEventDAO();
+    daoCollection = mock(CollectionDAO.class);
+    when(daoCollection.dbServiceDAO()).thenReturn(dbServiceDAO);
+    when(daoCollection.databaseDAO()).thenReturn(databaseDAO);
+    when(daoCollection.databaseSchemaDAO()).thenReturn(databaseSchemaDAO);
+    when(daoCollection.tableDAO()).thenReturn(tableDAO);
+    when(daoCollection.tagDAO()).thenReturn(tagDAO);
+    when(daoCollection.glossaryTermDAO()).thenReturn(glossaryTermDAO);
+    when(daoCollection.relationshipDAO()).thenReturn(relationshipDAO);
+    when(daoCollection.entityExtensionDAO()).thenReturn(extensionDAO);
+    when(daoCollection.entityExtensionTimeSeriesDao()).thenReturn(timeSeriesDAO);
+    when(daoCollection.tagUsageDAO()).thenReturn(tagUsageDAO);
+    when(daoCollection.fieldRelationshipDAO()).thenReturn(fieldRelationshipDAO);
+    when(daoCollection.usageDAO()).thenReturn(usageDAO);
+    when(daoCollection.changeEventDAO()).thenReturn(changeEventDAO);
+    doAnswer(
+            i -> {
+              transactionCount.incrementAndGet();
+              transaction.run(daoCollection, i.<TransactionalConsumer<CollectionDAO, ?>>getArgument(0));
+              return null;
+            })
+        .when(daoCollection)
+        .useTransaction(any(TransactionalConsumer.class));
+    transaction.stubHandle(daoCollection);
+    return daoCollection;
+  }
+
+  /**
+   * The rows of all the tables. Timestamps of the updates are removed so that the same changes made at different times
+   * result in the same state.
+   */
+  Map<String, Object> state() throws IOException {
+    Map<String, Object> state = new TreeMap<>();
+    for (Map.Entry<String, Map<String, String>> table : entities.entrySet()) {
+      Map<String, String> rows = new TreeMap<>();
+      for (Map.Entry<String, String> row : table.getValue().entrySet()) {
+        ObjectNode node = (ObjectNode) JsonUtils.readTree(row.getValue());
+        node.remove("updatedAt");
+        rows.put(row.getKey(), node.toString());
+      }
+      state.put(table.getKey(), rows);
+    }
+    state.put("entity_relationship", relationships.stream().map(Relation::toString).collect(Collectors.toList()));
+    state.put("entity_extension", new TreeMap<>(extensions));
+    state.put("tag_usage", new TreeSet<>(tagUsage));
+    state.put("field_relationship", new TreeSet<>(fieldRelationships));
+    state.put("entity_usage", new TreeSet<>(usage));
+    return state;
+  }
+
+  /** An entity with an id derived from its fully qualified name */
+  static <T extends EntityInterface> T entity(T entity, String name, String fqn) {
+    entity.setId(UUID.nameUUIDFromBytes(fqn.getBytes(StandardCharsets.UTF_8)));
+    entity.setName(name);
+    entity.setFullyQualifiedName(fqn);
+    entity.setVersion(0.1);
+    entity.setUpdatedBy("creator");
+    entity.setUpdatedAt(1L);
+    entity.setDeleted(false);
+    return entity;
+  }
+
+  static String key(Object id, String extension) {
+    return id + "|" + extension;
+  }
+
+  void store(String table, EntityInterface entity) throws IOException {
+    insert(table, JsonUtils.pojoToJson(entity));
+  }
+
+  void addRelationship(UUID fromId, String fromEntity, UUID toId, String toEntity, Relationship relation) {
+    relationships.add(new Relation(fromId, fromEntity, toId, toEntity, relation.ordinal()));
+  }
+
+  void addTag(String targetFQN, String tagFQN, TagSource source, LabelType labelType) {
+    tagUsage.add(targetFQN + "|" + tagFQN + "|" + source.ordinal() + "|" + labelType.ordinal());
+  }
+
+  List<TagLabel> getTags(String targetFQN) {
+    return tagUsage.subSet(targetFQN + "|", targetFQN + "|\uffff").stream()
+        .map(t -> t.substring(targetFQN.length() + 1).split("\\|"))
+        .map(
+            t ->
+                new TagLabel()
+                    .withTagFQN(t[0])
+                    .withSource(TagSource.values()[Integer.parseInt(t[1])])
+                    .withLabelType(LabelType.values()[Integer.parseInt(t[2])])
+                    .withState(State.CONFIRMED))
+        .collect(Collectors.toList());
+  }
+
+  private void query() {
+    queryCount.incrementAndGet();
+  }
+
+  private Map<String, String> rows(String table) {
+    return entities.computeIfAbsent(table, k -> new TreeMap<>());
+  }
+
+  private Map<String, String> ids(String table) {
+    return idsByName.computeIfAbsent(table, k -> new HashMap<>());
+  }
+
+  private void insert(String table, String json) throws IOException {
+    String id = JsonUtils.readTree(json).get("id").asText();
+    put(table, id, json);
+  }
+
+  private void put(String table, String id, String json) throws IOException {
+    remove(table, id);
+    rows(table).put(id, json);
+    ids(table).put(JsonUtils.readTree(json).get("fullyQualifiedName").asText(), id);
+  }
+
+  private boolean remove(String table, String id) throws IOException {
+    String json = rows(table).remove(id);
+    if (json == null) {
+      return false;
+    }
+    ids(table).remove(JsonUtils.readTree(json).get("fullyQualifiedName").asText());
+    return true;
+  }
+
+  private static boolean matches(String json, String condition) {
+    boolean isDeleted = json.contains("\"deleted\":true");
+    if (condition.contains("deleted = FALSE")) {
+      return !isDeleted;
+    }
+    return !condition.contains("deleted = TRUE") || isDeleted;
+  }
+
+  private <D extends EntityDAO<?>> D entityDAO(Class<D> daoClass) {
+    D dao = mock(daoClass, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              insert(invocation.getArgument(0), invocation.getArgument(1));
+              return null;
+            })
+        .when(dao)
+        .insert(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              for (String json : (List<String>) invocation.getArgument(1)) {
+                insert(invocation.getArgument(0), json);
+              }
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              put(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+              return null;
+            })
+        .when(dao)
+        .update(anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> ids = invocation.getArgument(1);
+              List<String> jsons = invocation.getArgument(2);
+              for (int i = 0; i < ids.size(); i++) {
+                put(invocation.getArgument(0), ids.get(i), jsons.get(i));
+              }
+              return null;
+            })
+        .when(dao)
+        .updateBatch(anyString(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              String json = rows(invocation.getArgument(0)).get((String) invocation.getArgument(1));
+              return json != null && matches(json, invocation.getArgument(2)) ? json : null;
+            })
+        .when(dao)
+        .findById(anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Map<String, String> rows = rows(invocation.getArgument(0));
+              return ((List<String>) invocation.getArgument(1))
+                  .stream()
+                      .map(rows::get)
+                      .filter(json -> json != null && matches(json, invocation.getArgument(2)))
+                      .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findByIds(anyString(), anyList(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              String id = ids(invocation.getArgument(0)).get((String) invocation.getArgument(2));
+              String json = id == null ? null : rows(invocation.getArgument(0)).get(id);
+              return json != null && matches(json, invocation.getArgument(3)) ? json : null;
+            })
+        .when(dao)
+        .findByName(anyString(), anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Map<String, String> ids = ids(invocation.getArgument(0));
+              Map<String, String> rows = rows(invocation.getArgument(0));
+              return ((List<String>) invocation.getArgument(2))
+                  .stream()
+                      .map(ids::get)
+                      .filter(id -> id != null)
+                      .map(rows::get)
+                      .filter(json -> matches(json, invocation.getArgument(3)))
+                      .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findByNames(anyString(), anyString(), anyList(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              return remove(invocation.getArgument(0), invocation.getArgument(1)) ? 1 : 0;
+            })
+        .when(dao)
+        .delete(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              int deleted = 0;
+              for (String id : (List<String>) invocation.getArgument(1)) {
+                deleted += remove(invocation.getArgument(0), id) ? 1 : 0;
+              }
+              return deleted;
+            })
+        .when(dao)
+        .deleteBatch(anyString(), anyList());
+    return dao;
+  }
+
+  private CollectionDAO.EntityRelationshipDAO relationshipDAO() {
+    CollectionDAO.EntityRelationshipDAO dao = mock(CollectionDAO.EntityRelationshipDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              relationships.add(
+                  new Relation(
+                      UUID.fromString(invocation.getArgument(0)),
+                      invocation.getArgument(2),
+                      UUID.fromString(invocation.getArgument(1)),
+                      invocation.getArgument(3),
+                      invocation.getArgument(4)));
+              return null;
+            })
+        .when(dao)
+        .insert(anyString(), anyString(), anyString(), anyString(), anyInt(), isNull());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> fromIds = invocation.getArgument(0);
+              List<String> toIds = invocation.getArgument(1);
+              List<String> fromEntities = invocation.getArgument(2);
+              List<String> toEntities = invocation.getArgument(3);
+              List<Integer> relations = invocation.getArgument(4);
+              for (int i = 0; i < fromIds.size(); i++) {
+                relationships.add(
+                    new Relation(
+                        UUID.fromString(fromIds.get(i)),
+                        fromEntities.get(i),
+                        UUID.fromString(toIds.get(i)),
+                        toEntities.get(i),
+                        relations.get(i)));
+              }
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyList(), anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              List<Integer> relations = invocation.getArgument(2);
+              return findRelationships(
+                      r ->
+                          r.fromId.toString().equals(invocation.getArgument(0))
+                              && r.fromEntity.equals(invocation.getArgument(1))
+                              && relations.contains(r.relation))
+                  .stream()
+                  .map(r -> EntityRelationshipRecord.builder().id(r.toId).type(r.toEntity).build())
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findTo(anyString(), anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> fromIds = new HashSet<>(invocation.getArgument(0));
+              List<Integer> relations = invocation.getArgument(1);
+              return findRelationships(r -> fromIds.contains(r.fromId.toString()) && relations.contains(r.relation))
+                  .stream()
+                  .map(Relation::toObject)
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findToBatch(anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> fromIds = new HashSet<>(invocation.getArgument(0));
+              return findRelationships(
+                      r ->
+                          fromIds.contains(r.fromId.toString())
+                              && r.fromEntity.equals(invocation.getArgument(1))
+                              && r.relation == (int) invocation.getArgument(2)
+                              && r.toEntity.equals(invocation.getArgument(3)))
+                  .stream()
+                  .map(Relation::toObject)
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findToBatch(anyList(), anyString(), anyInt(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              return findRelationships(
+                      r ->
+                          r.toId.toString().equals(invocation.getArgument(0))
+                              && r.toEntity.equals(invocation.getArgument(1))
+                              && r.relation == (int) invocation.getArgument(2))
+                  .stream()
+                  .map(r -> EntityRelationshipRecord.builder().id(r.fromId).type(r.fromEntity).build())
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findFrom(anyString(), anyString(), anyInt());
+    doAnswer(
+            invocation -> {
+              query();
+              return List.of(); // No owners or followers
+            })
+        .when(dao)
+        .findFrom(anyString(), anyString(), anyInt(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> toIds = new HashSet<>(invocation.getArgument(0));
+              return findRelationships(
+                      r ->
+                          toIds.contains(r.toId.toString())
+                              && r.toEntity.equals(invocation.getArgument(1))
+                              && r.relation == (int) invocation.getArgument(2))
+                  .stream()
+                  .map(Relation::toObject)
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findFromBatch(anyList(), anyString(), anyInt());
+    doAnswer(
+            invocation -> {
+              query();
+              return List.of(); // No owners or followers
+            })
+        .when(dao)
+        .findFromBatch(anyList(), anyString(), anyInt(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> ids = Set.of((String) invocation.getArgument(0));
+              relationships.removeIf(r -> r.involves(ids, invocation.getArgument(1)));
+              return null;
+            })
+        .when(dao)
+        .deleteAll(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> ids = new HashSet<>(invocation.getArgument(0));
+              relationships.removeIf(r -> r.involves(ids, invocation.getArgument(1)));
+              return null;
+            })
+        .when(dao)
+        .deleteAllBatch(anyList(), anyString());
+    return dao;
+  }
+
+  private List<Relation> findRelationships(Predicate<Relation> filter) {
+    return relationships.stream().filter(filter).collect(Collectors.toList());
+  }
+
+  private CollectionDAO.EntityExtensionDAO extensionDAO() {
+    CollectionDAO.EntityExtensionDAO dao = mock(CollectionDAO.EntityExtensionDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              String key = key(invocation.getArgument(0), invocation.getArgument(1));
+              extensions.put(key, invocation.getArgument(3));
+              extensionSchemas.put(key, invocation.getArgument(2));
+              return null;
+            })
+        .when(dao)
+        .insert(anyString(), anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> ids = invocation.getArgument(0);
+              List<String> names = invocation.getArgument(1);
+              List<String> jsons = invocation.getArgument(3);
+              for (int i = 0; i < ids.size(); i++) {
+                extensions.put(key(ids.get(i), names.get(i)), jsons.get(i));
+                extensionSchemas.put(key(ids.get(i), names.get(i)), invocation.getArgument(2));
+              }
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyList(), anyList(), anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> ids = invocation.getArgument(0);
+              List<String> names = invocation.getArgument(1);
+              List<String> jsonSchemas = invocation.getArgument(2);
+              List<String> jsons = invocation.getArgument(3);
+              for (int i = 0; i < ids.size(); i++) {
+                extensions.put(key(ids.get(i), names.get(i)), jsons.get(i));
+                extensionSchemas.put(key(ids.get(i), names.get(i)), jsonSchemas.get(i));
+              }
+              return null;
+            })
+        .when(dao)
+        .insertVersions(anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              String key = key(invocation.getArgument(0), invocation.getArgument(1));
+              if (!extensions.containsKey(key) || !invocation.getArgument(2).equals(extensionSchemas.get(key))) {
+                return 0;
+              }
+              extensions.put(key, invocation.getArgument(4));
+              extensionSchemas.put(key, invocation.getArgument(3));
+              return 1;
+            })
+        .when(dao)
+        .replaceWithPatch(anyString(), anyString(), anyString(), anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> names = invocation.getArgument(1);
+              return getExtensions(List.of((String) invocation.getArgument(0)), "").stream()
+                  .filter(r -> names.contains(r.getExtensionName()))
+                  .map(r -> new ExtensionRecord(r.getExtensionName(), r.getJsonSchema(), r.getExtensionJson()))
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .getVersions(anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              return extensions.get(key(invocation.getArgument(0), invocation.getArgument(1)));
+            })
+        .when(dao)
+        .getExtension(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              return getExtensions(List.of((String) invocation.getArgument(0)), invocation.getArgument(1)).stream()
+                  .map(r -> new ExtensionRecord(r.getExtensionName(), r.getJsonSchema(), r.getExtensionJson()))
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .getVersionHistory(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              return getExtensions(List.of((String) invocation.getArgument(0)), invocation.getArgument(1)).stream()
+                  .map(r -> new ExtensionRecord(r.getExtensionName(), r.getExtensionJson()))
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .getExtensions(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              return getExtensions(invocation.getArgument(0), invocation.getArgument(1));
+            })
+        .when(dao)
+        .getExtensionsBatch(anyList(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> names = invocation.getArgument(1);
+              return getExtensions(invocation.getArgument(0), "").stream()
+                  .filter(r -> names.contains(r.getExtensionName()))
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .getExtensionsByNames(anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              extensions.remove(key(invocation.getArgument(0), invocation.getArgument(1)));
+              return null;
+            })
+        .when(dao)
+        .delete(anyString(), anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              String id = invocation.getArgument(0);
+              extensions.keySet().removeIf(k -> k.startsWith(id + "|"));
+              return null;
+            })
+        .when(dao)
+        .deleteAll(anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              Set<String> ids = new HashSet<>(invocation.getArgument(0));
+              extensions.keySet().removeIf(k -> ids.contains(k.substring(0, k.indexOf('|'))));
+              return null;
+            })
+        .when(dao)
+        .deleteAllBatch(anyList());
+    return dao;
+  }
+
+  private List<ExtensionRecordWithId> getExtensions(List<String> ids, String prefix) {
+    List<ExtensionRecordWithId> records = new ArrayList<>();
+    for (String id : ids) {
+      for (Map.Entry<String, String> row : extensions.subMap(id + "|", id + "|\uffff").entrySet()) {
+        String name = row.getKey().substring(id.length() + 1);
+        if (prefix.isEmpty() || name.startsWith(prefix + ".")) {
+          String schema = extensionSchemas.get(row.getKey());
+          records.add(new ExtensionRecordWithId(UUID.fromString(id), name, schema, row.getValue()));
+        }
+      }
+    }
+    return records;
+  }
+
+  private EntityExtensionTimeSeriesDAO timeSeriesDAO() {
+    EntityExtensionTimeSeriesDAO dao = mock(EntityExtensionTimeSeriesDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> entityFQNs = invocation.getArgument(0);
+              List<String> extensions = invocation.getArgument(1);
+              List<String> jsons = invocation.getArgument(3);
+              for (int i = 0; i < entityFQNs.size(); i++) {
+                JsonNode timestamp = JsonUtils.readTree(jsons.get(i)).get("timestamp");
+                timeSeries.put(entityFQNs.get(i) + "|" + extensions.get(i) + "|" + timestamp, jsons.get(i));
+              }
+              return null;
+            })
+        .when(dao)
+        .upsertProfileBatch(anyList(), anyList(), anyList(), anyList());
+    return dao;
+  }
+
+  private CollectionDAO.TagUsageDAO tagUsageDAO() {
+    CollectionDAO.TagUsageDAO dao = mock(CollectionDAO.TagUsageDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              List<Integer> sources = invocation.getArgument(0);
+              List<String> tagFQNs = invocation.getArgument(1);
+              List<String> targetFQNs = invocation.getArgument(2);
+              List<Integer> labelTypes = invocation.getArgument(3);
+              for (int i = 0; i < sources.size(); i++) {
+                tagUsage.add(targetFQNs.get(i) + "|" + tagFQNs.get(i) + "|" + sources.get(i) + "|" + labelTypes.get(i));
+              }
+              return null;
+            })
+        .when(dao)
+        .applyTags(anyList(), anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              return getTags(invocation.getArgument(0));
+            })
+        .when(dao)
+        .getTags(anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<Pair<String, TagLabel>> tags = new ArrayList<>();
+              for (String target : new LinkedHashSet<>((List<String>) invocation.getArgument(0))) {
+                getTags(target).forEach(tag -> tags.add(Pair.of(target, tag)));
+              }
+              return tags;
+            })
+        .when(dao)
+        .getTagsBatch(anyList());
+    doAnswer(
+            invocation -> {
+              query();
+              String target = invocation.getArgument(0);
+              tagUsage.subSet(target + "|", target + "|\uffff").clear();
+              return null;
+            })
+        .when(dao)
+        .deleteTagsByTarget(anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              String prefix = invocation.getArgument(0);
+              tagUsage.removeIf(t -> t.startsWith(prefix));
+              return null;
+            })
+        .when(dao)
+        .deleteTagLabelsByTargetPrefix(anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              List<String> prefixes = invocation.getArgument(0);
+              tagUsage.removeIf(t -> prefixes.stream().anyMatch(t::startsWith));
+              return null;
+            })
+        .when(dao)
+        .deleteTagLabelsByTargetPrefixes(anyList());
+    return dao;
+  }
+
+  private CollectionDAO.FieldRelationshipDAO fieldRelationshipDAO() {
+    CollectionDAO.FieldRelationshipDAO dao = mock(CollectionDAO.FieldRelationshipDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              String prefix = ((Map<String, String>) invocation.getArgument(1)).get("prefix");
+              fieldRelationships.removeIf(f -> f.startsWith(prefix.substring(0, prefix.length() - 1)));
+              return null;
+            })
+        .when(dao)
+        .deleteAllByPrefixInternal(anyString(), anyMap());
+    doAnswer(
+            invocation -> {
+              query();
+              for (String prefix : (List<String>) invocation.getArgument(0)) {
+                fieldRelationships.removeIf(f -> f.startsWith(prefix.substring(0, prefix.length() - 1)));
+              }
+              return null;
+            })
+        .when(dao)
+        .deleteAllByPrefixBatch(anyList());
+    return dao;
+  }
+
+  private CollectionDAO.UsageDAO usageDAO() {
+    CollectionDAO.UsageDAO dao = mock(CollectionDAO.UsageDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              usage.remove((String) invocation.getArgument(0));
+              return null;
+            })
+        .when(dao)
+        .delete(anyString());
+    doAnswer(
+            invocation -> {
+              query();
+              usage.removeAll((List<String>) invocation.getArgument(0));
+              return null;
+            })
+        .when(dao)
+        .deleteBatch(anyList());
+    return dao;
+  }
+
+  private CollectionDAO.ChangeEventDAO changeEventDAO() {
+    CollectionDAO.ChangeEventDAO dao = mock(CollectionDAO.ChangeEventDAO.class, UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              query();
+              changeEvents.addAll(invocation.getArgument(0));
+              return null;
+            })
+        .when(dao)
+        .insertBatch(anyList());
+    return dao;
+  }
+
+  /** A row of entity_relationship */
+  static class Relation implements Comparable<Relation> {
+    private final UUID fromId;
+    private final String fromEntity;
+    private final UUID toId;
+    private final String toEntity;
+    private final int relation;
+    private String string;
+
+    Relation(UUID fromId, String fromEntity, UUID toId, String toEntity, int relation) {
+      this.fromId = fromId;
+      this.fromEntity = fromEntity;
+      this.toId = toId;
+      this.toEntity = toEntity;
+      this.relation = relation;
+    }
+
+    boolean involves(Set<String> ids, String entity) {
+      return (ids.contains(toId.toString()) && toEntity.equals(entity))
+          || (ids.contains(fromId.toString()) && fromEntity.equals(entity));
+    }
+
+    EntityRelationshipObject toObject() {
+      return EntityRelationshipObject.builder()
+          .fromId(fromId)
+          .toId(toId)
+          .fromEntity(fromEntity)
+          .toEntity(toEntity)
+          .relation(relation)
+          .build();
+    }
+
+    @Override
+    public int compareTo(Relation other) {
+      return toString().compareTo(other.toString());
+    }
+
+    @Override
+    public String toString() {
+      if (string == null) {
+        string = fromEntity + ":" + fromId + "-" + relation + "->" + toEntity + ":" + toId;
+      }
+      return string;
+    }
+  }
+}
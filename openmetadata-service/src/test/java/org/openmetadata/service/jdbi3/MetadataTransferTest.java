@@ -0,0 +1,455 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jdbi.v3.sqlobject.transaction.TransactionalConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.MetadataTransferDAO;
+import org.openmetadata.service.jdbi3.MetadataTransfer.ExtensionRow;
+import org.openmetadata.service.jdbi3.MetadataTransfer.ImportResult;
+import org.openmetadata.service.jdbi3.MetadataTransfer.RelationshipRow;
+import org.openmetadata.service.jdbi3.MetadataTransfer.TagUsageRow;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Tests the export and import of generated tables through in-memory DAOs. The tables are generated page by page as they
+ * are listed, so that the memory used by the export is only the memory used by the export itself.
+ */
+class MetadataTransferTest {
+  private static final int TABLE_COUNT = 100_000;
+  private static final String FQN_PREFIX = "service.db.schema.";
+
+  /** Number of lines written to the export, including the lines still in the buffers of the writer */
+  private final AtomicLong linesWritten = new AtomicLong();
+
+  private final AtomicLong tablesListed = new AtomicLong();
+  private final Map<String, Digest> exported = new TreeMap<>();
+  private final Map<String, Digest> imported = new TreeMap<>();
+  /** Ids of the tables in the catalog before the import by their name */
+  private final Map<String, UUID> existingIds = new HashMap<>();
+
+  private boolean inTransaction;
+  private final MockTransaction transaction = new MockTransaction();
+  private int transactions;
+  private int transactionRows;
+  private int tagTargetsReplaced;
+
+  @Test
+  void test_roundTrip(@TempDir Path dir) throws Exception {
+    MetadataTransfer transfer = new MetadataTransfer(transferDAO());
+    Path file = dir.resolve("export.ndjson");
+
+    // Each page of tables is written to the stream before the next page is listed
+    try (OutputStream out = new LineCountingOutputStream(Files.newOutputStream(file))) {
+      assertEquals(TABLE_COUNT, transfer.export(List.of(Entity.TABLE), out));
+    }
+    assertEquals(TABLE_COUNT, linesWritten.get());
+
+    ImportResult result;
+    try (InputStream in = Files.newInputStream(file)) {
+      result = transfer.importFrom(in);
+    }
+
+    assertEquals(TABLE_COUNT / MetadataTransfer.BATCH_SIZE, transactions);
+    assertEquals(TABLE_COUNT, result.getEntities());
+    assertEquals(2 * TABLE_COUNT, result.getRelationships());
+    assertEquals(2 * TABLE_COUNT, result.getTags());
+    // The tag usage of the table and of its columns is replaced by the imported one
+    assertEquals(3 * TABLE_COUNT, tagTargetsReplaced);
+    assertEquals(TABLE_COUNT, result.getExtensions());
+    assertEquals(List.of("entity", "extension", "relationship", "tag"), List.copyOf(exported.keySet()));
+    assertEquals(exported, imported);
+  }
+
+  @Test
+  void test_invalidLinesAreRejected() {
+    MetadataTransfer transfer = new MetadataTransfer(transferDAO());
+    String table = line(Entity.TABLE, tableJson(0));
+    assertImportFails(transfer, table + "\nnot json\n", "Invalid entity at line 2");
+    assertImportFails(transfer, line(Entity.TABLE, "{\"name\":\"t\"}"), "Invalid entity at line 1: missing entity");
+    assertImportFails(transfer, line("unknownType", tableJson(0)), "unknownType");
+    assertTrue(imported.isEmpty());
+  }
+
+  @Test
+  void test_entityWithNameOfAnotherIdIsRejected() {
+    MetadataTransfer transfer = new MetadataTransfer(transferDAO());
+    existingIds.put(FQN_PREFIX + "table000000", new UUID(0, 0));
+    String tables = line(Entity.TABLE, tableJson(0)) + "\n" + line(Entity.TABLE, tableJson(1)) + "\n";
+    assertEquals(2, assertDoesNotThrow(() -> importFrom(transfer, tables)).getEntities());
+
+    // The same name with another id, in the catalog or in the same batch
+    existingIds.put(FQN_PREFIX + "table000000", new UUID(9, 0));
+    assertImportFails(transfer, line(Entity.TABLE, tableJson(0)), "already exists with id " + new UUID(9, 0));
+    existingIds.clear();
+    String renamed = tableJson(1).replace("table000001", "table000000");
+    assertImportFails(transfer, tables.replace(tableJson(1), renamed), "already exists with id " + new UUID(0, 0));
+    assertEquals(1, transactions);
+  }
+
+  private static ImportResult importFrom(MetadataTransfer transfer, String ndjson) throws IOException {
+    return transfer.importFrom(new ByteArrayInputStream(ndjson.getBytes(UTF_8)));
+  }
+
+  private static void assertImportFails(MetadataTransfer transfer, String ndjson, String message) {
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> transfer.importFrom(new ByteArrayInputStream(ndjson.getBytes(UTF_8))));
+    assertTrue(exception.getMessage().contains(message), exception.getMessage());
+  }
+
+  private static String line(String entityType, String json) {
+    return "{\"entityType\":\"" + entityType + "\",\"entity\":" + json + "}";
+  }
+
+  private MetadataTransferDAO transferDAO() {
+    CollectionDAO.TableDAO tableDAO = mock(CollectionDAO.TableDAO.class, InMemoryDatabase.UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              // The export never reads ahead of what it has written
+              assertEquals(tablesListed.get(), linesWritten.get());
+              int limit = invocation.getArgument(3);
+              String after = invocation.getArgument(4);
+              int from = after.isEmpty() ? 0 : index(after) + 1;
+              List<String> jsons =
+                  IntStream.range(from, Math.min(from + limit, TABLE_COUNT))
+                      .mapToObj(MetadataTransferTest::tableJson)
+                      .collect(Collectors.toList());
+              jsons.forEach(json -> digest(exported, "entity", json));
+              tablesListed.addAndGet(jsons.size());
+              return jsons;
+            })
+        .when(tableDAO)
+        .listAfter(anyString(), anyString(), anyString(), anyInt(), anyString());
+    CollectionDAO daoCollection = mock(CollectionDAO.class);
+    when(daoCollection.tableDAO()).thenReturn(tableDAO);
+    new TableRepository(daoCollection);
+
+    MetadataTransferDAO dao = mock(MetadataTransferDAO.class, InMemoryDatabase.UNSUPPORTED);
+    doAnswer(
+            invocation -> {
+              // Tables are owned by users, which are not exported here
+              List<String> ids = invocation.getArgument(0);
+              return rows(
+                  "relationship",
+                  ids,
+                  id ->
+                      new RelationshipRow(id, owner(id), Entity.TABLE, Entity.USER, Relationship.OWNS.ordinal(), null));
+            })
+        .when(dao)
+        .findRelationshipsFrom(anyList());
+    doAnswer(
+            invocation -> {
+              List<String> ids = invocation.getArgument(0);
+              List<String> fromEntities = invocation.getArgument(1);
+              return fromEntities.contains(Entity.DATABASE_SCHEMA)
+                  ? List.of()
+                  : rows(
+                      "relationship",
+                      ids,
+                      id ->
+                          new RelationshipRow(
+                              schema(),
+                              id,
+                              Entity.DATABASE_SCHEMA,
+                              Entity.TABLE,
+                              Relationship.CONTAINS.ordinal(),
+                              "{\"weight\":1}"));
+            })
+        .when(dao)
+        .findRelationshipsTo(anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              List<String> targets = invocation.getArgument(0);
+              assertTrue(targets.size() <= EntityDAO.IN_CLAUSE_BATCH_SIZE);
+              List<String> tagged =
+                  targets.stream()
+                      .filter(fqn -> fqn.endsWith(".c0") || !fqn.contains(".c"))
+                      .collect(Collectors.toList());
+              return rows("tag", tagged, fqn -> new TagUsageRow(0, "PII.Sensitive", fqn, 0, 1));
+            })
+        .when(dao)
+        .findTagUsage(anyList());
+    doAnswer(
+            invocation -> {
+              List<String> ids = invocation.getArgument(0);
+              return rows(
+                  "extension",
+                  ids,
+                  id ->
+                      new ExtensionRow(id, "table.version.0.1", "table", "{\"name\":\"" + id + "\",\"version\":0.1}"));
+            })
+        .when(dao)
+        .findExtensions(anyList());
+
+    doAnswer(
+            invocation -> {
+              inTransaction = true;
+              transactionRows = 0;
+              transaction.run(dao, invocation.<TransactionalConsumer<MetadataTransferDAO, ?>>getArgument(0));
+              transactions++;
+              inTransaction = false;
+              return null;
+            })
+        .when(dao)
+        .useTransaction(any(TransactionalConsumer.class));
+    transaction.stubHandle(dao);
+    doAnswer(
+            invocation -> {
+              assertTrue(inTransaction);
+              List<String> names = invocation.getArgument(2);
+              return names.stream()
+                  .filter(existingIds::containsKey)
+                  .map(name -> Pair.of(existingIds.get(name), name))
+                  .collect(Collectors.toList());
+            })
+        .when(dao)
+        .findEntityIds(anyString(), anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              List<String> jsons = invocation.getArgument(1);
+              inserted(jsons.size());
+              jsons.forEach(json -> digest(imported, "entity", json));
+              return null;
+            })
+        .when(dao)
+        .upsertEntities(anyString(), anyList());
+    doAnswer(
+            invocation -> {
+              List<Object> fromIds = invocation.getArgument(0);
+              inserted(fromIds.size());
+              for (int i = 0; i < fromIds.size(); i++) {
+                RelationshipRow row =
+                    new RelationshipRow(
+                        invocation.<List<String>>getArgument(0).get(i),
+                        invocation.<List<String>>getArgument(1).get(i),
+                        invocation.<List<String>>getArgument(2).get(i),
+                        invocation.<List<String>>getArgument(3).get(i),
+                        invocation.<List<Integer>>getArgument(4).get(i),
+                        invocation.<List<String>>getArgument(5).get(i));
+                digest(imported, "relationship", JsonUtils.pojoToJson(row));
+              }
+              return null;
+            })
+        .when(dao)
+        .upsertRelationships(anyList(), anyList(), anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              List<Object> sources = invocation.getArgument(0);
+              inserted(sources.size());
+              for (int i = 0; i < sources.size(); i++) {
+                TagUsageRow row =
+                    new TagUsageRow(
+                        invocation.<List<Integer>>getArgument(0).get(i),
+                        invocation.<List<String>>getArgument(1).get(i),
+                        invocation.<List<String>>getArgument(2).get(i),
+                        invocation.<List<Integer>>getArgument(3).get(i),
+                        invocation.<List<Integer>>getArgument(4).get(i));
+                digest(imported, "tag", JsonUtils.pojoToJson(row));
+              }
+              return null;
+            })
+        .when(dao)
+        .upsertTagUsage(anyList(), anyList(), anyList(), anyList(), anyList());
+    doAnswer(
+            invocation -> {
+              List<String> targets = invocation.getArgument(0);
+              assertTrue(targets.size() <= EntityDAO.IN_CLAUSE_BATCH_SIZE);
+              inserted(targets.size());
+              tagTargetsReplaced += targets.size();
+              return null;
+            })
+        .when(dao)
+        .deleteTagUsage(anyList());
+    doAnswer(
+            invocation -> {
+              List<Object> ids = invocation.getArgument(0);
+              inserted(ids.size());
+              for (int i = 0; i < ids.size(); i++) {
+                ExtensionRow row =
+                    new ExtensionRow(
+                        invocation.<List<String>>getArgument(0).get(i),
+                        invocation.<List<String>>getArgument(1).get(i),
+                        invocation.<List<String>>getArgument(2).get(i),
+                        invocation.<List<String>>getArgument(3).get(i));
+                digest(imported, "extension", JsonUtils.pojoToJson(row));
+              }
+              return null;
+            })
+        .when(dao)
+        .upsertExtensions(anyList(), anyList(), anyList(), anyList());
+    return dao;
+  }
+
+  /** Rows are only written in transactions, each with the nine rows of at most a batch of tables */
+  private void inserted(int rows) {
+    assertTrue(inTransaction);
+    transactionRows += rows;
+    assertTrue(transactionRows <= 9 * MetadataTransfer.BATCH_SIZE);
+  }
+
+  private <K, R> List<R> rows(String table, List<K> keys, ThrowingFunction<K, R> row) throws IOException {
+    List<R> rows = new ArrayList<>();
+    for (K key : keys) {
+      R r = row.apply(key);
+      digest(exported, table, JsonUtils.pojoToJson(r));
+      rows.add(r);
+    }
+    return rows;
+  }
+
+  private static String tableJson(int i) {
+    String name = String.format("table%06d", i);
+    Table table =
+        new Table()
+            .withId(new UUID(0, i))
+            .withName(name)
+            .withFullyQualifiedName(FQN_PREFIX + name)
+            .withVersion(0.1)
+            .withUpdatedAt(1_666_000_000_000L)
+            .withUpdatedBy("admin")
+            .withDeleted(false)
+            .withColumns(List.of(column(name, "c0"), column(name, "c1")));
+    try {
+      return JsonUtils.pojoToJson(table);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Column column(String table, String name) {
+    return new Column()
+        .withName(name)
+        .withDataType(ColumnDataType.INT)
+        .withFullyQualifiedName(FQN_PREFIX + table + "." + name);
+  }
+
+  private static int index(String fqn) {
+    return Integer.parseInt(fqn.substring(fqn.length() - 6));
+  }
+
+  private static String owner(String tableId) {
+    return new UUID(1, UUID.fromString(tableId).getLeastSignificantBits()).toString();
+  }
+
+  private static String schema() {
+    return new UUID(2, 0).toString();
+  }
+
+  /** Adds the row to an order independent digest of the rows of the table */
+  private static void digest(Map<String, Digest> digests, String table, String row) {
+    digests.computeIfAbsent(table, k -> new Digest()).add(row);
+  }
+
+  @FunctionalInterface
+  private interface ThrowingFunction<T, R> {
+    R apply(T t) throws IOException;
+  }
+
+  /** Number of rows and sum of their hashes, which does not depend on the order of the rows */
+  private static class Digest {
+    private long count;
+    private long sum;
+
+    void add(String row) {
+      try {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(row.getBytes(UTF_8));
+        sum += ByteBuffer.wrap(hash).getLong();
+        count++;
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Digest && ((Digest) o).count == count && ((Digest) o).sum == sum;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(sum);
+    }
+
+    @Override
+    public String toString() {
+      return count + " rows, hash " + sum;
+    }
+  }
+
+  /** Counts the lines as they leave the writer of the export */
+  private class LineCountingOutputStream extends FilterOutputStream {
+    LineCountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (b == '\n') {
+        linesWritten.incrementAndGet();
+      }
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      for (int i = off; i < off + len; i++) {
+        if (b[i] == '\n') {
+          linesWritten.incrementAndGet();
+        }
+      }
+      out.write(b, off, len);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.sqlobject.transaction.Transactional;
+import org.jdbi.v3.sqlobject.transaction.TransactionalConsumer;
+
+/**
+ * The handle of the transactions of a mocked DAO. The actions registered after commit run when the callback of the
+ * transaction returns, and those registered after rollback when it throws, as the handle of a Jdbi transaction does.
+ */
+final class MockTransaction {
+  private final Handle handle = mock(Handle.class);
+  private final List<Runnable> afterCommit = new ArrayList<>();
+  private final List<Runnable> afterRollback = new ArrayList<>();
+
+  MockTransaction() {
+    doAnswer(
+            i -> {
+              afterCommit.add(i.getArgument(0));
+              return handle;
+            })
+        .when(handle)
+        .afterCommit(any(Runnable.class));
+    doAnswer(
+            i -> {
+              afterRollback.add(i.getArgument(0));
+              return handle;
+            })
+        .when(handle)
+        .afterRollback(any(Runnable.class));
+  }
+
+  /** Returns the handle of this transaction for the transactions of {@code dao} */
+  void stubHandle(Transactional<?> dao) {
+    doReturn(handle).when(dao).getHandle();
+  }
+
+  /** Run the callback of a transaction of {@code dao}, then the actions registered after commit or rollback */
+  <T extends Transactional<T>> void run(T dao, TransactionalConsumer<T, ?> callback) throws Exception {
+    afterCommit.clear();
+    afterRollback.clear();
+    try {
+      callback.useTransaction(dao);
+    } catch (Exception e) {
+      afterRollback.forEach(Runnable::run);
+      throw e;
+    }
+    afterCommit.forEach(Runnable::run);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.openmetadata.schema.type.Include.ALL;
+import static org.openmetadata.schema.type.Include.DELETED;
+import static org.openmetadata.service.Entity.ADMIN_USER_NAME;
+
+import java.util.List;
+import java.util.UUID;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipRecord;
+import org.openmetadata.service.jdbi3.EntityRepository.Operation;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * The recursive delete and restore of the contained entities used before {@link EntityCascade}, one entity at a time
+ * with the registered repositories, to compare {@link EntityCascade} with.
+ */
+public final class RecursiveCascade {
+  private RecursiveCascade() {}
+
+  /** The DAOs of the registered repositories */
+  public static CollectionDAO daoCollection() {
+    return Entity.getEntityRepository(Entity.TABLE).daoCollection;
+  }
+
+  /** Delete the entities contained by the entity with {@link EntityCascade} */
+  public static void cascadeDelete(UUID id, boolean hardDelete) throws Exception {
+    new EntityCascade(daoCollection()).delete(id, ADMIN_USER_NAME, hardDelete);
+  }
+
+  /** Restore the entities contained by the entity with {@link EntityCascade} */
+  public static void cascadeRestore(UUID id) throws Exception {
+    new EntityCascade(daoCollection()).restore(id);
+  }
+
+  /** Delete the entities contained by the entity one at a time, the deepest first */
+  public static void deleteRecursively(String entityType, UUID id, boolean hardDelete) throws Exception {
+    List<Integer> relations = List.of(Relationship.CONTAINS.ordinal(), Relationship.PARENT_OF.ordinal());
+    for (EntityRelationshipRecord child :
+        daoCollection().relationshipDAO().findTo(id.toString(), entityType, relations)) {
+      deleteRecursively(child.getType(), child.getId(), hardDelete);
+      deleteOne(Entity.getEntityRepository(child.getType()), child.getId(), hardDelete);
+    }
+  }
+
+  /** Restore the entities contained by the entity one at a time */
+  public static void restoreRecursively(String entityType, UUID id) throws Exception {
+    List<Integer> relations = List.of(Relationship.CONTAINS.ordinal());
+    for (EntityRelationshipRecord child :
+        daoCollection().relationshipDAO().findTo(id.toString(), entityType, relations)) {
+      restoreRecursively(child.getType(), child.getId());
+      EntityDAO<?> dao = Entity.getEntityRepository(child.getType()).dao;
+      EntityInterface entity = dao.findEntityById(child.getId(), DELETED);
+      entity.setDeleted(false);
+      dao.update(entity.getId(), JsonUtils.pojoToJson(entity));
+    }
+  }
+
+  private static <T extends EntityInterface> void deleteOne(EntityRepository<T> repository, UUID id, boolean hardDelete)
+      throws Exception {
+    String json = repository.dao.findJsonById(id, ALL);
+    T original = JsonUtils.readValue(json, repository.dao.getEntityClass());
+    repository.preDelete(original);
+    repository.setFieldsInternal(original, repository.putFields);
+    T updated = JsonUtils.readValue(json, repository.dao.getEntityClass());
+    repository.setFieldsInternal(updated, repository.putFields);
+    if (repository.supportsSoftDelete && !hardDelete) {
+      updated.setUpdatedBy(ADMIN_USER_NAME);
+      updated.setUpdatedAt(System.currentTimeMillis());
+      updated.setDeleted(true);
+      repository.getUpdater(original, updated, Operation.SOFT_DELETE).update();
+    } else {
+      repository.cleanup(updated);
+    }
+    repository.postDelete(updated);
+  }
+}
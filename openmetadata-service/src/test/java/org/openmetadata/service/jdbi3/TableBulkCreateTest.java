@@ -0,0 +1,280 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openmetadata.schema.type.Relationship.CONTAINS;
+import static org.openmetadata.service.Entity.ADMIN_USER_NAME;
+import static org.openmetadata.service.jdbi3.InMemoryDatabase.entity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.GlossaryTerm;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.entity.tags.Tag;
+import org.openmetadata.schema.type.BulkItemResult;
+import org.openmetadata.schema.type.BulkItemResult.Status;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.State;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Tests the bulk create or update of the tables of a database schema against creating or updating them one at a time,
+ * with the DAOs backed by in-memory tables.
+ */
+class TableBulkCreateTest {
+  private static final String GLOSSARY_TERM = "Business.Customer";
+
+  private final InMemoryDatabase db = new InMemoryDatabase();
+  private TableRepository repository;
+  private DatabaseSchema schema;
+
+  @Test
+  void test_bulkCreateMatchesPerCallCreate() throws Exception {
+    TableBulkCreateTest perCall = new TableBulkCreateTest().withSchema();
+    for (Table table : perCall.tables(0, 50)) {
+      perCall.createOrUpdate(table);
+    }
+
+    TableBulkCreateTest bulk = new TableBulkCreateTest().withSchema();
+    List<BulkItemResult> results = bulk.repository().createOrUpdateInBulk(bulk.tables(0, 50));
+    assertEquals(perCall.db.state(), bulk.db.state());
+    assertEquals(50, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      BulkItemResult result = results.get(i);
+      assertEquals(Status.CREATED, result.getStatus());
+      assertEquals("t" + i, result.getName());
+      assertEquals(bulk.schema.getFullyQualifiedName() + ".t" + i, result.getFullyQualifiedName());
+    }
+    assertChangeEvents(bulk.db.changeEvents, EventType.ENTITY_CREATED, 50);
+
+    // Column tags are stored along with the derived tags of the glossary term
+    String column = bulk.schema.getFullyQualifiedName() + ".t3.c1";
+    assertEquals(
+        List.of(
+            tag(GLOSSARY_TERM, TagSource.GLOSSARY),
+            tag("PII.Sensitive", TagSource.TAG).withLabelType(LabelType.DERIVED)),
+        bulk.db.getTags(column));
+  }
+
+  @Test
+  void test_bulkUpdateMatchesPerCallUpdate() throws Exception {
+    TableBulkCreateTest perCall = new TableBulkCreateTest().withSchema();
+    TableBulkCreateTest bulk = new TableBulkCreateTest().withSchema();
+    for (TableBulkCreateTest test : List.of(perCall, bulk)) {
+      test.repository().createOrUpdateInBulk(test.tables(0, 20));
+      test.db.changeEvents.clear();
+    }
+
+    // 10 tables are updated, 10 are unchanged and 5 are new
+    for (Table table : perCall.changedTables()) {
+      perCall.createOrUpdate(table);
+    }
+    List<BulkItemResult> results = bulk.repository().createOrUpdateInBulk(bulk.changedTables());
+    assertEquals(perCall.db.state(), bulk.db.state());
+    for (int i = 0; i < 25; i++) {
+      Status expected = i < 10 ? Status.UPDATED : i < 20 ? Status.NO_CHANGE : Status.CREATED;
+      assertEquals(expected, results.get(i).getStatus(), "Table " + i);
+    }
+    assertEquals(15, bulk.db.changeEvents.size());
+    List<ChangeEvent> events = new ArrayList<>();
+    for (String json : bulk.db.changeEvents) {
+      events.add(JsonUtils.readValue(json, ChangeEvent.class));
+    }
+    assertEquals(10, events.stream().filter(e -> e.getEventType() == EventType.ENTITY_UPDATED).count());
+    assertEquals(5, events.stream().filter(e -> e.getEventType() == EventType.ENTITY_CREATED).count());
+    events.stream()
+        .filter(e -> e.getEventType() == EventType.ENTITY_UPDATED)
+        .forEach(e -> assertEquals(0.1, e.getPreviousVersion()));
+  }
+
+  @Test
+  void test_bulkCreateReportsFailedTables() throws Exception {
+    TableBulkCreateTest test = new TableBulkCreateTest().withSchema();
+    List<Table> tables = test.tables(0, 5);
+    tables.add(test.tables(2, 3).get(0)); // Repeated table
+    tables.get(1).getColumns().get(0).setTags(List.of(tag("PII.Unknown", TagSource.TAG)));
+    tables.get(3).setTags(List.of(tag("Business.Unknown", TagSource.GLOSSARY)));
+
+    List<BulkItemResult> results = test.repository().createOrUpdateInBulk(tables);
+    List<Status> statuses = results.stream().map(BulkItemResult::getStatus).collect(Collectors.toList());
+    assertEquals(
+        List.of(Status.CREATED, Status.FAILED, Status.CREATED, Status.FAILED, Status.CREATED, Status.FAILED), statuses);
+    assertEquals("tag instance for PII.Unknown not found", results.get(1).getMessage());
+    assertEquals("glossaryTerm instance for Business.Unknown not found", results.get(3).getMessage());
+    assertEquals("Table is repeated in the request", results.get(5).getMessage());
+    assertNull(results.get(1).getId());
+    assertEquals(3, test.db.entities.get("table_entity").size());
+    assertChangeEvents(test.db.changeEvents, EventType.ENTITY_CREATED, 3);
+
+    // Tables of different database schemas are rejected
+    List<Table> otherSchema = test.tables(10, 12);
+    otherSchema.get(1).setDatabaseSchema(new EntityReference().withId(UUID.randomUUID()).withType("databaseSchema"));
+    assertThrows(IllegalArgumentException.class, () -> test.repository().createOrUpdateInBulk(otherSchema));
+  }
+
+  @Test
+  void test_bulkIngestQueries() throws Exception {
+    // Ingest a schema with 10000 tables in requests of 500 tables
+    withSchema();
+    List<Table> tables = tables(0, 10000);
+    db.queryCount.set(0);
+    for (int i = 0; i < tables.size(); i += 500) {
+      repository().createOrUpdateInBulk(tables.subList(i, i + 500));
+    }
+    int bulkQueries = db.queryCount.get();
+
+    // Re-ingesting the unchanged schema only reads the tables
+    db.queryCount.set(0);
+    for (int i = 0; i < tables.size(); i += 500) {
+      repository().createOrUpdateInBulk(tables(i, i + 500));
+    }
+    int reingestQueries = db.queryCount.get();
+
+    // Creating 500 tables one at a time, for comparison
+    TableBulkCreateTest perCall = new TableBulkCreateTest().withSchema();
+    perCall.db.queryCount.set(0);
+    for (Table table : perCall.tables(0, 500)) {
+      perCall.createOrUpdate(table);
+    }
+    int perCallQueries = perCall.db.queryCount.get();
+
+    assertEquals(10000, db.entities.get("table_entity").size());
+    assertEquals(10000, db.changeEvents.size());
+    // About 20 queries per request of 500 tables, instead of more than 10 queries per table
+    assertTrue(bulkQueries < 30 * 20, "Bulk queries " + bulkQueries);
+    assertTrue(reingestQueries < 30 * 20, "Re-ingest queries " + reingestQueries);
+    assertTrue(perCallQueries > 10 * 500, "Per call queries " + perCallQueries);
+  }
+
+  private static void assertChangeEvents(List<String> jsons, EventType eventType, int count) throws Exception {
+    assertEquals(count, jsons.size());
+    for (String json : jsons) {
+      ChangeEvent event = JsonUtils.readValue(json, ChangeEvent.class);
+      assertEquals(eventType, event.getEventType());
+      assertEquals(Entity.TABLE, event.getEntityType());
+      assertTrue(event.getEntity() instanceof String);
+    }
+  }
+
+  /** Create or update a table as {@code PUT /v1/tables} does */
+  private void createOrUpdate(Table table) throws Exception {
+    TableRepository repository = repository();
+    repository.prepare(table);
+    repository.validateExtension(table);
+    repository.createOrUpdate(null, table);
+  }
+
+  private TableRepository repository() {
+    daoCollection();
+    return repository;
+  }
+
+  /** Tables {@code from} to {@code to} of the schema, with table and column tags */
+  private List<Table> tables(int from, int to) {
+    List<Table> tables = new ArrayList<>();
+    for (int t = from; t < to; t++) {
+      String fqn = schema.getFullyQualifiedName() + ".t" + t;
+      Table table =
+          new Table()
+              .withId(UUID.nameUUIDFromBytes(fqn.getBytes(StandardCharsets.UTF_8)))
+              .withName("t" + t)
+              .withDatabaseSchema(reference(schema, Entity.DATABASE_SCHEMA))
+              .withUpdatedBy(ADMIN_USER_NAME)
+              .withUpdatedAt(1L)
+              .withColumns(
+                  List.of(
+                      new Column()
+                          .withName("c0")
+                          .withDataType(ColumnDataType.INT)
+                          .withTags(List.of(tag("Tier.Tier1", TagSource.TAG))),
+                      new Column()
+                          .withName("c1")
+                          .withDataType(ColumnDataType.STRING)
+                          .withTags(t % 3 == 0 ? List.of(tag(GLOSSARY_TERM, TagSource.GLOSSARY)) : null)));
+      table.setTags(new ArrayList<>(List.of(tag("PII.Sensitive", TagSource.TAG))));
+      tables.add(table);
+    }
+    return tables;
+  }
+
+  /** The first 20 tables with a new description for the first 10, followed by 5 new tables */
+  private List<Table> changedTables() {
+    List<Table> tables = tables(0, 25);
+    for (int i = 0; i < 10; i++) {
+      tables.get(i).withDescription("description " + i).withUpdatedAt(2L);
+    }
+    return tables;
+  }
+
+  private static TagLabel tag(String tagFQN, TagSource source) {
+    return new TagLabel()
+        .withTagFQN(tagFQN)
+        .withSource(source)
+        .withLabelType(LabelType.MANUAL)
+        .withState(State.CONFIRMED);
+  }
+
+  /** A database schema of a database service, with the tags and glossary terms used by the tables */
+  private TableBulkCreateTest withSchema() throws Exception {
+    daoCollection();
+    DatabaseService service = entity(new DatabaseService(), "mysql", "mysql");
+    db.store("dbservice_entity", service);
+    Database database = entity(new Database(), "db", "mysql.db");
+    db.store("database_entity", database);
+    db.addRelationship(service.getId(), Entity.DATABASE_SERVICE, database.getId(), Entity.DATABASE, CONTAINS);
+    schema = entity(new DatabaseSchema(), "schema", "mysql.db.schema");
+    db.store("database_schema_entity", schema);
+    db.addRelationship(database.getId(), Entity.DATABASE, schema.getId(), Entity.DATABASE_SCHEMA, CONTAINS);
+    for (String tagFQN : List.of("PII.Sensitive", "Tier.Tier1")) {
+      db.store("tag", entity(new Tag(), tagFQN, tagFQN));
+    }
+    db.store("glossary_term_entity", entity(new GlossaryTerm(), "Customer", GLOSSARY_TERM));
+    db.addTag(GLOSSARY_TERM, "PII.Sensitive", TagSource.TAG, LabelType.MANUAL);
+    return this;
+  }
+
+  private static EntityReference reference(EntityInterface entity, String entityType) {
+    return new EntityReference().withId(entity.getId()).withType(entityType);
+  }
+
+  /** Repositories backed by the in-memory tables of this test, registered as the repositories of their entity */
+  private CollectionDAO daoCollection() {
+    CollectionDAO daoCollection = db.daoCollection();
+    new DatabaseServiceRepository(daoCollection);
+    new DatabaseRepository(daoCollection);
+    new DatabaseSchemaRepository(daoCollection);
+    repository = new TableRepository(daoCollection);
+    return daoCollection;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openmetadata.service.jdbi3.TableRepository.TABLE_COLUMN_PROFILE_EXTENSION;
+import static org.openmetadata.service.jdbi3.TableRepository.TABLE_PROFILE_EXTENSION;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.api.data.CreateTableProfile;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.ColumnProfile;
+import org.openmetadata.schema.type.TableProfile;
+import org.openmetadata.service.util.EntityUtil.Fields;
+import org.openmetadata.service.util.JsonUtils;
+
+/**
+ * Tests the number of queries of the batched upsert of the table and column profiles, with the DAOs backed by in-memory
+ * tables and the time series keyed on (entityFQN, extension, timestamp). The upsert itself is tested against the
+ * database by TableResourceTest.
+ */
+class TableProfileBatchTest {
+  private final InMemoryDatabase db = new InMemoryDatabase();
+  private Table table;
+  private TableRepository repository;
+
+  @Test
+  void test_profileUpsertedInOneBatch() throws Exception {
+    withTable(1000);
+    Table profiled = repository.addTableProfileData(table.getId(), profile(1L, 10.0));
+
+    // The table is read and the profiles are written in a single batch, instead of a read and a write for the table
+    // and each column
+    assertEquals(2, db.queryCount.get());
+    assertEquals(1001, db.timeSeries.size());
+    assertTrue(db.timeSeries.containsKey("db.t|" + TABLE_PROFILE_EXTENSION + "|1"));
+    assertEquals(10.0, profiled.getProfile().getRowCount());
+    ColumnProfile columnProfile =
+        JsonUtils.readValue(db.timeSeries.get(columnKey("db.t.c999", 1L)), ColumnProfile.class);
+    assertEquals(10.0, columnProfile.getValuesCount());
+
+    // Profiles at the same timestamp are replaced, profiles at a new timestamp are added
+    repository.addTableProfileData(table.getId(), profile(1L, 20.0));
+    assertEquals(1001, db.timeSeries.size());
+    columnProfile = JsonUtils.readValue(db.timeSeries.get(columnKey("db.t.c999", 1L)), ColumnProfile.class);
+    assertEquals(20.0, columnProfile.getValuesCount());
+    repository.addTableProfileData(table.getId(), profile(2L, 30.0));
+    assertEquals(2002, db.timeSeries.size());
+    assertEquals(6, db.queryCount.get());
+  }
+
+  @Test
+  void test_invalidColumnStoresNothing() throws Exception {
+    withTable(3);
+    CreateTableProfile profile = profile(1L, 10.0);
+    profile.getColumnProfile().add(new ColumnProfile().withName("unknown").withTimestamp(1L));
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> repository.addTableProfileData(table.getId(), profile));
+    assertEquals("Invalid column name unknown", e.getMessage());
+    assertTrue(db.timeSeries.isEmpty());
+    assertEquals(1, db.queryCount.get()); // Only the read of the table
+  }
+
+  private static String columnKey(String entityFQN, long timestamp) {
+    return entityFQN + "|" + TABLE_COLUMN_PROFILE_EXTENSION + "|" + timestamp;
+  }
+
+  /** A profile of the table and all its columns at the given timestamp */
+  private CreateTableProfile profile(long timestamp, double count) {
+    List<ColumnProfile> columnProfiles = new ArrayList<>();
+    for (Column column : table.getColumns()) {
+      columnProfiles.add(
+          new ColumnProfile().withName(column.getName()).withTimestamp(timestamp).withValuesCount(count));
+    }
+    return new CreateTableProfile()
+        .withTableProfile(new TableProfile().withTimestamp(timestamp).withRowCount(count))
+        .withColumnProfile(columnProfiles);
+  }
+
+  /** A table with the given number of columns, profiled into the in-memory time series table */
+  private void withTable(int columnCount) throws Exception {
+    List<Column> columns = new ArrayList<>();
+    for (int c = 0; c < columnCount; c++) {
+      columns.add(new Column().withName("c" + c).withFullyQualifiedName("db.t.c" + c).withDataType(ColumnDataType.INT));
+    }
+    table = new Table().withId(UUID.randomUUID()).withName("t").withFullyQualifiedName("db.t").withColumns(columns);
+    db.store("table_entity", table);
+
+    repository =
+        new TableRepository(db.daoCollection()) {
+          @Override
+          public Table setFields(Table table, Fields fields) {
+            // The database schema of the table is not needed to store its profile
+            return table;
+          }
+        };
+  }
+}
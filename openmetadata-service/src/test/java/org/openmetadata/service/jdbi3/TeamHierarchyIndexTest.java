@@ -0,0 +1,346 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.teams.Team;
+import org.openmetadata.schema.entity.teams.TeamHierarchy;
+import org.openmetadata.schema.type.Relationship;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityRelationshipObject;
+
+/** Tests the team hierarchy index against the ancestors computed by walking up the parents of generated teams */
+@Slf4j
+class TeamHierarchyIndexTest {
+  private static final UUID ORGANIZATION_ID = UUID.randomUUID();
+  private final Random random = new Random(7);
+  private final List<Team> teams = new ArrayList<>();
+  // Parents of the teams as stored in the database. Teams without parents are under the organization
+  private final Map<UUID, List<UUID>> parents = new HashMap<>();
+
+  @Test
+  void test_closureOfLargeHierarchy() {
+    generateHierarchy(10000);
+    long start = System.nanoTime();
+    TeamHierarchyIndex index = load();
+    LOG.info("Loaded {} teams in {} ms", index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    assertEquals(10001, index.size());
+    assertClosure(index);
+  }
+
+  @Test
+  void test_incrementalUpdates() {
+    generateHierarchy(1000);
+    TeamHierarchyIndex index = load();
+    for (int i = 0; i < 300; i++) {
+      int operation = random.nextInt(3);
+      if (operation == 0) { // Create a team
+        Team team = team("new" + i);
+        List<UUID> teamParents = randomParents();
+        teams.add(team);
+        parents.put(team.getId(), teamParents);
+        index.putTeam(team.getId(), team.getName(), teamParents);
+      } else if (operation == 1) { // Change the parents of a team, ignoring the changes that create a cycle
+        Team team = teams.get(random.nextInt(teams.size()));
+        List<UUID> teamParents = randomParents();
+        teamParents.removeIf(parent -> parent.equals(team.getId()) || walkAncestors(parent).contains(team.getId()));
+        parents.put(team.getId(), teamParents);
+        index.setParents(team.getId(), teamParents);
+      } else { // Delete a team
+        Team team = teams.remove(random.nextInt(teams.size()));
+        parents.remove(team.getId());
+        parents.values().forEach(teamParents -> teamParents.remove(team.getId()));
+        index.removeTeam(team.getId());
+        assertNull(index.getTeamId(team.getName()));
+      }
+      assertClosure(index);
+    }
+  }
+
+  @Test
+  void test_cycleIsIgnored() {
+    Team team1 = team("team1");
+    Team team2 = team("team2");
+    Team team3 = team("team3");
+    TeamHierarchyIndex index = new TeamHierarchyIndex(ORGANIZATION_ID, Entity.ORGANIZATION_NAME);
+    index.putTeam(team1.getId(), team1.getName(), List.of());
+    index.putTeam(team2.getId(), team2.getName(), List.of(team1.getId()));
+    index.putTeam(team3.getId(), team3.getName(), List.of(team2.getId()));
+
+    index.setParents(team1.getId(), List.of(team3.getId()));
+    assertEquals(List.of(ORGANIZATION_ID), index.getParents(team1.getId()));
+    assertEquals(List.of(team2.getId(), team1.getId(), ORGANIZATION_ID), index.getAncestors(team3.getId()));
+    assertFalse(index.isAncestor(team3.getId(), team1.getId()));
+
+    // Children of a deleted team are moved to the organization
+    index.removeTeam(team2.getId());
+    assertEquals(List.of(ORGANIZATION_ID), index.getParents(team3.getId()));
+    assertFalse(index.isAncestor(team1.getId(), team3.getId()));
+    assertTrue(index.isSelfOrAncestor(team3.getId(), team3.getId()));
+  }
+
+  @Test
+  void test_reloadedWhenExpired() {
+    // Teams changed by another server are stored in the database without updating the index of this server
+    Team team1 = team("team1");
+    Team team2 = team("team2");
+    List<Pair<UUID, String>> names = new ArrayList<>(List.of(Pair.of(team1.getId(), team1.getName())));
+    List<EntityRelationshipObject> edges = new ArrayList<>();
+    CollectionDAO dao = mock(CollectionDAO.class);
+    CollectionDAO.TeamDAO teamDAO = mock(CollectionDAO.TeamDAO.class);
+    CollectionDAO.EntityRelationshipDAO relationshipDAO = mock(CollectionDAO.EntityRelationshipDAO.class);
+    when(dao.teamDAO()).thenReturn(teamDAO);
+    when(dao.relationshipDAO()).thenReturn(relationshipDAO);
+    when(teamDAO.listTeamNames()).thenAnswer(i -> new ArrayList<>(names));
+    when(relationshipDAO.findAll(Entity.TEAM, Entity.TEAM, Relationship.PARENT_OF.ordinal()))
+        .thenAnswer(i -> new ArrayList<>(edges));
+
+    TeamHierarchyIndex.initialize(dao, ORGANIZATION_ID, Entity.ORGANIZATION_NAME);
+    List<Runnable> reloads = new ArrayList<>();
+    TeamHierarchyIndex.setExecutor(reloads::add);
+    try {
+      // A reload that finds the same hierarchy keeps the index
+      TeamHierarchyIndex index = TeamHierarchyIndex.getInstance();
+      index.loadedAt -= TeamHierarchyIndex.REFRESH_INTERVAL_IN_MILLIS + 1;
+      assertSame(index, TeamHierarchyIndex.getInstance());
+      assertEquals(1, reloads.size());
+      reloads.remove(0).run();
+      assertSame(index, TeamHierarchyIndex.getInstance());
+      assertTrue(reloads.isEmpty());
+
+      names.add(Pair.of(team2.getId(), team2.getName()));
+      edges.add(EntityRelationshipObject.builder().fromId(team1.getId()).toId(team2.getId()).build());
+      assertFalse(TeamHierarchyIndex.getInstance().contains(team2.getId()));
+
+      // The index expires and is served until it is reloaded in the background, only once at a time
+      index.loadedAt -= TeamHierarchyIndex.REFRESH_INTERVAL_IN_MILLIS + 1;
+      assertSame(index, TeamHierarchyIndex.getInstance());
+      assertSame(index, TeamHierarchyIndex.getInstance());
+      assertEquals(1, reloads.size());
+      reloads.remove(0).run();
+      index = TeamHierarchyIndex.getInstance();
+      assertTrue(index.isAncestor(team1.getId(), team2.getId()));
+      assertEquals(team2.getId(), index.getTeamId(team2.getName()));
+      assertSame(index, TeamHierarchyIndex.getInstance());
+      assertTrue(reloads.isEmpty());
+    } finally {
+      TeamHierarchyIndex.setExecutor(null);
+      TeamHierarchyIndex.reset();
+    }
+  }
+
+  @Test
+  void test_reloadOverlappingChangeIsRepeated() {
+    Team team1 = team("team1");
+    Team team2 = team("team2");
+    CollectionDAO dao = mock(CollectionDAO.class);
+    CollectionDAO.TeamDAO teamDAO = mock(CollectionDAO.TeamDAO.class);
+    CollectionDAO.EntityRelationshipDAO relationshipDAO = mock(CollectionDAO.EntityRelationshipDAO.class);
+    when(dao.teamDAO()).thenReturn(teamDAO);
+    when(dao.relationshipDAO()).thenReturn(relationshipDAO);
+    List<List<Pair<UUID, String>>> loads = new ArrayList<>();
+    when(teamDAO.listTeamNames())
+        .thenAnswer(
+            i -> {
+              TeamHierarchyIndex index = TeamHierarchyIndex.getInstance();
+              if (index != null && loads.size() == 1) {
+                // This server adds team2 while the teams are read, and the reload may have missed it
+                index.putTeam(team2.getId(), team2.getName(), List.of());
+              }
+              List<Pair<UUID, String>> teams =
+                  loads.size() < 2
+                      ? List.of(Pair.of(team1.getId(), team1.getName()))
+                      : List.of(Pair.of(team1.getId(), team1.getName()), Pair.of(team2.getId(), team2.getName()));
+              loads.add(teams);
+              return teams;
+            });
+    when(relationshipDAO.findAll(Entity.TEAM, Entity.TEAM, Relationship.PARENT_OF.ordinal()))
+        .thenAnswer(i -> new ArrayList<>());
+
+    TeamHierarchyIndex.initialize(dao, ORGANIZATION_ID, Entity.ORGANIZATION_NAME);
+    TeamHierarchyIndex.setExecutor(Runnable::run);
+    try {
+      TeamHierarchyIndex index = TeamHierarchyIndex.getInstance();
+      index.loadedAt -= TeamHierarchyIndex.REFRESH_INTERVAL_IN_MILLIS + 1;
+      TeamHierarchyIndex.getInstance();
+      assertEquals(3, loads.size());
+      assertTrue(TeamHierarchyIndex.getInstance().contains(team2.getId()));
+    } finally {
+      TeamHierarchyIndex.setExecutor(null);
+      TeamHierarchyIndex.reset();
+    }
+  }
+
+  @Test
+  void test_listHierarchy() {
+    generateHierarchy(10000);
+    TeamHierarchyIndex index = load();
+    List<Team> allTeams = new ArrayList<>(teams);
+    allTeams.add(team(Entity.ORGANIZATION_NAME).withId(ORGANIZATION_ID));
+    Collections.shuffle(allTeams, random);
+
+    long start = System.nanoTime();
+    List<TeamHierarchy> hierarchy = TeamRepository.buildHierarchy(allTeams, true, ORGANIZATION_ID, index::getParents);
+    LOG.info(
+        "Built the hierarchy of {} teams in {} ms",
+        allTeams.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    // Every joinable team is listed once, under its first parent, with the teams above it up to the organization
+    Set<UUID> expected = new HashSet<>();
+    for (Team team : teams) {
+      if (Boolean.TRUE.equals(team.getIsJoinable())) {
+        for (UUID id = team.getId(); !id.equals(ORGANIZATION_ID); id = index.getParents(id).get(0)) {
+          expected.add(id);
+        }
+      }
+    }
+    Set<UUID> listed = new HashSet<>();
+    Queue<TeamHierarchy> queue = new ArrayDeque<>();
+    for (TeamHierarchy root : hierarchy) {
+      assertEquals(ORGANIZATION_ID, index.getParents(root.getId()).get(0));
+      queue.add(root);
+    }
+    while (!queue.isEmpty()) {
+      TeamHierarchy node = queue.remove();
+      assertTrue(listed.add(node.getId()));
+      for (TeamHierarchy child : node.getChildren() == null ? List.<TeamHierarchy>of() : node.getChildren()) {
+        assertEquals(node.getId(), index.getParents(child.getId()).get(0));
+        queue.add(child);
+      }
+    }
+    assertEquals(expected, listed);
+  }
+
+  /** Generate business units, divisions, departments and groups, where some of the groups have two parents */
+  private void generateHierarchy(int count) {
+    List<UUID> businessUnits = new ArrayList<>();
+    List<UUID> divisions = new ArrayList<>();
+    List<UUID> departments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Team team = team("team" + i);
+      List<UUID> teamParents = new ArrayList<>();
+      if (i < count / 500) {
+        businessUnits.add(team.getId());
+      } else if (i < count / 50) {
+        teamParents.add(pick(businessUnits));
+        divisions.add(team.getId());
+      } else if (i < count / 10) {
+        teamParents.add(pick(random.nextBoolean() ? divisions : businessUnits));
+        departments.add(team.getId());
+      } else {
+        teamParents.add(pick(departments));
+        if (random.nextInt(10) == 0) {
+          UUID parent = pick(departments);
+          if (!teamParents.contains(parent)) {
+            teamParents.add(parent);
+          }
+        }
+        team.setIsJoinable(random.nextInt(4) == 0);
+      }
+      teams.add(team);
+      parents.put(team.getId(), teamParents);
+    }
+  }
+
+  private TeamHierarchyIndex load() {
+    List<Pair<UUID, String>> names = new ArrayList<>();
+    List<Pair<UUID, UUID>> edges = new ArrayList<>();
+    for (Team team : teams) {
+      names.add(Pair.of(team.getId(), team.getName()));
+      parents.get(team.getId()).forEach(parent -> edges.add(Pair.of(parent, team.getId())));
+    }
+    Collections.shuffle(names, random);
+    Collections.shuffle(edges, random);
+    TeamHierarchyIndex index = new TeamHierarchyIndex(ORGANIZATION_ID, Entity.ORGANIZATION_NAME);
+    index.load(names, edges);
+    return index;
+  }
+
+  private void assertClosure(TeamHierarchyIndex index) {
+    Map<UUID, Set<UUID>> expectedDescendants = new HashMap<>();
+    for (Team team : teams) {
+      Set<UUID> ancestors = walkAncestors(team.getId());
+      assertEquals(ancestors, new HashSet<>(index.getAncestors(team.getId())));
+      ancestors.forEach(a -> expectedDescendants.computeIfAbsent(a, k -> new HashSet<>()).add(team.getId()));
+      assertEquals(team.getId(), index.getTeamId(team.getName()));
+    }
+    for (Team team : teams) {
+      Set<UUID> descendants = expectedDescendants.getOrDefault(team.getId(), Collections.emptySet());
+      assertEquals(descendants, index.getDescendants(team.getId()));
+    }
+    assertEquals(teams.size(), index.getDescendants(ORGANIZATION_ID).size());
+  }
+
+  /** Ancestors of the team found by walking up its parents */
+  private Set<UUID> walkAncestors(UUID teamId) {
+    Set<UUID> ancestors = new HashSet<>();
+    Queue<UUID> queue = new ArrayDeque<>(List.of(teamId));
+    while (!queue.isEmpty()) {
+      UUID team = queue.remove();
+      if (team.equals(ORGANIZATION_ID)) {
+        continue;
+      }
+      List<UUID> teamParents = parents.get(team);
+      for (UUID parent : teamParents.isEmpty() ? List.of(ORGANIZATION_ID) : teamParents) {
+        if (ancestors.add(parent)) {
+          queue.add(parent);
+        }
+      }
+    }
+    return ancestors;
+  }
+
+  private List<UUID> randomParents() {
+    List<UUID> teamParents = new ArrayList<>();
+    int count = random.nextInt(3);
+    for (int i = 0; i < count && !teams.isEmpty(); i++) {
+      UUID parent = teams.get(random.nextInt(teams.size())).getId();
+      if (!teamParents.contains(parent)) {
+        teamParents.add(parent);
+      }
+    }
+    return teamParents;
+  }
+
+  private UUID pick(List<UUID> ids) {
+    return ids.get(random.nextInt(ids.size()));
+  }
+
+  private static Team team(String name) {
+    return new Team().withId(UUID.randomUUID()).withName(name).withIsJoinable(true);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.jdbi3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.service.jdbi3.CollectionDAO.UsageDAO;
+
+class UsagePercentileSchedulerTest {
+  private final List<String> computed = Collections.synchronizedList(new ArrayList<>());
+  private final UsageDAO dao = mock(UsageDAO.class);
+  private volatile CountDownLatch started = new CountDownLatch(0);
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @BeforeEach
+  void setUp() {
+    doAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              computed.add(invocation.getArgument(0) + "/" + invocation.getArgument(1));
+              return null;
+            })
+        .when(dao)
+        .computePercentile(anyString(), anyString());
+  }
+
+  @Test
+  void test_usageReportsAreCoalesced() throws InterruptedException {
+    UsagePercentileScheduler scheduler = new UsagePercentileScheduler(config(1), dao);
+    for (int i = 0; i < 1000; i++) {
+      scheduler.schedule("table", "2022-10-01");
+      scheduler.schedule("table", "2022-10-02");
+      scheduler.schedule("dashboard", "2022-10-01");
+    }
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> computed.size() == 3);
+    scheduler.stop();
+
+    // Percentile ranks are computed once per entity type and date
+    assertEquals(List.of("dashboard/2022-10-01", "table/2022-10-01", "table/2022-10-02"), sorted(computed));
+  }
+
+  @Test
+  void test_usageReportedWhileComputingIsComputedAgain() throws InterruptedException {
+    started = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    UsagePercentileScheduler scheduler = new UsagePercentileScheduler(config(1), dao);
+    scheduler.schedule("table", "2022-10-01");
+    started.await();
+
+    // Usage reported while the ranks are computed may not be seen by that computation
+    scheduler.schedule("table", "2022-10-01");
+    release.countDown();
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> computed.size() == 2);
+    scheduler.stop();
+    assertEquals(List.of("table/2022-10-01", "table/2022-10-01"), computed);
+  }
+
+  @Test
+  void test_pendingComputationsRunOnStop() throws InterruptedException {
+    UsagePercentileScheduler scheduler = new UsagePercentileScheduler(config(3600), dao);
+    scheduler.schedule("table", "2022-10-01");
+    scheduler.schedule("table", "2022-10-02");
+    scheduler.schedule("table", "2022-10-01");
+    scheduler.stop();
+    assertEquals(List.of("table/2022-10-01", "table/2022-10-02"), sorted(computed));
+
+    // Usage reported after the scheduler is stopped is computed right away
+    scheduler.schedule("table", "2022-10-03");
+    assertEquals(3, computed.size());
+  }
+
+  private static UsagePercentileConfiguration config(long delayInSeconds) {
+    UsagePercentileConfiguration config = new UsagePercentileConfiguration();
+    config.setDelayInSeconds(delayInSeconds);
+    return config;
+  }
+
+  private static List<String> sorted(List<String> list) {
+    List<String> sorted = new ArrayList<>(list);
+    Collections.sort(sorted);
+    return sorted;
+  }
+}
@@ -15,7 +15,9 @@ package org.openmetadata.service.resources.databases;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
 import static org.openmetadata.service.util.TestUtils.assertListNotEmpty;
 import static org.openmetadata.service.util.TestUtils.assertListNotNull;
@@ -37,11 +39,16 @@ import org.openmetadata.schema.api.data.CreateDatabase;
 import org.openmetadata.schema.api.data.CreateDatabaseSchema;
 import org.openmetadata.schema.entity.data.Database;
 import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.Include;
 import org.openmetadata.service.Entity;
+import org.openmetadata.service.EntityReferenceCache;
 import org.openmetadata.service.exception.CatalogExceptionMessage;
+import org.openmetadata.service.jdbi3.CommitCallbacks;
+import org.openmetadata.service.jdbi3.EntityDAO;
 import org.openmetadata.service.resources.EntityResourceTest;
 import org.openmetadata.service.resources.databases.DatabaseResource.DatabaseList;
 import org.openmetadata.service.util.FullyQualifiedName;
+import org.openmetadata.service.util.JsonUtils;
 import org.openmetadata.service.util.ResultList;
 import org.openmetadata.service.util.TestUtils;
 
@@ -106,6 +113,36 @@ public class DatabaseResourceTest extends EntityResourceTest<Database, CreateDat
     }
   }
 
+  @Test
+  void test_entityReferenceCache(TestInfo test) throws IOException {
+    // References are read through the cache and reloaded once the entity is updated
+    EntityReferenceCache cache = EntityReferenceCache.getInstance();
+    Database database = createEntity(createRequest(test), ADMIN_AUTH_HEADERS);
+    EntityReference ref = Entity.getEntityReferenceById(Entity.DATABASE, database.getId(), Include.ALL);
+    assertEquals(database.getFullyQualifiedName(), ref.getFullyQualifiedName());
+    assertTrue(cache.isCached(database.getId()));
+
+    String json = JsonUtils.pojoToJson(database);
+    database.setDescription("updated");
+    database = patchEntity(database.getId(), json, database, ADMIN_AUTH_HEADERS);
+    ref = Entity.getEntityReferenceById(Entity.DATABASE, database.getId(), Include.ALL);
+    assertEquals("updated", ref.getDescription());
+
+    // A reference read by the request that wrote the entity is not cached until the request completes
+    EntityDAO<Database> dao = Entity.<Database>getEntityRepository(Entity.DATABASE).dao;
+    CommitCallbacks.begin();
+    try {
+      dao.update(database.withDescription("uncommitted"));
+      ref = Entity.getEntityReferenceById(Entity.DATABASE, database.getId(), Include.ALL);
+      assertEquals("uncommitted", ref.getDescription());
+      assertFalse(cache.isCached(database.getId()));
+    } finally {
+      CommitCallbacks.end();
+    }
+    assertFalse(cache.isCached(database.getId()));
+    dao.update(database.withDescription("updated"));
+  }
+
   @Override
   public Database validateGetWithDifferentFields(Database database, boolean byName) throws HttpResponseException {
     // Add a schema if it already does not exist
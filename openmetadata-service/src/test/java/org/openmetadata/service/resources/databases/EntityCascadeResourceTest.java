@@ -0,0 +1,275 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.databases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
+
+import io.dropwizard.db.DataSourceFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.awaitility.Awaitility;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.api.data.CreateDatabase;
+import org.openmetadata.schema.api.data.CreateDatabaseSchema;
+import org.openmetadata.schema.api.data.CreateTable;
+import org.openmetadata.schema.api.lineage.AddLineage;
+import org.openmetadata.schema.api.services.CreateDatabaseService;
+import org.openmetadata.schema.api.services.CreateDatabaseService.DatabaseServiceType;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.DailyCount;
+import org.openmetadata.schema.type.EntitiesEdge;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.State;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.jdbi3.RecursiveCascade;
+import org.openmetadata.service.resources.lineage.LineageResourceTest;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.RestUtil;
+import org.openmetadata.service.util.TestUtils;
+
+/**
+ * Compares the rows left by the cascading delete and restore of a database service hierarchy with the ones left by the
+ * recursive delete and restore of one entity at a time. Two identical hierarchies are created, one is deleted
+ * recursively and the other one with the cascade, and their rows are compared with the ids and names of the second
+ * hierarchy replaced with the ones of the first.
+ */
+class EntityCascadeResourceTest extends OpenMetadataApplicationTest {
+  private static final List<String> ENTITY_TABLES =
+      List.of("dbservice_entity", "database_entity", "database_schema_entity", "table_entity");
+  private static final TagLabel PII_SENSITIVE =
+      new TagLabel()
+          .withTagFQN("PII.Sensitive")
+          .withSource(TagSource.TAG)
+          .withLabelType(LabelType.MANUAL)
+          .withState(State.CONFIRMED);
+  private static final TagLabel TIER1 =
+      new TagLabel()
+          .withTagFQN("Tier.Tier1")
+          .withSource(TagSource.TAG)
+          .withLabelType(LabelType.MANUAL)
+          .withState(State.CONFIRMED);
+  private static Jdbi jdbi;
+
+  @BeforeAll
+  static void setup() {
+    DataSourceFactory database = APP.getConfiguration().getDataSourceFactory();
+    jdbi = Jdbi.create(database.getUrl(), database.getUser(), database.getPassword());
+  }
+
+  @AfterAll
+  static void cleanup() throws Exception {
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    for (String name : List.of("cascadeSoft", "cascadeHard", "cascadeRestore")) {
+      for (String suffix : List.of("A", "B")) {
+        DatabaseService service = serviceResourceTest.getEntityByName(name + suffix, null, "", ADMIN_AUTH_HEADERS);
+        serviceResourceTest.deleteEntity(service.getId(), true, true, ADMIN_AUTH_HEADERS);
+      }
+    }
+  }
+
+  @Test
+  void delete_softCascadeSameAsRecursive() throws Exception {
+    Hierarchy recursive = new Hierarchy("cascadeSoftA");
+    Hierarchy cascade = new Hierarchy("cascadeSoftB");
+    RecursiveCascade.deleteRecursively(Entity.DATABASE_SERVICE, recursive.serviceId(), false);
+    RecursiveCascade.cascadeDelete(cascade.serviceId(), false);
+    assertSameRows(recursive, cascade);
+  }
+
+  @Test
+  void delete_hardCascadeSameAsRecursive() throws Exception {
+    Hierarchy recursive = new Hierarchy("cascadeHardA");
+    Hierarchy cascade = new Hierarchy("cascadeHardB");
+    RecursiveCascade.deleteRecursively(Entity.DATABASE_SERVICE, recursive.serviceId(), true);
+    RecursiveCascade.cascadeDelete(cascade.serviceId(), true);
+    assertSameRows(recursive, cascade);
+  }
+
+  @Test
+  void restore_cascadeSameAsRecursive() throws Exception {
+    Hierarchy recursive = new Hierarchy("cascadeRestoreA");
+    Hierarchy cascade = new Hierarchy("cascadeRestoreB");
+    RecursiveCascade.cascadeDelete(recursive.serviceId(), false);
+    RecursiveCascade.cascadeDelete(cascade.serviceId(), false);
+    assertSameRows(recursive, cascade);
+
+    RecursiveCascade.restoreRecursively(Entity.DATABASE_SERVICE, recursive.serviceId());
+    RecursiveCascade.cascadeRestore(cascade.serviceId());
+    assertSameRows(recursive, cascade);
+  }
+
+  /** Rows of the two hierarchies are the same, once the versions written in the background are stored */
+  private static void assertSameRows(Hierarchy expected, Hierarchy actual) {
+    Awaitility.await()
+        .atMost(Duration.ofSeconds(30))
+        .ignoreExceptions()
+        .until(() -> expected.rows().equals(actual.rowsAs(expected)));
+    assertEquals(expected.rows(), actual.rowsAs(expected));
+  }
+
+  /**
+   * A database service with 2 databases, 2 schemas in each database and 3 tables in each schema. Tables have tags on
+   * the table and its columns, a previous version, usage, and lineage to the next table of the schema.
+   */
+  private static final class Hierarchy {
+    private final String serviceName;
+    /** Ids of the entities by their fully qualified name relative to the service */
+    private final Map<String, UUID> ids = new LinkedHashMap<>();
+
+    private Hierarchy(String serviceName) throws Exception {
+      this.serviceName = serviceName;
+      DatabaseService service =
+          new DatabaseServiceResourceTest()
+              .createEntity(
+                  new CreateDatabaseService()
+                      .withName(serviceName)
+                      .withServiceType(DatabaseServiceType.Snowflake)
+                      .withConnection(TestUtils.SNOWFLAKE_DATABASE_CONNECTION),
+                  ADMIN_AUTH_HEADERS);
+      ids.put("", service.getId());
+      String date = RestUtil.DATE_FORMAT.format(new Date(0));
+      TableResourceTest tableResourceTest = new TableResourceTest();
+      for (int d = 0; d < 2; d++) {
+        Database database =
+            new DatabaseResourceTest()
+                .createEntity(
+                    new CreateDatabase().withName("db" + d).withService(service.getEntityReference()),
+                    ADMIN_AUTH_HEADERS);
+        ids.put(relative(database.getFullyQualifiedName()), database.getId());
+        for (int s = 0; s < 2; s++) {
+          DatabaseSchema schema =
+              new DatabaseSchemaResourceTest()
+                  .createEntity(
+                      new CreateDatabaseSchema().withName("s" + s).withDatabase(database.getEntityReference()),
+                      ADMIN_AUTH_HEADERS);
+          ids.put(relative(schema.getFullyQualifiedName()), schema.getId());
+          Table previous = null;
+          for (int t = 0; t < 3; t++) {
+            Table table = tableResourceTest.createEntity(createTable(schema, t), ADMIN_AUTH_HEADERS);
+            String json = JsonUtils.pojoToJson(table);
+            table = tableResourceTest.patchEntity(table.getId(), json, table.withDescription("d"), ADMIN_AUTH_HEADERS);
+            ids.put(relative(table.getFullyQualifiedName()), table.getId());
+            TestUtils.post(
+                getResource("usage/table/" + table.getId()),
+                new DailyCount().withCount(t + 1).withDate(date),
+                ADMIN_AUTH_HEADERS);
+            if (previous != null) {
+              LineageResourceTest.addLineage(
+                  new AddLineage()
+                      .withEdge(
+                          new EntitiesEdge()
+                              .withFromEntity(previous.getEntityReference())
+                              .withToEntity(table.getEntityReference())),
+                  ADMIN_AUTH_HEADERS);
+            }
+            previous = table;
+          }
+        }
+      }
+    }
+
+    private static CreateTable createTable(DatabaseSchema schema, int t) {
+      return new CreateTable()
+          .withName("t" + t)
+          .withDatabaseSchema(schema.getEntityReference())
+          .withTags(List.of(TIER1))
+          .withColumns(
+              List.of(
+                  new Column().withName("c0").withDataType(ColumnDataType.INT).withTags(List.of(PII_SENSITIVE)),
+                  new Column().withName("c1").withDataType(ColumnDataType.INT)));
+    }
+
+    private UUID serviceId() {
+      return ids.get("");
+    }
+
+    private String relative(String fqn) {
+      return fqn.substring(serviceName.length());
+    }
+
+    /** The rows of the hierarchy with its ids and names replaced with the ones of the other hierarchy */
+    private Map<String, List<String>> rowsAs(Hierarchy other) {
+      Map<String, List<String>> rows = rows();
+      Map<String, List<String>> replaced = new TreeMap<>();
+      for (Map.Entry<String, List<String>> table : rows.entrySet()) {
+        TreeSet<String> tableRows = new TreeSet<>();
+        for (String row : table.getValue()) {
+          for (Map.Entry<String, UUID> id : ids.entrySet()) {
+            row = row.replace(id.getValue().toString(), other.ids.get(id.getKey()).toString());
+          }
+          tableRows.add(row.replace(serviceName, other.serviceName));
+        }
+        replaced.put(table.getKey(), new ArrayList<>(tableRows));
+      }
+      return replaced;
+    }
+
+    /** The rows of the hierarchy by table, with the times of the updates removed */
+    private Map<String, List<String>> rows() {
+      String idList = ids.values().stream().map(id -> "'" + id + "'").collect(Collectors.joining(","));
+      String prefix = "'" + serviceName + "%'";
+      Map<String, List<String>> rows = new TreeMap<>();
+      for (String table : ENTITY_TABLES) {
+        rows.put(table, select("SELECT * FROM " + table + " WHERE id IN (" + idList + ")"));
+      }
+      rows.put(
+          "entity_relationship",
+          select("SELECT * FROM entity_relationship WHERE fromId IN (" + idList + ") OR toId IN (" + idList + ")"));
+      rows.put("entity_extension", select("SELECT * FROM entity_extension WHERE id IN (" + idList + ")"));
+      rows.put("tag_usage", select("SELECT * FROM tag_usage WHERE targetFQN LIKE " + prefix));
+      rows.put(
+          "field_relationship",
+          select("SELECT * FROM field_relationship WHERE fromFQN LIKE " + prefix + " OR toFQN LIKE " + prefix));
+      rows.put("entity_usage", select("SELECT * FROM entity_usage WHERE id IN (" + idList + ")"));
+      return rows;
+    }
+
+    private static List<String> select(String query) {
+      TreeSet<String> rows = new TreeSet<>();
+      for (Map<String, Object> row : jdbi.withHandle(handle -> handle.createQuery(query).mapToMap().list())) {
+        Map<String, String> columns = new TreeMap<>();
+        row.forEach(
+            (column, value) -> {
+              if (!column.equalsIgnoreCase("updatedAt")) {
+                // Times of the updates are in the entities and in the patches of their previous versions
+                columns.put(column, String.valueOf(value).replaceAll("\\b\\d{13}\\b", "<time>"));
+              }
+            });
+        rows.add(columns.toString());
+      }
+      return new ArrayList<>(rows);
+    }
+  }
+}
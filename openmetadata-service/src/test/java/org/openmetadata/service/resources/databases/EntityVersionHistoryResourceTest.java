@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.databases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
+
+import io.dropwizard.db.DataSourceFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.api.data.CreateDatabase;
+import org.openmetadata.schema.api.data.CreateDatabaseSchema;
+import org.openmetadata.schema.api.data.CreateTable;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.EntityHistory;
+import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.jdbi3.EntityVersionHistory;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.TestUtils;
+
+/** Versions of a table stored as patches in the database and returned by the versions API */
+class EntityVersionHistoryResourceTest extends OpenMetadataApplicationTest {
+  private static final String SERVICE_NAME = "versionHistoryService";
+  private static Jdbi jdbi;
+
+  @BeforeAll
+  static void setup() {
+    DataSourceFactory database = APP.getConfiguration().getDataSourceFactory();
+    jdbi = Jdbi.create(database.getUrl(), database.getUser(), database.getPassword());
+  }
+
+  @AfterAll
+  static void cleanup() throws Exception {
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service = serviceResourceTest.getEntityByName(SERVICE_NAME, null, "", ADMIN_AUTH_HEADERS);
+    serviceResourceTest.deleteEntity(service.getId(), true, true, ADMIN_AUTH_HEADERS);
+  }
+
+  @Test
+  void test_everyVersionIsRebuilt() throws Exception {
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service =
+        serviceResourceTest.createEntity(serviceResourceTest.createRequest(SERVICE_NAME), ADMIN_AUTH_HEADERS);
+    Database database =
+        new DatabaseResourceTest()
+            .createEntity(
+                new CreateDatabase().withName("db").withService(service.getEntityReference()), ADMIN_AUTH_HEADERS);
+    DatabaseSchema schema =
+        TestUtils.post(
+            getResource("databaseSchemas"),
+            new CreateDatabaseSchema().withName("schema").withDatabase(database.getEntityReference()),
+            DatabaseSchema.class,
+            ADMIN_AUTH_HEADERS);
+    List<Column> columns = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      columns.add(new Column().withName("c" + i).withDataType(ColumnDataType.INT).withDescription("column " + i));
+    }
+    TableResourceTest tableResourceTest = new TableResourceTest();
+    Table table =
+        tableResourceTest.createEntity(
+            new CreateTable()
+                .withName("versioned")
+                .withDescription("description")
+                .withDatabaseSchema(schema.getEntityReference())
+                .withColumns(columns),
+            ADMIN_AUTH_HEADERS);
+
+    // Each update changes the description of the table or of a column, or adds a column
+    Map<Double, Table> versions = new LinkedHashMap<>();
+    versions.put(table.getVersion(), table);
+    for (int i = 0; i < 25; i++) {
+      String json = JsonUtils.pojoToJson(table);
+      if (i % 3 == 0) {
+        table.setDescription("description " + i);
+      } else if (i % 3 == 1) {
+        table.getColumns().get(i).setDescription("updated column " + i);
+      } else {
+        table.getColumns().add(new Column().withName("new" + i).withDataType(ColumnDataType.INT));
+      }
+      table = tableResourceTest.patchEntity(table.getId(), json, table, ADMIN_AUTH_HEADERS);
+      versions.put(table.getVersion(), table);
+    }
+
+    // Previous versions are stored as patches
+    String id = table.getId().toString();
+    int patches =
+        jdbi.withHandle(
+            handle ->
+                handle
+                    .createQuery("SELECT COUNT(*) FROM entity_extension WHERE id = :id AND jsonSchema = :jsonSchema")
+                    .bind("id", id)
+                    .bind("jsonSchema", EntityVersionHistory.PATCH_SCHEMA)
+                    .mapTo(Integer.class)
+                    .one());
+    assertTrue(patches > 0);
+
+    // Every version is returned as it was written, by the list of versions and one version at a time
+    EntityHistory history =
+        TestUtils.get(getResource("tables/" + id + "/versions"), EntityHistory.class, ADMIN_AUTH_HEADERS);
+    assertEquals(versions.size(), history.getVersions().size());
+    for (Object json : history.getVersions()) {
+      Table listed = JsonUtils.readValue((String) json, Table.class);
+      assertVersion(versions.get(listed.getVersion()), listed);
+    }
+    for (Map.Entry<Double, Table> version : versions.entrySet()) {
+      Table stored =
+          TestUtils.get(getResource("tables/" + id + "/versions/" + version.getKey()), Table.class, ADMIN_AUTH_HEADERS);
+      assertVersion(version.getValue(), stored);
+    }
+  }
+
+  private static void assertVersion(Table expected, Table actual) {
+    assertEquals(expected.getVersion(), actual.getVersion());
+    assertEquals(expected.getDescription(), actual.getDescription());
+    assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    assertEquals(columns(expected), columns(actual));
+  }
+
+  private static List<String> columns(Table table) {
+    return table.getColumns().stream()
+        .map(column -> column.getName() + ":" + column.getDescription())
+        .collect(Collectors.toList());
+  }
+}
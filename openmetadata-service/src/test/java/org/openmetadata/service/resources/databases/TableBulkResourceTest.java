@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.databases;
+
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.openmetadata.service.security.SecurityUtil.authHeaders;
+import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
+import static org.openmetadata.service.util.TestUtils.assertResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.api.data.BulkCreateTable;
+import org.openmetadata.schema.api.data.CreateDatabase;
+import org.openmetadata.schema.api.data.CreateDatabaseSchema;
+import org.openmetadata.schema.api.data.CreateTable;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.entity.teams.User;
+import org.openmetadata.schema.type.BulkItemResult;
+import org.openmetadata.schema.type.BulkResponse;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.exception.CatalogExceptionMessage;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
+import org.openmetadata.service.resources.teams.UserResourceTest;
+import org.openmetadata.service.util.TestUtils;
+
+/** Tables created or updated in bulk are authorized one table at a time */
+class TableBulkResourceTest extends OpenMetadataApplicationTest {
+  private static final String SERVICE_NAME = "tableBulkService";
+  private static final String USER_NAME = "tableBulkUser";
+
+  @AfterAll
+  static void cleanup() throws Exception {
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service = serviceResourceTest.getEntityByName(SERVICE_NAME, null, "", ADMIN_AUTH_HEADERS);
+    serviceResourceTest.deleteEntity(service.getId(), true, true, ADMIN_AUTH_HEADERS);
+    UserResourceTest userResourceTest = new UserResourceTest();
+    User user = userResourceTest.getEntityByName(USER_NAME, null, "", ADMIN_AUTH_HEADERS);
+    userResourceTest.deleteEntity(user.getId(), true, true, ADMIN_AUTH_HEADERS);
+  }
+
+  @Test
+  void test_eachTableIsAuthorized() throws Exception {
+    UserResourceTest userResourceTest = new UserResourceTest();
+    User user = userResourceTest.createEntity(userResourceTest.createRequest(USER_NAME), ADMIN_AUTH_HEADERS);
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service =
+        serviceResourceTest.createEntity(serviceResourceTest.createRequest(SERVICE_NAME), ADMIN_AUTH_HEADERS);
+    Database database =
+        new DatabaseResourceTest()
+            .createEntity(
+                new CreateDatabase().withName("db").withService(service.getEntityReference()), ADMIN_AUTH_HEADERS);
+    DatabaseSchema schema =
+        TestUtils.post(
+            getResource("databaseSchemas"),
+            new CreateDatabaseSchema().withName("schema").withDatabase(database.getEntityReference()),
+            DatabaseSchema.class,
+            ADMIN_AUTH_HEADERS);
+
+    // The user owns the first table, the second table has no owner
+    TableResourceTest tableResourceTest = new TableResourceTest();
+    CreateTable owned = createTable(schema, "owned").withOwner(user.getEntityReference());
+    CreateTable other = createTable(schema, "other");
+    tableResourceTest.createEntity(owned, ADMIN_AUTH_HEADERS);
+    tableResourceTest.createEntity(other, ADMIN_AUTH_HEADERS);
+
+    // Only the table owned by the user is updated. The user can't update the other table or create a table.
+    BulkCreateTable bulkCreate =
+        new BulkCreateTable()
+            .withTables(
+                List.of(
+                    owned.withDescription("updated"),
+                    other.withDescription("updated"),
+                    createTable(schema, "created")));
+    BulkResponse response =
+        TestUtils.put(getResource("tables/bulk"), bulkCreate, BulkResponse.class, OK, authHeaders(user.getEmail()));
+    assertEquals(
+        List.of(BulkItemResult.Status.UPDATED, BulkItemResult.Status.FAILED, BulkItemResult.Status.FAILED),
+        response.getResults().stream().map(BulkItemResult::getStatus).collect(Collectors.toList()));
+    assertEquals(2, response.getNumberOfRowsFailed());
+
+    Map<String, String> headers = ADMIN_AUTH_HEADERS;
+    String schemaFQN = schema.getFullyQualifiedName();
+    assertEquals("updated", tableResourceTest.getEntityByName(schemaFQN + ".owned", "", headers).getDescription());
+    Table unchanged = tableResourceTest.getEntityByName(schemaFQN + ".other", "", headers);
+    assertNull(unchanged.getDescription());
+    assertResponse(
+        () -> tableResourceTest.getEntityByName(schemaFQN + ".created", "", headers),
+        NOT_FOUND,
+        CatalogExceptionMessage.entityNotFound(Entity.TABLE, schemaFQN + ".created"));
+  }
+
+  private static CreateTable createTable(DatabaseSchema schema, String name) {
+    return new CreateTable()
+        .withName(name)
+        .withDatabaseSchema(schema.getEntityReference())
+        .withColumns(List.of(new Column().withName("c0").withDataType(ColumnDataType.INT)));
+  }
+}
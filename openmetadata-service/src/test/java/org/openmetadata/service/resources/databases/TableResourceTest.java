@@ -1327,6 +1327,49 @@ public class TableResourceTest extends EntityResourceTest<Table, CreateTable> {
         "Invalid column name invalidColumn");
   }
 
+  @Test
+  void put_tableProfileSameTimestamp_200(TestInfo test) throws IOException, ParseException {
+    // The table and column profiles are upserted in one batch, relying on the unique key added by the migrations
+    Table table = createAndCheckEntity(createRequest(test), ADMIN_AUTH_HEADERS);
+    Long timestamp = TestUtils.dateToTimestamp("2021-09-10");
+    for (double count = 1; count <= 3; count++) {
+      ColumnProfile c1Profile = new ColumnProfile().withName("c1").withTimestamp(timestamp).withValuesCount(count);
+      ColumnProfile c2Profile = new ColumnProfile().withName("c2").withTimestamp(timestamp).withValuesCount(count);
+      TableProfile tableProfile = new TableProfile().withRowCount(count).withColumnCount(3.0).withTimestamp(timestamp);
+      putTableProfileData(
+          table.getId(),
+          new CreateTableProfile().withTableProfile(tableProfile).withColumnProfile(List.of(c1Profile, c2Profile)),
+          ADMIN_AUTH_HEADERS);
+    }
+
+    // A single profile is stored per table, column and timestamp, the last one written
+    ResultList<TableProfile> tableProfiles =
+        getTableProfiles(table.getFullyQualifiedName(), timestamp, timestamp, ADMIN_AUTH_HEADERS);
+    assertEquals(1, tableProfiles.getData().size());
+    assertEquals(3.0, tableProfiles.getData().get(0).getRowCount());
+    for (String column : List.of("c1", "c2")) {
+      ResultList<ColumnProfile> columnProfiles =
+          getColumnProfiles(table.getFullyQualifiedName() + "." + column, timestamp, timestamp, ADMIN_AUTH_HEADERS);
+      assertEquals(1, columnProfiles.getData().size());
+      assertEquals(3.0, columnProfiles.getData().get(0).getValuesCount());
+    }
+
+    // An invalid column profile stores none of the profiles
+    Long nextTimestamp = TestUtils.dateToTimestamp("2021-09-11");
+    CreateTableProfile invalid =
+        new CreateTableProfile()
+            .withTableProfile(new TableProfile().withRowCount(4.0).withTimestamp(nextTimestamp))
+            .withColumnProfile(List.of(new ColumnProfile().withName("invalidColumn").withTimestamp(nextTimestamp)));
+    assertResponseContains(
+        () -> putTableProfileData(table.getId(), invalid, ADMIN_AUTH_HEADERS),
+        BAD_REQUEST,
+        "Invalid column name invalidColumn");
+    assertTrue(
+        getTableProfiles(table.getFullyQualifiedName(), nextTimestamp, nextTimestamp, ADMIN_AUTH_HEADERS)
+            .getData()
+            .isEmpty());
+  }
+
   @Test
   void put_tableQueries_200(TestInfo test) throws IOException {
     Table table = createAndCheckEntity(createRequest(test), ADMIN_AUTH_HEADERS);
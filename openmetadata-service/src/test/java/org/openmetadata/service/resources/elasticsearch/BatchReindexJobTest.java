@@ -0,0 +1,318 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.openmetadata.service.resources.elasticsearch.BuildSearchIndexResource.ELASTIC_SEARCH_ENTITY_FQN_BATCH;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.api.CreateEventPublisherJob;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.data.Topic;
+import org.openmetadata.schema.settings.EntityProgress;
+import org.openmetadata.schema.settings.EventPublisherJob;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.elasticsearch.ElasticSearchIndexDefinition;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.EntityExtensionTimeSeriesDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.TableDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.TopicDAO;
+import org.openmetadata.service.jdbi3.EntityRepository;
+import org.openmetadata.service.jdbi3.TableRepository;
+import org.openmetadata.service.jdbi3.TopicRepository;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.RestUtil;
+import org.openmetadata.service.util.ResultList;
+
+/** Tests the batch reindexing against a local HTTP server that implements the _bulk API */
+class BatchReindexJobTest {
+  private static final int BATCH_SIZE = 100;
+
+  private final Set<String> indexedIds = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger bulkRequests = new AtomicInteger();
+  private final AtomicInteger failBulkRequest = new AtomicInteger(-1);
+  private final AtomicReference<String> batchJobJson = new AtomicReference<>();
+  private final List<EventPublisherJob> checkpoints = Collections.synchronizedList(new ArrayList<>());
+  private HttpServer server;
+  private RestHighLevelClient client;
+  private CollectionDAO dao;
+  private ElasticSearchIndexDefinition indexDefinition;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/_bulk", this::handleBulk);
+    server.start();
+    client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+
+    // Batch job record stored in the entity_extension_time_series table
+    dao = mock(CollectionDAO.class);
+    EntityExtensionTimeSeriesDAO timeSeriesDAO = mock(EntityExtensionTimeSeriesDAO.class);
+    when(dao.entityExtensionTimeSeriesDao()).thenReturn(timeSeriesDAO);
+    batchJobJson.set(
+        JsonUtils.pojoToJson(
+            new EventPublisherJob()
+                .withName("Elastic Search Batch")
+                .withStatus(EventPublisherJob.Status.IDLE)
+                .withTimestamp(1L)));
+    when(timeSeriesDAO.getExtension(anyString(), anyString())).thenAnswer(invocation -> batchJobJson.get());
+    doAnswer(
+            invocation -> {
+              assertEquals(ELASTIC_SEARCH_ENTITY_FQN_BATCH, invocation.getArgument(0));
+              String json = invocation.getArgument(2);
+              EventPublisherJob stored = JsonUtils.readValue(batchJobJson.get(), EventPublisherJob.class);
+              // Updates are conditional on the timestamp of the stored record
+              assertEquals(stored.getTimestamp(), (Long) invocation.getArgument(3));
+              batchJobJson.set(json);
+              checkpoints.add(JsonUtils.readValue(json, EventPublisherJob.class));
+              return null;
+            })
+        .when(timeSeriesDAO)
+        .update(anyString(), anyString(), anyString(), anyLong());
+    indexDefinition = new ElasticSearchIndexDefinition(client, dao);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test
+  void test_reindexWithCheckpoints() throws IOException {
+    List<Table> tables = registerTables(250);
+
+    BatchReindexJob job = BatchReindexJob.create(dao, client, indexDefinition, request(Entity.TABLE), null);
+    job.run();
+
+    assertEquals(3, bulkRequests.get());
+    assertEquals(ids(tables), indexedIds);
+
+    // Checkpoint is persisted after each bulk request
+    List<String> cursors =
+        checkpoints.stream()
+            .map(checkpoint -> checkpoint.getEntityProgress().get(0))
+            .filter(progress -> progress.getStats().getTotal() > 0)
+            .map(progress -> RestUtil.decodeCursor(progress.getAfter()))
+            .collect(Collectors.toList());
+    assertEquals(
+        List.of(tables.get(99).getFullyQualifiedName(), tables.get(199).getFullyQualifiedName()),
+        cursors.subList(0, 2));
+
+    EventPublisherJob stored = storedJob();
+    assertEquals(EventPublisherJob.Status.IDLE, stored.getStatus());
+    assertEquals(250, stored.getStats().getSuccess());
+    EntityProgress progress = stored.getEntityProgress().get(0);
+    assertTrue(progress.getCompleted());
+    assertEquals(250, progress.getStats().getTotal());
+    assertTrue(progress.getRecordsPerSecond() > 0);
+    assertFalse(BatchReindexJob.isResumable(stored));
+  }
+
+  @Test
+  void test_resumeFromCheckpoint() throws IOException {
+    List<Table> tables = registerTables(250);
+    failBulkRequest.set(2); // Second bulk request fails and the job stops at the checkpoint of the first page
+
+    BatchReindexJob.create(dao, client, indexDefinition, request(Entity.TABLE), null).run();
+    EventPublisherJob stored = storedJob();
+    assertEquals(EventPublisherJob.Status.ACTIVEWITHERROR, stored.getStatus());
+    assertNotNull(stored.getFailureDetails());
+    EntityProgress progress = stored.getEntityProgress().get(0);
+    assertFalse(progress.getCompleted());
+    assertEquals(tables.get(99).getFullyQualifiedName(), RestUtil.decodeCursor(progress.getAfter()));
+    assertEquals(100, progress.getStats().getSuccess());
+    assertTrue(BatchReindexJob.isResumable(stored));
+
+    // Resume as done when the server restarts. Only the entities after the checkpoint are indexed again.
+    failBulkRequest.set(-1);
+    indexedIds.clear();
+    BatchReindexJob job = BatchReindexJob.resume(dao, client, indexDefinition);
+    assertNotNull(job);
+    job.run();
+    assertEquals(ids(tables.subList(100, 250)), indexedIds);
+
+    stored = storedJob();
+    assertEquals(EventPublisherJob.Status.IDLE, stored.getStatus());
+    assertEquals(250, stored.getStats().getSuccess());
+    assertTrue(stored.getEntityProgress().get(0).getCompleted());
+    assertNull(BatchReindexJob.resume(dao, client, indexDefinition));
+  }
+
+  @Test
+  void test_entityTypesInParallel() throws IOException {
+    List<Table> tables = registerTables(150);
+    List<Topic> topics = registerTopics(120);
+
+    CreateEventPublisherJob request = request(Entity.TABLE, Entity.TOPIC).withWorkers(2);
+    BatchReindexJob.create(dao, client, indexDefinition, request, null).run();
+
+    assertEquals(4, bulkRequests.get());
+    assertEquals(tables.size() + topics.size(), indexedIds.size());
+    EventPublisherJob stored = storedJob();
+    assertEquals(EventPublisherJob.Status.IDLE, stored.getStatus());
+    assertEquals(270, stored.getStats().getTotal());
+    assertEquals(270, stored.getStats().getSuccess());
+    assertEquals(150, stored.getEntityProgress().get(0).getStats().getSuccess());
+    assertEquals(120, stored.getEntityProgress().get(1).getStats().getSuccess());
+  }
+
+  private EventPublisherJob storedJob() throws IOException {
+    return JsonUtils.readValue(batchJobJson.get(), EventPublisherJob.class);
+  }
+
+  private static CreateEventPublisherJob request(String... entityTypes) {
+    return new CreateEventPublisherJob()
+        .withPublisherType(CreateEventPublisherJob.PublisherType.ELASTIC_SEARCH)
+        .withRunMode(CreateEventPublisherJob.RunMode.BATCH)
+        .withEntities(new LinkedHashSet<>(List.of(entityTypes)))
+        .withBatchSize(BATCH_SIZE);
+  }
+
+  private static Set<String> ids(List<? extends EntityInterface> entities) {
+    return entities.stream().map(entity -> entity.getId().toString()).collect(Collectors.toSet());
+  }
+
+  private static List<Table> registerTables(int count) throws IOException {
+    List<Table> tables = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String name = String.format("t%04d", i);
+      tables.add(
+          new Table()
+              .withId(UUID.randomUUID())
+              .withName(name)
+              .withFullyQualifiedName("service.db.schema." + name)
+              .withService(reference(Entity.DATABASE_SERVICE, "service"))
+              .withDatabase(reference(Entity.DATABASE, "db"))
+              .withDatabaseSchema(reference(Entity.DATABASE_SCHEMA, "schema")));
+    }
+    TableRepository repository = mock(TableRepository.class);
+    mockListAfter(repository, tables);
+    Entity.registerEntity(Table.class, Entity.TABLE, mock(TableDAO.class), repository);
+    return tables;
+  }
+
+  private static List<Topic> registerTopics(int count) throws IOException {
+    List<Topic> topics = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String name = String.format("topic%04d", i);
+      topics.add(
+          new Topic()
+              .withId(UUID.randomUUID())
+              .withName(name)
+              .withFullyQualifiedName("kafka." + name)
+              .withService(reference(Entity.MESSAGING_SERVICE, "kafka")));
+    }
+    TopicRepository repository = mock(TopicRepository.class);
+    mockListAfter(repository, topics);
+    Entity.registerEntity(Topic.class, Entity.TOPIC, mock(TopicDAO.class), repository);
+    return topics;
+  }
+
+  /** Pages through the entities sorted by fully qualified name, like the keyset pagination of listAfter */
+  private static <T extends EntityInterface> void mockListAfter(EntityRepository<T> repository, List<T> entities)
+      throws IOException {
+    when(repository.getAllowedFields()).thenReturn(List.of("owner", "tags", "followers"));
+    when(repository.listAfter(isNull(), any(), any(), anyInt(), any()))
+        .thenAnswer(
+            invocation -> {
+              int limit = invocation.getArgument(3);
+              String after = invocation.getArgument(4);
+              String afterName = after == null ? "" : RestUtil.decodeCursor(after);
+              List<T> page =
+                  entities.stream()
+                      .filter(entity -> entity.getFullyQualifiedName().compareTo(afterName) > 0)
+                      .limit(limit + 1L)
+                      .collect(Collectors.toList());
+              String afterCursor = null;
+              if (page.size() > limit) {
+                page.remove(limit);
+                afterCursor = page.get(limit - 1).getFullyQualifiedName();
+              }
+              return new ResultList<>(page, null, afterCursor, entities.size());
+            });
+  }
+
+  private static EntityReference reference(String type, String name) {
+    return new EntityReference().withId(UUID.randomUUID()).withType(type).withName(name);
+  }
+
+  private void handleBulk(HttpExchange exchange) throws IOException {
+    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    if (bulkRequests.incrementAndGet() == failBulkRequest.get()) {
+      exchange.sendResponseHeaders(500, -1);
+      exchange.close();
+      return;
+    }
+    ObjectNode response = JsonUtils.getObjectNode();
+    ArrayNode items = response.putArray("items");
+    String[] lines = body.split("\n");
+    for (int i = 0; i < lines.length; i += 2) { // Each update action is followed by its document
+      JsonNode action = JsonUtils.readTree(lines[i]).get("update");
+      String id = action.get("_id").asText();
+      indexedIds.add(id);
+      ObjectNode item = items.addObject().putObject("update");
+      item.put("_index", action.get("_index").asText()).put("_type", "_doc").put("_id", id);
+      item.put("_version", 1).put("result", "created");
+      item.putObject("_shards").put("total", 1).put("successful", 1).put("failed", 0);
+      item.put("_seq_no", 0).put("_primary_term", 1).put("status", 201);
+    }
+    response.put("took", 1).put("errors", false);
+
+    byte[] bytes = JsonUtils.pojoToJson(response).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
+
+import io.dropwizard.db.DataSourceFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.type.ChangeEvent;
+import org.openmetadata.schema.type.EventType;
+import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.events.ChangeEventWriter;
+import org.openmetadata.service.resources.events.EventResource.ChangeEventList;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.TestUtils;
+
+/** Change events written by the {@link ChangeEventWriter} of the application to the change_event table */
+class ChangeEventWriterResourceTest extends OpenMetadataApplicationTest {
+  private static final String ENTITY_TYPE = "changeEventWriterTest";
+  private static final int SERVICE_COUNT = 20;
+  private static Jdbi jdbi;
+
+  @BeforeAll
+  static void setup() {
+    DataSourceFactory database = APP.getConfiguration().getDataSourceFactory();
+    jdbi = Jdbi.create(database.getUrl(), database.getUser(), database.getPassword());
+  }
+
+  @AfterAll
+  static void cleanup() throws Exception {
+    jdbi.useHandle(handle -> handle.execute("DELETE FROM change_event WHERE entityType = ?", ENTITY_TYPE));
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    for (int i = 0; i < SERVICE_COUNT; i++) {
+      DatabaseService service = serviceResourceTest.getEntityByName(serviceName(i), null, "", ADMIN_AUTH_HEADERS);
+      serviceResourceTest.deleteEntity(service.getId(), true, true, ADMIN_AUTH_HEADERS);
+    }
+  }
+
+  @Test
+  void test_listIncludesChangeEventsWrittenBefore() throws Exception {
+    assertNotNull(ChangeEventWriter.getInstance());
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    for (int i = 0; i < SERVICE_COUNT; i++) {
+      DatabaseService service =
+          serviceResourceTest.createEntity(serviceResourceTest.createRequest(serviceName(i)), ADMIN_AUTH_HEADERS);
+
+      // Listed right away, without waiting for the writer to write its batch
+      List<ChangeEvent> events =
+          TestUtils.get(
+                  getResource("events")
+                      .queryParam("entityCreated", "databaseService")
+                      .queryParam("timestamp", service.getUpdatedAt()),
+                  ChangeEventList.class,
+                  ADMIN_AUTH_HEADERS)
+              .getData();
+      assertTrue(
+          events.stream()
+              .anyMatch(
+                  event ->
+                      event.getEventType() == EventType.ENTITY_CREATED && service.getId().equals(event.getEntityId())),
+          "Change event of " + service.getFullyQualifiedName() + " is not listed");
+    }
+  }
+
+  @Test
+  void test_concurrentWritesAreAllWritten() throws Exception {
+    ChangeEventWriter writer = ChangeEventWriter.getInstance();
+    long timestamp = System.currentTimeMillis();
+    List<UUID> ids = IntStream.range(0, 5000).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toList());
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    for (UUID id : ids) {
+      String json =
+          JsonUtils.pojoToJson(
+              new ChangeEvent()
+                  .withEventType(EventType.ENTITY_CREATED)
+                  .withEntityType(ENTITY_TYPE)
+                  .withEntityId(id)
+                  .withTimestamp(timestamp)
+                  .withCurrentVersion(0.1)
+                  .withPreviousVersion(0.1));
+      executor.execute(() -> writer.write(json));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    assertTrue(writer.awaitWritten(TimeUnit.SECONDS.toMillis(30)));
+
+    // Every change event is in the table exactly once
+    List<String> jsons =
+        jdbi.withHandle(
+            handle ->
+                handle
+                    .createQuery("SELECT json FROM change_event WHERE entityType = :entityType")
+                    .bind("entityType", ENTITY_TYPE)
+                    .mapTo(String.class)
+                    .list());
+    Set<UUID> written = new HashSet<>();
+    for (String json : jsons) {
+      written.add(JsonUtils.readValue(json, ChangeEvent.class).getEntityId());
+    }
+    assertEquals(ids.size(), jsons.size());
+    assertEquals(new HashSet<>(ids), written);
+  }
+
+  private static String serviceName(int i) {
+    return "changeEventWriter" + i;
+  }
+}
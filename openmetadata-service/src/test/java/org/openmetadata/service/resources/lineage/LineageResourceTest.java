@@ -287,6 +287,95 @@ public class LineageResourceTest extends OpenMetadataApplicationTest {
     addEdge(TABLES.get(0), TABLES.get(1), details, ADMIN_AUTH_HEADERS);
   }
 
+  @Order(4)
+  @Test
+  void get_diamondLineage_200() throws HttpResponseException {
+    //
+    // Diamond shaped lineage graph where table8 is reachable from table5 through two paths
+    //          -->table6-->
+    // table5-->          -->table8-->table9
+    //          -->table7-->
+    addEdge(TABLES.get(5), TABLES.get(6));
+    addEdge(TABLES.get(5), TABLES.get(7));
+    addEdge(TABLES.get(6), TABLES.get(8));
+    addEdge(TABLES.get(7), TABLES.get(8));
+    addEdge(TABLES.get(8), TABLES.get(9));
+
+    // Edges out of table8 are returned only once even though table8 is reached twice
+    Edge[] expectedDownstreamEdges = {
+      getEdge(TABLES.get(5), TABLES.get(6)),
+      getEdge(TABLES.get(5), TABLES.get(7)),
+      getEdge(TABLES.get(6), TABLES.get(8)),
+      getEdge(TABLES.get(7), TABLES.get(8)),
+      getEdge(TABLES.get(8), TABLES.get(9))
+    };
+    assertLineage(
+        Entity.TABLE,
+        TABLES.get(5).getId(),
+        TABLES.get(5).getFullyQualifiedName(),
+        0,
+        3,
+        new Edge[0],
+        expectedDownstreamEdges);
+
+    // Edges into table6 and table7 are returned only once even though table5 is reached twice
+    Edge[] expectedUpstreamEdges = {
+      getEdge(TABLES.get(8), TABLES.get(9)),
+      getEdge(TABLES.get(6), TABLES.get(8)),
+      getEdge(TABLES.get(7), TABLES.get(8)),
+      getEdge(TABLES.get(5), TABLES.get(6)),
+      getEdge(TABLES.get(5), TABLES.get(7))
+    };
+    assertLineage(
+        Entity.TABLE,
+        TABLES.get(9).getId(),
+        TABLES.get(9).getFullyQualifiedName(),
+        3,
+        0,
+        expectedUpstreamEdges,
+        new Edge[0]);
+
+    deleteEdge(TABLES.get(5), TABLES.get(6));
+    deleteEdge(TABLES.get(5), TABLES.get(7));
+    deleteEdge(TABLES.get(6), TABLES.get(8));
+    deleteEdge(TABLES.get(7), TABLES.get(8));
+    deleteEdge(TABLES.get(8), TABLES.get(9));
+  }
+
+  @Order(5)
+  @Test
+  void get_cyclicLineage_200() throws HttpResponseException {
+    //
+    // Cyclic lineage graph table5-->table6-->table7-->table5
+    //
+    addEdge(TABLES.get(5), TABLES.get(6));
+    addEdge(TABLES.get(6), TABLES.get(7));
+    addEdge(TABLES.get(7), TABLES.get(5));
+
+    // Each edge of the cycle is returned once in each direction and the traversal stops at the visited table5
+    Edge[] expectedEdges = {
+      getEdge(TABLES.get(5), TABLES.get(6)),
+      getEdge(TABLES.get(6), TABLES.get(7)),
+      getEdge(TABLES.get(7), TABLES.get(5))
+    };
+    assertLineage(
+        Entity.TABLE, TABLES.get(5).getId(), TABLES.get(5).getFullyQualifiedName(), 3, 3, expectedEdges, expectedEdges);
+
+    // Depth smaller than the cycle length returns only the edges within the depth
+    assertLineage(
+        Entity.TABLE,
+        TABLES.get(5).getId(),
+        TABLES.get(5).getFullyQualifiedName(),
+        1,
+        1,
+        new Edge[] {getEdge(TABLES.get(7), TABLES.get(5))},
+        new Edge[] {getEdge(TABLES.get(5), TABLES.get(6))});
+
+    deleteEdge(TABLES.get(5), TABLES.get(6));
+    deleteEdge(TABLES.get(6), TABLES.get(7));
+    deleteEdge(TABLES.get(7), TABLES.get(5));
+  }
+
   public Edge getEdge(Table from, Table to) {
     return getEdge(from.getId(), to.getId(), null);
   }
@@ -32,6 +32,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response.Status;
 import lombok.SneakyThrows;
@@ -43,15 +44,27 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.openmetadata.schema.api.data.CreateDatabase;
+import org.openmetadata.schema.api.data.CreateDatabaseSchema;
+import org.openmetadata.schema.api.data.CreateTable;
 import org.openmetadata.schema.api.tags.CreateTag;
 import org.openmetadata.schema.api.tags.CreateTagCategory;
 import org.openmetadata.schema.api.tags.CreateTagCategory.TagCategoryType;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
 import org.openmetadata.schema.entity.tags.Tag;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
 import org.openmetadata.schema.type.TagCategory;
 import org.openmetadata.schema.type.TagLabel;
 import org.openmetadata.service.Entity;
 import org.openmetadata.service.OpenMetadataApplicationTest;
 import org.openmetadata.service.resources.EntityResourceTest;
+import org.openmetadata.service.resources.databases.DatabaseResourceTest;
+import org.openmetadata.service.resources.databases.TableResourceTest;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
 import org.openmetadata.service.resources.tags.TagResource.CategoryList;
 import org.openmetadata.service.util.EntityUtil;
 import org.openmetadata.service.util.FullyQualifiedName;
@@ -354,6 +367,119 @@ public class TagResourceTest extends OpenMetadataApplicationTest {
     updateCategory(newCategoryName, create, ADMIN_AUTH_HEADERS);
   }
 
+  @Test
+  void put_renameTagCategory_200() throws HttpResponseException {
+    // Category with primary and secondary tags, where the tag names also contain the category name
+    String categoryName = "Rename_Category";
+    CreateTagCategory create =
+        new CreateTagCategory()
+            .withName(categoryName)
+            .withDescription("description")
+            .withCategoryType(TagCategoryType.Descriptive);
+    createAndCheckCategory(create, ADMIN_AUTH_HEADERS);
+    for (int i = 0; i < 5; i++) {
+      String primaryTag = categoryName + "Primary" + i;
+      createPrimaryTag(categoryName, new CreateTag().withName(primaryTag).withDescription("d"), ADMIN_AUTH_HEADERS);
+      for (int j = 0; j < 3; j++) {
+        CreateTag createTag = new CreateTag().withName(categoryName + "Secondary" + j).withDescription("d");
+        createSecondaryTag(categoryName, primaryTag, createTag, ADMIN_AUTH_HEADERS);
+      }
+    }
+
+    // Category matched by the '_' wildcard in the name of the renamed category
+    String otherName = "RenameXCategory";
+    createAndCheckCategory(create.withName(otherName), ADMIN_AUTH_HEADERS);
+    createPrimaryTag(otherName, new CreateTag().withName("Primary").withDescription("d"), ADMIN_AUTH_HEADERS);
+
+    // Only the prefix of the fully qualified names of the tags under the renamed category is replaced
+    String newName = "Renamed_Category";
+    updateCategory(categoryName, create.withName(newName), ADMIN_AUTH_HEADERS);
+    TagCategory category = getCategory(newName, ADMIN_AUTH_HEADERS);
+    assertEquals(5, category.getChildren().size());
+    for (Tag primaryTag : category.getChildren()) {
+      assertEquals(FullyQualifiedName.add(newName, primaryTag.getName()), primaryTag.getFullyQualifiedName());
+      assertEquals(3, primaryTag.getChildren().size());
+      for (Tag secondaryTag : primaryTag.getChildren()) {
+        assertEquals(
+            FullyQualifiedName.add(primaryTag.getFullyQualifiedName(), secondaryTag.getName()),
+            secondaryTag.getFullyQualifiedName());
+      }
+    }
+    assertEquals(
+        FullyQualifiedName.add(otherName, "Primary"),
+        getTag(FullyQualifiedName.add(otherName, "Primary"), ADMIN_AUTH_HEADERS).getFullyQualifiedName());
+
+    // A tag under the renamed category is read back by its new fully qualified name
+    String secondaryFqn = FullyQualifiedName.build(newName, categoryName + "Primary0", categoryName + "Secondary0");
+    assertEquals(secondaryFqn, getTag(secondaryFqn, ADMIN_AUTH_HEADERS).getFullyQualifiedName());
+  }
+
+  @Test
+  void put_renameTag_updatesTagLabels_200() throws IOException {
+    String categoryName = "RenameLabels_Category";
+    CreateTagCategory create =
+        new CreateTagCategory()
+            .withName(categoryName)
+            .withDescription("description")
+            .withCategoryType(TagCategoryType.Descriptive);
+    createAndCheckCategory(create, ADMIN_AUTH_HEADERS);
+    Tag primaryTag =
+        createPrimaryTag(categoryName, new CreateTag().withName("Primary").withDescription("d"), ADMIN_AUTH_HEADERS);
+    Tag secondaryTag =
+        createSecondaryTag(
+            categoryName, "Primary", new CreateTag().withName("Secondary").withDescription("d"), ADMIN_AUTH_HEADERS);
+    String otherName = "RenameLabelsXCategory"; // Matched by the '_' wildcard in the name of the renamed category
+    createAndCheckCategory(create.withName(otherName), ADMIN_AUTH_HEADERS);
+    Tag otherTag =
+        createPrimaryTag(otherName, new CreateTag().withName("Primary").withDescription("d"), ADMIN_AUTH_HEADERS);
+
+    // A table labeled with the tags, and a column labeled with the secondary tag
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service =
+        serviceResourceTest.createEntity(serviceResourceTest.createRequest("tagRenameService"), ADMIN_AUTH_HEADERS);
+    Database database =
+        new DatabaseResourceTest()
+            .createEntity(
+                new CreateDatabase().withName("db").withService(service.getEntityReference()), ADMIN_AUTH_HEADERS);
+    DatabaseSchema schema =
+        TestUtils.post(
+            getResource("databaseSchemas"),
+            new CreateDatabaseSchema().withName("schema").withDatabase(database.getEntityReference()),
+            DatabaseSchema.class,
+            ADMIN_AUTH_HEADERS);
+    TableResourceTest tableResourceTest = new TableResourceTest();
+    Column column =
+        new Column()
+            .withName("c0")
+            .withDataType(ColumnDataType.INT)
+            .withTags(List.of(EntityUtil.getTagLabel(secondaryTag)));
+    Table table =
+        tableResourceTest.createEntity(
+            new CreateTable()
+                .withName("labeled")
+                .withDatabaseSchema(schema.getEntityReference())
+                .withTags(List.of(EntityUtil.getTagLabel(primaryTag), EntityUtil.getTagLabel(otherTag)))
+                .withColumns(List.of(column)),
+            ADMIN_AUTH_HEADERS);
+
+    // The labels of the renamed tags are renamed with them, the label of the other category is left unchanged
+    String newName = "RenamedLabels_Category";
+    updateCategory(categoryName, create.withName(newName), ADMIN_AUTH_HEADERS);
+    updatePrimaryTag(newName, "Primary", new CreateTag().withName("Renamed").withDescription("d"), ADMIN_AUTH_HEADERS);
+    table = tableResourceTest.getEntity(table.getId(), "tags,columns", ADMIN_AUTH_HEADERS);
+    assertEquals(
+        List.of(FullyQualifiedName.add(newName, "Renamed"), otherTag.getFullyQualifiedName()),
+        tagFQNs(table.getTags()));
+    assertEquals(
+        List.of(FullyQualifiedName.build(newName, "Renamed", "Secondary")),
+        tagFQNs(table.getColumns().get(0).getTags()));
+    serviceResourceTest.deleteEntity(service.getId(), true, true, ADMIN_AUTH_HEADERS);
+  }
+
+  private static List<String> tagFQNs(List<TagLabel> tags) {
+    return tags.stream().map(TagLabel::getTagFQN).sorted().collect(Collectors.toList());
+  }
+
   @Test
   void put_tagCategoryInvalidRequest_400(TestInfo test) {
     // Primary tag with missing description
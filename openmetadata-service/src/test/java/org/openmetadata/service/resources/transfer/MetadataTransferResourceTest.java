@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.openmetadata.service.resources.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.api.data.CreateDatabase;
+import org.openmetadata.schema.api.data.CreateDatabaseSchema;
+import org.openmetadata.schema.api.data.CreateTable;
+import org.openmetadata.schema.api.services.CreateDatabaseService;
+import org.openmetadata.schema.api.services.CreateDatabaseService.DatabaseServiceType;
+import org.openmetadata.schema.entity.data.Database;
+import org.openmetadata.schema.entity.data.DatabaseSchema;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.services.DatabaseService;
+import org.openmetadata.schema.services.connections.database.SnowflakeConnection;
+import org.openmetadata.schema.type.Column;
+import org.openmetadata.schema.type.ColumnDataType;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.schema.type.TagLabel.LabelType;
+import org.openmetadata.schema.type.TagLabel.State;
+import org.openmetadata.schema.type.TagLabel.TagSource;
+import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.jdbi3.MetadataTransfer;
+import org.openmetadata.service.jdbi3.MetadataTransfer.EntityLine;
+import org.openmetadata.service.resources.databases.DatabaseResourceTest;
+import org.openmetadata.service.resources.databases.TableResourceTest;
+import org.openmetadata.service.resources.services.DatabaseServiceResourceTest;
+import org.openmetadata.service.security.SecurityUtil;
+import org.openmetadata.service.util.JsonUtils;
+import org.openmetadata.service.util.TestUtils;
+
+class MetadataTransferResourceTest extends OpenMetadataApplicationTest {
+  private static final String SERVICE_NAME = "transferService";
+  private static final TagLabel TIER1 = tagLabel("Tier.Tier1");
+  private static final TagLabel PII_SENSITIVE = tagLabel("PII.Sensitive");
+
+  @Test
+  void export_import_roundTrip() throws Exception {
+    DatabaseServiceResourceTest serviceResourceTest = new DatabaseServiceResourceTest();
+    DatabaseService service =
+        serviceResourceTest.createEntity(
+            new CreateDatabaseService()
+                .withName(SERVICE_NAME)
+                .withServiceType(DatabaseServiceType.Snowflake)
+                .withConnection(TestUtils.SNOWFLAKE_DATABASE_CONNECTION),
+            ADMIN_AUTH_HEADERS);
+    Database database =
+        new DatabaseResourceTest()
+            .createEntity(
+                new CreateDatabase().withName("db").withService(service.getEntityReference()), ADMIN_AUTH_HEADERS);
+    DatabaseSchema schema =
+        TestUtils.post(
+            getResource("databaseSchemas"),
+            new CreateDatabaseSchema().withName("schema").withDatabase(database.getEntityReference()),
+            DatabaseSchema.class,
+            ADMIN_AUTH_HEADERS);
+    TableResourceTest tableResourceTest = new TableResourceTest();
+    Table table =
+        tableResourceTest.createEntity(
+            new CreateTable()
+                .withName("table")
+                .withDatabaseSchema(schema.getEntityReference())
+                .withTags(List.of(TIER1))
+                .withColumns(
+                    List.of(
+                        new Column().withName("c0").withDataType(ColumnDataType.INT).withTags(List.of(PII_SENSITIVE)),
+                        new Column().withName("c1").withDataType(ColumnDataType.INT))),
+            ADMIN_AUTH_HEADERS);
+
+    // The export of the service hierarchy has no secrets
+    List<String> lines = exportService();
+    assertEquals(4, lines.size());
+    assertFalse(lines.get(0).toLowerCase().contains("password"), lines.get(0));
+
+    // The tags changed after the export are replaced by the exported ones
+    String json = JsonUtils.pojoToJson(table);
+    table.setTags(List.of(PII_SENSITIVE));
+    table.getColumns().get(0).setTags(List.of(TIER1));
+    table.getColumns().get(1).setTags(List.of(PII_SENSITIVE));
+    tableResourceTest.patchEntity(table.getId(), json, table, ADMIN_AUTH_HEADERS);
+
+    JsonNode result = importLines(lines);
+    assertEquals(4, result.get("entities").asInt());
+    assertEquals(2, result.get("tags").asInt());
+    Table imported = tableResourceTest.getEntity(table.getId(), "tags,columns", ADMIN_AUTH_HEADERS);
+    assertEquals(List.of(TIER1.getTagFQN()), tagFQNs(imported.getTags()));
+    assertEquals(List.of(PII_SENSITIVE.getTagFQN()), tagFQNs(imported.getColumns().get(0).getTags()));
+    assertEquals(List.of(), tagFQNs(imported.getColumns().get(1).getTags()));
+
+    // The service keeps its stored connection, also when the same export is imported again
+    DatabaseService importedService = serviceResourceTest.getEntity(service.getId(), "", ADMIN_AUTH_HEADERS);
+    SnowflakeConnection connection =
+        JsonUtils.convertValue(importedService.getConnection().getConfig(), SnowflakeConnection.class);
+    assertEquals("snowflake", connection.getPassword());
+    assertEquals(4, importLines(lines).get("entities").asInt());
+    importedService = serviceResourceTest.getEntity(service.getId(), "", ADMIN_AUTH_HEADERS);
+    connection = JsonUtils.convertValue(importedService.getConnection().getConfig(), SnowflakeConnection.class);
+    assertEquals("snowflake", connection.getPassword());
+  }
+
+  /** The lines of the export of the database services, databases, schemas and tables of the service */
+  private static List<String> exportService() throws Exception {
+    String ndjson =
+        SecurityUtil.addHeaders(
+                getResource("transfer/export")
+                    .queryParam("entityTypes", "databaseService,database,databaseSchema,table"),
+                ADMIN_AUTH_HEADERS)
+            .accept(MetadataTransfer.NDJSON)
+            .get(String.class);
+    List<String> lines = new ArrayList<>();
+    for (String line : ndjson.split("\n")) {
+      String fqn = JsonUtils.readValue(line, EntityLine.class).getFullyQualifiedName();
+      if (fqn != null && (fqn.equals(SERVICE_NAME) || fqn.startsWith(SERVICE_NAME + "."))) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private static JsonNode importLines(List<String> lines) throws Exception {
+    Response response =
+        SecurityUtil.addHeaders(getResource("transfer/import"), ADMIN_AUTH_HEADERS)
+            .put(javax.ws.rs.client.Entity.entity(String.join("\n", lines), MetadataTransfer.NDJSON));
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    return JsonUtils.readTree(response.readEntity(String.class));
+  }
+
+  private static List<String> tagFQNs(List<TagLabel> tags) {
+    return tags.stream().map(TagLabel::getTagFQN).collect(Collectors.toList());
+  }
+
+  private static TagLabel tagLabel(String tagFQN) {
+    return new TagLabel()
+        .withTagFQN(tagFQN)
+        .withSource(TagSource.TAG)
+        .withLabelType(LabelType.MANUAL)
+        .withState(State.CONFIRMED);
+  }
+}
@@ -15,15 +15,19 @@ package org.openmetadata.service.resources.usage;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static org.awaitility.Awaitility.with;
+import static org.awaitility.Durations.ONE_SECOND;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.openmetadata.common.utils.CommonUtil.getDateStringByOffset;
 import static org.openmetadata.service.Entity.TABLE;
 import static org.openmetadata.service.exception.CatalogExceptionMessage.entityNotFound;
 import static org.openmetadata.service.exception.CatalogExceptionMessage.entityTypeNotFound;
+import static org.openmetadata.service.exception.CatalogExceptionMessage.entityTypeNotSupported;
 import static org.openmetadata.service.util.TestUtils.ADMIN_AUTH_HEADERS;
 import static org.openmetadata.service.util.TestUtils.NON_EXISTENT_ENTITY;
 import static org.openmetadata.service.util.TestUtils.assertResponse;
 
+import io.dropwizard.db.DataSourceFactory;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -32,11 +36,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.client.HttpResponseException;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.jdbi.v3.sqlobject.SqlObjects;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer;
@@ -47,11 +57,17 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.openmetadata.schema.api.data.CreateTable;
 import org.openmetadata.schema.entity.data.Database;
 import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.type.BulkUsage;
 import org.openmetadata.schema.type.DailyCount;
 import org.openmetadata.schema.type.EntityUsage;
+import org.openmetadata.schema.type.EntityUsageCount;
 import org.openmetadata.schema.type.UsageDetails;
 import org.openmetadata.service.Entity;
 import org.openmetadata.service.OpenMetadataApplicationTest;
+import org.openmetadata.service.jdbi3.CollectionDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.UsageDAO;
+import org.openmetadata.service.jdbi3.locator.ConnectionAwareAnnotationSqlLocator;
+import org.openmetadata.service.jdbi3.locator.ConnectionType;
 import org.openmetadata.service.resources.databases.DatabaseResourceTest;
 import org.openmetadata.service.resources.databases.TableResourceTest;
 import org.openmetadata.service.util.RestUtil;
@@ -66,6 +82,40 @@ class UsageResourceTest extends OpenMetadataApplicationTest {
   public static final int TABLE_COUNT = 10;
   public static final int DAYS_OF_USAGE = 32;
 
+  /** Percentile computation with correlated subqueries used before window functions, to compare the results */
+  private static final String MYSQL_CORRELATED_PERCENTILE =
+      "UPDATE entity_usage u JOIN ( "
+          + "SELECT u1.id, "
+          + "(SELECT COUNT(*) FROM entity_usage as u2 WHERE u2.count1 <  u1.count1 AND u2.entityType = :entityType "
+          + "AND u2.usageDate = :date) as p1, "
+          + "(SELECT COUNT(*) FROM entity_usage as u3 WHERE u3.count7 <  u1.count7 AND u3.entityType = :entityType "
+          + "AND u3.usageDate = :date) as p7, "
+          + "(SELECT COUNT(*) FROM entity_usage as u4 WHERE u4.count30 <  u1.count30 AND u4.entityType = :entityType "
+          + "AND u4.usageDate = :date) as p30, "
+          + "(SELECT COUNT(*) FROM entity_usage WHERE entityType = :entityType AND usageDate = :date) as total "
+          + "FROM entity_usage u1 WHERE u1.entityType = :entityType AND u1.usageDate = :date"
+          + ") vals ON u.id = vals.id AND usageDate = :date "
+          + "SET u.percentile1 = ROUND(100 * p1/total, 2), u.percentile7 = ROUND(p7 * 100/total, 2), u.percentile30 ="
+          + " ROUND(p30*100/total, 2)";
+
+  private static final String POSTGRES_CORRELATED_PERCENTILE =
+      "UPDATE entity_usage u "
+          + "SET percentile1 = ROUND(100 * p1 / total, 2), percentile7 = ROUND(p7 * 100 / total, 2), "
+          + "percentile30 = ROUND(p30 * 100 / total, 2) "
+          + "FROM ("
+          + "   SELECT u1.id, "
+          + "       (SELECT COUNT(*) FROM entity_usage as u2 WHERE u2.count1 < u1.count1 "
+          + "AND u2.entityType = :entityType AND u2.usageDate = (:date :: date)) as p1, "
+          + "       (SELECT COUNT(*) FROM entity_usage as u3 WHERE u3.count7 < u1.count7 "
+          + "AND u3.entityType = :entityType AND u3.usageDate = (:date :: date)) as p7, "
+          + "       (SELECT COUNT(*) FROM entity_usage as u4 WHERE u4.count30 < u1.count30 "
+          + "AND u4.entityType = :entityType AND u4.usageDate = (:date :: date)) as p30, "
+          + "       (SELECT COUNT(*) FROM entity_usage WHERE entityType = :entityType AND usageDate = (:date :: date)"
+          + "   ) as total FROM entity_usage u1 "
+          + "   WHERE u1.entityType = :entityType AND u1.usageDate = (:date :: date)"
+          + ") vals "
+          + "WHERE u.id = vals.id AND usageDate = (:date :: date);";
+
   @BeforeAll
   public static void setup(TestInfo test) throws IOException, URISyntaxException {
     // Create TABLE_COUNT number of tables
@@ -292,6 +342,199 @@ class UsageResourceTest extends OpenMetadataApplicationTest {
     Assertions.assertEquals(usage.getUsage().get(0), database.getUsageSummary());
   }
 
+  @Test
+  void put_bulkUsage_200_OK() throws HttpResponseException {
+    // Report usage far in the future so that it is not mixed with the usage reported by the other tests
+    String today = RestUtil.DATE_FORMAT.format(new Date());
+    List<String> dates = new ArrayList<>();
+    for (int day = 0; day < 3; day++) {
+      dates.add(getDateStringByOffset(RestUtil.DATE_FORMAT, today, 1000 + day));
+    }
+
+    // Dates are reported out of order and the usage of the first table is reported both by id and by name
+    BulkUsage bulkUsage = new BulkUsage();
+    for (String date : List.of(dates.get(2), dates.get(0), dates.get(1))) {
+      for (int tableIndex = 0; tableIndex < TABLES.size(); tableIndex++) {
+        bulkUsage.getUsage().add(bulkUsageCount(TABLES.get(tableIndex).getId(), date, tableIndex + 1));
+      }
+      bulkUsage
+          .getUsage()
+          .add(
+              new EntityUsageCount()
+                  .withEntityType(TABLE)
+                  .withFullyQualifiedName(TABLES.get(0).getFullyQualifiedName())
+                  .withDate(date)
+                  .withCount(1));
+    }
+    reportBulkUsage(bulkUsage, ADMIN_AUTH_HEADERS);
+
+    int databaseDailyCount = TABLE_COUNT * (TABLE_COUNT + 1) / 2 + 1;
+    for (int day = 0; day < dates.size(); day++) {
+      for (int tableIndex = 0; tableIndex < TABLES.size(); tableIndex++) {
+        int dailyCount = tableIndex == 0 ? 2 : tableIndex + 1;
+        checkUsage(
+            dates.get(day),
+            TABLE,
+            TABLES.get(tableIndex).getId(),
+            dailyCount,
+            (day + 1) * dailyCount,
+            (day + 1) * dailyCount,
+            ADMIN_AUTH_HEADERS);
+      }
+      int rollingCount = (day + 1) * databaseDailyCount;
+      checkUsage(
+          dates.get(day),
+          Entity.DATABASE,
+          TABLES.get(0).getDatabase().getId(),
+          databaseDailyCount,
+          rollingCount,
+          rollingCount,
+          ADMIN_AUTH_HEADERS);
+      checkUsage(
+          dates.get(day),
+          Entity.DATABASE_SCHEMA,
+          TABLES.get(0).getDatabaseSchema().getId(),
+          databaseDailyCount,
+          rollingCount,
+          rollingCount,
+          ADMIN_AUTH_HEADERS);
+    }
+
+    // Usage added to an earlier date is added to the rolling counts of the later dates
+    UUID tableId = TABLES.get(1).getId();
+    reportBulkUsage(new BulkUsage().withUsage(List.of(bulkUsageCount(tableId, dates.get(1), 5))), ADMIN_AUTH_HEADERS);
+    checkUsage(dates.get(1), TABLE, tableId, 7, 9, 9, ADMIN_AUTH_HEADERS);
+    checkUsage(dates.get(2), TABLE, tableId, 2, 11, 11, ADMIN_AUTH_HEADERS);
+
+    // The percentile ranks of the later dates are recomputed from their new rolling counts
+    UUID otherTableId = TABLES.get(2).getId();
+    with()
+        .pollInterval(ONE_SECOND)
+        .await("Percentiles of the later dates")
+        .atMost(30, TimeUnit.SECONDS)
+        .until(() -> weeklyPercentileRank(tableId, dates.get(2)) > weeklyPercentileRank(otherTableId, dates.get(2)));
+
+    // Nothing is reported when the usage of one of the entities can't be reported
+    BulkUsage invalidUsage =
+        new BulkUsage()
+            .withUsage(
+                List.of(
+                    bulkUsageCount(tableId, dates.get(2), 5), bulkUsageCount(NON_EXISTENT_ENTITY, dates.get(2), 5)));
+    assertResponse(
+        () -> reportBulkUsage(invalidUsage, ADMIN_AUTH_HEADERS), NOT_FOUND, entityNotFound(TABLE, NON_EXISTENT_ENTITY));
+    invalidUsage.getUsage().get(1).withEntityType(Entity.DATABASE).withId(TABLES.get(0).getDatabase().getId());
+    assertResponse(
+        () -> reportBulkUsage(invalidUsage, ADMIN_AUTH_HEADERS), BAD_REQUEST, entityTypeNotSupported(Entity.DATABASE));
+    checkUsage(dates.get(2), TABLE, tableId, 2, 11, 11, ADMIN_AUTH_HEADERS);
+  }
+
+  @Test
+  void compute_percentile_sameAsCorrelatedSubqueries() {
+    DataSourceFactory database = APP.getConfiguration().getDataSourceFactory();
+    Jdbi jdbi = Jdbi.create(database.getUrl(), database.getUser(), database.getPassword());
+    jdbi.installPlugin(new SqlObjectPlugin());
+    jdbi.getConfig(SqlObjects.class).setSqlLocator(new ConnectionAwareAnnotationSqlLocator(database.getDriverClass()));
+    UsageDAO usageDAO = jdbi.onDemand(CollectionDAO.class).usageDAO();
+    String correlatedSubqueries =
+        ConnectionType.from(database.getDriverClass()) == ConnectionType.MYSQL
+            ? MYSQL_CORRELATED_PERCENTILE
+            : POSTGRES_CORRELATED_PERCENTILE;
+    String entityType = "percentileTest";
+    try {
+      // Percentile ranks are the same as the ones computed with correlated subqueries, including for tied counts
+      insertUsage(jdbi, entityType, "2022-10-01", 2000);
+      jdbi.useHandle(
+          handle ->
+              handle
+                  .createUpdate(correlatedSubqueries)
+                  .bind("entityType", entityType)
+                  .bind("date", "2022-10-01")
+                  .execute());
+      Map<String, List<Integer>> expected = getPercentiles(jdbi, entityType, "2022-10-01");
+      usageDAO.computePercentile(entityType, "2022-10-01");
+      assertEquals(expected, getPercentiles(jdbi, entityType, "2022-10-01"));
+
+      // Compare the time taken with correlated subqueries on 10k usage rows with window functions on 100k rows
+      insertUsage(jdbi, entityType, "2022-10-02", 10000);
+      long start = System.nanoTime();
+      jdbi.useHandle(
+          handle ->
+              handle
+                  .createUpdate(correlatedSubqueries)
+                  .bind("entityType", entityType)
+                  .bind("date", "2022-10-02")
+                  .execute());
+      long correlatedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      start = System.nanoTime();
+      usageDAO.computePercentile(entityType, "2022-10-02");
+      long windowMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      insertUsage(jdbi, entityType, "2022-10-03", 100000);
+      start = System.nanoTime();
+      usageDAO.computePercentile(entityType, "2022-10-03");
+      long window100kMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      LOG.info(
+          "Percentile of 10k usage rows computed in {} ms with correlated subqueries and {} ms with window functions. "
+              + "Percentile of 100k usage rows computed in {} ms with window functions",
+          correlatedMillis,
+          windowMillis,
+          window100kMillis);
+    } finally {
+      jdbi.useHandle(
+          handle ->
+              handle
+                  .createUpdate("DELETE FROM entity_usage WHERE entityType = :entityType")
+                  .bind("entityType", entityType)
+                  .execute());
+    }
+  }
+
+  private static void insertUsage(Jdbi jdbi, String entityType, String date, int count) {
+    Random random = new Random(count);
+    jdbi.useHandle(
+        handle -> {
+          PreparedBatch batch =
+              handle.prepareBatch(
+                  "INSERT INTO entity_usage (usageDate, id, entityType, count1, count7, count30) "
+                      + "VALUES (CAST(:date AS DATE), :id, :entityType, :count1, :count7, :count30)");
+          for (int i = 0; i < count; i++) {
+            int count1 = random.nextInt(100); // Many entities have the same count
+            int count7 = count1 + random.nextInt(1000);
+            batch
+                .bind("date", date)
+                .bind("id", UUID.randomUUID().toString())
+                .bind("entityType", entityType)
+                .bind("count1", count1)
+                .bind("count7", count7)
+                .bind("count30", count7 + random.nextInt(10000))
+                .add();
+            if (batch.size() == 1000) {
+              batch.execute();
+            }
+          }
+          if (batch.size() > 0) {
+            batch.execute();
+          }
+        });
+  }
+
+  private static Map<String, List<Integer>> getPercentiles(Jdbi jdbi, String entityType, String date) {
+    return jdbi.withHandle(
+        handle ->
+            handle
+                .createQuery(
+                    "SELECT id, percentile1, percentile7, percentile30 FROM entity_usage "
+                        + "WHERE entityType = :entityType AND usageDate = CAST(:date AS DATE)")
+                .bind("entityType", entityType)
+                .bind("date", date)
+                .map(
+                    (r, ctx) ->
+                        Map.entry(
+                            r.getString("id"),
+                            List.of(r.getInt("percentile1"), r.getInt("percentile7"), r.getInt("percentile30"))))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+  }
+
   public static DailyCount usageReport() {
     Random random = new Random();
     String today = RestUtil.DATE_FORMAT.format(new Date());
@@ -350,6 +593,16 @@ class UsageResourceTest extends OpenMetadataApplicationTest {
     TestUtils.put(target, usage, Response.Status.CREATED, authHeaders);
   }
 
+  public static void reportBulkUsage(BulkUsage bulkUsage, Map<String, String> authHeaders)
+      throws HttpResponseException {
+    WebTarget target = getResource("usage/bulk");
+    TestUtils.put(target, bulkUsage, Response.Status.OK, authHeaders);
+  }
+
+  private static EntityUsageCount bulkUsageCount(UUID tableId, String date, int count) {
+    return new EntityUsageCount().withEntityType(TABLE).withId(tableId).withDate(date).withCount(count);
+  }
+
   public static void computePercentile(String entity, String date, Map<String, String> authHeaders)
       throws HttpResponseException {
     WebTarget target = getResource("usage/compute.percentile/" + entity + "/" + date);
@@ -363,6 +616,12 @@ class UsageResourceTest extends OpenMetadataApplicationTest {
     assertEquals(expectedRecords, usage.getUsage().size());
   }
 
+  private static double weeklyPercentileRank(UUID tableId, String date) throws HttpResponseException {
+    Double percentileRank =
+        getUsage(TABLE, tableId, date, 1, ADMIN_AUTH_HEADERS).getUsage().get(0).getWeeklyStats().getPercentileRank();
+    return percentileRank == null ? 0 : percentileRank;
+  }
+
   public static EntityUsage getUsageByName(
       String entity, String fqn, String date, Integer days, Map<String, String> authHeaders)
       throws HttpResponseException {
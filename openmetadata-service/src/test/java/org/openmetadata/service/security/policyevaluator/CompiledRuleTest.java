@@ -7,12 +7,71 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openmetadata.schema.entity.data.Table;
 import org.openmetadata.schema.entity.policies.accessControl.Rule;
+import org.openmetadata.schema.entity.policies.accessControl.Rule.Effect;
+import org.openmetadata.schema.entity.teams.Team;
+import org.openmetadata.schema.entity.teams.User;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.MetadataOperation;
 import org.openmetadata.schema.type.ResourceDescriptor;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.TeamDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.UserDAO;
+import org.openmetadata.service.jdbi3.TableRepository;
+import org.openmetadata.service.jdbi3.TeamRepository;
+import org.openmetadata.service.jdbi3.UserRepository;
 import org.openmetadata.service.resources.policies.PolicyResource;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 class CompiledRuleTest {
+  private static final SpelExpressionParser INTERPRETER = new SpelExpressionParser();
+  private static final List<String> CONDITIONS =
+      List.of(
+          "noOwner()",
+          "!noOwner()",
+          "isOwner()",
+          "!isOwner()",
+          "noOwner() || isOwner()",
+          "!noOwner() && !isOwner()",
+          "matchAllTags('tag1')",
+          "matchAllTags('tag1', 'tag2', 'tag3')",
+          "!matchAllTags('tag1', 'tag2', 'tag3')",
+          "matchAnyTag('tag1')",
+          "matchAnyTag('tag3,tag4')",
+          "!matchAnyTag('tag4')",
+          "isOwner() && matchAnyTag('tag1,tag2')");
+  private static Table table;
+  private static User user;
+  private static SubjectContext subjectContext;
+  private static ResourceContext resourceContext;
+
+  @BeforeAll
+  public static void setup() {
+    Entity.registerEntity(User.class, Entity.USER, Mockito.mock(UserDAO.class), Mockito.mock(UserRepository.class));
+    Entity.registerEntity(Team.class, Entity.TEAM, Mockito.mock(TeamDAO.class), Mockito.mock(TeamRepository.class));
+    table = new Table().withName("table");
+    user = new User().withId(UUID.randomUUID()).withName("user").withTeams(List.of());
+    resourceContext =
+        ResourceContext.builder()
+            .resource("table")
+            .entity(table)
+            .entityRepository(Mockito.mock(TableRepository.class))
+            .build();
+    subjectContext = new SubjectContext(user);
+  }
+
   @Test
   void testResourceMatchAll() throws IOException {
     // Rule with resource set to "all" matches all the resources
@@ -48,4 +107,109 @@ class CompiledRuleTest {
           "Resource name " + resourceName + " not matched");
     }
   }
+
+  @Test
+  void test_compiledConditionsMatchInterpreter() {
+    List<CompiledRule> rules = new ArrayList<>();
+    CONDITIONS.forEach(condition -> rules.add(rule(condition)));
+
+    List<EntityReference> owners =
+        List.of(
+            new EntityReference().withId(user.getId()).withType(Entity.USER).withName(user.getName()),
+            new EntityReference().withId(UUID.randomUUID()).withType(Entity.USER).withName("otherUser"));
+    List<List<TagLabel>> tags = List.of(getTags(), getTags("tag1"), getTags("tag1", "tag2", "tag3"), getTags("tag4"));
+    List<EntityReference> ownerStates = new ArrayList<>(owners);
+    ownerStates.add(null);
+    for (EntityReference owner : ownerStates) {
+      for (List<TagLabel> tagLabels : tags) {
+        table.withOwner(owner).withTags(tagLabels);
+        for (CompiledRule rule : rules) {
+          // Evaluate more than once so that the compiled form of the condition is used
+          for (int i = 0; i < 3; i++) {
+            assertEquals(interpret(rule.getCondition()), rule.matchExpression(null, subjectContext, resourceContext));
+          }
+        }
+      }
+    }
+
+    // Conditions are compiled, except for matchAnyTag which converts its argument to a list of tags
+    for (CompiledRule rule : rules) {
+      assertEquals(
+          !rule.getCondition().contains("matchAnyTag"),
+          ((SpelExpression) rule.getExpression()).compileExpression(),
+          rule.getCondition());
+    }
+  }
+
+  @Test
+  void test_matchAnyTagOfStoredConditions() {
+    // Stored conditions pass the tags as a single comma separated string
+    CompiledRule rule = rule("matchAnyTag('tag2,tag3')");
+    table.withOwner(null).withTags(getTags("tag3"));
+    assertTrue(rule.matchExpression(null, subjectContext, resourceContext));
+    table.withTags(getTags("tag1"));
+    assertFalse(rule.matchExpression(null, subjectContext, resourceContext));
+  }
+
+  @Test
+  void test_concurrentEvaluations() throws Exception {
+    // A rule is evaluated concurrently by the requests of different users on different resources
+    CompiledRule rule = rule("isOwner() || matchAllTags('tag1', 'tag2')");
+    int threads = 8;
+    List<Callable<Void>> evaluations = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      EntityReference owner =
+          t % 2 == 0 ? new EntityReference().withId(user.getId()).withType(Entity.USER).withName(user.getName()) : null;
+      List<TagLabel> tags = t % 4 < 2 ? getTags("tag1", "tag2") : getTags("tag1");
+      ResourceContext context =
+          ResourceContext.builder()
+              .resource("table")
+              .entity(new Table().withName("table" + t).withOwner(owner).withTags(tags))
+              .entityRepository(Mockito.mock(TableRepository.class))
+              .build();
+      boolean expected = interpret(rule.getCondition(), context);
+      evaluations.add(
+          () -> {
+            for (int i = 0; i < 1000; i++) {
+              assertEquals(expected, rule.matchExpression(null, subjectContext, context));
+            }
+            return null;
+          });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (Future<Void> future : executor.invokeAll(evaluations)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Boolean interpret(String condition) {
+    return interpret(condition, resourceContext);
+  }
+
+  private static Boolean interpret(String condition, ResourceContext context) {
+    RuleEvaluator evaluator = new RuleEvaluator(null, subjectContext, context);
+    return INTERPRETER.parseExpression(condition).getValue(new StandardEvaluationContext(evaluator), Boolean.class);
+  }
+
+  private static CompiledRule rule(String condition) {
+    return new CompiledRule(
+        new Rule()
+            .withName("rule")
+            .withEffect(Effect.ALLOW)
+            .withResources(List.of("all"))
+            .withOperations(List.of(MetadataOperation.ALL))
+            .withCondition(condition));
+  }
+
+  private static List<TagLabel> getTags(String... tags) {
+    List<TagLabel> tagLabels = new ArrayList<>();
+    for (String tag : tags) {
+      tagLabels.add(new TagLabel().withTagFQN(tag));
+    }
+    return tagLabels;
+  }
 }
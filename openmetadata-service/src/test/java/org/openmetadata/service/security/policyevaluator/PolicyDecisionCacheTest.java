@@ -0,0 +1,333 @@
+/*
+ *  Copyright 2022 Collate
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.openmetadata.service.security.policyevaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openmetadata.schema.EntityInterface;
+import org.openmetadata.schema.entity.data.Table;
+import org.openmetadata.schema.entity.policies.Policy;
+import org.openmetadata.schema.entity.policies.accessControl.Rule;
+import org.openmetadata.schema.entity.policies.accessControl.Rule.Effect;
+import org.openmetadata.schema.entity.teams.Role;
+import org.openmetadata.schema.entity.teams.Team;
+import org.openmetadata.schema.entity.teams.User;
+import org.openmetadata.schema.type.EntityReference;
+import org.openmetadata.schema.type.Include;
+import org.openmetadata.schema.type.MetadataOperation;
+import org.openmetadata.schema.type.TagLabel;
+import org.openmetadata.service.Entity;
+import org.openmetadata.service.jdbi3.CollectionDAO.PolicyDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.RoleDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.TeamDAO;
+import org.openmetadata.service.jdbi3.CollectionDAO.UserDAO;
+import org.openmetadata.service.jdbi3.EntityDAO;
+import org.openmetadata.service.jdbi3.PolicyRepository;
+import org.openmetadata.service.jdbi3.RoleRepository;
+import org.openmetadata.service.jdbi3.TableRepository;
+import org.openmetadata.service.jdbi3.TeamRepository;
+import org.openmetadata.service.jdbi3.UserRepository;
+import org.openmetadata.service.security.AuthorizationException;
+
+/** Checks that cached decisions are the same as the decisions made by evaluating the policies */
+@Slf4j
+class PolicyDecisionCacheTest {
+  private static final int AUTHORIZATIONS = 10000;
+  private static final List<String> USERS = List.of("alice", "bob", "carol");
+  private static final List<String> RESOURCES = List.of(Entity.TABLE, Entity.DASHBOARD, Entity.TOPIC);
+  private static final List<String> TAGS = List.of("PII.Sensitive", "Tier.Tier1", "Tier.Tier2");
+  private static final List<MetadataOperation> OPERATIONS =
+      List.of(
+          MetadataOperation.VIEW_BASIC,
+          MetadataOperation.VIEW_USAGE,
+          MetadataOperation.EDIT_DESCRIPTION,
+          MetadataOperation.EDIT_TAGS,
+          MetadataOperation.EDIT_OWNER,
+          MetadataOperation.DELETE);
+  private static Team team;
+
+  @BeforeAll
+  public static void setup() {
+    Entity.registerEntity(User.class, Entity.USER, Mockito.mock(UserDAO.class), Mockito.mock(UserRepository.class));
+    Entity.registerEntity(Team.class, Entity.TEAM, Mockito.mock(TeamDAO.class), Mockito.mock(TeamRepository.class));
+    Entity.registerEntity(
+        Policy.class, Entity.POLICY, Mockito.mock(PolicyDAO.class), Mockito.mock(PolicyRepository.class));
+    Entity.registerEntity(Role.class, Entity.ROLE, Mockito.mock(RoleDAO.class), Mockito.mock(RoleRepository.class));
+    PolicyCache.initialize();
+    RoleCache.initialize();
+    SubjectCache.initialize();
+
+    Policy teamPolicy =
+        createPolicy(
+            "teamPolicy",
+            rule("teamEdit", Effect.ALLOW, "all", "matchTeam()", MetadataOperation.EDIT_ALL),
+            rule("teamDelete", Effect.DENY, Entity.TOPIC, "!matchTeam()", MetadataOperation.DELETE));
+    team =
+        new Team()
+            .withName("team")
+            .withId(UUID.randomUUID())
+            .withDefaultRoles(List.of())
+            .withPolicies(List.of(teamPolicy.getEntityReference()));
+    SubjectCache.TEAM_CACHE.put(team.getId(), team);
+
+    Policy dataConsumer =
+        createPolicy(
+            "dataConsumer",
+            rule("viewAll", Effect.ALLOW, "all", null, MetadataOperation.VIEW_ALL),
+            rule("editOwned", Effect.ALLOW, "all", "noOwner() || isOwner()", MetadataOperation.EDIT_ALL),
+            rule("denyPII", Effect.DENY, "all", "matchAnyTag('PII.Sensitive')", MetadataOperation.EDIT_TAGS),
+            rule("deleteTier2", Effect.ALLOW, Entity.TABLE, "matchAllTags('Tier.Tier2')", MetadataOperation.DELETE));
+    Role consumer = createRole("consumer", dataConsumer);
+    putUser("alice", List.of(consumer), List.of(team));
+    putUser("bob", List.of(consumer), List.of());
+    putUser("carol", List.of(), List.of(team));
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    SubjectCache.cleanUp();
+    PolicyCache.cleanUp();
+    RoleCache.cleanUp();
+  }
+
+  @AfterEach
+  void disableDecisionCache() {
+    PolicyDecisionCache.cleanUp();
+  }
+
+  @Test
+  void test_cachedDecisionsAreIdentical() throws IOException {
+    List<Authorization> authorizations = getAuthorizations();
+
+    long start = System.nanoTime();
+    List<String> evaluated = authorize(authorizations);
+    long evaluatedNanos = System.nanoTime() - start;
+
+    PolicyDecisionCache.initialize();
+    start = System.nanoTime();
+    List<String> cached = authorize(authorizations);
+    long cachedNanos = System.nanoTime() - start;
+
+    LOG.info(
+        "{} authorizations took {} ms without the decision cache and {} ms with the decision cache",
+        AUTHORIZATIONS,
+        TimeUnit.NANOSECONDS.toMillis(evaluatedNanos),
+        TimeUnit.NANOSECONDS.toMillis(cachedNanos));
+    assertEquals(evaluated, cached);
+    assertTrue(evaluated.contains("allowed"));
+    assertTrue(evaluated.stream().anyMatch(decision -> !decision.equals("allowed")));
+    // Authorizations are repeated for the same user, resource, operations, owner, and tags
+    assertTrue(PolicyDecisionCache.DECISION_CACHE.size() < AUTHORIZATIONS);
+  }
+
+  @Test
+  void test_decisionsAreInvalidated() throws IOException {
+    PolicyDecisionCache.initialize();
+    EntityReference owner = new EntityReference().withType(Entity.USER).withName("bob");
+    Authorization editDescription =
+        new Authorization(
+            "alice", new TestResourceContext(Entity.TABLE, owner, List.of()), MetadataOperation.EDIT_DESCRIPTION);
+    assertNotEquals("allowed", authorize(editDescription)); // alice is not the owner
+
+    // alice becomes an owner of all the tables when her roles change
+    Policy owners =
+        createPolicy("owners", rule("editAll", Effect.ALLOW, Entity.TABLE, null, MetadataOperation.EDIT_ALL));
+    SubjectCache.getInstance().invalidateUser("alice");
+    putUser("alice", List.of(createRole("owner", owners)), List.of(team));
+    assertEquals("allowed", authorize(editDescription));
+
+    // The policy is changed to deny editing the description of tables
+    PolicyCache.getInstance().invalidatePolicy(owners.getId());
+    PolicyCache.POLICY_CACHE.put(
+        owners.getId(),
+        List.of(new CompiledRule(rule("denyAll", Effect.DENY, Entity.TABLE, null, MetadataOperation.EDIT_ALL))));
+    assertNotEquals("allowed", authorize(editDescription));
+  }
+
+  @Test
+  void test_cachedDecisionOnEntityIsNotRead() throws IOException {
+    PolicyDecisionCache.initialize();
+    UUID tableId = UUID.randomUUID();
+    AtomicReference<EntityReference> owner = new AtomicReference<>(userReference("alice"));
+    TableRepository repository = Mockito.mock(TableRepository.class);
+    Mockito.when(repository.findOrNull(Mockito.eq(tableId), Mockito.anyString(), Mockito.eq(Include.NON_DELETED)))
+        .thenAnswer(invocation -> new Table().withId(tableId).withName("table").withOwner(owner.get()));
+    ResourceContext.ResourceContextBuilder context =
+        ResourceContext.builder().resource(Entity.TABLE).entityRepository(repository).id(tableId);
+    Authorization editDescription = new Authorization("bob", context.build(), MetadataOperation.EDIT_DESCRIPTION);
+    assertNotEquals("allowed", authorize(editDescription)); // bob is not the owner
+    Mockito.verify(repository).findOrNull(Mockito.eq(tableId), Mockito.anyString(), Mockito.eq(Include.NON_DELETED));
+
+    // The cached decision is returned without reading the table
+    Mockito.clearInvocations(repository);
+    editDescription = new Authorization("bob", context.build(), MetadataOperation.EDIT_DESCRIPTION);
+    assertNotEquals("allowed", authorize(editDescription));
+    Mockito.verifyNoInteractions(repository);
+
+    // Writing the table with a new owner invalidates the decisions made on it
+    owner.set(userReference("bob"));
+    EntityDAO.invalidateCaches(tableId);
+    editDescription = new Authorization("bob", context.build(), MetadataOperation.EDIT_DESCRIPTION);
+    assertEquals("allowed", authorize(editDescription));
+    Mockito.verify(repository).findOrNull(Mockito.eq(tableId), Mockito.anyString(), Mockito.eq(Include.NON_DELETED));
+  }
+
+  /** Authorizations repeated over a small set of users, resources, owners, and tags as seen from a UI session */
+  private static List<Authorization> getAuthorizations() {
+    Random random = new Random(0);
+    List<EntityReference> owners = new ArrayList<>();
+    owners.add(null);
+    USERS.forEach(user -> owners.add(new EntityReference().withType(Entity.USER).withName(user)));
+    owners.add(team.getEntityReference());
+
+    List<Authorization> authorizations = new ArrayList<>(AUTHORIZATIONS);
+    for (int i = 0; i < AUTHORIZATIONS; i++) {
+      List<TagLabel> tags = new ArrayList<>();
+      TAGS.stream().filter(tag -> random.nextInt(3) == 0).forEach(tag -> tags.add(new TagLabel().withTagFQN(tag)));
+      ResourceContextInterface resourceContext =
+          new TestResourceContext(
+              RESOURCES.get(random.nextInt(RESOURCES.size())), owners.get(random.nextInt(owners.size())), tags);
+      authorizations.add(
+          new Authorization(
+              USERS.get(random.nextInt(USERS.size())),
+              resourceContext,
+              OPERATIONS.get(random.nextInt(OPERATIONS.size())),
+              OPERATIONS.get(random.nextInt(OPERATIONS.size()))));
+    }
+    return authorizations;
+  }
+
+  private static EntityReference userReference(String name) {
+    return SubjectCache.getInstance().getSubjectContext(name).getUser().getEntityReference();
+  }
+
+  private static List<String> authorize(List<Authorization> authorizations) throws IOException {
+    List<String> decisions = new ArrayList<>(authorizations.size());
+    for (Authorization authorization : authorizations) {
+      decisions.add(authorize(authorization));
+    }
+    return decisions;
+  }
+
+  private static String authorize(Authorization authorization) throws IOException {
+    SubjectContext subjectContext = SubjectCache.getInstance().getSubjectContext(authorization.user);
+    OperationContext operationContext =
+        new OperationContext(authorization.resource.getResource(), authorization.operations);
+    try {
+      PolicyEvaluator.hasPermission(subjectContext, authorization.resource, operationContext);
+      assertTrue(operationContext.getOperations().isEmpty());
+      return "allowed";
+    } catch (AuthorizationException e) {
+      return e.getMessage();
+    }
+  }
+
+  private static Rule rule(
+      String name, Effect effect, String resource, String condition, MetadataOperation... operations) {
+    return new Rule()
+        .withName(name)
+        .withEffect(effect)
+        .withResources(List.of(resource))
+        .withOperations(List.of(operations))
+        .withCondition(condition);
+  }
+
+  private static Policy createPolicy(String name, Rule... rules) {
+    Policy policy = new Policy().withName(name).withId(UUID.randomUUID()).withRules(List.of(rules));
+    PolicyCache.POLICY_CACHE.put(policy.getId(), PolicyCache.getInstance().getRules(policy));
+    return policy;
+  }
+
+  private static Role createRole(String name, Policy policy) {
+    Role role = new Role().withName(name).withId(UUID.randomUUID()).withPolicies(List.of(policy.getEntityReference()));
+    RoleCache.ROLE_CACHE.put(role.getId(), role);
+    return role;
+  }
+
+  private static void putUser(String name, List<Role> roles, List<Team> teams) {
+    User user =
+        new User()
+            .withName(name)
+            .withId(UUID.randomUUID())
+            .withRoles(toEntityReferences(roles))
+            .withTeams(toEntityReferences(teams));
+    SubjectCache.USER_CACHE.put(name, new SubjectContext(user));
+  }
+
+  private static <T extends EntityInterface> List<EntityReference> toEntityReferences(List<T> entities) {
+    List<EntityReference> references = new ArrayList<>();
+    for (T entity : entities) {
+      references.add(entity.getEntityReference());
+    }
+    return references;
+  }
+
+  static class Authorization {
+    private final String user;
+    private final ResourceContextInterface resource;
+    private final MetadataOperation[] operations;
+
+    Authorization(String user, ResourceContextInterface resource, MetadataOperation... operations) {
+      this.user = user;
+      this.resource = resource;
+      this.operations = operations;
+    }
+  }
+
+  static class TestResourceContext implements ResourceContextInterface {
+    private final String resource;
+    private final EntityReference owner;
+    private final List<TagLabel> tags;
+
+    TestResourceContext(String resource, EntityReference owner, List<TagLabel> tags) {
+      this.resource = resource;
+      this.owner = owner;
+      this.tags = tags;
+    }
+
+    @Override
+    public String getResource() {
+      return resource;
+    }
+
+    @Override
+    public EntityReference getOwner() {
+      return owner;
+    }
+
+    @Override
+    public List<TagLabel> getTags() {
+      return tags;
+    }
+
+    @Override
+    public EntityInterface getEntity() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package org.openmetadata.service.socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.socket.engineio.server.EngineIoServerOptions;
+import io.socket.socketio.server.SocketIoSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests the fan-out of the activity feed notifications with simulated socket.io clients */
+@Slf4j
+class WebSocketManagerTest {
+  private static final String CHANNEL = WebSocketManager.FEED_BROADCAST_CHANNEL;
+  private WebSocketManager manager;
+
+  @AfterEach
+  void tearDown() {
+    manager.stop();
+  }
+
+  @Test
+  void test_broadcastToThousandsOfClients() throws Exception {
+    manager = manager(4, 100, 0);
+    int users = 5000;
+    int messages = 20;
+    List<Client> clients = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      clients.add(connect(UUID.randomUUID()));
+    }
+    assertEquals(users, manager.getConnectedSessionCount());
+
+    // Broadcasting only queues the messages, and the caller does not wait for the clients
+    long start = System.nanoTime();
+    for (int i = 0; i < messages; i++) {
+      manager.broadCastMessageToAll(CHANNEL, "message" + i);
+    }
+    long enqueued = System.nanoTime() - start;
+    Awaitility.await()
+        .atMost(Duration.ofSeconds(60))
+        .until(() -> clients.stream().allMatch(c -> c.received.size() == messages));
+    long delivered = System.nanoTime() - start;
+    LOG.info(
+        "Broadcast {} messages to {} clients, enqueued in {} ms, delivered in {} ms",
+        messages,
+        users,
+        TimeUnit.NANOSECONDS.toMillis(enqueued),
+        TimeUnit.NANOSECONDS.toMillis(delivered));
+
+    // Every client receives the messages in order
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < messages; i++) {
+      expected.add("message" + i);
+    }
+    clients.forEach(c -> assertEquals(expected, c.received));
+    assertEquals(0, manager.getQueueDepth());
+    assertEquals(0, manager.getDroppedMessageCount());
+  }
+
+  @Test
+  void test_slowClientDropsOldestMessages() throws Exception {
+    manager = manager(2, 5, 0);
+    CountDownLatch unblock = new CountDownLatch(1);
+    Client slow = connect(UUID.randomUUID(), unblock);
+    Client fast = connect(UUID.randomUUID());
+
+    // The slow client blocks a fan-out thread while receiving the first message
+    manager.broadCastMessageToAll(CHANNEL, "message0");
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> slow.sending);
+
+    // The other clients keep receiving their messages
+    for (int i = 1; i <= 20; i++) {
+      manager.broadCastMessageToAll(CHANNEL, "message" + i);
+      int count = i + 1;
+      Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> fast.received.size() == count);
+    }
+    assertEquals(5, manager.getQueueDepth());
+    assertEquals(15, manager.getDroppedMessageCount());
+
+    // The slow client receives the latest messages once it catches up
+    unblock.countDown();
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> slow.received.size() == 6);
+    assertEquals(List.of("message0", "message16", "message17", "message18", "message19", "message20"), slow.received);
+    assertEquals(0, manager.getQueueDepth());
+  }
+
+  @Test
+  void test_coalesceMessagesAboutTheSameThread() throws Exception {
+    manager = manager(2, 100, 200);
+    UUID user = UUID.randomUUID();
+    Client client = connect(user);
+    for (int i = 0; i < 10; i++) {
+      manager.sendToOne(user, CHANNEL, "thread1-update" + i, "thread1");
+    }
+    manager.sendToOne(user, CHANNEL, "thread2-update0", "thread2");
+    manager.sendToOne(user, WebSocketManager.MENTION_CHANNEL, "thread1-mention", "thread1");
+
+    // Only the latest message about a thread is sent on each channel, in the order of the first message
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> client.received.size() == 3);
+    assertEquals(List.of("thread1-update9", "thread2-update0", "thread1-mention"), client.received);
+    assertEquals(9, manager.getCoalescedMessageCount());
+
+    // A message after the previous one is sent is not coalesced with it
+    manager.sendToOne(user, CHANNEL, "thread1-update10", "thread1");
+    Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> client.received.size() == 4);
+    assertEquals("thread1-update10", client.received.get(3));
+  }
+
+  @Test
+  void test_concurrentConnectAndDisconnect() throws Exception {
+    manager = manager(2, 100, 0);
+    UUID user = UUID.randomUUID();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Client> clients = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 1000; i++) {
+      executor.execute(() -> clients.add(connect(user)));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(1000, manager.getConnectedSessionCount());
+    assertEquals(1000, manager.getActivityFeedEndpoints().get(user).size());
+
+    executor = Executors.newFixedThreadPool(8);
+    for (Client client : clients) {
+      executor.execute(() -> manager.removeSocket(user, client.socket));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(0, manager.getConnectedSessionCount());
+    assertFalse(manager.getActivityFeedEndpoints().containsKey(user));
+
+    // Messages to a user without sockets are not queued
+    manager.sendToOne(user, CHANNEL, "message");
+    assertEquals(0, manager.getQueueDepth());
+  }
+
+  private WebSocketManager manager(int fanOutThreads, int maxQueuedMessagesPerUser, long coalesceWindowInMillis) {
+    WebSocketConfiguration config = new WebSocketConfiguration();
+    config.setFanOutThreads(fanOutThreads);
+    config.setMaxQueuedMessagesPerUser(maxQueuedMessagesPerUser);
+    config.setCoalesceWindowInMillis(coalesceWindowInMillis);
+    return new WebSocketManager(EngineIoServerOptions.newFromDefault(), config, new SimpleMeterRegistry());
+  }
+
+  private Client connect(UUID user) {
+    return connect(user, null);
+  }
+
+  private Client connect(UUID user, CountDownLatch unblock) {
+    Client client = new Client(unblock);
+    manager.addSocket(user, client.socket);
+    return client;
+  }
+
+  /** Socket.io client simulated with a socket that records the messages sent to it */
+  private static class Client {
+    private final String id = UUID.randomUUID().toString();
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final SocketIoSocket socket;
+    private volatile boolean sending;
+
+    Client(CountDownLatch unblock) {
+      socket =
+          mock(
+              SocketIoSocket.class,
+              withSettings()
+                  .stubOnly()
+                  .defaultAnswer(
+                      invocation -> {
+                        String method = invocation.getMethod().getName();
+                        if (method.equals("getId")) {
+                          return id;
+                        } else if (method.equals("send")) {
+                          sending = true;
+                          if (unblock != null) {
+                            unblock.await();
+                          }
+                          received.add(invocation.getArgument(1));
+                        }
+                        return null;
+                      }));
+    }
+  }
+}
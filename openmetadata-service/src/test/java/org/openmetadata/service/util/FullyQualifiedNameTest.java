@@ -1,13 +1,36 @@
 package org.openmetadata.service.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.junit.jupiter.api.Test;
+import org.openmetadata.schema.FqnBaseListener;
+import org.openmetadata.schema.FqnLexer;
+import org.openmetadata.schema.FqnParser;
+import org.openmetadata.schema.FqnParser.QuotedNameContext;
+import org.openmetadata.schema.FqnParser.UnquotedNameContext;
 
+@Slf4j
 class FullyQualifiedNameTest {
+  // Characters used to generate random names, including the ones reserved by Fqn.g4 and line terminators
+  private static final char[] ALPHABET = {'a', 'b', 'Z', '1', '_', ' ', '-', 'é', '.', '.', '"', '"', '\n', '\r'};
+  private static final Pattern NAME_PATTERN = Pattern.compile("^(\")([^\"]+)(\")$|^(.*)$");
+
   private static class FQNTest {
     private final String[] parts;
     private final String fqn;
@@ -79,4 +102,160 @@ class FullyQualifiedNameTest {
   void test_invalid() {
     assertThrows(ParseCancellationException.class, () -> FullyQualifiedName.split("a\""));
   }
+
+  @Test
+  void test_splitMatchesGrammar() {
+    Random random = new Random(0);
+    for (int i = 0; i < 50000; i++) {
+      String fqn = random.nextBoolean() ? randomString(random, 12) : randomFqn(random);
+      assertSameResult(fqn, FullyQualifiedNameTest::antlrSplit, FullyQualifiedName::split);
+    }
+  }
+
+  @Test
+  void test_quoteAndUnquoteMatchPattern() {
+    Random random = new Random(0);
+    for (int i = 0; i < 50000; i++) {
+      String name = randomString(random, 8);
+      if (random.nextInt(4) == 0) {
+        name = "\"" + name + "\"";
+      }
+      assertSameResult(name, FullyQualifiedNameTest::patternQuoteName, FullyQualifiedName::quoteName);
+      assertSameResult(name, FullyQualifiedNameTest::patternUnquoteName, FullyQualifiedName::unquoteName);
+    }
+  }
+
+  @Test
+  void test_splitCache() {
+    FullyQualifiedName.enableSplitCache(10);
+    try {
+      String[] first = FullyQualifiedName.split("a.\"b.c\".d");
+      first[0] = "changed"; // Callers changing the returned array don't change the cached split
+      String[] second = FullyQualifiedName.split("a.\"b.c\".d");
+      assertNotSame(first, second);
+      assertArrayEquals(new String[] {"a", "\"b.c\"", "d"}, second);
+      assertThrows(ParseCancellationException.class, () -> FullyQualifiedName.split("a.\"b"));
+    } finally {
+      FullyQualifiedName.disableSplitCache();
+    }
+  }
+
+  @Test
+  void test_splitBenchmark() {
+    Random random = new Random(0);
+    List<String> fqns = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      fqns.add(FullyQualifiedName.build("service", "db" + i % 10, "schema", "table" + i, "col." + random.nextInt()));
+    }
+    int iterations = 100;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      fqns.forEach(FullyQualifiedNameTest::antlrSplit);
+    }
+    long antlrNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      fqns.forEach(FullyQualifiedName::split);
+    }
+    long splitNanos = System.nanoTime() - start;
+
+    FullyQualifiedName.enableSplitCache(fqns.size());
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      fqns.forEach(FullyQualifiedName::split);
+    }
+    long cachedNanos = System.nanoTime() - start;
+    FullyQualifiedName.disableSplitCache();
+    LOG.info(
+        "Splitting {} FQNs took {} ms with ANTLR, {} ms with the splitter and {} ms with the split cache",
+        iterations * fqns.size(),
+        TimeUnit.NANOSECONDS.toMillis(antlrNanos),
+        TimeUnit.NANOSECONDS.toMillis(splitNanos),
+        TimeUnit.NANOSECONDS.toMillis(cachedNanos));
+  }
+
+  /** Both functions return the same result or both throw the same type of exception */
+  private static <T> void assertSameResult(String input, Function<String, T> expected, Function<String, T> actual) {
+    T expectedResult;
+    try {
+      expectedResult = expected.apply(input);
+    } catch (RuntimeException e) {
+      assertThrows(e.getClass(), () -> actual.apply(input), input);
+      return;
+    }
+    T actualResult = actual.apply(input);
+    if (expectedResult instanceof String[]) {
+      assertArrayEquals((String[]) expectedResult, (String[]) actualResult, input);
+    } else {
+      assertEquals(expectedResult, actualResult, input);
+    }
+  }
+
+  private static String randomString(Random random, int maxLength) {
+    StringBuilder builder = new StringBuilder();
+    int length = random.nextInt(maxLength + 1);
+    for (int i = 0; i < length; i++) {
+      builder.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+    }
+    return builder.toString();
+  }
+
+  /** Random FQN built from quoted and unquoted names, which is mostly valid */
+  private static String randomFqn(Random random) {
+    List<String> names = new ArrayList<>();
+    int count = 1 + random.nextInt(6);
+    for (int i = 0; i < count; i++) {
+      String name = randomString(random, 10).replace("\"", "");
+      names.add(random.nextBoolean() ? "\"" + name + "\"" : name.replace(".", ""));
+    }
+    return String.join(".", names);
+  }
+
+  /** Split using the ANTLR grammar in Fqn.g4 */
+  private static String[] antlrSplit(String string) {
+    List<String> list = new ArrayList<>();
+    FqnLexer fqnLexer = new FqnLexer(CharStreams.fromString(string));
+    fqnLexer.removeErrorListeners();
+    FqnParser fqnParser = new FqnParser(new CommonTokenStream(fqnLexer));
+    fqnParser.setErrorHandler(new BailErrorStrategy());
+    FqnBaseListener listener =
+        new FqnBaseListener() {
+          @Override
+          public void enterQuotedName(QuotedNameContext ctx) {
+            list.add(ctx.getText());
+          }
+
+          @Override
+          public void enterUnquotedName(UnquotedNameContext ctx) {
+            list.add(ctx.getText());
+          }
+        };
+    new ParseTreeWalker().walk(listener, fqnParser.fqn());
+    return list.toArray(new String[0]);
+  }
+
+  private static String patternQuoteName(String name) {
+    Matcher matcher = NAME_PATTERN.matcher(name);
+    if (!matcher.find() || matcher.end() != name.length()) {
+      throw new IllegalArgumentException(name);
+    }
+    if (matcher.group(1) != null) {
+      String unquotedName = matcher.group(2);
+      return unquotedName.contains(".") ? name : unquotedName;
+    }
+    String unquotedName = matcher.group(4);
+    if (!unquotedName.contains("\"")) {
+      return unquotedName.contains(".") ? "\"" + name + "\"" : unquotedName;
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  private static String patternUnquoteName(String name) {
+    Matcher matcher = NAME_PATTERN.matcher(name);
+    if (!matcher.find() || matcher.end() != name.length()) {
+      throw new IllegalArgumentException(name);
+    }
+    return matcher.group(1) != null ? matcher.group(2) : name;
+  }
 }